@@ -26,7 +26,6 @@ import android.content.res.Configuration
 import android.os.Bundle
 import android.os.IBinder
 import android.os.RemoteException
-import android.util.Log
 import android.view.*
 import android.widget.AdapterView
 import android.widget.AdapterView.OnItemClickListener
@@ -41,12 +40,15 @@ import androidx.lifecycle.lifecycleScope
 import edu.berkeley.boinc.adapter.NavDrawerListAdapter
 import edu.berkeley.boinc.adapter.NavDrawerListAdapter.NavDrawerItem
 import edu.berkeley.boinc.attach.SelectionListActivity
+import edu.berkeley.boinc.client.ClientChange
 import edu.berkeley.boinc.client.ClientStatus
 import edu.berkeley.boinc.client.IMonitor
 import edu.berkeley.boinc.client.Monitor
+import edu.berkeley.boinc.client.MonitorEvents
 import edu.berkeley.boinc.databinding.MainBinding
 import edu.berkeley.boinc.ui.eventlog.EventLogActivity
 import edu.berkeley.boinc.utils.*
+import edu.berkeley.boinc.utils.Log
 import kotlinx.coroutines.launch
 
 class BOINCActivity : AppCompatActivity() {
@@ -68,6 +70,7 @@ class BOINCActivity : AppCompatActivity() {
             // the Monitor object that is needed to call functions.
             monitor = IMonitor.Stub.asInterface(service)
             mIsBound = true
+            MonitorEvents.attach(monitor!!)
             determineStatus()
         }
 
@@ -75,18 +78,16 @@ class BOINCActivity : AppCompatActivity() {
             // This should not happen
             monitor = null
             mIsBound = false
+            MonitorEvents.detach()
             Log.e(Logging.TAG, "BOINCActivity onServiceDisconnected")
         }
     }
-    private val mClientStatusChangeRec: BroadcastReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            if (Logging.VERBOSE) {
-                Log.d(Logging.TAG, "BOINCActivity ClientStatusChange - onReceive()")
-            }
-            determineStatus()
+    private val clientStatusObserver = MonitorEvents.Observer {
+        if (Logging.VERBOSE) {
+            Log.d(Logging.TAG, "BOINCActivity onClientStatusChanged()")
         }
+        determineStatus()
     }
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
 
     public override fun onCreate(savedInstanceState: Bundle?) {
         if (Logging.DEBUG) {
@@ -193,7 +194,7 @@ class BOINCActivity : AppCompatActivity() {
 
     override fun onResume() { // gets called by system every time activity comes to front. after onCreate upon first creation
         super.onResume()
-        registerReceiver(mClientStatusChangeRec, ifcsc)
+        MonitorEvents.observe(ClientChange.STATUS or ClientChange.PROJECTS or ClientChange.SETUP, clientStatusObserver)
         determineStatus()
     }
 
@@ -202,7 +203,7 @@ class BOINCActivity : AppCompatActivity() {
             Log.v(Logging.TAG, "BOINCActivity onPause()")
         }
         super.onPause()
-        unregisterReceiver(mClientStatusChangeRec)
+        MonitorEvents.remove(clientStatusObserver)
     }
 
     private fun doBindService() {
@@ -215,6 +216,7 @@ class BOINCActivity : AppCompatActivity() {
     private fun doUnbindService() {
         if (mIsBound) {
             // Detach existing connection.
+            MonitorEvents.detach()
             unbindService(mConnection)
             mIsBound = false
         }
@@ -25,10 +25,12 @@ import androidx.multidex.MultiDexApplication
 import androidx.preference.PreferenceManager
 import edu.berkeley.boinc.di.AppComponent
 import edu.berkeley.boinc.di.DaggerAppComponent
+import edu.berkeley.boinc.utils.Tracing
 import edu.berkeley.boinc.utils.setAppTheme
 
 open class BOINCApplication : MultiDexApplication() {
     override fun onCreate() {
+        val start = Tracing.begin()
         super.onCreate()
 
         val sharedPreferences = PreferenceManager.getDefaultSharedPreferences(this)
@@ -50,10 +52,11 @@ open class BOINCApplication : MultiDexApplication() {
             noticeChannel.description = getString(R.string.notice_notification_channel_description)
             notificationManager.createNotificationChannel(noticeChannel)
         }
+        Tracing.end("BOINCApplication.onCreate", start)
     }
 
     val appComponent: AppComponent by lazy {
-        DaggerAppComponent.factory().create(applicationContext)
+        Tracing.trace("BOINCApplication.appComponent") { DaggerAppComponent.factory().create(applicationContext) }
     }
 
     // Override in tests.
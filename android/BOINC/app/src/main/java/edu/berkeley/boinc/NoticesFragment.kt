@@ -18,40 +18,31 @@
  */
 package edu.berkeley.boinc
 
-import android.content.BroadcastReceiver
-import android.content.Context
-import android.content.Intent
-import android.content.IntentFilter
 import android.os.Bundle
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.fragment.app.Fragment
 import androidx.recyclerview.widget.LinearLayoutManager
 import edu.berkeley.boinc.adapter.NoticesRecyclerViewAdapter
+import edu.berkeley.boinc.client.ClientChange
+import edu.berkeley.boinc.client.MonitorEvents
 import edu.berkeley.boinc.databinding.NoticesLayoutBinding
 import edu.berkeley.boinc.rpc.Notice
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 
 class NoticesFragment : Fragment() {
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
-    private val mClientStatusChangeRec = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            if (Logging.VERBOSE) {
-                Log.d(Logging.TAG, "NoticesFragment ClientStatusChange - onReceive()")
-            }
-
-            // data retrieval
-            val notices = updateNotices()
-            data.clear()
-            data.addAll(notices)
-            noticesRecyclerViewAdapter.notifyDataSetChanged()
+    private val clientStatusObserver = MonitorEvents.Observer {
+        if (Logging.VERBOSE) {
+            Log.d(Logging.TAG, "NoticesFragment onClientStatusChanged()")
         }
+
+        // data retrieval, the adapter shows the changes only
+        noticesRecyclerViewAdapter.submitList(updateNotices())
     }
 
     private lateinit var noticesRecyclerViewAdapter: NoticesRecyclerViewAdapter
-    private var data: MutableList<Notice> = ArrayList()
 
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
         if (Logging.VERBOSE) {
@@ -59,7 +50,7 @@ class NoticesFragment : Fragment() {
         }
         val binding = NoticesLayoutBinding.inflate(inflater, container, false)
 
-        noticesRecyclerViewAdapter = NoticesRecyclerViewAdapter(this, data)
+        noticesRecyclerViewAdapter = NoticesRecyclerViewAdapter(this)
         binding.noticesList.adapter = noticesRecyclerViewAdapter
         binding.noticesList.layoutManager = LinearLayoutManager(context)
         return binding.root
@@ -69,7 +60,8 @@ class NoticesFragment : Fragment() {
         if (Logging.DEBUG) {
             Log.d(Logging.TAG, "NoticesFragment onResume()")
         }
-        activity?.registerReceiver(mClientStatusChangeRec, ifcsc)
+        MonitorEvents.observe(ClientChange.NOTICES, clientStatusObserver)
+        noticesRecyclerViewAdapter.submitList(updateNotices())
 
         // clear notice notification
         try {
@@ -83,11 +75,10 @@ class NoticesFragment : Fragment() {
     }
 
     override fun onPause() {
-        //unregister receiver, so there are not multiple intents flying in
         if (Logging.DEBUG) {
-            Log.d(Logging.TAG, "NoticesFragment remove receiver")
+            Log.d(Logging.TAG, "NoticesFragment remove observer")
         }
-        activity?.unregisterReceiver(mClientStatusChangeRec)
+        MonitorEvents.remove(clientStatusObserver)
         super.onPause()
     }
 
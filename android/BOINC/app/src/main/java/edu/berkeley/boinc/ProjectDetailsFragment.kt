@@ -20,16 +20,13 @@ package edu.berkeley.boinc
 
 import android.app.Activity
 import android.app.Dialog
-import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
-import android.content.IntentFilter
 import android.graphics.Point
 import android.os.Bundle
 import android.os.RemoteException
 import android.text.SpannableString
 import android.text.style.UnderlineSpan
-import android.util.Log
 import android.view.*
 import android.widget.Button
 import android.widget.TextView
@@ -37,12 +34,15 @@ import androidx.core.graphics.scale
 import androidx.core.net.toUri
 import androidx.fragment.app.Fragment
 import androidx.lifecycle.lifecycleScope
+import edu.berkeley.boinc.client.ClientChange
+import edu.berkeley.boinc.client.MonitorEvents
 import edu.berkeley.boinc.databinding.ProjectDetailsLayoutBinding
 import edu.berkeley.boinc.databinding.ProjectDetailsSlideshowImageLayoutBinding
 import edu.berkeley.boinc.rpc.ImageWrapper
 import edu.berkeley.boinc.rpc.Project
 import edu.berkeley.boinc.rpc.ProjectInfo
 import edu.berkeley.boinc.rpc.RpcClient
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import kotlinx.coroutines.*
 import java.util.*
@@ -86,20 +86,10 @@ class ProjectDetailsFragment : Fragment() {
             }
         }
 
-    // BroadcastReceiver event is used to update the UI with updated information from
-    // the client.  This is generally called once a second.
+    // observer is used to update the UI with updated information from
+    // the client, whenever projects change.
     //
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
-    private val mClientStatusChangeRec: BroadcastReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            currentProjectData
-            if (retryLayout) {
-                populateLayout()
-            } else {
-                updateChangingItems()
-            }
-        }
-    }
+    private val clientStatusObserver = MonitorEvents.Observer { refresh() }
 
     override fun onCreate(savedInstanceState: Bundle?) {
         // get data
@@ -134,13 +124,23 @@ class ProjectDetailsFragment : Fragment() {
     }
 
     override fun onPause() {
-        activity?.unregisterReceiver(mClientStatusChangeRec)
+        MonitorEvents.remove(clientStatusObserver)
         super.onPause()
     }
 
     override fun onResume() {
         super.onResume()
-        activity?.registerReceiver(mClientStatusChangeRec, ifcsc)
+        MonitorEvents.observe(ClientChange.PROJECTS, clientStatusObserver)
+        refresh()
+    }
+
+    private fun refresh() {
+        currentProjectData
+        if (retryLayout) {
+            populateLayout()
+        } else {
+            updateChangingItems()
+        }
     }
 
     override fun onCreateOptionsMenu(menu: Menu, inflater: MenuInflater) {
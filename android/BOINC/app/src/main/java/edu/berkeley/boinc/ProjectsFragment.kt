@@ -19,13 +19,9 @@
 package edu.berkeley.boinc
 
 import android.app.Dialog
-import android.content.BroadcastReceiver
-import android.content.Context
 import android.content.Intent
-import android.content.IntentFilter
 import android.os.Bundle
 import android.os.RemoteException
-import android.util.Log
 import android.view.*
 import androidx.core.net.toUri
 import androidx.fragment.app.Fragment
@@ -33,14 +29,21 @@ import androidx.lifecycle.lifecycleScope
 import edu.berkeley.boinc.adapter.ProjectControlsListAdapter
 import edu.berkeley.boinc.adapter.ProjectsListAdapter
 import edu.berkeley.boinc.attach.ManualUrlInputFragment
+import edu.berkeley.boinc.client.ClientChange
+import edu.berkeley.boinc.client.MonitorEvents
+import edu.berkeley.boinc.client.ProjectRow
 import edu.berkeley.boinc.databinding.DialogConfirmBinding
 import edu.berkeley.boinc.databinding.DialogListBinding
 import edu.berkeley.boinc.databinding.ProjectsLayoutBinding
 import edu.berkeley.boinc.rpc.*
 import edu.berkeley.boinc.utils.ERR_OK
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
+import edu.berkeley.boinc.utils.showWhileStatusStale
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.util.*
@@ -48,19 +51,17 @@ import java.util.*
 class ProjectsFragment : Fragment() {
     private lateinit var listAdapter: ProjectsListAdapter
     private val data: MutableList<ProjectsListData> = ArrayList()
+    private var staleStatus: View? = null
+    // shows the back-off countdown of projects while resumed, see onResume()
+    private var backoffTicker: Job? = null
 
     // controls popup dialog
     var dialogControls: Dialog? = null
 
-    // BroadcastReceiver event is used to update the UI with updated information from
-    // the client.  This is generally called once a second.
+    // observer is used to update the UI with updated information from
+    // the client, whenever projects or their transfers, notices or account manager change.
     //
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
-    private val mClientStatusChangeRec: BroadcastReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            populateLayout()
-        }
-    }
+    private val clientStatusObserver = MonitorEvents.Observer { populateLayout() }
 
     override fun onCreate(savedInstanceState: Bundle?) {
         setHasOptionsMenu(true) // enables fragment specific menu
@@ -74,6 +75,7 @@ class ProjectsFragment : Fragment() {
         // Inflate the layout for this fragment
         val binding = ProjectsLayoutBinding.inflate(inflater, container, false)
         listAdapter = ProjectsListAdapter(activity, binding.projectsList, R.id.projects_list, data)
+        staleStatus = binding.staleStatus
         return binding.root
     }
 
@@ -81,7 +83,8 @@ class ProjectsFragment : Fragment() {
         if (Logging.VERBOSE) {
             Log.d(Logging.TAG, "ProjectsFragment onPause()")
         }
-        requireActivity().unregisterReceiver(mClientStatusChangeRec)
+        MonitorEvents.remove(clientStatusObserver)
+        backoffTicker?.cancel()
         super.onPause()
     }
 
@@ -91,7 +94,18 @@ class ProjectsFragment : Fragment() {
         }
         super.onResume()
         populateLayout()
-        requireActivity().registerReceiver(mClientStatusChangeRec, ifcsc)
+        MonitorEvents.observe(ClientChange.PROJECTS or ClientChange.TRANSFERS or ClientChange.NOTICES or
+                ClientChange.ACCT_MGR, clientStatusObserver)
+        // the countdown is not part of the project rows, it changes without a change of the status
+        backoffTicker = lifecycleScope.launch {
+            while (true) {
+                delay(BACKOFF_TICK_MS)
+                val now = System.currentTimeMillis() / 1000.0
+                if (data.any { !it.isMgr && it.project!!.minRPCTime > now - 1 }) {
+                    listAdapter.notifyDataSetChanged()
+                }
+            }
+        }
     }
 
     override fun onCreateOptionsMenu(menu: Menu, inflater: MenuInflater) {
@@ -115,20 +129,17 @@ class ProjectsFragment : Fragment() {
     }
 
     private fun populateLayout() {
+        staleStatus?.showWhileStatusStale()
         try {
-            // read projects from state saved in ClientStatus
-            val statusProjects = BOINCActivity.monitor!!.projects
+            // read project rows from state saved in ClientStatus, with transfers, latest server notice
+            // and status of each project
+            val statusRows = BOINCActivity.monitor!!.projectRows
             val statusAcctMgr = BOINCActivity.monitor!!.clientAcctMgrInfo
-            val statusTransfers = BOINCActivity.monitor!!.transfers
-
-            // get server / scheduler notices to display if device does not meet
-            val serverNotices = BOINCActivity.monitor!!.serverNotices
-
-            // Update Project data
-            updateData(statusProjects, statusAcctMgr, serverNotices, statusTransfers)
 
-            // Force list adapter to refresh
-            listAdapter.notifyDataSetChanged()
+            // Update Project data, refresh list adapter only if anything shown changed
+            if (updateData(statusRows, statusAcctMgr)) {
+                listAdapter.notifyDataSetChanged()
+            }
         } catch (e: Exception) {
             // data retrieval failed, set layout to loading...
             if (Logging.ERROR) {
@@ -137,8 +148,14 @@ class ProjectsFragment : Fragment() {
         }
     }
 
-    private fun updateData(latestRpcProjectsList: List<Project>, acctMgrInfo: AcctMgrInfo,
-                           serverNotices: List<Notice>?, ongoingTransfers: List<Transfer>) {
+    /**
+     * Reconciles the list entries with the given status, entries of projects are keyed by master URL.
+     *
+     * @return true if entries were added, removed or changed, i.e. the list has to be shown again
+     */
+    private fun updateData(projectRows: List<ProjectRow>, acctMgrInfo: AcctMgrInfo): Boolean {
+        var changed = false
+
         // ACCOUNT MANAGER
         //loop through list adapter array to find index of account manager entry (0 || 1 manager possible)
         val mgrIndex = data.indexOfFirst { it.isMgr }
@@ -150,6 +167,7 @@ class ProjectsFragment : Fragment() {
             if (acctMgrInfo.isPresent) {
                 // add new manager entry, at top of the list
                 data.add(ProjectsListData(null, acctMgrInfo, null))
+                changed = true
                 if (Logging.DEBUG) {
                     Log.d(Logging.TAG, "New acct mgr found: " + acctMgrInfo.acctMgrName)
                 }
@@ -161,6 +179,7 @@ class ProjectsFragment : Fragment() {
             if (!acctMgrInfo.isPresent) {
                 // manager got detached, remove from list
                 data.removeAt(mgrIndex)
+                changed = true
                 if (Logging.DEBUG) {
                     Log.d(Logging.TAG, "Acct mgr removed from list.")
                 }
@@ -168,71 +187,42 @@ class ProjectsFragment : Fragment() {
         }
 
         // ATTACHED PROJECTS
-        //loop through all received Result items to add new projects
-        for (rpcResult in latestRpcProjectsList) {
-            //check whether this project is new
-            val index = data.indexOfFirst { it.id == rpcResult.masterURL }
-            if (index < 0) { // Project is new, add
+        val entries = HashMap<String?, ProjectsListData>(data.size)
+        for (entry in data) {
+            if (!entry.isMgr) {
+                entries[entry.id] = entry
+            }
+        }
+        val masterUrls = HashSet<String>(projectRows.size)
+        //loop through all received rows to add new projects
+        for (row in projectRows) {
+            val rpcResult = row.project
+            masterUrls.add(rpcResult.masterURL)
+            val entry = entries[rpcResult.masterURL]
+            if (entry == null) { // Project is new, add
                 if (Logging.DEBUG) {
                     Log.d(Logging.TAG, "New project found, id: " + rpcResult.masterURL +
                             ", managed: " + rpcResult.attachedViaAcctMgr)
                 }
+                val newEntry = ProjectsListData(rpcResult, null, row.transfers)
+                newEntry.updateProjectData(row)
                 if (rpcResult.attachedViaAcctMgr) {
-                    data.add(ProjectsListData(rpcResult, null,
-                            mapTransfersToProject(rpcResult.masterURL,
-                                    ongoingTransfers))) // append to end of list (after manager)
+                    data.add(newEntry) // append to end of list (after manager)
                 } else {
-                    data.add(0, ProjectsListData(rpcResult, null,
-                            mapTransfersToProject(rpcResult.masterURL,
-                                    ongoingTransfers))) // put at top of list (before manager)
+                    data.add(0, newEntry) // put at top of list (before manager)
                 }
-            } else { // Project was present before, update its data
-                data[index].updateProjectData(rpcResult, null,
-                        mapTransfersToProject(rpcResult.masterURL,
-                                ongoingTransfers))
+                changed = true
+            } else if (entry.updateProjectData(row)) {
+                // Project was present before, its data changed
+                changed = true
             }
         }
 
         //loop through the list adapter to find removed (ready/aborted) projects
-        data.removeIf { !it.isMgr && latestRpcProjectsList.none { (masterURL) -> it.id == masterURL } }
-
-        // SERVER NOTICES
-        // loop through active projects to add/remove server notices
-        if (serverNotices != null) {
-            var mappedServerNotices = 0
-            for (project in data) {
-                if (project.isMgr) {
-                    continue  // do not seek notices in manager entries (crashes)
-                }
-                var noticeFound = false
-                for (serverNotice in serverNotices) {
-                    if (project.project!!.projectName == serverNotice.projectName) {
-                        project.addServerNotice(serverNotice)
-                        noticeFound = true
-                        mappedServerNotices++
-                    }
-                }
-                if (!noticeFound) {
-                    project.addServerNotice(null)
-                }
-            }
-            if (mappedServerNotices != serverNotices.size) {
-                if (Logging.WARNING) {
-                    Log.w(Logging.TAG, "could not match notice: " + mappedServerNotices + "/" + serverNotices.size)
-                }
-            }
+        if (data.removeIf { !it.isMgr && it.id !in masterUrls }) {
+            changed = true
         }
-    }
-
-    // takes list of all ongoing transfers and a project id (url) and returns transfer that belong to given project
-    private fun mapTransfersToProject(id: String, allTransfers: List<Transfer>): List<Transfer?> {
-        // project id matches url in transfer, add to list
-        val projectTransfers = allTransfers.filter { it.projectUrl == id }
-        if (Logging.VERBOSE) {
-            Log.d(Logging.TAG, "ProjectsActivity mapTransfersToProject() mapped " + projectTransfers.size +
-                    " transfers to project " + id)
-        }
-        return projectTransfers
+        return changed
     }
 
     // data wrapper for list view
@@ -243,6 +233,8 @@ class ProjectsFragment : Fragment() {
             var projectTransfers: List<Transfer?>?
     ) {
         var lastServerNotice: Notice? = null
+        var statusText = ""
+        private var row: ProjectRow? = null
         // == url
         @JvmField
         var id: String? = null
@@ -250,17 +242,21 @@ class ProjectsFragment : Fragment() {
         var isMgr = false
         private var listEntry = this
 
-        fun updateProjectData(data: Project?, acctMgrInfo: AcctMgrInfo?, projectTransfers: List<Transfer?>?) {
-            if (isMgr) {
-                this.acctMgrInfo = acctMgrInfo
-            } else {
-                project = data
-                this.projectTransfers = projectTransfers
+        /**
+         * Shows the given row of the project.
+         *
+         * @return true if anything shown changed
+         */
+        fun updateProjectData(row: ProjectRow): Boolean {
+            if (row == this.row) {
+                return false
             }
-        }
-
-        fun addServerNotice(notice: Notice?) {
-            lastServerNotice = notice
+            this.row = row
+            project = row.project
+            projectTransfers = row.transfers
+            lastServerNotice = row.serverNotice
+            statusText = row.statusText
+            return true
         }
 
         // handles onClick on list element, could be either project or account manager
@@ -451,5 +447,7 @@ class ProjectsFragment : Fragment() {
     companion object {
         // operation that do not imply an RPC are defined here
         const val VISIT_WEBSITE = 100
+
+        private const val BACKOFF_TICK_MS = 1000L
     }
 }
@@ -21,16 +21,14 @@ package edu.berkeley.boinc
 import android.content.SharedPreferences
 import android.os.Bundle
 import android.os.RemoteException
-import android.util.Log
 import androidx.core.content.edit
 import androidx.lifecycle.lifecycleScope
 import androidx.preference.*
 import edu.berkeley.boinc.rpc.GlobalPreferences
 import edu.berkeley.boinc.rpc.HostInfo
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import edu.berkeley.boinc.utils.setAppTheme
-import kotlinx.coroutines.async
-import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
 
 class SettingsFragment : PreferenceFragmentCompat(), SharedPreferences.OnSharedPreferenceChangeListener {
@@ -233,17 +231,12 @@ class SettingsFragment : PreferenceFragmentCompat(), SharedPreferences.OnSharedP
         findPreference<PreferenceCategory>("debug")?.isVisible = showAdvanced
     }
 
-    private suspend fun writeClientPrefs(prefs: GlobalPreferences) = coroutineScope {
-        val success = async {
-            return@async try {
-                BOINCActivity.monitor!!.setGlobalPreferences(prefs)
-            } catch (e: RemoteException) {
-                false
-            }
-        }
-
-        if (Logging.DEBUG) {
-            Log.d(Logging.TAG, "writeClientPrefs() async call returned: ${success.await()}")
+    // written by Monitor after a short delay, failures are logged there
+    private fun writeClientPrefs(prefs: GlobalPreferences) {
+        try {
+            BOINCActivity.monitor!!.setGlobalPreferences(prefs)
+        } catch (e: RemoteException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "writeClientPrefs() failed", e)
         }
     }
 }
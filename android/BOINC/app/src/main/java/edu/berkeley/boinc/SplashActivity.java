@@ -20,29 +20,29 @@ package edu.berkeley.boinc;
 
 import android.app.ActivityManager;
 import android.app.Service;
-import android.content.BroadcastReceiver;
 import android.content.ComponentName;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.ServiceConnection;
 import android.graphics.Bitmap;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.IBinder;
 import android.os.RemoteException;
-import android.util.Log;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import edu.berkeley.boinc.attach.SelectionListActivity;
+import edu.berkeley.boinc.client.ClientChange;
 import edu.berkeley.boinc.client.ClientStatus;
 import edu.berkeley.boinc.client.IMonitor;
 import edu.berkeley.boinc.client.Monitor;
+import edu.berkeley.boinc.client.MonitorEvents;
 import edu.berkeley.boinc.databinding.ActivitySplashBinding;
 import edu.berkeley.boinc.ui.eventlog.EventLogActivity;
 import edu.berkeley.boinc.utils.BOINCUtils;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
+import edu.berkeley.boinc.utils.Tracing;
 
 /**
  * Activity shown at start. Forwards to BOINCActivity automatically, once Monitor has connected to Client and received first data via RPCs.
@@ -56,6 +56,7 @@ public class SplashActivity extends AppCompatActivity {
     private ActivitySplashBinding binding;
 
     private boolean mIsBound = false;
+    private boolean statusChangeTraced = false;
     private static IMonitor monitor = null;
 
     private ServiceConnection mConnection = new ServiceConnection() {
@@ -64,6 +65,8 @@ public class SplashActivity extends AppCompatActivity {
             // This is called when the connection with the service has been established
             mIsBound = true;
             monitor = IMonitor.Stub.asInterface(service);
+            Tracing.instant("SplashActivity.monitorBound");
+            MonitorEvents.INSTANCE.attach(monitor);
             try {
                 // check whether BOINC was able to acquire mutex
                 if(!monitor.boincMutexAcquired()) {
@@ -82,13 +85,18 @@ public class SplashActivity extends AppCompatActivity {
             // This should not happen
             mIsBound = false;
             monitor = null;
+            MonitorEvents.INSTANCE.detach();
         }
     };
 
-    private BroadcastReceiver mClientStatusChangeRec = new BroadcastReceiver() {
+    private MonitorEvents.Observer clientStatusObserver = new MonitorEvents.Observer() {
         @Override
-        public void onReceive(Context context, Intent intent) {
+        public void onClientStatusChanged(int changes) {
             if(mIsBound) {
+                if(!statusChangeTraced) {
+                    Tracing.instant("SplashActivity.firstClientStatusChange");
+                    statusChangeTraced = true;
+                }
                 try {
                     int setupStatus = SplashActivity.monitor.getSetupStatus();
                     switch(setupStatus) {
@@ -123,16 +131,16 @@ public class SplashActivity extends AppCompatActivity {
                 }
                 catch(Exception e) {
                     if(Logging.ERROR) {
-                        Log.e(Logging.TAG, "SplashActivity.BroadcastReceiver.onReceive() error: ", e);
+                        Log.e(Logging.TAG, "SplashActivity.onClientStatusChanged() error: ", e);
                     }
                 }
             }
         }
     };
-    private IntentFilter ifcsc = new IntentFilter("edu.berkeley.boinc.clientstatuschange");
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Tracing.instant("SplashActivity.onCreate");
         super.onCreate(savedInstanceState);
         binding = ActivitySplashBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
@@ -171,7 +179,7 @@ public class SplashActivity extends AppCompatActivity {
             Log.d(Logging.TAG, "SplashActivity onResume()");
         }
         super.onResume();
-        registerReceiver(mClientStatusChangeRec, ifcsc);
+        MonitorEvents.INSTANCE.observe(ClientChange.ALL, clientStatusObserver);
     }
 
     @Override
@@ -180,7 +188,7 @@ public class SplashActivity extends AppCompatActivity {
             Log.d(Logging.TAG, "SplashActivity onPause()");
         }
         super.onPause();
-        unregisterReceiver(mClientStatusChangeRec);
+        MonitorEvents.INSTANCE.remove(clientStatusObserver);
     }
 
     @Override
@@ -202,6 +210,7 @@ public class SplashActivity extends AppCompatActivity {
     private void doUnbindService() {
         if(mIsBound) {
             // Detach existing connection.
+            MonitorEvents.INSTANCE.detach();
             unbindService(mConnection);
             mIsBound = false;
         }
@@ -18,13 +18,9 @@
  */
 package edu.berkeley.boinc
 
-import android.content.BroadcastReceiver
-import android.content.Context
 import android.content.Intent
-import android.content.IntentFilter
 import android.os.Bundle
 import android.os.RemoteException
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -34,8 +30,11 @@ import android.widget.TextView
 import androidx.fragment.app.Fragment
 import androidx.lifecycle.lifecycleScope
 import edu.berkeley.boinc.attach.SelectionListActivity
+import edu.berkeley.boinc.client.ClientChange
 import edu.berkeley.boinc.client.ClientStatus
+import edu.berkeley.boinc.client.MonitorEvents
 import edu.berkeley.boinc.utils.*
+import edu.berkeley.boinc.utils.Log
 import kotlinx.coroutines.launch
 
 class StatusFragment : Fragment() {
@@ -44,30 +43,28 @@ class StatusFragment : Fragment() {
     private var computingSuspendReason = -1
     private var networkSuspendReason = -1
     private var setupStatus = -1
-    private val mClientStatusChangeRec: BroadcastReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            if (Logging.VERBOSE) {
-                Log.d(Logging.TAG, "StatusFragment ClientStatusChange - onReceive()")
-            }
-            loadLayout()
+    private val clientStatusObserver = MonitorEvents.Observer {
+        if (Logging.VERBOSE) {
+            Log.d(Logging.TAG, "StatusFragment onClientStatusChanged()")
         }
+        loadLayout()
     }
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
+
     override fun onResume() {
-        //register noisy clientStatusChangeReceiver here, so only active when Activity is visible
+        //observe client status changes here, so only active when Activity is visible
         if (Logging.VERBOSE) {
-            Log.v(Logging.TAG, "StatusFragment register receiver")
+            Log.v(Logging.TAG, "StatusFragment observe client status")
         }
-        requireActivity().registerReceiver(mClientStatusChangeRec, ifcsc)
+        MonitorEvents.observe(ClientChange.STATUS or ClientChange.SETUP, clientStatusObserver)
         super.onResume()
+        loadLayout()
     }
 
     override fun onPause() {
-        //unregister receiver, so there are not multiple intents flying in
         if (Logging.VERBOSE) {
-            Log.v(Logging.TAG, "StatusFragment remove receiver")
+            Log.v(Logging.TAG, "StatusFragment remove observer")
         }
-        requireActivity().unregisterReceiver(mClientStatusChangeRec)
+        MonitorEvents.remove(clientStatusObserver)
         super.onPause()
     }
 
@@ -83,6 +80,7 @@ class StatusFragment : Fragment() {
         //load layout, if if ClientStatus can be accessed.
         //if this is not the case, the broadcast receiver will call "loadLayout" again
         try {
+            requireView().findViewById<TextView>(R.id.stale_status).showWhileStatusStale()
             val currentSetupStatus = BOINCActivity.monitor!!.setupStatus
             val currentComputingStatus = BOINCActivity.monitor!!.computingStatus
             val currentComputingSuspendReason = BOINCActivity.monitor!!.computingSuspendReason
@@ -176,6 +174,9 @@ class StatusFragment : Fragment() {
                         }
                         ClientStatus.COMPUTING_STATUS_COMPUTING -> statusWrapper.visibility = View.GONE
                     }
+                    if (computingStatus == -1) {
+                        Tracing.instant("StatusFragment.firstStatusRendered")
+                    }
                     //save new computing status
                     computingStatus = currentComputingStatus
                     computingSuspendReason = currentComputingSuspendReason
@@ -19,27 +19,28 @@
 package edu.berkeley.boinc
 
 import android.app.Dialog
-import android.content.BroadcastReceiver
-import android.content.Context
-import android.content.Intent
-import android.content.IntentFilter
 import android.os.Bundle
 import android.os.RemoteException
-import android.util.Log
-import android.view.LayoutInflater
-import android.view.View
-import android.view.ViewGroup
-import android.view.Window
+import android.view.*
+import androidx.appcompat.widget.SearchView
 import androidx.fragment.app.Fragment
 import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.LinearLayoutManager
+import edu.berkeley.boinc.adapter.TaskListItem
 import edu.berkeley.boinc.adapter.TaskRecyclerViewAdapter
+import edu.berkeley.boinc.adapter.TaskRowModel
+import edu.berkeley.boinc.client.ClientChange
+import edu.berkeley.boinc.client.MonitorEvents
+import edu.berkeley.boinc.client.TaskGroup
+import edu.berkeley.boinc.client.TaskQuery
 import edu.berkeley.boinc.databinding.DialogConfirmBinding
 import edu.berkeley.boinc.databinding.TasksLayoutBinding
 import edu.berkeley.boinc.rpc.Result
 import edu.berkeley.boinc.rpc.RpcClient
 import edu.berkeley.boinc.utils.*
+import edu.berkeley.boinc.utils.Log
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
@@ -47,16 +48,32 @@ import java.util.*
 
 class TasksFragment : Fragment() {
     private lateinit var recyclerViewAdapter: TaskRecyclerViewAdapter
-    private val data: MutableList<TaskData> = ArrayList()
-    private val mClientStatusChangeRec: BroadcastReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            if (Logging.VERBOSE) {
-                Log.d(Logging.TAG, "TasksActivity onReceive")
-            }
-            loadData()
+    private lateinit var rowModels: TaskRowModel.Cache
+    private var loadJob: Job? = null
+    private var staleStatus: View? = null
+    // UI state of the listed tasks, by result name
+    private val taskData = HashMap<String, TaskData>()
+    // tasks whose UI state changed without a change of their result, bound again with the next list
+    private val stateChanged = HashSet<String>()
+    // groups collapsed by the user, all others are expanded
+    private val collapsedGroups = HashSet<TaskGroup.Key>()
+    // number of tasks loaded of expanded groups, if more than a page
+    private val groupWindows = HashMap<TaskGroup.Key, Int>()
+    // search and order of the list, null to show the tasks grouped by project and state
+    private var query: TaskQuery? = null
+    private var searchText = ""
+    private var sortBy = TaskQuery.SORT_CLIENT
+    private val clientStatusObserver = MonitorEvents.Observer {
+        if (Logging.VERBOSE) {
+            Log.d(Logging.TAG, "TasksFragment onClientStatusChanged")
         }
+        loadData()
+    }
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        setHasOptionsMenu(true) // enables fragment specific menu
+        super.onCreate(savedInstanceState)
     }
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
 
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
         if (Logging.DEBUG) {
@@ -64,85 +81,227 @@ class TasksFragment : Fragment() {
         }
         // Inflate the layout for this fragment
         val binding = TasksLayoutBinding.inflate(inflater, container, false)
-        recyclerViewAdapter = TaskRecyclerViewAdapter(this, data)
+        recyclerViewAdapter = TaskRecyclerViewAdapter(this)
+        rowModels = TaskRowModel.Cache(requireContext().applicationContext)
         binding.tasksList.adapter = recyclerViewAdapter
         binding.tasksList.layoutManager = LinearLayoutManager(context)
+        staleStatus = binding.staleStatus
         return binding.root
     }
 
     override fun onResume() {
         super.onResume()
-        //register noisy clientStatusChangeReceiver here, so only active when Activity is visible
+        //observe client status changes here, so only active when Activity is visible
         if (Logging.DEBUG) {
-            Log.d(Logging.TAG, "TasksFragment register receiver")
+            Log.d(Logging.TAG, "TasksFragment observe client status")
         }
-        requireActivity().registerReceiver(mClientStatusChangeRec, ifcsc)
+        MonitorEvents.observe(ClientChange.TASKS or ClientChange.PROJECTS, clientStatusObserver)
         loadData()
     }
 
     override fun onPause() {
-        //unregister receiver, so there are not multiple intents flying in
         if (Logging.DEBUG) {
-            Log.d(Logging.TAG, "TasksFragment remove receiver")
+            Log.d(Logging.TAG, "TasksFragment remove observer")
         }
-        requireActivity().unregisterReceiver(mClientStatusChangeRec)
+        MonitorEvents.remove(clientStatusObserver)
         super.onPause()
     }
 
-    private fun loadData() {
-        // try to get current client status from monitor
-        val tmpA = try {
-            BOINCActivity.monitor!!.tasks
-        } catch (e: Exception) {
-            if (Logging.WARNING) {
-                Log.w(Logging.TAG, "TasksActivity: Could not load data, clientStatus not initialized.")
+    override fun onCreateOptionsMenu(menu: Menu, inflater: MenuInflater) {
+        // appends the task specific menu to the main menu.
+        inflater.inflate(R.menu.tasks_menu, menu)
+        menu.findItem(R.id.search)?.let { setupSearch(it) }
+        super.onCreateOptionsMenu(menu, inflater)
+    }
+
+    // searches the tasks, the query is evaluated by the Monitor's task index
+    private fun setupSearch(item: MenuItem) {
+        val searchView = item.actionView as SearchView
+        searchView.queryHint = getString(R.string.tasks_search_hint)
+        searchView.setOnQueryTextListener(object : SearchView.OnQueryTextListener {
+            override fun onQueryTextSubmit(query: String): Boolean {
+                searchText = query
+                updateQuery()
+                searchView.clearFocus()
+                return true
             }
-            return
+
+            override fun onQueryTextChange(newText: String) = false
+        })
+        item.setOnActionExpandListener(object : MenuItem.OnActionExpandListener {
+            override fun onMenuItemActionExpand(item: MenuItem) = true
+
+            override fun onMenuItemActionCollapse(item: MenuItem): Boolean {
+                searchText = ""
+                updateQuery()
+                return true
+            }
+        })
+    }
+
+    override fun onOptionsItemSelected(item: MenuItem): Boolean {
+        sortBy = when (item.itemId) {
+            R.id.tasks_sort_grouped -> TaskQuery.SORT_CLIENT
+            R.id.tasks_sort_deadline -> TaskQuery.SORT_DEADLINE
+            R.id.tasks_sort_remaining -> TaskQuery.SORT_REMAINING
+            R.id.tasks_sort_progress -> TaskQuery.SORT_PROGRESS
+            else -> return super.onOptionsItemSelected(item)
         }
-        //setup list and adapter
-        if (tmpA != null) { //can be null before first monitor status cycle (e.g. when not logged in or during startup)
-            //deep copy, so ArrayList adapter actually recognizes the difference
-            updateData(tmpA)
-            recyclerViewAdapter.notifyDataSetChanged() //force list adapter to refresh
+        item.isChecked = true
+        updateQuery()
+        return true
+    }
+
+    private fun updateQuery() {
+        query = if (searchText.isBlank() && sortBy == TaskQuery.SORT_CLIENT) {
+            null
         } else {
-            if (Logging.WARNING) {
-                Log.w(Logging.TAG, "loadData: array is null, rpc failed")
+            // by progress, most advanced tasks first
+            TaskQuery.parse(searchText, sortBy, descending = sortBy == TaskQuery.SORT_PROGRESS)
+        }
+        groupWindows.remove(QUERY_RESULTS)
+        loadData()
+    }
+
+    /**
+     * Expands or collapses the given group.
+     */
+    fun toggleGroup(group: TaskGroup.Key) {
+        if (!collapsedGroups.remove(group)) {
+            collapsedGroups.add(group)
+            groupWindows.remove(group)
+        }
+        loadData()
+    }
+
+    /**
+     * Loads the next page of tasks of the given group.
+     */
+    fun loadMoreTasks(group: TaskGroup.Key) {
+        groupWindows[group] = (groupWindows[group] ?: PAGE_SIZE) + PAGE_SIZE
+        loadData()
+    }
+
+    private fun loadData() {
+        staleStatus?.showWhileStatusStale()
+        // items are built in the background, a pending load is superseded by the new one
+        loadJob?.cancel()
+        val query = query
+        val collapsed = HashSet(collapsedGroups)
+        val windows = HashMap(groupWindows)
+        loadJob = lifecycleScope.launch {
+            val items = withContext(Dispatchers.Default) {
+                // try to get current client status from monitor
+                try {
+                    if (query != null) {
+                        loadQueryItems(query, windows[QUERY_RESULTS] ?: PAGE_SIZE)
+                    } else {
+                        loadItems(collapsed, windows)
+                    }
+                } catch (e: Exception) {
+                    if (Logging.WARNING) {
+                        Log.w(Logging.TAG, "TasksActivity: Could not load data, clientStatus not initialized.")
+                    }
+                    null
+                }
+            }
+            if (items != null) {
+                updateData(items)
+            }
+        }
+    }
+
+    // loads the summaries of all groups and the tasks of expanded groups, only up to their window
+    private fun loadItems(collapsed: Set<TaskGroup.Key>, windows: Map<TaskGroup.Key, Int>): List<TaskListItem> {
+        val monitor = BOINCActivity.monitor!!
+        val groups = monitor.taskGroups
+        val loaded = groups.map { group ->
+            if (group.key in collapsed) {
+                emptyList<Result>()
+            } else {
+                monitor.getTasksOfGroup(group.projectUrl, group.state, 0, windows[group.key] ?: PAGE_SIZE)
             }
         }
+        val rows = rowModels.build(loaded.flatten())
+
+        val items = ArrayList<TaskListItem>(groups.size + rows.size)
+        var next = 0
+        for ((index, group) in groups.withIndex()) {
+            val isExpanded = group.key !in collapsed
+            items.add(rowModels.buildHeader(group, isExpanded))
+            repeat(loaded[index].size) {
+                items.add(TaskListItem.Task(rows[next++]))
+            }
+            val remaining = group.count - loaded[index].size
+            if (isExpanded && remaining > 0) {
+                items.add(TaskListItem.More(group.key, remaining))
+            }
+        }
+        return items
+    }
+
+    // loads a window of the tasks matching the query, in its order
+    private fun loadQueryItems(query: TaskQuery, window: Int): List<TaskListItem> {
+        val monitor = BOINCActivity.monitor!!
+        val tasks = monitor.queryTasks(query, 0, window)
+        val count = monitor.countTasks(query)
+        val items = rowModels.build(tasks).mapTo(ArrayList<TaskListItem>(tasks.size + 1)) { TaskListItem.Task(it) }
+        if (count > tasks.size) {
+            items.add(TaskListItem.More(QUERY_RESULTS, count - tasks.size))
+        }
+        return items
     }
 
-    private fun updateData(newData: List<Result>) {
-        //loop through all received Result items to add new results
-        for (rpcResult in newData) {
-            //check whether this Result is new
-            val index = data.indexOfFirst { it.id == rpcResult.name }
-            if (index == -1) { // result is new, add
+    private fun updateData(newData: List<TaskListItem>) {
+        //loop through all received rows to add new results
+        val names = HashSet<String>(newData.size)
+        for (listItem in newData) {
+            val row = (listItem as? TaskListItem.Task)?.row ?: continue
+            names.add(row.name)
+            val item = taskData[row.name]
+            if (item == null) { // result is new, add
                 if (Logging.DEBUG) {
-                    Log.d(Logging.TAG, "new result found, id: " + rpcResult.name)
+                    Log.d(Logging.TAG, "new result found, id: " + row.name)
                 }
-                data.add(TaskData(rpcResult))
-            } else { // result was present before, update its data
-                data[index].updateResultData(rpcResult)
+                taskData[row.name] = TaskData(row)
+            } else if (item.updateRowData(row)) { // result was present before, update its data
+                stateChanged.add(row.name)
             }
         }
 
-        //loop through the list adapter to find removed (ready/aborted) Results
-        data.removeIf { item -> newData.none { it.name == item.id } }
+        // drop the state of removed (ready/aborted) results and of tasks not loaded anymore
+        taskData.keys.retainAll(names)
+
+        // the adapter calculates the difference to the shown list in the background
+        recyclerViewAdapter.submitList(newData) {
+            stateChanged.forEach { recyclerViewAdapter.notifyTaskChanged(it) }
+            stateChanged.clear()
+        }
     }
 
-    inner class TaskData(var result: Result) {
+    /**
+     * Returns the UI state of the given task.
+     */
+    fun getTaskData(row: TaskRowModel) = taskData[row.name] ?: TaskData(row)
+
+    inner class TaskData(var row: TaskRowModel) {
         var isExpanded = false
-        var id = result.name
+        var id = row.name
         var nextState = -1
         private var loopCounter = 0
         // amount of refresh, until transition times out
         private val transitionTimeout = resources.getInteger(R.integer.tasks_transistion_timeout_number_monitor_loops)
 
-        fun updateResultData(result: Result) {
-            this.result = result
-            val currentState = determineState()
+        /**
+         * Updates the row of the task.
+         *
+         * @return true if the UI state changed, i.e. the requested state was met or timed out
+         */
+        fun updateRowData(row: TaskRowModel): Boolean {
+            this.row = row
+            val currentState = row.state
             if (nextState == -1) {
-                return
+                return false
             }
             if (currentState == nextState) {
                 if (Logging.DEBUG) {
@@ -150,6 +309,7 @@ class TasksFragment : Fragment() {
                 }
                 nextState = -1
                 loopCounter = 0
+                return true
             } else {
                 if (loopCounter < transitionTimeout) {
                     if (Logging.DEBUG) {
@@ -158,6 +318,7 @@ class TasksFragment : Fragment() {
                                         loopCounter)
                     }
                     loopCounter++
+                    return false
                 } else {
                     if (Logging.DEBUG) {
                         Log.d(Logging.TAG,
@@ -166,6 +327,7 @@ class TasksFragment : Fragment() {
                     }
                     nextState = -1
                     loopCounter = 0
+                    return true
                 }
             }
         }
@@ -176,13 +338,13 @@ class TasksFragment : Fragment() {
                     RpcClient.RESULT_SUSPEND -> {
                         nextState = RESULT_SUSPENDED_VIA_GUI
                         lifecycleScope.launch {
-                            performResultOperation(result.projectURL, result.name, operation)
+                            performResultOperation(row.projectUrl, row.name, operation)
                         }
                     }
                     RpcClient.RESULT_RESUME -> {
                         nextState = PROCESS_EXECUTING
                         lifecycleScope.launch {
-                            performResultOperation(result.projectURL, result.name, operation)
+                            performResultOperation(row.projectUrl, row.name, operation)
                         }
                     }
                     RpcClient.RESULT_ABORT -> {
@@ -192,12 +354,12 @@ class TasksFragment : Fragment() {
                             setContentView(dialogBinding.root)
                         }
                         dialogBinding.title.setText(R.string.confirm_abort_task_title)
-                        dialogBinding.message.text = getString(R.string.confirm_abort_task_message, result.name)
+                        dialogBinding.message.text = getString(R.string.confirm_abort_task_message, row.name)
                         dialogBinding.confirm.setText(R.string.confirm_abort_task_confirm)
                         dialogBinding.confirm.setOnClickListener {
                             nextState = RESULT_ABORTED
                             lifecycleScope.launch {
-                                performResultOperation(result.projectURL, result.name, operation)
+                                performResultOperation(row.projectUrl, row.name, operation)
                             }
                             dialog.dismiss()
                         }
@@ -208,33 +370,13 @@ class TasksFragment : Fragment() {
                         Log.w(Logging.TAG, "could not map operation tag")
                     }
                 }
-                recyclerViewAdapter.notifyDataSetChanged() //force list adapter to refresh
+                recyclerViewAdapter.notifyTaskChanged(row.name)
             } catch (e: Exception) {
                 if (Logging.WARNING) {
                     Log.w(Logging.TAG, "failed parsing view tag")
                 }
             }
         }
-
-        fun determineState(): Int {
-            if (result.isSuspendedViaGUI) {
-                return RESULT_SUSPENDED_VIA_GUI
-            }
-            if (result.isProjectSuspendedViaGUI) {
-                return RESULT_PROJECT_SUSPENDED
-            }
-            if (result.isReadyToReport && result.state != RESULT_ABORTED && result.state != RESULT_COMPUTE_ERROR) {
-                return RESULT_READY_TO_REPORT
-            }
-            return if (result.isActiveTask) {
-                result.activeTaskState
-            } else {
-                result.state
-            }
-        }
-
-        val isTaskActive: Boolean
-            get() = result.isActiveTask
     }
 
     suspend fun performResultOperation(url: String, name: String, operation: Int) = coroutineScope {
@@ -264,4 +406,12 @@ class TasksFragment : Fragment() {
             Log.w(Logging.TAG, "performResultOperation() failed.")
         }
     }
+
+    companion object {
+        // number of tasks loaded at once of a group
+        private const val PAGE_SIZE = 50
+
+        // window key of the tasks matching the query
+        private val QUERY_RESULTS = TaskGroup.Key("", TaskQuery.STATE_ANY)
+    }
 }
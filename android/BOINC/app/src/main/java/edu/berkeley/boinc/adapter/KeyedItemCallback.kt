@@ -0,0 +1,48 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.adapter
+
+import android.annotation.SuppressLint
+import androidx.recyclerview.widget.DiffUtil
+
+/**
+ * Item callback of the list adapters, identifying items by a key, e.g. the name of a task or
+ * the master URL of a project, instead of by position.
+ * ListAdapter calculates the difference of two lists with it in the background and dispatches
+ * precise insert, remove, move and change notifications, so unchanged rows are not bound again.
+ *
+ * Items have to be immutable snapshots, e.g. the copies received from the Monitor with each
+ * status update; items of the same key are changed if they are not equal.
+ *
+ * @param key           key of an item, unique within a list
+ * @param changePayload payload describing the change of an item, e.g. progress only,
+ *                      null to bind the changed item completely
+ */
+class KeyedItemCallback<T : Any>(
+        private val key: (T) -> Any?,
+        private val changePayload: (oldItem: T, newItem: T) -> Any? = { _, _ -> null }
+) : DiffUtil.ItemCallback<T>() {
+    override fun areItemsTheSame(oldItem: T, newItem: T) = key(oldItem) == key(newItem)
+
+    // items are data classes
+    @SuppressLint("DiffUtilEquals")
+    override fun areContentsTheSame(oldItem: T, newItem: T) = oldItem == newItem
+
+    override fun getChangePayload(oldItem: T, newItem: T) = changePayload(oldItem, newItem)
+}
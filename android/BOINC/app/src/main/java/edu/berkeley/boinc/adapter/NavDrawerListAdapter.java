@@ -20,7 +20,6 @@ package edu.berkeley.boinc.adapter;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -43,6 +42,7 @@ import edu.berkeley.boinc.R;
 import edu.berkeley.boinc.client.IMonitor;
 import edu.berkeley.boinc.rpc.Project;
 import edu.berkeley.boinc.rpc.ProjectInfo;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 public class NavDrawerListAdapter extends BaseAdapter {
@@ -159,7 +159,7 @@ public class NavDrawerListAdapter extends BaseAdapter {
                     try {
                         final IMonitor monitor = BOINCActivity.monitor;
                         if (monitor != null)
-                            counter = monitor.getRssNotices().size();
+                            counter = monitor.getRssNoticeCount();
                     }
                     catch(Exception e) {
                         if(Logging.ERROR) {
@@ -20,26 +20,31 @@ package edu.berkeley.boinc.adapter
 
 import android.content.Intent
 import android.graphics.Bitmap
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.ViewGroup
 import androidx.core.net.toUri
 import androidx.core.text.parseAsHtml
+import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
 import edu.berkeley.boinc.BOINCActivity
 import edu.berkeley.boinc.NoticesFragment
 import edu.berkeley.boinc.R
 import edu.berkeley.boinc.databinding.NoticesLayoutListItemBinding
 import edu.berkeley.boinc.rpc.Notice
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import edu.berkeley.boinc.utils.secondsToLocalDateTime
 import java.time.format.DateTimeFormatter
 import java.time.format.FormatStyle
 
+/**
+ * Lists the notices submitted with [submitList]. Notices are keyed by arrival time and title,
+ * their seqno is not unique as the client numbers them anew after a restart.
+ */
 class NoticesRecyclerViewAdapter(
-        private val fragment: NoticesFragment,
-        private val notices: List<Notice>
-) : RecyclerView.Adapter<NoticesRecyclerViewAdapter.ViewHolder>() {
+        private val fragment: NoticesFragment
+) : ListAdapter<Notice, NoticesRecyclerViewAdapter.ViewHolder>(
+        KeyedItemCallback<Notice>({ Pair(it.arrivalTime, it.title) })) {
     private val dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.LONG,
             FormatStyle.SHORT)
 
@@ -48,10 +53,8 @@ class NoticesRecyclerViewAdapter(
         return ViewHolder(binding)
     }
 
-    override fun getItemCount() = notices.size
-
     override fun onBindViewHolder(holder: ViewHolder, position: Int) {
-        val listItem = notices[position]
+        val listItem = getItem(position)
 
         holder.root.setOnClickListener {
             val link = listItem.link
@@ -64,8 +67,7 @@ class NoticesRecyclerViewAdapter(
             }
         }
 
-        val icon = getIcon(position)
-        // if available set icon, if not boinc logo
+        val icon = getIcon(listItem)
         // if available set icon, if not boinc logo
         if (icon == null) {
             holder.projectIcon.setImageResource(R.drawable.ic_boinc)
@@ -80,9 +82,9 @@ class NoticesRecyclerViewAdapter(
         holder.time.text = dateTimeFormatter.format(listItem.createTime.toLong().secondsToLocalDateTime())
     }
 
-    private fun getIcon(position: Int): Bitmap? {
+    private fun getIcon(notice: Notice): Bitmap? {
         return try {
-            BOINCActivity.monitor!!.getProjectIconByName(notices[position].projectName)
+            BOINCActivity.monitor!!.getProjectIconByName(notice.projectName)
         } catch (e: Exception) {
             if (Logging.WARNING) {
                 Log.w(Logging.TAG, "TasksListAdapter: Could not load data, clientStatus not initialized.")
@@ -22,7 +22,6 @@ import android.app.Activity;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.text.format.DateUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -47,7 +46,9 @@ import edu.berkeley.boinc.BOINCActivity;
 import edu.berkeley.boinc.ProjectsFragment.ProjectsListData;
 import edu.berkeley.boinc.R;
 import edu.berkeley.boinc.rpc.Notice;
+import edu.berkeley.boinc.rpc.Project;
 import edu.berkeley.boinc.rpc.Transfer;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 public class ProjectsListAdapter extends ArrayAdapter<ProjectsListData> {
@@ -92,6 +93,18 @@ public class ProjectsListAdapter extends ArrayAdapter<ProjectsListData> {
         return user;
     }
 
+    // adds the back-off countdown, which is not part of the row's status text as it changes every second
+    private String withBackoff(String statusText, Project project) {
+        final Instant now = Instant.now();
+        final Instant minRPCTime = Instant.ofEpochSecond((long) project.getMinRPCTime());
+        if(minRPCTime.compareTo(now) <= 0) {
+            return statusText;
+        }
+        final String elapsedTime = DateUtils.formatElapsedTime(Duration.between(now, minRPCTime).getSeconds());
+        final String backoff = activity.getString(R.string.projects_status_backoff, elapsedTime);
+        return statusText.isEmpty() ? backoff : statusText + ", " + backoff;
+    }
+
     private Bitmap getIcon(int position) {
         // try to get current client status from monitor
         try {
@@ -168,15 +181,7 @@ public class ProjectsListAdapter extends ArrayAdapter<ProjectsListData> {
                 tvUser.setText(userText);
             }
 
-            String statusText = "";
-            try {
-                statusText = BOINCActivity.monitor.getProjectStatus(data.getProject().getMasterURL());
-            }
-            catch(Exception e) {
-                if(Logging.ERROR) {
-                    Log.e(Logging.TAG, "ProjectsListAdapter.getView error: ", e);
-                }
-            }
+            String statusText = withBackoff(data.getStatusText(), data.getProject());
             TextView tvStatus = vi.findViewById(R.id.project_status);
             if(statusText.isEmpty()) {
                 tvStatus.setVisibility(View.GONE);
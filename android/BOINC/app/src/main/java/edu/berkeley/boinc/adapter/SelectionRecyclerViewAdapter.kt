@@ -18,7 +18,6 @@
  */
 package edu.berkeley.boinc.adapter
 
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -28,6 +27,7 @@ import edu.berkeley.boinc.attach.AcctMgrFragment
 import edu.berkeley.boinc.attach.ProjectInfoFragment.Companion.newInstance
 import edu.berkeley.boinc.attach.SelectionListActivity
 import edu.berkeley.boinc.databinding.AttachProjectListLayoutListItemBinding
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 
 class SelectionRecyclerViewAdapter(
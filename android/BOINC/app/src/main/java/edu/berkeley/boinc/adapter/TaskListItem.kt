@@ -0,0 +1,63 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.adapter
+
+import edu.berkeley.boinc.client.TaskGroup
+
+/**
+ * Item of the grouped task list: header of a group, row of a task or the link to the next
+ * window of tasks of a group.
+ */
+sealed class TaskListItem {
+    /**
+     * Identity of the item across updates of the list.
+     */
+    abstract val key: Any
+
+    /**
+     * Header of a group with its aggregated count and progress.
+     *
+     * @param progress average progress of the group's tasks, of [TaskRowModel.PROGRESS_MAX]
+     */
+    data class Header(
+            val group: TaskGroup.Key,
+            val title: String,
+            val summary: String,
+            val progress: Int,
+            val isExpanded: Boolean
+    ) : TaskListItem() {
+        override val key: Any
+            get() = group
+    }
+
+    data class Task(val row: TaskRowModel) : TaskListItem() {
+        override val key: Any
+            get() = row.name
+    }
+
+    /**
+     * Link to load more tasks of an expanded group.
+     *
+     * @param remaining number of tasks of the group not loaded yet
+     */
+    data class More(val group: TaskGroup.Key, val remaining: Int) : TaskListItem() {
+        override val key: Any
+            get() = Pair(More::class, group)
+    }
+}
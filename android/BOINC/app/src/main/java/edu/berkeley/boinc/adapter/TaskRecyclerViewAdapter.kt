@@ -18,101 +18,140 @@
  */
 package edu.berkeley.boinc.adapter
 
-import android.graphics.Bitmap
-import android.text.format.DateUtils
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
-import androidx.appcompat.content.res.AppCompatResources
+import androidx.recyclerview.widget.ListAdapter
 import androidx.recyclerview.widget.RecyclerView
-import edu.berkeley.boinc.BOINCActivity
 import edu.berkeley.boinc.R
 import edu.berkeley.boinc.TasksFragment
-import edu.berkeley.boinc.TasksFragment.TaskData
+import edu.berkeley.boinc.databinding.TasksLayoutGroupHeaderBinding
 import edu.berkeley.boinc.databinding.TasksLayoutListItemBinding
+import edu.berkeley.boinc.databinding.TasksLayoutListMoreBinding
 import edu.berkeley.boinc.rpc.RpcClient
-import edu.berkeley.boinc.utils.*
-import java.text.NumberFormat
-import java.time.format.DateTimeFormatter
-import java.time.format.FormatStyle
-import kotlin.math.roundToInt
+import edu.berkeley.boinc.utils.PROCESS_ABORTED
+import edu.berkeley.boinc.utils.PROCESS_EXECUTING
+import edu.berkeley.boinc.utils.getColorCompat
 
+/**
+ * Lists the group headers and task rows submitted with [submitList], keyed by group and
+ * result name. Items are built by [TaskRowModel.Cache] in the background, binding only assigns
+ * their values.
+ * The UI state of a task, e.g. whether it is expanded, is kept by the [TasksFragment].
+ */
 class TaskRecyclerViewAdapter(
-        private val fragment: TasksFragment,
-        private val taskList: List<TasksFragment.TaskData>
-) : RecyclerView.Adapter<TaskRecyclerViewAdapter.ViewHolder>() {
-    private val dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM)
-    private val elapsedTimeStringBuilder = StringBuilder()
-    private val percentNumberFormat = NumberFormat.getPercentInstance().apply { minimumFractionDigits = 3 }
-
-    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ViewHolder {
-        val binding = TasksLayoutListItemBinding.inflate(LayoutInflater.from(parent.context))
-        return ViewHolder(binding)
+        private val fragment: TasksFragment
+) : ListAdapter<TaskListItem, RecyclerView.ViewHolder>(
+        KeyedItemCallback<TaskListItem>({ it.key }, ::progressPayload)) {
+    override fun getItemViewType(position: Int) = when (getItem(position)) {
+        is TaskListItem.Header -> VIEW_TYPE_HEADER
+        is TaskListItem.Task -> VIEW_TYPE_TASK
+        is TaskListItem.More -> VIEW_TYPE_MORE
     }
 
-    override fun getItemCount() = taskList.size
-
-    override fun onBindViewHolder(holder: ViewHolder, position: Int) {
-        holder.root.setOnClickListener {
-            val taskData = taskList[position]
-            taskData.isExpanded = !taskData.isExpanded
-            notifyDataSetChanged()
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): RecyclerView.ViewHolder {
+        val inflater = LayoutInflater.from(parent.context)
+        return when (viewType) {
+            VIEW_TYPE_HEADER -> {
+                val holder = HeaderViewHolder(TasksLayoutGroupHeaderBinding.inflate(inflater, parent, false))
+                holder.progressBar.max = TaskRowModel.PROGRESS_MAX
+                holder.root.setOnClickListener {
+                    (getItemOrNull(holder.adapterPosition) as? TaskListItem.Header)?.let {
+                        fragment.toggleGroup(it.group)
+                    }
+                }
+                holder
+            }
+            VIEW_TYPE_MORE -> {
+                val holder = MoreViewHolder(TasksLayoutListMoreBinding.inflate(inflater, parent, false))
+                holder.root.setOnClickListener {
+                    (getItemOrNull(holder.adapterPosition) as? TaskListItem.More)?.let {
+                        fragment.loadMoreTasks(it.group)
+                    }
+                }
+                holder
+            }
+            else -> {
+                val holder = ViewHolder(TasksLayoutListItemBinding.inflate(inflater))
+                holder.progressBar.max = TaskRowModel.PROGRESS_MAX
+                holder.root.setOnClickListener {
+                    val position = holder.adapterPosition
+                    (getItemOrNull(position) as? TaskListItem.Task)?.let {
+                        val taskData = fragment.getTaskData(it.row)
+                        taskData.isExpanded = !taskData.isExpanded
+                        notifyItemChanged(position)
+                    }
+                }
+                holder
+            }
         }
+    }
 
-        val item = taskList[position]
-        val finalIconId = holder.projectIcon.tag as String?
+    private fun getItemOrNull(position: Int) = if (position != RecyclerView.NO_POSITION) getItem(position) else null
 
-        if (item.id != finalIconId) {
-            val icon = getIcon(position)
-            if (icon == null) {
-                holder.projectIcon.setImageResource(R.drawable.ic_boinc)
-            } else {
-                holder.projectIcon.setImageBitmap(icon)
-                holder.projectIcon.tag = item.id
-            }
+    /**
+     * Binds the row of the task with the given name again, e.g. after its UI state changed.
+     */
+    fun notifyTaskChanged(name: String) {
+        val position = currentList.indexOfFirst { it is TaskListItem.Task && it.row.name == name }
+        if (position >= 0) {
+            notifyItemChanged(position)
         }
+    }
 
-        val result = item.result
-
-        holder.header.text = result.app!!.displayName
+    override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int, payloads: List<Any>) {
+        val item = getItem(position)
+        if (holder is ViewHolder && item is TaskListItem.Task && payloads.isNotEmpty() &&
+                payloads.all { it == PAYLOAD_PROGRESS }) {
+            bindProgress(holder, item.row)
+        } else {
+            onBindViewHolder(holder, position)
+        }
+    }
 
-        var tempProjectName: String? = result.projectURL
-        val project = result.project
-        if (project != null) {
-            tempProjectName = project.name
-            if (result.isProjectSuspendedViaGUI) {
-                tempProjectName += " " + fragment.getString(R.string.tasks_header_project_paused)
+    override fun onBindViewHolder(holder: RecyclerView.ViewHolder, position: Int) {
+        when (val item = getItem(position)) {
+            is TaskListItem.Header -> bindHeader(holder as HeaderViewHolder, item)
+            is TaskListItem.Task -> bindTask(holder as ViewHolder, item.row)
+            is TaskListItem.More -> {
+                (holder as MoreViewHolder).root.text = fragment.getString(R.string.tasks_group_more, item.remaining)
             }
         }
-        holder.projectName.text = tempProjectName
+    }
 
-        holder.status.text = determineStatusText(item)
+    private fun bindHeader(holder: HeaderViewHolder, header: TaskListItem.Header) {
+        holder.expandButton.setImageResource(if (header.isExpanded) {
+            R.drawable.ic_baseline_keyboard_arrow_down
+        } else {
+            R.drawable.ic_baseline_keyboard_arrow_right
+        })
+        holder.title.text = header.title
+        holder.summary.text = header.summary
+        holder.progressBar.progress = header.progress
+    }
+
+    private fun bindTask(holder: ViewHolder, row: TaskRowModel) {
+        val item = fragment.getTaskData(row)
 
-        if (result.state in arrayOf(RESULT_ABORTED, RESULT_COMPUTE_ERROR, RESULT_FILES_DOWNLOADING,
-                        RESULT_FILES_UPLOADED, RESULT_FILES_UPLOADING, RESULT_READY_TO_REPORT,
-                        RESULT_UPLOAD_FAILED)) {
-            holder.statusPercentage.visibility = View.GONE
+        // if available set icon, if not boinc logo
+        if (row.icon == null) {
+            holder.projectIcon.setImageResource(R.drawable.ic_boinc)
         } else {
-            holder.statusPercentage.visibility = View.VISIBLE
-            holder.statusPercentage.text = percentNumberFormat.format(result.fractionDone)
+            holder.projectIcon.setImageBitmap(row.icon)
         }
 
+        holder.header.text = row.header
+        holder.projectName.text = row.projectName
+        holder.status.text = row.statusText
+        holder.statusPercentage.visibility = if (row.showPercentage) View.VISIBLE else View.GONE
+
         // --- end of independent view elements
 
         // progress bar: show when task active or expanded
         // result and process state are overlapping, e.g. PROCESS_EXECUTING and RESULT_FILES_DOWNLOADING
         // therefore check also whether task is active
-        val active = item.isTaskActive && item.determineState() == PROCESS_EXECUTING
-        if (active || item.isExpanded) {
-            holder.progressBar.visibility = View.VISIBLE
-            holder.progressBar.isIndeterminate = false
-            holder.progressBar.progressDrawable = AppCompatResources.getDrawable(fragment.requireContext(),
-                    R.drawable.progressbar)
-            holder.progressBar.progress = (item.result.fractionDone * holder.progressBar.max).roundToInt()
-        } else {
-            holder.progressBar.visibility = View.GONE
-        }
+        val active = row.isActiveTask && row.state == PROCESS_EXECUTING
+        holder.progressBar.visibility = if (active || item.isExpanded) View.VISIBLE else View.GONE
 
         if (!item.isExpanded) {
             // view is collapsed
@@ -125,25 +164,11 @@ class TaskRecyclerViewAdapter(
             holder.rightColumnExpandWrapper.visibility = View.VISIBLE
             holder.centerColumnExpandWrapper.visibility = View.VISIBLE
 
-            // elapsed time
-            // show time depending whether task is active or not
-            val elapsedTime = if (item.result.isActiveTask) {
-                item.result.elapsedTime.toLong() //is 0 when task finished
-            } else {
-                item.result.finalElapsedTime.toLong()
-            }
-            holder.time.text = DateUtils.formatElapsedTime(elapsedTimeStringBuilder, elapsedTime)
-
-            // set deadline
-            val deadline = dateTimeFormatter.format(item.result.reportDeadline.secondsToLocalDateTime())
-            holder.deadline.text = deadline
-            // set application friendly name
-            if (result.app != null) {
-                holder.taskName.text = item.result.name
-            }
+            holder.deadline.text = row.deadline
+            holder.taskName.text = row.name
 
             // buttons
-            if (item.determineState() == PROCESS_ABORTED) { //dont show buttons for aborted task
+            if (row.state == PROCESS_ABORTED) { //dont show buttons for aborted task
                 holder.rightColumnExpandWrapper.visibility = View.INVISIBLE
             } else {
                 if (item.nextState == -1) { // not waiting for new state
@@ -156,13 +181,13 @@ class TaskRecyclerViewAdapter(
 
                     // checking what suspendResume button should be shown
                     when {
-                        item.result.isSuspendedViaGUI -> { // show play
+                        row.isSuspendedViaGUI -> { // show play
                             holder.suspendResumeButton.visibility = View.VISIBLE
                             holder.suspendResumeButton.setBackgroundColor(context.getColorCompat(R.color.dark_green))
                             holder.suspendResumeButton.setImageResource(R.drawable.ic_baseline_play_arrow_white)
                             holder.suspendResumeButton.tag = RpcClient.RESULT_RESUME // tag on button specified operation triggered in iconClickListener
                         }
-                        item.determineState() == PROCESS_EXECUTING -> { // show pause
+                        row.state == PROCESS_EXECUTING -> { // show pause
                             holder.suspendResumeButton.visibility = View.VISIBLE
                             holder.suspendResumeButton.setBackgroundColor(context.getColorCompat(R.color.dark_green))
                             holder.suspendResumeButton.setImageResource(R.drawable.ic_baseline_pause_white)
@@ -180,69 +205,27 @@ class TaskRecyclerViewAdapter(
                 }
             }
         }
-    }
 
-    private fun getIcon(position: Int): Bitmap? {
-        // try to get current client status from monitor
-        return try {
-            BOINCActivity.monitor!!.getProjectIcon(taskList[position].result.projectURL)
-        } catch (e: Exception) {
-            if (Logging.WARNING) {
-                Log.w(Logging.TAG, "TasksListAdapter: Could not load data, clientStatus not initialized.")
-            }
-            null
-        }
+        bindProgress(holder, row)
     }
 
-    private fun determineStatusText(tmp: TaskData): String {
-        //read status
-        val status = tmp.determineState()
+    // views changing with the progress of a task, their visibility is set by the complete binding
+    private fun bindProgress(holder: ViewHolder, row: TaskRowModel) {
+        holder.statusPercentage.text = row.percentText
+        holder.progressBar.progress = row.progress
+        holder.time.text = row.elapsedTime
+    }
 
-        // custom state
-        if (status == RESULT_SUSPENDED_VIA_GUI) {
-            return fragment.getString(R.string.tasks_custom_suspended_via_gui)
-        }
-        if (status == RESULT_PROJECT_SUSPENDED) {
-            return fragment.getString(R.string.tasks_custom_project_suspended_via_gui)
-        }
-        if (status == RESULT_READY_TO_REPORT) {
-            return fragment.getString(R.string.tasks_custom_ready_to_report)
-        }
+    class HeaderViewHolder(binding: TasksLayoutGroupHeaderBinding) : RecyclerView.ViewHolder(binding.root) {
+        val root = binding.root
+        val expandButton = binding.expandCollapse
+        val title = binding.groupTitle
+        val summary = binding.groupSummary
+        val progressBar = binding.groupProgressBar
+    }
 
-        //active state
-        return if (tmp.result.isActiveTask) {
-            when (status) {
-                PROCESS_UNINITIALIZED -> fragment.getString(R.string.tasks_active_uninitialized)
-                PROCESS_EXECUTING -> fragment.getString(R.string.tasks_active_executing)
-                PROCESS_ABORT_PENDING -> fragment.getString(R.string.tasks_active_abort_pending)
-                PROCESS_QUIT_PENDING -> fragment.getString(R.string.tasks_active_quit_pending)
-                PROCESS_SUSPENDED -> fragment.getString(R.string.tasks_active_suspended)
-                else -> {
-                    if (Logging.WARNING) {
-                        Log.w(Logging.TAG, "determineStatusText could not map: " + tmp.determineState())
-                    }
-                    ""
-                }
-            }
-        } else {
-            // passive state
-            when (status) {
-                RESULT_NEW -> fragment.getString(R.string.tasks_result_new)
-                RESULT_FILES_DOWNLOADING -> fragment.getString(R.string.tasks_result_files_downloading)
-                RESULT_FILES_DOWNLOADED -> fragment.getString(R.string.tasks_result_files_downloaded)
-                RESULT_COMPUTE_ERROR -> fragment.getString(R.string.tasks_result_compute_error)
-                RESULT_FILES_UPLOADING -> fragment.getString(R.string.tasks_result_files_uploading)
-                RESULT_FILES_UPLOADED -> fragment.getString(R.string.tasks_result_files_uploaded)
-                RESULT_ABORTED -> fragment.getString(R.string.tasks_result_aborted)
-                RESULT_UPLOAD_FAILED -> fragment.getString(R.string.tasks_result_upload_failed)
-                else -> {
-                    if (Logging.WARNING) {
-                        Log.w(Logging.TAG, "determineStatusText could not map: " + tmp.determineState())
-                    }
-                    ""
-                }
-            }
-        }
+    class MoreViewHolder(binding: TasksLayoutListMoreBinding) : RecyclerView.ViewHolder(binding.root) {
+        val root = binding.root
     }
 
     class ViewHolder(binding: TasksLayoutListItemBinding) : RecyclerView.ViewHolder(binding.root) {
@@ -263,4 +246,17 @@ class TaskRecyclerViewAdapter(
         val abortButton = binding.abortTask
         val deadline = binding.deadline
     }
+
+    companion object {
+        private const val VIEW_TYPE_HEADER = 0
+        private const val VIEW_TYPE_TASK = 1
+        private const val VIEW_TYPE_MORE = 2
+
+        private const val PAYLOAD_PROGRESS = "progress"
+
+        // changes of a running task between two updates are usually its progress only
+        private fun progressPayload(oldItem: TaskListItem, newItem: TaskListItem): Any? =
+                if (oldItem is TaskListItem.Task && newItem is TaskListItem.Task &&
+                        oldItem.row.isProgressOnlyChange(newItem.row)) PAYLOAD_PROGRESS else null
+    }
 }
@@ -0,0 +1,242 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.adapter
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.text.format.DateUtils
+import edu.berkeley.boinc.BOINCActivity
+import edu.berkeley.boinc.R
+import edu.berkeley.boinc.client.TaskGroup
+import edu.berkeley.boinc.rpc.Result
+import edu.berkeley.boinc.utils.*
+import edu.berkeley.boinc.utils.Log
+import java.text.NumberFormat
+import java.time.format.DateTimeFormatter
+import java.time.format.FormatStyle
+import kotlin.math.roundToInt
+
+/**
+ * Display values of a row in the task list, computed from a [Result] in the background,
+ * so binding a row only assigns them to its views.
+ */
+data class TaskRowModel(
+        val name: String,
+        val projectUrl: String,
+        /** state shown, either a result, process or custom state, see [TaskRowModel.Cache.determineState] */
+        val state: Int,
+        val isActiveTask: Boolean,
+        val isSuspendedViaGUI: Boolean,
+        val header: String,
+        val projectName: String,
+        val statusText: String,
+        val showPercentage: Boolean,
+        val percentText: String,
+        /** progress of [PROGRESS_MAX] */
+        val progress: Int,
+        val elapsedTime: String,
+        val deadline: String,
+        /** icon of the project, null if not available */
+        val icon: Bitmap?
+) {
+    /**
+     * Returns whether this row differs from the given one in its progress only.
+     */
+    fun isProgressOnlyChange(other: TaskRowModel) = copy(percentText = other.percentText,
+            progress = other.progress, elapsedTime = other.elapsedTime) == other
+
+    /**
+     * Builds the row models of results and caches them by result name. A row is built again only
+     * if its result changed since, rows of unchanged results are reused as they are.
+     * Performs Binder calls for project icons, do not call on the main thread.
+     */
+    class Cache(private val context: Context) {
+        private val rows = HashMap<String, Pair<Result, TaskRowModel>>()
+        // project icons by master URL
+        private val icons = HashMap<String, Bitmap>()
+        private val dateTimeFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM)
+        private val elapsedTimeStringBuilder = StringBuilder()
+        private val percentNumberFormat = NumberFormat.getPercentInstance().apply { minimumFractionDigits = 3 }
+
+        @Synchronized
+        fun build(results: List<Result>): List<TaskRowModel> {
+            val built = results.map { result ->
+                val cached = rows[result.name]
+                if (cached != null && cached.first == result) {
+                    cached.second
+                } else {
+                    createRow(result).also { rows[result.name] = Pair(result, it) }
+                }
+            }
+            if (rows.size > built.size) {
+                val names = results.mapTo(HashSet(results.size)) { it.name }
+                rows.keys.retainAll(names)
+            }
+            return built
+        }
+
+        /**
+         * Builds the header of the given group.
+         */
+        @Synchronized
+        fun buildHeader(group: TaskGroup, isExpanded: Boolean): TaskListItem.Header {
+            val stateName = context.getString(when (group.state) {
+                TaskGroup.STATE_RUNNING -> R.string.tasks_group_running
+                TaskGroup.STATE_TRANSFERRING -> R.string.tasks_group_transferring
+                TaskGroup.STATE_FINISHED -> R.string.tasks_group_finished
+                else -> R.string.tasks_group_waiting
+            })
+            val summary = context.resources.getQuantityString(R.plurals.tasks_group_summary, group.count,
+                    stateName, group.count, percentNumberFormat.format(group.progress))
+            return TaskListItem.Header(group.key, group.projectName, summary,
+                    (group.progress * PROGRESS_MAX).roundToInt(), isExpanded)
+        }
+
+        private fun createRow(result: Result): TaskRowModel {
+            val state = determineState(result)
+
+            var projectName = result.projectURL
+            val project = result.project
+            if (project != null) {
+                projectName = project.name
+                if (result.isProjectSuspendedViaGUI) {
+                    projectName += " " + context.getString(R.string.tasks_header_project_paused)
+                }
+            }
+
+            // show time depending whether task is active or not
+            val elapsedTime = if (result.isActiveTask) {
+                result.elapsedTime.toLong() //is 0 when task finished
+            } else {
+                result.finalElapsedTime.toLong()
+            }
+
+            return TaskRowModel(
+                    name = result.name,
+                    projectUrl = result.projectURL,
+                    state = state,
+                    isActiveTask = result.isActiveTask,
+                    isSuspendedViaGUI = result.isSuspendedViaGUI,
+                    header = result.app?.displayName ?: "",
+                    projectName = projectName,
+                    statusText = determineStatusText(result, state),
+                    showPercentage = result.state !in NO_PERCENTAGE_STATES,
+                    percentText = percentNumberFormat.format(result.fractionDone),
+                    progress = (result.fractionDone * PROGRESS_MAX).roundToInt(),
+                    elapsedTime = DateUtils.formatElapsedTime(elapsedTimeStringBuilder, elapsedTime),
+                    deadline = dateTimeFormatter.format(result.reportDeadline.secondsToLocalDateTime()),
+                    icon = getIcon(result.projectURL))
+        }
+
+        private fun getIcon(projectUrl: String): Bitmap? {
+            icons[projectUrl]?.let { return it }
+            // try to get current client status from monitor
+            val icon = try {
+                BOINCActivity.monitor!!.getProjectIcon(projectUrl)
+            } catch (e: Exception) {
+                if (Logging.WARNING) {
+                    Log.w(Logging.TAG, "TaskRowModel: Could not load icon, clientStatus not initialized.")
+                }
+                null
+            }
+            // not available yet, e.g. before the project's files are downloaded, retried with the next row
+            if (icon != null) {
+                icons[projectUrl] = icon
+            }
+            return icon
+        }
+
+        private fun determineStatusText(result: Result, status: Int): String {
+            // custom state
+            if (status == RESULT_SUSPENDED_VIA_GUI) {
+                return context.getString(R.string.tasks_custom_suspended_via_gui)
+            }
+            if (status == RESULT_PROJECT_SUSPENDED) {
+                return context.getString(R.string.tasks_custom_project_suspended_via_gui)
+            }
+            if (status == RESULT_READY_TO_REPORT) {
+                return context.getString(R.string.tasks_custom_ready_to_report)
+            }
+
+            //active state
+            return if (result.isActiveTask) {
+                when (status) {
+                    PROCESS_UNINITIALIZED -> context.getString(R.string.tasks_active_uninitialized)
+                    PROCESS_EXECUTING -> context.getString(R.string.tasks_active_executing)
+                    PROCESS_ABORT_PENDING -> context.getString(R.string.tasks_active_abort_pending)
+                    PROCESS_QUIT_PENDING -> context.getString(R.string.tasks_active_quit_pending)
+                    PROCESS_SUSPENDED -> context.getString(R.string.tasks_active_suspended)
+                    else -> {
+                        if (Logging.WARNING) {
+                            Log.w(Logging.TAG, "determineStatusText could not map: $status")
+                        }
+                        ""
+                    }
+                }
+            } else {
+                // passive state
+                when (status) {
+                    RESULT_NEW -> context.getString(R.string.tasks_result_new)
+                    RESULT_FILES_DOWNLOADING -> context.getString(R.string.tasks_result_files_downloading)
+                    RESULT_FILES_DOWNLOADED -> context.getString(R.string.tasks_result_files_downloaded)
+                    RESULT_COMPUTE_ERROR -> context.getString(R.string.tasks_result_compute_error)
+                    RESULT_FILES_UPLOADING -> context.getString(R.string.tasks_result_files_uploading)
+                    RESULT_FILES_UPLOADED -> context.getString(R.string.tasks_result_files_uploaded)
+                    RESULT_ABORTED -> context.getString(R.string.tasks_result_aborted)
+                    RESULT_UPLOAD_FAILED -> context.getString(R.string.tasks_result_upload_failed)
+                    else -> {
+                        if (Logging.WARNING) {
+                            Log.w(Logging.TAG, "determineStatusText could not map: $status")
+                        }
+                        ""
+                    }
+                }
+            }
+        }
+
+        companion object {
+            /**
+             * Returns the state of the given result shown to the user.
+             */
+            fun determineState(result: Result): Int {
+                if (result.isSuspendedViaGUI) {
+                    return RESULT_SUSPENDED_VIA_GUI
+                }
+                if (result.isProjectSuspendedViaGUI) {
+                    return RESULT_PROJECT_SUSPENDED
+                }
+                if (result.isReadyToReport && result.state != RESULT_ABORTED && result.state != RESULT_COMPUTE_ERROR) {
+                    return RESULT_READY_TO_REPORT
+                }
+                return if (result.isActiveTask) {
+                    result.activeTaskState
+                } else {
+                    result.state
+                }
+            }
+        }
+    }
+
+    companion object {
+        const val PROGRESS_MAX = 1000
+
+        private val NO_PERCENTAGE_STATES = setOf(RESULT_ABORTED, RESULT_COMPUTE_ERROR, RESULT_FILES_DOWNLOADING,
+                RESULT_FILES_UPLOADED, RESULT_FILES_UPLOADING, RESULT_READY_TO_REPORT, RESULT_UPLOAD_FAILED)
+    }
+}
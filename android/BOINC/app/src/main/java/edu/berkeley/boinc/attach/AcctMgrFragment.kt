@@ -26,7 +26,6 @@ import android.content.ServiceConnection
 import android.net.ConnectivityManager
 import android.os.Bundle
 import android.os.IBinder
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -46,6 +45,7 @@ import edu.berkeley.boinc.client.Monitor
 import edu.berkeley.boinc.databinding.AttachProjectAcctMgrDialogBinding
 import edu.berkeley.boinc.rpc.AccountManager
 import edu.berkeley.boinc.utils.*
+import edu.berkeley.boinc.utils.Log
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
@@ -22,7 +22,6 @@ import android.app.Service
 import android.content.*
 import android.os.Bundle
 import android.os.IBinder
-import android.util.Log
 import androidx.appcompat.app.AppCompatActivity
 import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.LinearLayoutManager
@@ -33,8 +32,11 @@ import edu.berkeley.boinc.attach.ProjectAttachService.Companion.RESULT_ONGOING
 import edu.berkeley.boinc.attach.ProjectAttachService.LocalBinder
 import edu.berkeley.boinc.attach.ProjectAttachService.ProjectAttachWrapper
 import edu.berkeley.boinc.databinding.AttachProjectBatchConflictsLayoutBinding
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 
@@ -46,19 +48,9 @@ class BatchConflictListActivity : AppCompatActivity(), IndividualCredentialInput
     private var asIsBound = false
     private var manualUrl: String? = null
 
-    // not related to client status change, just used to implement cyclic checking of
-    // results.
-    private val mClientStatusChangeRec: BroadcastReceiver = object : BroadcastReceiver() {
-        override fun onReceive(context: Context, intent: Intent) {
-            if (Logging.VERBOSE) {
-                Log.d(Logging.TAG, "BatchConflictListActivity ClientStatusChange - onReceive()")
-            }
-            if (asIsBound) {
-                recyclerViewAdapter.notifyDataSetChanged()
-            }
-        }
-    }
-    private val ifcsc = IntentFilter("edu.berkeley.boinc.clientstatuschange")
+    // cyclic checking of results, while visible.
+    // attach results are not part of the client status, its change notifications are not sent for them.
+    private var refreshJob: Job? = null
 
     private val mASConnection: ServiceConnection = object : ServiceConnection {
         override fun onServiceConnected(className: ComponentName, service: IBinder) {
@@ -135,12 +127,23 @@ class BatchConflictListActivity : AppCompatActivity(), IndividualCredentialInput
     }
 
     public override fun onResume() {
-        registerReceiver(mClientStatusChangeRec, ifcsc)
+        val interval = resources.getInteger(R.integer.status_update_interval_ms).toLong()
+        refreshJob = lifecycleScope.launch {
+            while (true) {
+                delay(interval)
+                if (Logging.VERBOSE) {
+                    Log.d(Logging.TAG, "BatchConflictListActivity refresh")
+                }
+                if (asIsBound) {
+                    recyclerViewAdapter.notifyDataSetChanged()
+                }
+            }
+        }
         super.onResume()
     }
 
     public override fun onPause() {
-        unregisterReceiver(mClientStatusChangeRec)
+        refreshJob?.cancel()
         super.onPause()
     }
 
@@ -18,7 +18,6 @@
  */
 package edu.berkeley.boinc.attach
 
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -26,6 +25,7 @@ import androidx.fragment.app.FragmentActivity
 import androidx.recyclerview.widget.RecyclerView
 import edu.berkeley.boinc.R
 import edu.berkeley.boinc.databinding.AttachProjectBatchConflictsListItemBinding
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 
 class BatchConflictRecyclerViewAdapter(
@@ -25,7 +25,6 @@ import android.content.ServiceConnection
 import android.os.Build
 import android.os.Bundle
 import android.os.IBinder
-import android.util.Log
 import android.view.View
 import androidx.appcompat.app.AppCompatActivity
 import androidx.fragment.app.FragmentManager
@@ -38,9 +37,9 @@ import edu.berkeley.boinc.attach.ProjectAttachService.Companion.RESULT_READY
 import edu.berkeley.boinc.attach.ProjectAttachService.Companion.RESULT_SUCCESS
 import edu.berkeley.boinc.attach.ProjectAttachService.LocalBinder
 import edu.berkeley.boinc.databinding.AttachProjectBatchProcessingLayoutBinding
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 
@@ -87,6 +86,11 @@ class BatchProcessingActivity : AppCompatActivity() {
             Log.v(Logging.TAG, "BatchProcessingActivity onDestroy")
         }
         super.onDestroy()
+        if (isFinishing) {
+            // user left, configurations of remaining projects are not needed anymore
+            attachService?.cancelProjectConfigRetrieval()
+        }
+        attachService?.projectConfigListener = null
         doUnbindService()
     }
 
@@ -235,19 +239,21 @@ class BatchProcessingActivity : AppCompatActivity() {
         // shown while project configs are loaded
         binding.attachStatusText.text = getString(R.string.attachproject_login_loading)
 
+        // update progress as project configs get resolved
+        val service = attachService!!
+        val total = service.numberOfSelectedProjects
+        service.projectConfigListener = {
+            val resolved = service.selectedProjects.count { it.result != ProjectAttachService.RESULT_UNINITIALIZED }
+            binding.attachStatusText.text = getString(R.string.attachproject_login_loading_progress, resolved, total)
+        }
+        service.awaitProjectConfigs()
+        service.projectConfigListener = null
+        if (Logging.DEBUG) {
+            Log.d(Logging.TAG, "attachProject(): project config retrieval finished," +
+                    " continue with attach.")
+        }
+
         withContext(Dispatchers.Default) {
-            // wait until service is ready
-            while (!attachService!!.projectConfigRetrievalFinished) {
-                if (Logging.DEBUG) {
-                    Log.d(Logging.TAG, "attachProject(): project config retrieval has" +
-                            " not finished yet, wait...")
-                }
-                delay(1000)
-            }
-            if (Logging.DEBUG) {
-                Log.d(Logging.TAG, "attachProject(): project config retrieval finished," +
-                        " continue with attach.")
-            }
             // attach projects, one at a time
             attachService!!.selectedProjects
                     // skip already tried projects in batch processing
@@ -27,7 +27,6 @@ import android.os.Bundle;
 import android.os.IBinder;
 import android.text.InputType;
 import android.text.method.PasswordTransformationMethod;
-import android.util.Log;
 import android.view.View;
 import android.widget.CheckBox;
 
@@ -36,6 +35,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import java.util.List;
 
 import edu.berkeley.boinc.databinding.AttachProjectCredentialInputLayoutBinding;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 public class CredentialInputActivity extends AppCompatActivity {
@@ -21,10 +21,10 @@ package edu.berkeley.boinc.attach;
 
 import edu.berkeley.boinc.R;
 import edu.berkeley.boinc.utils.*;
+import edu.berkeley.boinc.utils.Log;
 
 import android.os.Bundle;
 import androidx.fragment.app.Fragment;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -26,7 +26,6 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.text.InputType;
 import android.text.method.PasswordTransformationMethod;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -40,6 +39,7 @@ import java.util.List;
 
 import edu.berkeley.boinc.attach.ProjectAttachService.ProjectAttachWrapper;
 import edu.berkeley.boinc.databinding.AttachProjectCredentialInputDialogBinding;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 public class IndividualCredentialInputFragment extends DialogFragment {
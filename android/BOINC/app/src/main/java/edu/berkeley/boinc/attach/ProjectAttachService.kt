@@ -25,7 +25,6 @@ import android.content.ServiceConnection
 import android.os.Binder
 import android.os.IBinder
 import android.os.RemoteException
-import android.util.Log
 import android.widget.Toast
 import androidx.lifecycle.LifecycleService
 import androidx.lifecycle.lifecycleScope
@@ -34,12 +33,11 @@ import edu.berkeley.boinc.R
 import edu.berkeley.boinc.client.IMonitor
 import edu.berkeley.boinc.client.Monitor
 import edu.berkeley.boinc.client.PersistentStorage
+import edu.berkeley.boinc.client.getProjectConfigAwait
 import edu.berkeley.boinc.rpc.*
 import edu.berkeley.boinc.utils.*
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.delay
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
+import edu.berkeley.boinc.utils.Log
+import kotlinx.coroutines.*
 import java.util.*
 import javax.inject.Inject
 
@@ -51,6 +49,9 @@ class ProjectAttachService : LifecycleService() {
     private val mBinder: IBinder = LocalBinder()
     val selectedProjects: MutableList<ProjectAttachWrapper> = ArrayList()
     var projectConfigRetrievalFinished = true // shows whether project retrieval is ongoing
+    private var projectConfigJob: Job? = null
+    // notified on the main thread whenever the configuration of a selected project is resolved
+    var projectConfigListener: ((ProjectAttachWrapper) -> Unit)? = null
 
     //credentials
     private var email = ""
@@ -163,7 +164,7 @@ class ProjectAttachService : LifecycleService() {
         selectedProjects.clear()
         selectedProjects.addAll(selected.filterNotNull().map { ProjectAttachWrapper(it) })
         if (mIsBound) {
-            lifecycleScope.launch { getProjectConfigs() }
+            projectConfigJob = lifecycleScope.launch { getProjectConfigs() }
         } else {
             if (Logging.ERROR) {
                 Log.e(Logging.TAG, "ProjectAttachService.setSelectedProjects: could not load configuration files, monitor not bound.")
@@ -195,7 +196,7 @@ class ProjectAttachService : LifecycleService() {
 
         // get projectConfig
         if (mIsBound) {
-            lifecycleScope.launch { getProjectConfigs() }
+            projectConfigJob = lifecycleScope.launch { getProjectConfigs() }
         } else {
             if (Logging.ERROR) {
                 Log.e(Logging.TAG, "ProjectAttachService.setManuallySelectedProject: could not load configuration file, monitor not bound.")
@@ -209,6 +210,22 @@ class ProjectAttachService : LifecycleService() {
         }
     }
 
+    /**
+     * Suspends until the configuration retrieval started by setSelectedProjects() or
+     * setManuallySelectedProject() has finished or got cancelled.
+     */
+    suspend fun awaitProjectConfigs() {
+        projectConfigJob?.join()
+    }
+
+    /**
+     * Cancels an ongoing configuration retrieval, e.g. when the user leaves the attach screens.
+     * Projects whose configuration has not been resolved yet remain uninitialized.
+     */
+    fun cancelProjectConfigRetrieval() {
+        projectConfigJob?.cancel()
+    }
+
     /**
      * Checks user input, e.g. length of input. Shows an error toast if problem detected
      *
@@ -560,46 +577,59 @@ class ProjectAttachService : LifecycleService() {
         }
     }
 
+    /**
+     * Downloads the configurations of all selected projects, each project in its own coroutine.
+     * The client runs one get_project_config operation at a time, so the operations queue on
+     * Monitor's attach connection; retries and back-off of one project do not delay the others.
+     */
     private suspend fun getProjectConfigs() {
         projectConfigRetrievalFinished = false
-
-        withContext(Dispatchers.Default) {
-            if (Logging.DEBUG) {
-                Log.d(Logging.TAG, "ProjectAttachService.GetProjectConfigAsync: number of selected projects: " +
-                        selectedProjects.size)
-            }
-            for (tmp in selectedProjects) {
-                if (Logging.DEBUG) {
-                    Log.d(Logging.TAG,
-                            "ProjectAttachService.GetProjectConfigAsync: configuration download started for: " +
-                                    tmp.name + " with URL: " + tmp.url)
-                }
-                val config = getProjectConfig(tmp.url)
-                if (config?.errorNum == ERR_OK) {
-                    if (Logging.DEBUG) {
-                        Log.d(Logging.TAG,
-                                "ProjectAttachService.GetProjectConfigAsync: configuration download succeeded for: " +
-                                        tmp.name)
-                    }
-                    tmp.config = config
-                    tmp.name = config.name
-                    tmp.result = RESULT_READY
-                } else {
-                    // error occurred
-                    if (Logging.WARNING) {
-                        Log.w(Logging.TAG,
-                                "ProjectAttachService.GetProjectConfigAsync: could not load configuration for: " +
-                                        tmp.name)
+        if (Logging.DEBUG) {
+            Log.d(Logging.TAG, "ProjectAttachService.GetProjectConfigAsync: number of selected projects: " +
+                    selectedProjects.size)
+        }
+        try {
+            coroutineScope {
+                for (tmp in selectedProjects.toList()) {
+                    launch {
+                        withContext(Dispatchers.IO) { resolveProjectConfig(tmp) }
+                        projectConfigListener?.invoke(tmp)
                     }
-                    tmp.result = RESULT_CONFIG_DOWNLOAD_FAILED
                 }
             }
+        } finally {
             if (Logging.DEBUG) {
                 Log.d(Logging.TAG, "ProjectAttachService.GetProjectConfigAsync: end.")
             }
+            projectConfigRetrievalFinished = true
         }
+    }
 
-        projectConfigRetrievalFinished = true
+    private suspend fun resolveProjectConfig(tmp: ProjectAttachWrapper) {
+        if (Logging.DEBUG) {
+            Log.d(Logging.TAG,
+                    "ProjectAttachService.GetProjectConfigAsync: configuration download started for: " +
+                            tmp.name + " with URL: " + tmp.url)
+        }
+        val config = getProjectConfig(tmp.url)
+        if (config?.errorNum == ERR_OK) {
+            if (Logging.DEBUG) {
+                Log.d(Logging.TAG,
+                        "ProjectAttachService.GetProjectConfigAsync: configuration download succeeded for: " +
+                                tmp.name)
+            }
+            tmp.config = config
+            tmp.name = config.name
+            tmp.result = RESULT_READY
+        } else {
+            // error occurred
+            if (Logging.WARNING) {
+                Log.w(Logging.TAG,
+                        "ProjectAttachService.GetProjectConfigAsync: could not load configuration for: " +
+                                tmp.name)
+            }
+            tmp.result = RESULT_CONFIG_DOWNLOAD_FAILED
+        }
     }
 
     private suspend fun getProjectConfig(url: String): ProjectConfig? {
@@ -607,12 +637,13 @@ class ProjectAttachService : LifecycleService() {
         var config: ProjectConfig? = null
         var retry = true
         var attemptCounter = 0
+        var retryDelay = resources.getInteger(R.integer.attach_step_interval_ms).toLong()
         // retry a defined number of times, if non deterministic failure occurs.
         // makes login more robust on bad network connections
         while (retry && attemptCounter < maxAttempts) {
             if (mIsBound) {
                 try {
-                    config = monitor!!.getProjectConfigPolling(url)
+                    config = monitor!!.getProjectConfigAwait(url)
                 } catch (e: RemoteException) {
                     if (Logging.ERROR) {
                         Log.e(Logging.TAG, "ProjectAttachService.getProjectConfig error: ", e)
@@ -639,7 +670,8 @@ class ProjectAttachService : LifecycleService() {
                 }
             }
             if (retry) {
-                delay(resources.getInteger(R.integer.attach_step_interval_ms).toLong())
+                delay(retryDelay)
+                retryDelay *= 2 // back off, the project's server might be overloaded
             }
         }
         return config
@@ -20,7 +20,6 @@ package edu.berkeley.boinc.attach
 
 import android.app.Dialog
 import android.os.Bundle
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
@@ -32,6 +31,7 @@ import edu.berkeley.boinc.R
 import edu.berkeley.boinc.attach.glide.ScaleBitmapBy2
 import edu.berkeley.boinc.databinding.AttachProjectInfoLayoutBinding
 import edu.berkeley.boinc.rpc.ProjectInfo
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 
 class ProjectInfoFragment : DialogFragment() {
@@ -26,7 +26,6 @@ import android.net.ConnectivityManager
 import android.os.Bundle
 import android.os.IBinder
 import android.os.RemoteException
-import android.util.Log
 import android.view.View
 import android.widget.Toast
 import androidx.appcompat.app.AppCompatActivity
@@ -42,6 +41,7 @@ import edu.berkeley.boinc.client.IMonitor
 import edu.berkeley.boinc.client.Monitor
 import edu.berkeley.boinc.databinding.AttachProjectListLayoutBinding
 import edu.berkeley.boinc.rpc.ProjectInfo
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import edu.berkeley.boinc.utils.isOnline
 import kotlinx.coroutines.*
@@ -19,9 +19,9 @@
 package edu.berkeley.boinc.client
 
 import android.content.Context
-import android.util.Log
 import androidx.preference.PreferenceManager
 import edu.berkeley.boinc.R
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import javax.inject.Inject
 import javax.inject.Singleton
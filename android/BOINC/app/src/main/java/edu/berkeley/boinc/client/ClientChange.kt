@@ -0,0 +1,38 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+/**
+ * Categories of client status changes, combined as bit set.
+ * Passed to [IMonitorListener.onClientStatusChanged], so listeners reload only what changed,
+ * and to [IMonitor.registerListener], so listeners are only notified of the changes they show.
+ */
+object ClientChange {
+    // run modes, suspend reasons, computing and network status
+    const val STATUS = 1
+    const val TASKS = 1 shl 1
+    const val PROJECTS = 1 shl 2
+    const val TRANSFERS = 1 shl 3
+    const val NOTICES = 1 shl 4
+    const val HOST_INFO = 1 shl 5
+    const val ACCT_MGR = 1 shl 6
+    // setup status, e.g. client launched or first project attached
+    const val SETUP = 1 shl 7
+    const val ALL = (1 shl 8) - 1
+}
@@ -1,7 +1,5 @@
 package edu.berkeley.boinc.client;
 
-import android.util.Log;
-
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.BufferedReader;
@@ -10,25 +8,24 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import edu.berkeley.boinc.rpc.AccountIn;
-import edu.berkeley.boinc.rpc.AccountManager;
 import edu.berkeley.boinc.rpc.AccountOut;
 import edu.berkeley.boinc.rpc.AcctMgrRPCReply;
+import edu.berkeley.boinc.rpc.AllProjectsList;
+import edu.berkeley.boinc.rpc.BulkOperation;
 import edu.berkeley.boinc.rpc.GlobalPreferences;
-import edu.berkeley.boinc.rpc.Message;
 import edu.berkeley.boinc.rpc.Project;
 import edu.berkeley.boinc.rpc.ProjectAttachReply;
 import edu.berkeley.boinc.rpc.ProjectConfig;
-import edu.berkeley.boinc.rpc.ProjectInfo;
 import edu.berkeley.boinc.rpc.RpcClient;
 import edu.berkeley.boinc.rpc.Transfer;
 import edu.berkeley.boinc.utils.BOINCErrors;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 /**
@@ -38,8 +35,6 @@ import edu.berkeley.boinc.utils.Logging;
  */
 @Singleton
 public class ClientInterfaceImplementation extends RpcClient {
-    // interval between polling retries in ms
-    private final int minRetryInterval = 1000;
     private ClientStatus clientStatus;
 
     @Inject
@@ -79,7 +74,9 @@ public class ClientInterfaceImplementation extends RpcClient {
     }
 
     /**
-     * Writes the given GlobalPreferences via RPC to the client. After writing, the active preferences are read back and written to ClientStatus.
+     * Writes the given GlobalPreferences via RPC to the client and makes it reload them.
+     * All preferences shown by the app are part of the override, so the client's working
+     * preferences equal the written ones; they are set in ClientStatus without reading them back.
      *
      * @param prefs new target preferences for the client
      * @return success
@@ -90,12 +87,9 @@ public class ClientInterfaceImplementation extends RpcClient {
         if (!retval1 || !retval2) {
             return false;
         }
-        GlobalPreferences workingPrefs = getGlobalPrefsWorkingStruct();
-        if (workingPrefs != null) {
-            clientStatus.setPrefs(workingPrefs);
-            return true;
-        }
-        return false;
+        prefs.setOverrideFilePresent(true);
+        clientStatus.setPrefs(prefs);
+        return true;
     }
 
     /**
@@ -124,6 +118,17 @@ public class ClientInterfaceImplementation extends RpcClient {
         return authKey;
     }
 
+    /**
+     * Creates the operation reading the project configuration for specified master URL.
+     *
+     * @param url master URL of the project
+     * @return operation, polled until project configuration information is available
+     */
+    PollOperation<ProjectConfig> getProjectConfigOperation(String url) {
+        return new PollOperation<>("getProjectConfig", () -> getProjectConfig(url),
+                                   this::getProjectConfigPoll, ProjectConfig::getErrorNum);
+    }
+
     /**
      * Reads project configuration for specified master URL.
      *
@@ -131,46 +136,20 @@ public class ClientInterfaceImplementation extends RpcClient {
      * @return project configuration information
      */
     public ProjectConfig getProjectConfigPolling(String url) {
-        ProjectConfig config = null;
+        return getProjectConfigOperation(url).runBlocking();
+    }
 
-        Boolean success = getProjectConfig(url); //asynchronous call
-        if (success) { //only continue if attach command did not fail
-            // verify success of getProjectConfig with poll function
-            Boolean loop = true;
-            while (loop) {
-                loop = false;
-                try {
-                    Thread.sleep(minRetryInterval);
-                } catch (Exception ignored) {
-                }
-                config = getProjectConfigPoll();
-                if (config == null) {
-                    if (Logging.ERROR) {
-                        Log.e(Logging.TAG, "ClientInterfaceImplementation.getProjectConfigPolling: returned null.");
-                    }
-                    return null;
-                }
-                if (config.getErrorNum() == BOINCErrors.ERR_IN_PROGRESS) {
-                    loop = true; //no result yet, keep looping
-                } else {
-                    //final result ready
-                    if (config.getErrorNum() == 0) {
-                        if (Logging.DEBUG) {
-                            Log.d(Logging.TAG,
-                                    "ClientInterfaceImplementation.getProjectConfigPolling: ProjectConfig retrieved: " +
-                                            config.getName());
-                        }
-                    } else {
-                        if (Logging.DEBUG) {
-                            Log.d(Logging.TAG,
-                                    "ClientInterfaceImplementation.getProjectConfigPolling: final result with error_num: " +
-                                            config.getErrorNum());
-                        }
-                    }
-                }
-            }
-        }
-        return config;
+    /**
+     * Creates the operation attaching a project, requires authenticator
+     *
+     * @param url           URL of project to be attached, either masterUrl(HTTP) or webRpcUrlBase(HTTPS)
+     * @param projectName   name of project as shown in the manager
+     * @param authenticator user authentication key, has to be obtained first
+     * @return operation, polled until the attach reply is available
+     */
+    PollOperation<ProjectAttachReply> attachProjectOperation(String url, String projectName, String authenticator) {
+        return new PollOperation<>("projectAttach", () -> projectAttach(url, authenticator, projectName),
+                                   this::projectAttachPoll, ProjectAttachReply::getErrorNum);
     }
 
     /**
@@ -181,25 +160,9 @@ public class ClientInterfaceImplementation extends RpcClient {
      * @param authenticator user authentication key, has to be obtained first
      * @return success
      */
-
     public Boolean attachProject(String url, String projectName, String authenticator) {
-        Boolean success = projectAttach(url, authenticator, projectName); //asynchronous call to attach project
-        if (success) {
-            // verify success of projectAttach with poll function
-            ProjectAttachReply reply = projectAttachPoll();
-            while (reply != null && reply.getErrorNum() ==
-                                    BOINCErrors.ERR_IN_PROGRESS) { // loop as long as reply.error_num == BOINCErrors.ERR_IN_PROGRESS
-                try {
-                    Thread.sleep(minRetryInterval);
-                } catch (Exception ignored) {
-                }
-                reply = projectAttachPoll();
-            }
-            return (reply != null && reply.getErrorNum() == BOINCErrors.ERR_OK);
-        } else if (Logging.DEBUG) {
-            Log.d(Logging.TAG, "rpc.projectAttach failed.");
-        }
-        return false;
+        ProjectAttachReply reply = attachProjectOperation(url, projectName, authenticator).runBlocking();
+        return (reply != null && reply.getErrorNum() == BOINCErrors.ERR_OK);
     }
 
     /**
@@ -228,6 +191,17 @@ public class ClientInterfaceImplementation extends RpcClient {
         return false;
     }
 
+    /**
+     * Creates the operation looking up account credentials for given user data.
+     *
+     * @param credentials account credentials
+     * @return operation, polled until the account credentials are available
+     */
+    PollOperation<AccountOut> lookupCredentialsOperation(AccountIn credentials) {
+        return new PollOperation<>("lookupAccount", () -> lookupAccount(credentials),
+                                   this::lookupAccountPoll, AccountOut::getErrorNum);
+    }
+
     /**
      * Looks up account credentials for given user data.
      * Contains authentication key for project attachment.
@@ -235,111 +209,64 @@ public class ClientInterfaceImplementation extends RpcClient {
      * @param credentials account credentials
      * @return account credentials
      */
-
     public AccountOut lookupCredentials(AccountIn credentials) {
-        AccountOut auth = null;
-        Boolean success = lookupAccount(credentials); //asynch
-        if (success) {
-            // get authentication token from lookupAccountPoll
-            Boolean loop = true;
-            while (loop) {
-                loop = false;
-                try {
-                    Thread.sleep(minRetryInterval);
-                } catch (Exception ignored) {
-                }
-                auth = lookupAccountPoll();
-                if (auth == null) {
-                    if (Logging.ERROR) {
-                        Log.e(Logging.TAG, "ClientInterfaceImplementation.lookupCredentials: returned null.");
-                    }
-                    return null;
-                }
-                if (auth.getErrorNum() == BOINCErrors.ERR_IN_PROGRESS) {
-                    loop = true; //no result yet, keep looping
-                } else {
-                    //final result ready
-                    if (auth.getErrorNum() == 0) {
-                        if (Logging.DEBUG) {
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.lookupCredentials: authenticator retrieved.");
-                        }
-                    } else {
-                        if (Logging.DEBUG) {
-                            Log.d(Logging.TAG,
-                                    "ClientInterfaceImplementation.lookupCredentials: final result with error_num: " +
-                                    auth.getErrorNum());
-                        }
-                    }
-                }
-            }
-        } else if (Logging.DEBUG) {
-            Log.d(Logging.TAG, "rpc.lookupAccount failed.");
-        }
-        return auth;
+        return lookupCredentialsOperation(credentials).runBlocking();
     }
 
     /**
-     * Runs transferOp for a list of given transfers.
+     * Runs transferOp for a list of given transfers in one batch.
      * E.g. batch pausing of transfers
      *
      * @param transfers list of transfered operation gets executed for
      * @param operation see BOINCDefs
-     * @return success
+     * @return true if the operation succeeded for all transfers
      */
-
     boolean transferOperation(List<Transfer> transfers, int operation) {
-        boolean success = true;
+        final List<BulkOperation> operations = new ArrayList<>(transfers.size());
         for (Transfer transfer : transfers) {
-            success = success && transferOp(operation, transfer.getProjectUrl(), transfer.getName());
-            if (Logging.DEBUG) Log.d(Logging.TAG, "transfer: " + transfer.getName() + " " +
-                                                  success);
+            operations.add(new BulkOperation(operation, transfer.getProjectUrl(), transfer.getName()));
+        }
+        final int[] status = bulkOp(operations);
+        boolean success = true;
+        for (int i = 0; i < status.length; i++) {
+            if (Logging.DEBUG) Log.d(Logging.TAG, "transfer: " + transfers.get(i).getName() + " " + status[i]);
+            success = success && status[i] == BulkOperation.STATUS_OK;
         }
         return success;
     }
 
+    /**
+     * Creates the operation creating an account for given user information.
+     *
+     * @param information account credentials
+     * @return operation, polled until the account credentials are available
+     */
+    PollOperation<AccountOut> createAccountOperation(AccountIn information) {
+        return new PollOperation<>("createAccount", () -> createAccount(information),
+                                   this::createAccountPoll, AccountOut::getErrorNum);
+    }
+
     /**
      * Creates account for given user information and returns account credentials if successful.
      *
      * @param information account credentials
      * @return account credentials (see status inside, to check success)
      */
-
     public AccountOut createAccountPolling(AccountIn information) {
-        AccountOut auth = null;
+        return createAccountOperation(information).runBlocking();
+    }
 
-        Boolean success = createAccount(information); //asynchronous call to attach project
-        if (success) {
-            Boolean loop = true;
-            while (loop) {
-                loop = false;
-                try {
-                    Thread.sleep(minRetryInterval);
-                } catch (Exception ignored) {
-                }
-                auth = createAccountPoll();
-                if (auth == null) {
-                    if (Logging.ERROR)
-                        Log.e(Logging.TAG, "ClientInterfaceImplementation.createAccountPolling: returned null.");
-                    return null;
-                }
-                if (auth.getErrorNum() == BOINCErrors.ERR_IN_PROGRESS) {
-                    loop = true; //no result yet, keep looping
-                } else {
-                    //final result ready
-                    if (auth.getErrorNum() == 0) {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.createAccountPolling: authenticator retrieved.");
-                    } else {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.createAccountPolling: final result with error_num: "
-                                               + auth.getErrorNum());
-                    }
-                }
-            }
-        } else {
-            if (Logging.DEBUG) Log.d(Logging.TAG, "rpc.createAccount returned false.");
-        }
-        return auth;
+    /**
+     * Creates the operation adding an account manager to BOINC client.
+     *
+     * @param url      URL of account manager
+     * @param userName user name
+     * @param pwd      password
+     * @return operation, polled until the account manager reply is available
+     */
+    PollOperation<AcctMgrRPCReply> addAcctMgrOperation(String url, String userName, String pwd) {
+        return new PollOperation<>("acctMgrRPC", () -> acctMgrRPC(url, userName, pwd),
+                                   this::acctMgrRPCPoll, AcctMgrRPCReply::getErrorNum);
     }
 
     /**
@@ -351,39 +278,10 @@ public class ClientInterfaceImplementation extends RpcClient {
      * @param pwd      password
      * @return status of attachment
      */
-
     public AcctMgrRPCReply addAcctMgr(String url, String userName, String pwd) {
-        AcctMgrRPCReply reply = null;
-        Boolean success = acctMgrRPC(url, userName, pwd);
-        if (success) {
-            Boolean loop = true;
-            while (loop) {
-                reply = acctMgrRPCPoll();
-                if (reply == null || reply.getErrorNum() != BOINCErrors.ERR_IN_PROGRESS) {
-                    loop = false;
-                    //final result ready
-                    if (reply == null) {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.addAcctMgr: failed, reply null.");
-                    } else {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.addAcctMgr: returned "
-                                               + reply.getErrorNum());
-                    }
-                } else {
-                    try {
-                        Thread.sleep(minRetryInterval);
-                    } catch (Exception ignored) {
-                    }
-                }
-            }
-        } else {
-            if (Logging.DEBUG) Log.d(Logging.TAG, "rpc.acctMgrRPC returned false.");
-        }
-        return reply;
+        return addAcctMgrOperation(url, userName, pwd).runBlocking();
     }
 
-
     /**
      * Synchronized BOINC client projects with information of account manager.
      * Sequence copied from BOINC's desktop manager.
@@ -393,75 +291,14 @@ public class ClientInterfaceImplementation extends RpcClient {
      */
     boolean synchronizeAcctMgr(String url) {
         // 1st get_project_config for account manager url
-        boolean success = getProjectConfig(url);
-        ProjectConfig reply;
-        if (success) {
-            boolean loop = true;
-            while (loop) {
-                loop = false;
-                try {
-                    Thread.sleep(minRetryInterval);
-                } catch (Exception ignored) {
-                }
-                reply = getProjectConfigPoll();
-                if (reply == null) {
-                    if (Logging.ERROR)
-                        Log.e(Logging.TAG, "ClientInterfaceImplementation.synchronizeAcctMgr: getProjectConfigreturned null.");
-                    return false;
-                }
-                if (reply.getErrorNum() == BOINCErrors.ERR_IN_PROGRESS) {
-                    loop = true; //no result yet, keep looping
-                } else {
-                    //final result ready
-                    if (reply.getErrorNum() == 0) {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.synchronizeAcctMgr: project config retrieved.");
-                    } else {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.synchronize" +
-                                               "AcctMgr: final result with error_num: " + reply.getErrorNum());
-                    }
-                }
-            }
-        } else {
-            if (Logging.DEBUG) Log.d(Logging.TAG, "rpc.getProjectConfig returned false.");
+        if (getProjectConfigOperation(url).runBlocking() == null) {
+            return false;
         }
 
         // 2nd acct_mgr_rpc with <use_config_file/>
-        AcctMgrRPCReply reply2;
-        success = acctMgrRPC(); //asynchronous call to synchronize account manager
-        if (success) {
-            boolean loop = true;
-            while (loop) {
-                loop = false;
-                try {
-                    Thread.sleep(minRetryInterval);
-                } catch (Exception ignored) {
-                }
-                reply2 = acctMgrRPCPoll();
-                if (reply2 == null) {
-                    if (Logging.ERROR)
-                        Log.e(Logging.TAG, "ClientInterfaceImplementation.synchronizeAcctMgr: acctMgrRPCPoll returned null.");
-                    return false;
-                }
-                if (reply2.getErrorNum() == BOINCErrors.ERR_IN_PROGRESS) {
-                    loop = true; //no result yet, keep looping
-                } else {
-                    //final result ready
-                    if (reply2.getErrorNum() == 0) {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.synchronizeAcctMgr: acct mngr reply retrieved.");
-                    } else {
-                        if (Logging.DEBUG)
-                            Log.d(Logging.TAG, "ClientInterfaceImplementation.synchronizeAcctMgr: final result with error_num: " + reply2.getErrorNum());
-                    }
-                }
-            }
-        } else {
-            if (Logging.DEBUG) Log.d(Logging.TAG, "rpc.acctMgrRPC returned false.");
-        }
-
-        return true;
+        PollOperation<AcctMgrRPCReply> sync = new PollOperation<>("acctMgrRPC", this::acctMgrRPC,
+                                                                 this::acctMgrRPCPoll, AcctMgrRPCReply::getErrorNum);
+        return sync.runBlocking() != null;
     }
 
     @Override
@@ -472,117 +309,19 @@ public class ClientInterfaceImplementation extends RpcClient {
     }
 
     /**
-     * Returns List of event log messages
-     *
-     * @param seqNo  lower bound of sequence number
-     * @param number number of messages returned max, can be less
-     * @return list of messages
-     */
-
-    // returns given number of client messages, older than provided seqNo
-    // if seqNo <= 0 initial data retrieval
-    List<Message> getEventLogMessages(int seqNo, int number) {
-        // determine oldest message seqNo for data retrieval
-        int lowerBound;
-        if (seqNo > 0)
-            lowerBound = seqNo - number - 2;
-        else
-            lowerBound = getMessageCount() - number - 1; // can result in >number results, if client writes message btwn. here and rpc.getMessages!
-
-        // less than desired number of messsages available, adapt lower bound
-        if (lowerBound < 0)
-            lowerBound = 0;
-        List<Message> msgs = getMessages(lowerBound); // returns ever messages with seqNo > lowerBound
-
-        if (seqNo > 0) {
-            // remove messages that are >= seqNo
-            msgs.removeIf(message -> message.getSeqno() >= seqNo);
-        }
-
-        if(!msgs.isEmpty() && Logging.DEBUG) {
-            Log.d(Logging.TAG, "getEventLogMessages: returning array with " + msgs.size()
-                               + " entries. for lowerBound: " + lowerBound + " at 0: "
-                               + msgs.get(0).getSeqno() + " at " + (msgs.size() - 1) + ": "
-                               + msgs.get(msgs.size() - 1).getSeqno());
-        }
-        return msgs;
-    }
-
-    /**
-     * Returns list of projects from all_projects_list.xml that...
-     * - support Android
-     * - support CPU architecture
-     * - are not yet attached
-     *
-     * @return list of attachable projects
-     */
-    List<ProjectInfo> getAttachableProjects(String boincPlatformName, String boincAltPlatformName) {
-        if (Logging.DEBUG)
-            Log.d(Logging.TAG, "getAttachableProjects for platform: " + boincPlatformName + " or " + boincAltPlatformName);
-
-        List<ProjectInfo> allProjectsList = getAllProjectsList(); // all_projects_list.xml
-        List<Project> attachedProjects = getState().getProjects(); // currently attached projects
-
-        List<ProjectInfo> attachableProjects = new ArrayList<>(); // array to be filled and returned
-
-        if (allProjectsList == null)
-            return Collections.emptyList();
-
-        //filter projects that do not support Android
-        for (ProjectInfo candidate : allProjectsList) {
-            // check whether already attached
-            boolean alreadyAttached = false;
-            for (Project attachedProject : attachedProjects) {
-                if (attachedProject.getMasterURL().equals(candidate.getUrl())) {
-                    alreadyAttached = true;
-                    break;
-                }
-            }
-            if (alreadyAttached)
-                continue;
-
-            // project is not yet attached, check whether it supports CPU architecture
-            for (String supportedPlatform : candidate.getPlatforms()) {
-                if (supportedPlatform.contains(boincPlatformName) ||
-                   (!boincAltPlatformName.isEmpty() && supportedPlatform.contains(boincAltPlatformName))) {
-                    // project is not yet attached and does support platform
-                    // add to list, if not already in it
-                    if (!attachableProjects.contains(candidate))
-                        attachableProjects.add(candidate);
-                    break;
-                }
-            }
-        }
-
-        if (Logging.DEBUG)
-            Log.d(Logging.TAG, "getAttachableProjects: number of candidates found: "
-                               + attachableProjects.size());
-        return attachableProjects;
-    }
-
-    /**
-     * Returns list of account managers from all_projects_list.xml
+     * Returns projects and account managers from all_projects_list.xml
+     * Use ProjectCatalog for queries, which caches the parsed list.
      *
-     * @return list of account managers
+     * @return projects and account managers, empty on error
      */
-    List<AccountManager> getAccountManagers() {
-        List<AccountManager> accountManagers = getAccountManagersList(); // from all_projects_list.xml
+    AllProjectsList readAllProjectsList() {
+        AllProjectsList allProjectsList = getAllProjectsList(); // all_projects_list.xml
 
         if (Logging.DEBUG)
-            Log.d(Logging.TAG, "getAccountManagers: number of account managers found: "
-                               + accountManagers.size());
-        return accountManagers;
-    }
-
-    ProjectInfo getProjectInfo(String url) {
-        List<ProjectInfo> allProjectsList = getAllProjectsList(); // all_projects_list.xml
-        for (ProjectInfo tmp : allProjectsList) {
-            if (tmp.getUrl().equals(url))
-                return tmp;
-        }
-        if (Logging.ERROR)
-            Log.e(Logging.TAG, "getProjectInfo: could not find info for: " + url);
-        return null;
+            Log.d(Logging.TAG, "readAllProjectsList: number of projects found: "
+                               + allProjectsList.getProjects().size() + ", account managers found: "
+                               + allProjectsList.getAccountManagers().size());
+        return allProjectsList;
     }
 
     boolean setDomainName(String deviceName) {
@@ -20,18 +20,17 @@ package edu.berkeley.boinc.client;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.Intent;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.wifi.WifiManager;
 import android.os.PowerManager;
 import android.os.PowerManager.WakeLock;
 import android.text.format.DateUtils;
-import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.collection.ArraySet;
 import androidx.core.content.ContextCompat;
+import androidx.core.util.ObjectsCompat;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -65,6 +64,7 @@ import edu.berkeley.boinc.rpc.Result;
 import edu.berkeley.boinc.rpc.Transfer;
 import edu.berkeley.boinc.utils.BOINCDefs;
 import edu.berkeley.boinc.utils.BOINCUtils;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 /*
@@ -73,7 +73,17 @@ import edu.berkeley.boinc.utils.Logging;
  */
 @Singleton
 public class ClientStatus {
-    private Context context; // application context in order to fire broadcast events
+    /*
+     * notified of status changes, in the Monitor process
+     */
+    public interface ChangeListener {
+        /*
+         * changes: ClientChange categories, version: version of the status including the changes
+         */
+        void onClientStatusChanged(int changes, long version);
+    }
+
+    private Context context;
     private AppPreferences appPreferences;
 
     // CPU WakeLock
@@ -84,7 +94,13 @@ public class ClientStatus {
     //RPC wrapper
     private CcStatus status;
     private List<Result> results;
+    // results grouped by project and state, built on demand
+    private TaskGroups taskGroups;
+    // results indexed for queries, updated with each status
+    private final TaskIndex taskIndex = new TaskIndex();
     private List<Project> projects;
+    // rows of the project list, built on demand
+    private List<ProjectRow> projectRows;
     private List<Transfer> transfers;
     private GlobalPreferences prefs;
     private HostInfo hostinfo;
@@ -123,18 +139,24 @@ public class ClientStatus {
     // indicates that status could not be parsed and is therefore invalid
     private Boolean networkParseError = false;
 
-    // notices
-    private List<Notice> rssNotices = new ArrayList<>();
-    private List<Notice> serverNotices = new ArrayList<>();
-    private int mostRecentNoticeSeqNo = 0;
+    // notices, bounded and persisted across restarts
+    private final NoticeStore noticeStore;
+
+    // true while the status restored from the persisted snapshot is shown, until the first live poll
+    private boolean stale = false;
 
     private DeviceStatus deviceStatus;
 
+    // increased with every change of the status, passed to the change listener
+    private long version = 0;
+    private ChangeListener changeListener;
+
     @Inject
     public ClientStatus(Context context, AppPreferences appPreferences, DeviceStatus deviceStatus) {
         this.context = context;
         this.appPreferences = appPreferences;
         this.deviceStatus = deviceStatus;
+        noticeStore = new NoticeStore(new File(context.getFilesDir(), NoticeStore.FILE_NAME));
 
         // set up CPU wakelock
         // see documentation at http://developer.android.com/reference/android/os/PowerManager.html
@@ -212,18 +234,22 @@ public class ClientStatus {
         }
     }
 
+    public synchronized void setChangeListener(@Nullable ChangeListener listener) {
+        changeListener = listener;
+    }
+
     /*
-     * fires "clientstatuschange" broadcast, so registered Activities can update their model.
+     * notifies the change listener, so registered Activities can update their model.
+     * changes: ClientChange categories
      */
-    public synchronized void fire() {
-        if(context != null) {
-            Intent clientChanged = new Intent();
-            clientChanged.setAction("edu.berkeley.boinc.clientstatuschange");
-            context.sendBroadcast(clientChanged, null);
+    public synchronized void fire(int changes) {
+        version++;
+        if(changeListener != null) {
+            changeListener.onClientStatusChanged(changes, version);
         }
         else {
             if(Logging.DEBUG) {
-                Log.d(Logging.TAG, "ClientStatus cant fire, not context set!");
+                Log.d(Logging.TAG, "ClientStatus cant fire, no listener set!");
             }
         }
     }
@@ -232,14 +258,36 @@ public class ClientStatus {
      * called frequently by Monitor to set the RPC data. These objects are used to determine the client status and parse it in the data model of this class.
      */
     public synchronized void setClientStatus(CcStatus status, List<Result> results, List<Project> projects, List<Transfer> transfers, HostInfo hostinfo, AcctMgrInfo acctMgrInfo, List<Notice> newNotices) {
+        int changes = changesTo(status, results, projects, transfers, hostinfo, acctMgrInfo);
+        if(stale) {
+            changes |= ClientChange.ALL; // replaces the restored snapshot
+        }
+        int previousSetupStatus = setupStatus;
+        int previousComputingStatus = computingStatus;
+        int previousComputingSuspendReason = computingSuspendReason;
+        int previousNetworkStatus = networkStatus;
+        int previousNetworkSuspendReason = networkSuspendReason;
+        stale = false;
         this.status = status;
         this.results = results;
+        this.taskGroups = null;
+        taskIndex.update(results);
         this.projects = projects;
+        this.projectRows = null;
         this.transfers = transfers;
         this.hostinfo = hostinfo;
         this.acctMgrInfo = acctMgrInfo;
         parseClientStatus();
-        appendNewNotices(newNotices);
+        if(noticeStore.add(newNotices, System.currentTimeMillis() / 1000.0)) {
+            changes |= ClientChange.NOTICES;
+        }
+        if(setupStatus != previousSetupStatus) {
+            changes |= ClientChange.SETUP;
+        }
+        if(computingStatus != previousComputingStatus || computingSuspendReason != previousComputingSuspendReason ||
+           networkStatus != previousNetworkStatus || networkSuspendReason != previousNetworkSuspendReason) {
+            changes |= ClientChange.STATUS;
+        }
         if(Logging.VERBOSE) {
             Log.v(Logging.TAG,
                   "setClientStatus: #results:" + results.size() + " #projects:" + projects.size() + " #transfers:" +
@@ -247,7 +295,9 @@ public class ClientStatus {
                   computingSuspendReason + " - network: " + networkParseError + networkStatus + networkSuspendReason);
         }
         if(!computingParseError && !networkParseError && !setupStatusParseError) {
-            fire(); // broadcast that status has changed
+            if(changes != 0) {
+                fire(changes); // notify that status has changed
+            }
         }
         else {
             if(Logging.DEBUG) {
@@ -259,6 +309,80 @@ public class ClientStatus {
         }
     }
 
+    /*
+     * called by Monitor at start, before the client is connected, with the last persisted status.
+     * The restored status is marked stale until replaced by setClientStatus.
+     */
+    public synchronized void restoreSnapshot(ClientStatusSnapshot.State snapshot) {
+        if(results != null || snapshot.getProjects().isEmpty()) {
+            return; // live status already available, or nothing worth showing
+        }
+        this.status = snapshot.getStatus();
+        this.results = snapshot.getResults();
+        this.taskGroups = null;
+        taskIndex.update(results);
+        this.projects = snapshot.getProjects();
+        this.projectRows = null;
+        this.transfers = snapshot.getTransfers();
+        this.hostinfo = snapshot.getHostInfo();
+        this.acctMgrInfo = snapshot.getAcctMgrInfo();
+        this.prefs = snapshot.getPrefs();
+        stale = true;
+        parseClientStatus();
+        if(Logging.DEBUG) {
+            Log.d(Logging.TAG, "restoreSnapshot: #results:" + results.size() + " #projects:" + projects.size() +
+                               " written: " + snapshot.getTimestamp());
+        }
+        fire(ClientChange.ALL);
+    }
+
+    /*
+     * returns the ClientChange categories that differ between the current and the given RPC data.
+     * Compares by value, so unchanged lists of a poll do not cause their views to be reloaded.
+     */
+    private int changesTo(CcStatus status, List<Result> results, List<Project> projects, List<Transfer> transfers,
+                          HostInfo hostinfo, AcctMgrInfo acctMgrInfo) {
+        int changes = 0;
+        if(!ObjectsCompat.equals(this.status, status)) {
+            changes |= ClientChange.STATUS;
+        }
+        if(!ObjectsCompat.equals(this.results, results)) {
+            changes |= ClientChange.TASKS;
+        }
+        if(!ObjectsCompat.equals(this.projects, projects)) {
+            changes |= ClientChange.PROJECTS;
+        }
+        if(!ObjectsCompat.equals(this.transfers, transfers)) {
+            changes |= ClientChange.TRANSFERS;
+        }
+        if(!ObjectsCompat.equals(this.hostinfo, hostinfo)) {
+            changes |= ClientChange.HOST_INFO;
+        }
+        if(!ObjectsCompat.equals(this.acctMgrInfo, acctMgrInfo)) {
+            changes |= ClientChange.ACCT_MGR;
+        }
+        return changes;
+    }
+
+    /*
+     * returns the current status to be persisted, null if there is no complete live status.
+     */
+    @Nullable
+    public synchronized ClientStatusSnapshot.State getSnapshotState() {
+        if(stale || status == null || results == null || projects == null || transfers == null || hostinfo == null) {
+            return null;
+        }
+        return new ClientStatusSnapshot.State(status, results, projects, transfers, hostinfo, acctMgrInfo, prefs,
+                                              System.currentTimeMillis());
+    }
+
+    /*
+     * true while the status shown is the persisted one of a previous run.
+     */
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
     /*
      * called when setup status needs to be manipulated by Java routine
      * either during setup or closing of client.
@@ -267,7 +391,7 @@ public class ClientStatus {
     public synchronized void setSetupStatus(Integer newStatus, Boolean fireStatusChangeEvent) {
         setupStatus = newStatus;
         if(fireStatusChangeEvent) {
-            fire();
+            fire(ClientChange.SETUP);
         }
     }
 
@@ -279,15 +403,40 @@ public class ClientStatus {
     }
 
     public int getMostRecentNoticeSeqNo() {
-        return mostRecentNoticeSeqNo;
+        return noticeStore.getMostRecentSeqno();
+    }
+
+    /*
+     * returned lists are immutable, sorted by arrival time
+     */
+    public List<Notice> getRssNotices() {
+        return noticeStore.getRssNotices();
+    }
+
+    public List<Notice> getRssNoticesArrivedAfter(double arrivalTime) {
+        return noticeStore.getRssNoticesArrivedAfter(arrivalTime);
+    }
+
+    public List<Notice> getServerNotices() {
+        return noticeStore.getServerNotices();
     }
 
-    public synchronized List<Notice> getRssNotices() {
-        return rssNotices;
+    /*
+     * most recent server notice of each project
+     */
+    public List<Notice> getLatestServerNotices() {
+        return new ArrayList<>(noticeStore.getLatestServerNotices().values());
     }
 
-    public synchronized List<Notice> getServerNotices() {
-        return serverNotices;
+    /*
+     * persists notices changed since last call, performs file I/O
+     */
+    public void saveNotices() {
+        noticeStore.save();
+    }
+
+    public boolean hasUnsavedNotices() {
+        return noticeStore.isModified();
     }
 
     public synchronized CcStatus getClientStatus() {
@@ -310,6 +459,23 @@ public class ClientStatus {
         return results;
     }
 
+    /*
+     * returns the current tasks grouped by project and state, built once per status update.
+     */
+    public synchronized TaskGroups getTaskGroups() {
+        if(taskGroups == null) {
+            taskGroups = new TaskGroups(getTasks());
+        }
+        return taskGroups;
+    }
+
+    /*
+     * returns the index of the current tasks, queries are synchronized by the index itself.
+     */
+    public TaskIndex getTaskIndex() {
+        return taskIndex;
+    }
+
     public synchronized List<Transfer> getTransfers() {
         if(transfers == null) { //check in case monitor is not set up yet (e.g. while logging in)
             if(Logging.DEBUG) {
@@ -340,45 +506,61 @@ public class ClientStatus {
         return projects;
     }
 
+    /*
+     * returns the attached projects with their transfers, latest server notice and status,
+     * built once per status update. The status does not include the back-off countdown,
+     * which changes every second; the project list shows it from the project's min_rpc_time.
+     */
+    public synchronized List<ProjectRow> getProjectRows() {
+        if(projectRows == null) {
+            projectRows = ProjectRows.build(getProjects(), getTransfers(), noticeStore.getLatestServerNotices(),
+                                            project -> projectStatus(project, false));
+        }
+        return projectRows;
+    }
+
     public synchronized String getProjectStatus(String master_url) {
-        StringBuffer sb = new StringBuffer();
-        for(Project project : projects) {
-            if(!project.getMasterURL().equals(master_url)) {
-                continue;
+        for(Project project : getProjects()) {
+            if(project.getMasterURL().equals(master_url)) {
+                return projectStatus(project, true);
             }
+        }
+        return "";
+    }
 
-            if(project.getSuspendedViaGUI()) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_suspendedviagui));
-            }
-            if(project.getDoNotRequestMoreWork()) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_dontrequestmorework));
-            }
-            if(project.getEnded()) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_ended));
-            }
-            if(project.getDetachWhenDone()) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_detachwhendone));
-            }
-            if(project.getScheduledRPCPending() > 0) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_schedrpcpending));
-                appendToStatus(sb, BOINCUtils.translateRPCReason(context, project.getScheduledRPCPending()));
-            }
-            if(project.getSchedulerRPCInProgress()) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_schedrpcinprogress));
-            }
-            if(project.getTrickleUpPending()) {
-                appendToStatus(sb, context.getResources().getString(R.string.projects_status_trickleuppending));
-            }
+    private String projectStatus(Project project, boolean withBackoff) {
+        StringBuffer sb = new StringBuffer();
+        if(project.getSuspendedViaGUI()) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_suspendedviagui));
+        }
+        if(project.getDoNotRequestMoreWork()) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_dontrequestmorework));
+        }
+        if(project.getEnded()) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_ended));
+        }
+        if(project.getDetachWhenDone()) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_detachwhendone));
+        }
+        if(project.getScheduledRPCPending() > 0) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_schedrpcpending));
+            appendToStatus(sb, BOINCUtils.translateRPCReason(context, project.getScheduledRPCPending()));
+        }
+        if(project.getSchedulerRPCInProgress()) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_schedrpcinprogress));
+        }
+        if(project.getTrickleUpPending()) {
+            appendToStatus(sb, context.getResources().getString(R.string.projects_status_trickleuppending));
+        }
 
-            final Instant now = Instant.now();
-            final Instant minRPCTime = Instant.ofEpochSecond((long) project.getMinRPCTime());
-            if(minRPCTime.compareTo(now) > 0) {
-                final String elapsedTime = DateUtils.formatElapsedTime(Duration.between(now, minRPCTime)
-                                                                               .getSeconds());
-                final String backoff = context.getResources().getString(R.string.projects_status_backoff,
-                                                                        elapsedTime);
-                appendToStatus(sb, backoff);
-            }
+        final Instant now = Instant.now();
+        final Instant minRPCTime = Instant.ofEpochSecond((long) project.getMinRPCTime());
+        if(withBackoff && minRPCTime.compareTo(now) > 0) {
+            final String elapsedTime = DateUtils.formatElapsedTime(Duration.between(now, minRPCTime)
+                                                                           .getSeconds());
+            final String backoff = context.getResources().getString(R.string.projects_status_backoff,
+                                                                    elapsedTime);
+            appendToStatus(sb, backoff);
         }
         return sb.toString();
     }
@@ -795,25 +977,6 @@ public class ClientStatus {
         }
     }
 
-    private void appendNewNotices(List<Notice> newNotices) {
-        for(Notice newNotice : newNotices) {
-            if(Logging.DEBUG) {
-                Log.d(Logging.TAG, "ClientStatus.appendNewNotices new notice with seq number: " +
-                                   newNotice.getSeqno() + " is server notice: " +
-                                   newNotice.isServerNotice());
-            }
-            if(newNotice.getSeqno() > mostRecentNoticeSeqNo) {
-                if(!newNotice.isClientNotice() && !newNotice.isServerNotice()) {
-                    rssNotices.add(newNotice);
-                }
-                if(newNotice.isServerNotice()) {
-                    serverNotices.add(newNotice);
-                }
-                mostRecentNoticeSeqNo = newNotice.getSeqno();
-            }
-        }
-    }
-
     // helper method for loading images from file
     // reads the symbolic link provided in pathOfSoftLink file
     // and returns absolute path to an image file.
@@ -0,0 +1,271 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.content.Context
+import android.os.Parcel
+import android.os.Parcelable
+import android.os.SystemClock
+import androidx.core.util.AtomicFile
+import edu.berkeley.boinc.BuildConfig
+import edu.berkeley.boinc.rpc.*
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import java.io.*
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Last known client status, persisted in the app's files directory.
+ * Loaded at start of the Monitor, so the UI can show projects and tasks right away,
+ * while the client is still being started and connected.
+ *
+ * File layout: header (magic, format version, app version code, time written), followed by
+ * records (tag, length, payload) and an end tag. Readers skip unknown tags and records of the
+ * same tag replace earlier ones, so records can be added or appended without a format change.
+ * Parcelable payloads are only valid for the app version that wrote them, snapshots of other
+ * versions are discarded. Files are replaced atomically, a crash while writing keeps the old one.
+ */
+@Singleton
+class ClientStatusSnapshot @Inject constructor(context: Context) {
+    class State(
+            val status: CcStatus,
+            val results: List<Result>,
+            val projects: List<Project>,
+            val transfers: List<Transfer>,
+            val hostInfo: HostInfo,
+            val acctMgrInfo: AcctMgrInfo?,
+            val prefs: GlobalPreferences?,
+            val timestamp: Long = System.currentTimeMillis()
+    ) {
+        /**
+         * Hash over the parts of the status shown in lists and states, excluding progress
+         * and statistics which change with every poll.
+         */
+        val signature: Int by lazy {
+            var hash = status.hashCode()
+            for (project in projects) {
+                hash = 31 * hash + project.masterURL.hashCode()
+                hash = 31 * hash + project.suspendedViaGUI.hashCode() + project.doNotRequestMoreWork.hashCode()
+            }
+            for (result in results) {
+                hash = 31 * hash + result.name.hashCode()
+                hash = 31 * hash + result.state + 7 * result.activeTaskState + result.isSuspendedViaGUI.hashCode()
+            }
+            for (transfer in transfers) {
+                hash = 31 * hash + transfer.name.hashCode() + transfer.isUpload.hashCode()
+            }
+            31 * hash + (acctMgrInfo?.hashCode() ?: 0)
+        }
+    }
+
+    private val file = AtomicFile(File(context.filesDir, FILE_NAME))
+    // signature and time of the last state found due, guarded by dueLock, not by the file lock
+    private val dueLock = Any()
+    private var lastSignature: Int? = null
+    private var lastDue = 0L
+
+    /**
+     * Reads the persisted snapshot.
+     *
+     * @return snapshot, null if not available, outdated or not readable
+     */
+    @Synchronized
+    fun read(): State? {
+        try {
+            DataInputStream(BufferedInputStream(file.openRead())).use { input ->
+                if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION ||
+                    input.readInt() != BuildConfig.VERSION_CODE) {
+                    if (Logging.DEBUG) Log.d(Logging.TAG, "ClientStatusSnapshot: discard snapshot of other version")
+                    return null
+                }
+                val timestamp = input.readLong()
+                val records = HashMap<Int, ByteArray>()
+                var tag = input.readInt()
+                while (tag != TAG_END) {
+                    val payload = ByteArray(input.readInt())
+                    input.readFully(payload)
+                    records[tag] = payload
+                    tag = input.readInt()
+                }
+                return State(
+                        status = readStatus(records[TAG_STATUS] ?: return null),
+                        results = readList(records[TAG_RESULTS], Result.CREATOR),
+                        projects = readList(records[TAG_PROJECTS], Project.CREATOR),
+                        transfers = readList(records[TAG_TRANSFERS], Transfer.CREATOR),
+                        hostInfo = readObject(records[TAG_HOST_INFO], HostInfo.CREATOR) ?: return null,
+                        acctMgrInfo = readObject(records[TAG_ACCT_MGR_INFO], AcctMgrInfo.CREATOR),
+                        prefs = readObject(records[TAG_PREFS], GlobalPreferences.CREATOR),
+                        timestamp = timestamp)
+            }
+        } catch (e: FileNotFoundException) {
+            return null
+        } catch (e: Exception) {
+            // truncated or otherwise unreadable, will be replaced with the next write
+            if (Logging.WARNING) Log.w(Logging.TAG, "ClientStatusSnapshot: reading snapshot failed", e)
+            return null
+        }
+    }
+
+    /**
+     * Returns whether the given state should be written, i.e. it differs from the last due one
+     * in a visible way, or the last snapshot is older than [MAX_AGE_MS]. A state found due is
+     * recorded right away, so polls running before its write completed do not write it again.
+     * Does not wait for a write in progress.
+     */
+    fun isDue(state: State): Boolean {
+        synchronized(dueLock) {
+            val now = SystemClock.elapsedRealtime()
+            if (state.signature == lastSignature && now - lastDue <= MAX_AGE_MS) {
+                return false
+            }
+            lastSignature = state.signature
+            lastDue = now
+            return true
+        }
+    }
+
+    /**
+     * Writes the given state, replacing the previous snapshot. Performs file I/O, do not call
+     * on the main thread.
+     */
+    @Synchronized
+    fun write(state: State) {
+        val output = try {
+            file.startWrite()
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "ClientStatusSnapshot: can not create snapshot", e)
+            retryLater(state)
+            return
+        }
+        try {
+            val out = DataOutputStream(BufferedOutputStream(output))
+            out.writeInt(MAGIC)
+            out.writeInt(FORMAT_VERSION)
+            out.writeInt(BuildConfig.VERSION_CODE)
+            out.writeLong(state.timestamp)
+            out.writeRecord(TAG_STATUS, statusBytes(state.status))
+            out.writeRecord(TAG_PROJECTS, marshall { it.writeTypedList(state.projects) })
+            out.writeRecord(TAG_RESULTS, marshall { it.writeTypedList(state.results) })
+            out.writeRecord(TAG_TRANSFERS, marshall { it.writeTypedList(state.transfers) })
+            out.writeRecord(TAG_HOST_INFO, marshall { state.hostInfo.writeToParcel(it, 0) })
+            state.acctMgrInfo?.let { info -> out.writeRecord(TAG_ACCT_MGR_INFO, marshall { info.writeToParcel(it, 0) }) }
+            state.prefs?.let { prefs -> out.writeRecord(TAG_PREFS, marshall { prefs.writeToParcel(it, 0) }) }
+            out.writeInt(TAG_END)
+            out.flush()
+            file.finishWrite(output)
+            if (Logging.VERBOSE) Log.v(Logging.TAG, "ClientStatusSnapshot: written, ${out.size()} bytes")
+        } catch (e: Exception) {
+            file.failWrite(output)
+            if (Logging.WARNING) Log.w(Logging.TAG, "ClientStatusSnapshot: writing snapshot failed", e)
+            retryLater(state)
+        }
+    }
+
+    // state was not written, the next poll finds it due again
+    private fun retryLater(state: State) {
+        synchronized(dueLock) {
+            if (lastSignature == state.signature) {
+                lastSignature = null
+            }
+        }
+    }
+
+    private fun DataOutputStream.writeRecord(tag: Int, payload: ByteArray) {
+        writeInt(tag)
+        writeInt(payload.size)
+        write(payload)
+    }
+
+    private fun marshall(write: (Parcel) -> Unit): ByteArray {
+        val parcel = Parcel.obtain()
+        try {
+            write(parcel)
+            return parcel.marshall()
+        } finally {
+            parcel.recycle()
+        }
+    }
+
+    private fun <T> unmarshall(payload: ByteArray, read: (Parcel) -> T): T {
+        val parcel = Parcel.obtain()
+        try {
+            parcel.unmarshall(payload, 0, payload.size)
+            parcel.setDataPosition(0)
+            return read(parcel)
+        } finally {
+            parcel.recycle()
+        }
+    }
+
+    private fun <T> readList(payload: ByteArray?, creator: Parcelable.Creator<T>): List<T> =
+            payload?.let { unmarshall(it) { parcel -> parcel.createTypedArrayList(creator) } } ?: emptyList()
+
+    private fun <T> readObject(payload: ByteArray?, creator: Parcelable.Creator<T>): T? =
+            payload?.let { unmarshall(it) { parcel -> creator.createFromParcel(parcel) } }
+
+    // CcStatus is not Parcelable, its fields are written explicitly
+    private fun statusBytes(status: CcStatus): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use {
+            it.writeInt(status.taskMode)
+            it.writeInt(status.taskModePerm)
+            it.writeDouble(status.taskModeDelay)
+            it.writeInt(status.taskSuspendReason)
+            it.writeInt(status.networkMode)
+            it.writeInt(status.networkModePerm)
+            it.writeDouble(status.networkModeDelay)
+            it.writeInt(status.networkSuspendReason)
+            it.writeInt(status.networkStatus)
+            it.writeBoolean(status.amsPasswordError)
+            it.writeBoolean(status.managerMustQuit)
+            it.writeBoolean(status.disallowAttach)
+            it.writeBoolean(status.simpleGuiOnly)
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun readStatus(payload: ByteArray) = DataInputStream(ByteArrayInputStream(payload)).use {
+        CcStatus(taskMode = it.readInt(), taskModePerm = it.readInt(), taskModeDelay = it.readDouble(),
+                taskSuspendReason = it.readInt(), networkMode = it.readInt(), networkModePerm = it.readInt(),
+                networkModeDelay = it.readDouble(), networkSuspendReason = it.readInt(),
+                networkStatus = it.readInt(), amsPasswordError = it.readBoolean(),
+                managerMustQuit = it.readBoolean(), disallowAttach = it.readBoolean(),
+                simpleGuiOnly = it.readBoolean())
+    }
+
+    companion object {
+        private const val FILE_NAME = "client_status.snapshot"
+        private const val MAGIC = 0x42534e50 // "BSNP"
+        private const val FORMAT_VERSION = 1
+
+        // progress and statistics are persisted at least this often, even if nothing else changed
+        private const val MAX_AGE_MS = 10 * 60 * 1000L
+
+        private const val TAG_END = 0
+        private const val TAG_STATUS = 1
+        private const val TAG_PROJECTS = 2
+        private const val TAG_RESULTS = 3
+        private const val TAG_TRANSFERS = 4
+        private const val TAG_HOST_INFO = 5
+        private const val TAG_ACCT_MGR_INFO = 6
+        private const val TAG_PREFS = 7
+        // 8 held notices, persisted by NoticeStore since
+    }
+}
@@ -28,7 +28,6 @@ import android.net.NetworkInfo;
 import android.os.BatteryManager;
 import android.os.Build;
 import android.telephony.TelephonyManager;
-import android.util.Log;
 
 import androidx.annotation.RequiresApi;
 import androidx.core.content.ContextCompat;
@@ -37,6 +36,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import edu.berkeley.boinc.rpc.DeviceStatusData;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 @Singleton
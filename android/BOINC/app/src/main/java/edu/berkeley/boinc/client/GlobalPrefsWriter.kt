@@ -0,0 +1,89 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.GlobalPreferences
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+
+/**
+ * Writes global preferences to the client, coalescing changes made in quick succession,
+ * e.g. while a slider is dragged or several options are toggled.
+ *
+ * The first change opens a window of [delayMs], changes within it replace each other and only
+ * the last one is written when the window closes. Preferences equal to the client's current ones
+ * are not written at all.
+ *
+ * @param scope   scope the delayed writes are launched in
+ * @param delayMs length of the window changes are coalesced in
+ * @param current returns the client's current preferences, null if not known
+ * @param write   writes the preferences to the client, returns true on success
+ */
+class GlobalPrefsWriter(
+        private val scope: CoroutineScope,
+        private val delayMs: Long,
+        private val current: () -> GlobalPreferences?,
+        private val write: (GlobalPreferences) -> Boolean,
+        private val dispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+    private var pending: GlobalPreferences? = null
+    private var job: Job? = null
+    // serializes writes, so a later window does not overtake an earlier one
+    private val writeLock = Any()
+
+    /**
+     * Schedules the given preferences to be written, replacing preferences still pending.
+     */
+    @Synchronized
+    fun submit(prefs: GlobalPreferences) {
+        pending = prefs
+        if (job == null) {
+            job = scope.launch(dispatcher) {
+                delay(delayMs)
+                writePending()
+            }
+        }
+    }
+
+    private fun writePending() {
+        val prefs = synchronized(this) {
+            job = null
+            pending.also { pending = null }
+        } ?: return
+        synchronized(writeLock) {
+            val currentPrefs = current()
+            // whether an override file exists does not matter, the written preferences create one
+            if (currentPrefs != null && prefs.copy(overrideFilePresent = currentPrefs.overrideFilePresent) == currentPrefs) {
+                if (Logging.DEBUG) Log.d(Logging.TAG, "GlobalPrefsWriter: preferences unchanged, not written")
+                return
+            }
+            if (write(prefs)) {
+                if (Logging.DEBUG) Log.d(Logging.TAG, "GlobalPrefsWriter: preferences written")
+            } else {
+                if (Logging.WARNING) Log.w(Logging.TAG, "GlobalPrefsWriter: writing preferences failed")
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import java.io.File
+import java.io.IOException
+
+/**
+ * Records the files installed from the APK's assets: MD5 hash, size and modification time,
+ * valid for the app version that installed them.
+ * A file whose size and modification time still match its entry is known to be unchanged,
+ * so Monitor does not need to hash it (or the asset) again on every client setup.
+ *
+ * @param file        file the manifest is persisted in
+ * @param versionCode version code of the installed app, entries of other versions are discarded
+ */
+class InstallManifest(private val file: File, private val versionCode: Int) {
+    private data class Entry(val md5: String, val size: Long, val modified: Long)
+
+    // by absolute path of the installed file
+    private val entries = HashMap<String, Entry>()
+    private var modified = false
+
+    init {
+        load()
+    }
+
+    /**
+     * Returns whether the given file was installed by this app version and is unchanged since.
+     */
+    @Synchronized
+    fun isCurrent(target: File): Boolean {
+        val entry = entries[target.absolutePath] ?: return false
+        return target.isFile && target.length() == entry.size && target.lastModified() == entry.modified
+    }
+
+    /**
+     * Records the given file with its current size and modification time.
+     * Call after the file is completely written and its attributes are set.
+     */
+    @Synchronized
+    fun record(target: File, md5: String) {
+        entries[target.absolutePath] = Entry(md5, target.length(), target.lastModified())
+        modified = true
+    }
+
+    /**
+     * Removes the entry of the given file, e.g. before it gets replaced.
+     */
+    @Synchronized
+    fun remove(target: File) {
+        if (entries.remove(target.absolutePath) != null) {
+            modified = true
+        }
+    }
+
+    /**
+     * Persists the manifest, if entries changed since it was loaded or saved.
+     */
+    @Synchronized
+    fun save() {
+        if (!modified) {
+            return
+        }
+        val content = buildString {
+            append(VERSION_PREFIX).append(versionCode).append('\n')
+            for ((path, entry) in entries) {
+                append(entry.md5).append('\t').append(entry.size).append('\t')
+                        .append(entry.modified).append('\t').append(path).append('\n')
+            }
+        }
+        try {
+            val tmp = File(file.path + ".tmp")
+            tmp.writeText(content)
+            if (!tmp.renameTo(file)) {
+                throw IOException("rename to ${file.name} failed")
+            }
+            modified = false
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "InstallManifest: saving failed", e)
+        }
+    }
+
+    private fun load() {
+        val lines = try {
+            if (file.exists()) file.readLines() else return
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "InstallManifest: loading failed", e)
+            return
+        }
+        if (lines.firstOrNull() != VERSION_PREFIX + versionCode) {
+            if (Logging.DEBUG) Log.d(Logging.TAG, "InstallManifest: discard manifest of other app version")
+            modified = true // write version of this app on next save
+            return
+        }
+        for (line in lines.drop(1)) {
+            val fields = line.split('\t', limit = 4)
+            val size = fields.getOrNull(1)?.toLongOrNull()
+            val modified = fields.getOrNull(2)?.toLongOrNull()
+            if (fields.size == 4 && size != null && modified != null) {
+                entries[fields[3]] = Entry(fields[0], size, modified)
+            }
+        }
+    }
+
+    companion object {
+        private const val VERSION_PREFIX = "version "
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+/**
+ * Limits the rate a listener is notified with, merging the changes of notifications in between.
+ * Not synchronized, owned by [MonitorListeners].
+ *
+ * @param minIntervalMs minimum time between two notifications, 0 to notify of every change
+ */
+class ListenerThrottle(private val minIntervalMs: Long) {
+    private var pending = 0
+    private var lastNotified: Long? = null
+
+    /**
+     * Adds the given changes to the pending ones.
+     *
+     * @param changes [ClientChange] categories changed
+     * @param now     current time in milliseconds, monotonic
+     * @return changes to notify now, 0 if nothing is due
+     */
+    fun offer(changes: Int, now: Long): Int {
+        pending = pending or changes
+        val last = lastNotified
+        if (pending == 0 || last != null && now - last < minIntervalMs) {
+            return 0
+        }
+        val due = pending
+        pending = 0
+        lastNotified = now
+        return due
+    }
+
+    /**
+     * Returns the time until pending changes are due, -1 if there are none.
+     */
+    fun delayUntilDue(now: Long): Long {
+        val last = lastNotified
+        return when {
+            pending == 0 -> -1
+            last == null -> 0
+            else -> (last + minIntervalMs - now).coerceAtLeast(0)
+        }
+    }
+}
+
+/**
+ * Due time of the delayed flush posted by [MonitorListeners], shared by listeners with different
+ * intervals. Not synchronized, owned by [MonitorListeners].
+ */
+class FlushSchedule {
+    private var postedDueAt: Long? = null
+
+    /**
+     * Requests a flush at the given time.
+     *
+     * @param dueAt time the flush is needed at, monotonic, in milliseconds
+     * @return true if the flush has to be (re)posted, because none is posted or the posted one is
+     * due later
+     */
+    fun request(dueAt: Long): Boolean {
+        val posted = postedDueAt
+        if (posted != null && posted <= dueAt) {
+            return false
+        }
+        postedDueAt = dueAt
+        return true
+    }
+
+    /**
+     * Forgets the posted flush, after it ran or was removed.
+     */
+    fun clear() {
+        postedDueAt = null
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Message
+import java.util.*
+
+/**
+ * Inverted index over the messages of [MessageStore]: sequence numbers of the messages by
+ * project, priority and word. Messages are added in order of their sequence number, so each
+ * list of sequence numbers stays sorted without sorting, and dropping the oldest messages
+ * removes a prefix of each list.
+ */
+internal class MessageIndex {
+    /**
+     * Sorted list of sequence numbers, backed by a growing array.
+     */
+    class Postings(capacity: Int = 4) {
+        private var seqnos = IntArray(capacity)
+        private var start = 0
+        private var end = 0
+
+        val size get() = end - start
+
+        operator fun get(index: Int) = seqnos[start + index]
+
+        fun add(seqno: Int) {
+            if (end == seqnos.size) {
+                // compact if more than half of the array is removed, grow otherwise
+                val capacity = if (start > seqnos.size / 2) seqnos.size else (seqnos.size * 2).coerceAtLeast(4)
+                seqnos = if (start == 0) seqnos.copyOf(capacity) else seqnos.copyOfRange(start, end).copyOf(capacity)
+                end -= start
+                start = 0
+            }
+            seqnos[end++] = seqno
+        }
+
+        operator fun contains(seqno: Int) = Arrays.binarySearch(seqnos, start, end, seqno) >= 0
+
+        /**
+         * Returns the index of the greatest sequence number lower than the given one, -1 if none.
+         */
+        fun indexBefore(seqno: Int): Int {
+            val index = Arrays.binarySearch(seqnos, start, end, seqno)
+            return (if (index >= 0) index else -(index + 1)) - start - 1
+        }
+
+        /**
+         * Removes the sequence numbers lower than the given one.
+         */
+        fun removeBefore(seqno: Int) {
+            start += indexBefore(seqno) + 1
+        }
+
+        companion object {
+            fun union(lists: Collection<Postings>): Postings {
+                val all = IntArray(lists.sumBy { it.size })
+                var i = 0
+                for (list in lists) {
+                    System.arraycopy(list.seqnos, list.start, all, i, list.size)
+                    i += list.size
+                }
+                all.sort()
+                val union = Postings(all.size.coerceAtLeast(1))
+                for (seqno in all) {
+                    if (union.size == 0 || union[union.size - 1] != seqno) {
+                        union.add(seqno)
+                    }
+                }
+                return union
+            }
+        }
+    }
+
+    private val projects = HashMap<String, Postings>()
+    private val priorities = HashMap<Int, Postings>()
+    private val words = TreeMap<String, Postings>()
+
+    fun add(message: Message) {
+        projects.getOrPut(message.project) { Postings() }.add(message.seqno)
+        priorities.getOrPut(message.priority) { Postings() }.add(message.seqno)
+        val messageWords = MessageQuery.tokenize(message.project) + MessageQuery.tokenize(message.body ?: "")
+        for (word in messageWords.distinct()) {
+            words.getOrPut(word) { Postings() }.add(message.seqno)
+        }
+    }
+
+    /**
+     * Removes the messages with lower sequence numbers than the given one.
+     */
+    fun removeBefore(seqno: Int) {
+        for (index in listOf(projects.values, priorities.values, words.values)) {
+            val iterator = index.iterator()
+            while (iterator.hasNext()) {
+                val postings = iterator.next()
+                postings.removeBefore(seqno)
+                if (postings.size == 0) {
+                    iterator.remove()
+                }
+            }
+        }
+    }
+
+    fun clear() {
+        projects.clear()
+        priorities.clear()
+        words.clear()
+    }
+
+    /**
+     * Returns the lists of sequence numbers a message has to be contained in to match the
+     * given query.
+     *
+     * @return lists of sequence numbers, an empty list if any message matches the indexed criteria
+     */
+    fun postings(query: MessageQuery): List<Postings> {
+        val lists = mutableListOf<Postings>()
+        query.project?.let { lists.add(projects[it] ?: EMPTY) }
+        if (query.priorities.isNotEmpty()) {
+            lists.add(Postings.union(query.priorities.mapNotNull { priorities[it] }))
+        }
+        for (word in query.words.distinct()) {
+            // words of the query match words of messages starting with them
+            val matches = words.subMap(word, word + Char.MAX_VALUE).values
+            lists.add(if (matches.size == 1) matches.first() else Postings.union(matches))
+        }
+        return lists
+    }
+
+    companion object {
+        private val EMPTY = Postings(0)
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.Parcel
+import android.os.Parcelable
+import edu.berkeley.boinc.rpc.Message
+
+/**
+ * Filter for the client event log, evaluated by [MessageStore].
+ *
+ * @param project    name of the project, as shown in the event log, null for all messages
+ * @param priorities message priorities, e.g. [PRIORITY_USER_ALERT], empty for all priorities
+ * @param fromTime   earliest message time in seconds since epoch, inclusive
+ * @param toTime     latest message time in seconds since epoch, inclusive
+ * @param text       words, each has to start a word of the message body or project
+ */
+data class MessageQuery(
+        val project: String? = null,
+        val priorities: List<Int> = emptyList(),
+        val fromTime: Long = 0,
+        val toTime: Long = Long.MAX_VALUE,
+        val text: String = ""
+) : Parcelable {
+    private constructor(parcel: Parcel) : this(parcel.readString(),
+            IntArray(parcel.readInt()).also { parcel.readIntArray(it) }.toList(),
+            parcel.readLong(), parcel.readLong(), parcel.readString() ?: "")
+
+    /**
+     * Words of [text], normalized like the words of indexed messages.
+     */
+    val words: List<String> get() = tokenize(text)
+
+    /**
+     * Returns whether the given message matches, evaluated without index.
+     */
+    fun matches(message: Message): Boolean {
+        if (project != null && message.project != project ||
+            priorities.isNotEmpty() && message.priority !in priorities ||
+            message.timestamp !in fromTime..toTime) {
+            return false
+        }
+        val messageWords = tokenize(message.project) + tokenize(message.body ?: "")
+        return words.all { word -> messageWords.any { it.startsWith(word) } }
+    }
+
+    override fun describeContents() = 0
+
+    override fun writeToParcel(dest: Parcel, flags: Int) {
+        dest.writeString(project)
+        dest.writeInt(priorities.size)
+        dest.writeIntArray(priorities.toIntArray())
+        dest.writeLong(fromTime)
+        dest.writeLong(toTime)
+        dest.writeString(text)
+    }
+
+    companion object {
+        // message priorities of the client, see MSG_INFO etc. in common_defs.h
+        const val PRIORITY_INFO = 1
+        const val PRIORITY_USER_ALERT = 2
+        const val PRIORITY_INTERNAL_ERROR = 3
+
+        private val PRIORITY_NAMES = mapOf("info" to PRIORITY_INFO, "alert" to PRIORITY_USER_ALERT,
+                "error" to PRIORITY_INTERNAL_ERROR)
+        private val DURATION_UNITS = mapOf('m' to 60L, 'h' to 3600L, 'd' to 86400L)
+        private val TERM = Regex("""(\w+):"([^"]*)"|(\w+):(\S+)|(\S+)""")
+
+        /**
+         * Parses a search entered in the event log, e.g. `project:"Einstein@Home" priority:error
+         * since:2h download`. Terms other than project, priority and since are searched as text.
+         *
+         * @param now current time in seconds since epoch, base of "since"
+         */
+        @JvmStatic
+        fun parse(search: String, now: Long): MessageQuery {
+            var project: String? = null
+            val priorities = mutableListOf<Int>()
+            var fromTime = 0L
+            val text = mutableListOf<String>()
+            for (term in TERM.findAll(search)) {
+                val key = (term.groups[1] ?: term.groups[3])?.value?.toLowerCase()
+                val value = (term.groups[2] ?: term.groups[4])?.value ?: ""
+                when (key) {
+                    "project" -> project = value
+                    "priority" -> (PRIORITY_NAMES[value.toLowerCase()] ?: value.toIntOrNull())
+                            ?.let { priorities.add(it) } ?: text.add(term.value)
+                    "since" -> parseDuration(value)?.let { fromTime = now - it } ?: text.add(term.value)
+                    else -> text.add(term.value)
+                }
+            }
+            return MessageQuery(project, priorities, fromTime, Long.MAX_VALUE, text.joinToString(" "))
+        }
+
+        // e.g. "30m", "2h" or "3d", in seconds
+        private fun parseDuration(value: String): Long? {
+            val unit = DURATION_UNITS[value.lastOrNull()?.toLowerCase()] ?: return null
+            return value.dropLast(1).toLongOrNull()?.let { it * unit }
+        }
+
+        /**
+         * Splits a text into lower case words of letters and digits.
+         */
+        @JvmStatic
+        fun tokenize(text: String): List<String> {
+            val words = mutableListOf<String>()
+            var start = -1
+            for (i in 0..text.length) {
+                if (i < text.length && text[i].isLetterOrDigit()) {
+                    if (start < 0) start = i
+                } else if (start >= 0) {
+                    words.add(text.substring(start, i).toLowerCase())
+                    start = -1
+                }
+            }
+            return words
+        }
+
+        @JvmField
+        val CREATOR: Parcelable.Creator<MessageQuery> = object : Parcelable.Creator<MessageQuery> {
+            override fun createFromParcel(parcel: Parcel) = MessageQuery(parcel)
+
+            override fun newArray(size: Int) = arrayOfNulls<MessageQuery>(size)
+        }
+    }
+}
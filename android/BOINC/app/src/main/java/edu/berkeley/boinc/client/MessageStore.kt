@@ -0,0 +1,307 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Message
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import java.io.*
+
+/**
+ * Append-only store of the client's event log messages, persisted in the app's files directory.
+ *
+ * Messages are ingested incrementally, see [ingest], so the client transfers each message once,
+ * and the history survives closing the event log and restarting the client. Messages are kept
+ * in order of their sequence number, which allows the event log to page with binary search.
+ *
+ * The client numbers its messages from 1 after every start. To keep sequence numbers unique,
+ * messages of a later client run are stored with an offset, the last sequence number of the
+ * previous run. The messages returned by the store carry these store sequence numbers.
+ *
+ * At most [capacity] messages are kept, older ones are dropped in batches, rewriting the file.
+ * Messages are indexed as they are appended, so [query] does not need to scan the whole log.
+ *
+ * @param file     file the messages are persisted in, loaded on first access
+ * @param capacity maximum number of retained messages
+ */
+class MessageStore(private val file: File, private val capacity: Int) {
+    // sorted by (store) seqno
+    private val messages = ArrayList<Message>()
+    private val index = MessageIndex()
+    private var loaded = false
+    private var output: DataOutputStream? = null
+
+    // seqno offset of the current client run
+    private var offset = 0
+    // seqno and timestamp of the most recent message, as numbered by the client
+    private var lastClientSeqno = 0
+    private var lastClientTimestamp = 0L
+
+    // serializes ingestion, which performs RPCs without blocking readers
+    private val ingestLock = Any()
+
+    /**
+     * Fetches and appends the messages the store does not contain yet.
+     *
+     * The request includes the most recent stored message. If the client does not return it,
+     * all messages are requested; if the message is not among them either, the client was
+     * restarted and all its messages are new.
+     *
+     * @param fetch performs the get_messages RPC, returning the messages with higher sequence
+     *              number than the given one, all messages for 0
+     * @return number of new messages
+     */
+    fun ingest(fetch: (Int) -> List<Message>): Int = synchronized(ingestLock) {
+        val (lastSeqno, lastTimestamp) = synchronized(this) {
+            load()
+            Pair(lastClientSeqno, lastClientTimestamp)
+        }
+        val isLast = { message: Message -> message.seqno == lastSeqno && message.timestamp == lastTimestamp }
+        val fetched = fetch((lastSeqno - 1).coerceAtLeast(0))
+        val new = when {
+            lastSeqno == 0 -> fetched
+            fetched.firstOrNull()?.let(isLast) == true -> fetched.drop(1)
+            else -> {
+                val all = fetch(0)
+                val index = all.indexOfFirst(isLast)
+                when {
+                    index >= 0 -> all.drop(index + 1)
+                    all.isEmpty() -> return 0 // not connected, or no messages yet
+                    else -> {
+                        if (Logging.DEBUG) Log.d(Logging.TAG, "MessageStore: client restarted")
+                        synchronized(this) { offset = messages.lastOrNull()?.seqno ?: 0 }
+                        all
+                    }
+                }
+            }
+        }
+        synchronized(this) { append(new) }
+        new.size
+    }
+
+    /**
+     * Returns the messages more recent than the given sequence number, oldest first.
+     *
+     * @param seqno store sequence number, 0 for all messages
+     */
+    @Synchronized
+    fun getMessagesAfter(seqno: Int): List<Message> {
+        load()
+        return ArrayList(messages.subList(indexAfter(seqno), messages.size))
+    }
+
+    /**
+     * Returns a page of messages older than the given sequence number, oldest first.
+     *
+     * @param seqno  store sequence number, 0 or less for the most recent messages
+     * @param number maximum number of messages
+     */
+    @Synchronized
+    fun getMessagesBefore(seqno: Int, number: Int): List<Message> {
+        load()
+        val end = if (seqno > 0) indexAfter(seqno - 1) else messages.size
+        return ArrayList(messages.subList((end - number).coerceAtLeast(0), end))
+    }
+
+    /**
+     * Returns a page of messages matching the given query, older than the given sequence number,
+     * oldest first.
+     *
+     * @param seqno  store sequence number, 0 or less for the most recent messages
+     * @param number maximum number of messages
+     */
+    @Synchronized
+    fun query(query: MessageQuery, seqno: Int, number: Int): List<Message> {
+        load()
+        val before = if (seqno > 0) seqno else Int.MAX_VALUE
+        val matches = ArrayList<Message>()
+        val lists = index.postings(query)
+        if (lists.isEmpty()) {
+            var i = (if (seqno > 0) indexAfter(seqno - 1) else messages.size) - 1
+            while (i >= 0 && matches.size < number) {
+                messages[i].takeIf { it.timestamp in query.fromTime..query.toTime }?.let { matches.add(it) }
+                i--
+            }
+        } else {
+            // walk the shortest list, looking up its sequence numbers in the others
+            val driver = lists.minByOrNull { it.size }!!
+            var i = driver.indexBefore(before)
+            while (i >= 0 && matches.size < number) {
+                val candidate = driver[i]
+                if (lists.all { it === driver || candidate in it }) {
+                    val message = messages[indexAfter(candidate - 1)]
+                    if (message.timestamp in query.fromTime..query.toTime) {
+                        matches.add(message)
+                    }
+                }
+                i--
+            }
+        }
+        matches.reverse()
+        return matches
+    }
+
+    /**
+     * Closes the file, the store is loaded again on the next access.
+     */
+    @Synchronized
+    fun close() {
+        output?.close()
+        output = null
+        messages.clear()
+        index.clear()
+        loaded = false
+    }
+
+    // index of the first message with a higher sequence number than the given one
+    private fun indexAfter(seqno: Int): Int {
+        val index = messages.binarySearch { it.seqno.compareTo(seqno) }
+        return if (index >= 0) index + 1 else -(index + 1)
+    }
+
+    private fun append(new: List<Message>) {
+        if (new.isEmpty()) {
+            return
+        }
+        try {
+            val out = output ?: DataOutputStream(BufferedOutputStream(FileOutputStream(file, true))).also {
+                if (file.length() == 0L) {
+                    it.writeInt(MAGIC)
+                    it.writeInt(FORMAT_VERSION)
+                }
+                output = it
+            }
+            for (message in new) {
+                val stored = message.copy(seqno = message.seqno + offset)
+                messages.add(stored)
+                index.add(stored)
+                out.writeMessage(stored, message.seqno)
+            }
+            out.flush()
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "MessageStore: writing messages failed", e)
+            output?.close()
+            output = null
+        }
+        new.last().let {
+            lastClientSeqno = it.seqno
+            lastClientTimestamp = it.timestamp
+        }
+        if (messages.size > capacity + capacity / 4) {
+            messages.subList(0, messages.size - capacity).clear()
+            index.removeBefore(messages.first().seqno)
+            rewrite()
+        }
+    }
+
+    private fun load() {
+        if (loaded) {
+            return
+        }
+        loaded = true
+        if (!file.exists()) {
+            return
+        }
+        val complete = read(file) { message, clientSeqno ->
+            messages.add(message)
+            offset = message.seqno - clientSeqno
+            lastClientSeqno = clientSeqno
+            lastClientTimestamp = message.timestamp
+        }
+        if (!complete || messages.size > capacity) {
+            if (messages.size > capacity) {
+                messages.subList(0, messages.size - capacity).clear()
+            }
+            rewrite()
+        }
+        messages.forEach { index.add(it) }
+        if (Logging.DEBUG) Log.d(Logging.TAG, "MessageStore: loaded ${messages.size} messages")
+    }
+
+    // replaces the file with the retained messages
+    private fun rewrite() {
+        output?.close()
+        output = null
+        val tmp = File(file.path + ".tmp")
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tmp))).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(FORMAT_VERSION)
+                for (message in messages) {
+                    out.writeMessage(message, message.seqno - offset)
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                throw IOException("rename to ${file.name} failed")
+            }
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "MessageStore: rewriting messages failed", e)
+            tmp.delete()
+        }
+    }
+
+    private fun DataOutputStream.writeMessage(message: Message, clientSeqno: Int) {
+        writeInt(message.seqno)
+        writeInt(clientSeqno)
+        writeLong(message.timestamp)
+        writeInt(message.priority)
+        writeUTF(message.project)
+        val body = (message.body ?: "").toByteArray(Charsets.UTF_8)
+        writeInt(body.size)
+        write(body)
+    }
+
+    companion object {
+        const val FILE_NAME = "client_messages"
+
+        private const val MAGIC = 0x424d5347 // "BMSG"
+        private const val FORMAT_VERSION = 1
+
+        /**
+         * Reads the messages persisted in the given file, oldest first, without keeping them.
+         * The file may be read by other processes while the store appends to it.
+         *
+         * @param action called with each message and its sequence number as numbered by the client
+         * @return false if the file ended with an incomplete message or could not be read
+         */
+        @JvmStatic
+        fun read(file: File, action: (Message, Int) -> Unit): Boolean {
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                        throw IOException("unknown format")
+                    }
+                    while (input.available() > 0) {
+                        val seqno = input.readInt()
+                        val clientSeqno = input.readInt()
+                        val message = Message(seqno = seqno, timestamp = input.readLong(),
+                                priority = input.readInt(), project = input.readUTF(),
+                                body = ByteArray(input.readInt()).also { input.readFully(it) }.toString(Charsets.UTF_8))
+                        action(message, clientSeqno)
+                    }
+                }
+                return true
+            } catch (e: IOException) {
+                // e.g. message truncated by a crash while writing, the complete ones were read
+                if (Logging.WARNING) Log.w(Logging.TAG, "MessageStore: reading messages failed", e)
+                return false
+            }
+        }
+    }
+}
@@ -25,7 +25,6 @@ import android.content.Intent
 import android.content.IntentFilter
 import android.graphics.Bitmap
 import android.os.*
-import android.util.Log
 import androidx.core.content.getSystemService
 import androidx.lifecycle.LifecycleService
 import androidx.lifecycle.lifecycleScope
@@ -36,14 +35,19 @@ import edu.berkeley.boinc.mutex.BoincMutex
 import edu.berkeley.boinc.rpc.*
 import edu.berkeley.boinc.rpc.Message
 import edu.berkeley.boinc.utils.*
-import kotlinx.coroutines.coroutineScope
-import kotlinx.coroutines.launch
+import edu.berkeley.boinc.utils.Log
+import kotlinx.coroutines.*
+import kotlinx.coroutines.channels.Channel
+import okio.HashingSink
+import okio.blackholeSink
 import okio.buffer
 import okio.source
 import java.io.File
 import java.io.IOException
-import java.io.InputStreamReader
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 import javax.inject.Inject
 import kotlin.properties.Delegates
 
@@ -88,6 +92,21 @@ class Monitor : LifecycleService() {
     @Inject
     lateinit var noticeNotification: NoticeNotification
 
+    // orders RPCs by priority, so user actions do not queue behind the status poll
+    @Inject
+    lateinit var rpcExecutor: RpcExecutor
+
+    // additional client connections, keeping user actions and attach flows off the poll connection
+    @Inject
+    lateinit var rpcConnectionPool: RpcConnectionPool
+
+    // parsed and indexed all_projects_list.xml
+    @Inject
+    lateinit var projectCatalog: ProjectCatalog
+
+    @Inject
+    lateinit var clientStatusSnapshot: ClientStatusSnapshot
+
     // XML defined variables, populated in onCreate
     private lateinit var fileNameClient: String
     private lateinit var fileNameCABundle: String
@@ -97,13 +116,45 @@ class Monitor : LifecycleService() {
     private lateinit var fileNameNoMedia: String
     private lateinit var boincWorkingDir: String
     private lateinit var clientSocketAddress: String
+    private lateinit var installManifest: InstallManifest
+    private lateinit var clientProcess: ProcessTracker
+    private lateinit var messageStore: MessageStore
+    // GUI listeners of client status changes
+    private val listeners = MonitorListeners()
+    private val globalPrefsWriter by lazy {
+        GlobalPrefsWriter(lifecycleScope, PREFS_WRITE_DELAY_MS, { clientStatus.prefs }) { prefs ->
+            userAction { it.setGlobalPreferences(prefs) }
+        }
+    }
 
     private var clientStatusInterval by Delegates.notNull<Int>()
     private var deviceStatusIntervalScreenOff: Int = 0
-    private val updateTimer = Timer(true) // schedules frequent client status update
-    private val statusUpdateTask: TimerTask = StatusUpdateTimerTask()
-    private var updateBroadcastEnabled = false
+    private var statusPollTimeout = 0L
+    private var setupInstallTimeout = 0L
+    private var setupInitTimeout = 0L
+
+    // client setup, status polling and client shutdown run sequentially on a single thread,
+    // in a scope cancelled with onDestroy()
+    private val monitorDispatcher = Executors.newSingleThreadExecutor { runnable ->
+        Thread(runnable, "BOINC Monitor").apply { isDaemon = true }
+    }.asCoroutineDispatcher()
+    private val monitorScope = CoroutineScope(SupervisorJob() + monitorDispatcher)
+    private var pollingJob: Job? = null
+    // wakes up the polling loop for an update right away, see forceRefresh()
+    private val refreshRequests = Channel<Unit>(Channel.CONFLATED)
+    // snapshots due to be written, written one at a time on an IO thread, latest state wins
+    private val snapshotWrites = Channel<ClientStatusSnapshot.State>(Channel.CONFLATED)
+    // setup stages still running after their timeout, by name, see stage(); used on the Monitor thread only
+    private val runningStages = HashMap<String, Deferred<Any>>()
     private var screenOffStatusOmitCounter = 0
+    @Volatile
+    private var lastMessageIngest = 0L
+    // background ingestion of client messages started by the status poll
+    private var messageIngestJob: Job? = null
+
+    // running asynchronous client operations by id, see IMonitor.cancelOperation()
+    private val operations = ConcurrentHashMap<Int, Job>()
+    private val nextOperationId = AtomicInteger()
 
     // screen on/off updated by screenOnOffBroadcastReceiver
     private var screenOn = false
@@ -169,6 +220,7 @@ class Monitor : LifecycleService() {
     }
 
     override fun onCreate() {
+        val start = Tracing.begin()
         (application as BOINCApplication).appComponent.inject(this)
         super.onCreate()
         Log.d(Logging.TAG, "Monitor onCreate()")
@@ -183,11 +235,31 @@ class Monitor : LifecycleService() {
         fileNameNoMedia = getString(R.string.nomedia)
         clientStatusInterval = resources.getInteger(R.integer.status_update_interval_ms)
         deviceStatusIntervalScreenOff = resources.getInteger(R.integer.device_status_update_screen_off_every_X_loop)
+        statusPollTimeout = resources.getInteger(R.integer.monitor_status_poll_timeout_ms).toLong()
+        setupInstallTimeout = resources.getInteger(R.integer.monitor_setup_install_timeout_ms).toLong()
+        setupInitTimeout = resources.getInteger(R.integer.monitor_setup_init_timeout_ms).toLong()
         clientSocketAddress = getString(R.string.client_socket_address)
+        projectCatalog.source = File(boincWorkingDir + fileNameAllProjectsList)
+        installManifest = InstallManifest(File(filesDir, INSTALL_MANIFEST_FILE), BuildConfig.VERSION_CODE)
+        clientProcess = ProcessTracker(boincWorkingDir + fileNameClient)
+        messageStore = MessageStore(File(filesDir, MessageStore.FILE_NAME),
+                resources.getInteger(R.integer.eventlog_client_messages_retained))
         if (Logging.ERROR) {
             Log.d(Logging.TAG, "Monitor onCreate(): singletons initialized")
         }
 
+        clientStatus.setChangeListener { changes, version -> listeners.notify(changes, version) }
+
+        // show last known status until the client is started and connected
+        Tracing.trace("Monitor.restoreSnapshot") {
+            clientStatusSnapshot.read()?.let { clientStatus.restoreSnapshot(it) }
+        }
+        lifecycleScope.launch(Dispatchers.IO) {
+            for (state in snapshotWrites) {
+                clientStatusSnapshot.write(state)
+            }
+        }
+
         // set current screen on/off status
         screenOn = getSystemService<PowerManager>()!!.isScreenOnCompat
 
@@ -196,25 +268,30 @@ class Monitor : LifecycleService() {
         val offFilter = IntentFilter(Intent.ACTION_SCREEN_OFF)
         registerReceiver(screenOnOffReceiver, onFilter)
         registerReceiver(screenOnOffReceiver, offFilter)
+        Tracing.end("Monitor.onCreate", start)
     }
 
     override fun onDestroy() {
         super.onDestroy()
         if (Logging.ERROR) Log.d(Logging.TAG, "Monitor onDestroy()")
-        updateBroadcastEnabled = false // prevent broadcast from currently running update task
-        updateTimer.cancel() // cancel task
+        // cancels polling, and setup or shutdown stages in progress, at their next suspension point
+        monitorScope.cancel()
+        monitorDispatcher.close()
 
         // there might be still other AsyncTasks executing RPCs
         // close sockets in a synchronized way
         clientInterface.close()
+        rpcConnectionPool.close()
+        messageStore.close()
+        clientStatus.saveNotices()
+        clientStatus.setChangeListener(null)
+        listeners.kill()
         try {
             // remove screen on/off receiver
             unregisterReceiver(screenOnOffReceiver)
         } catch (e: Exception) {
             if (Logging.ERROR) Log.e(Logging.TAG, "Monitor.onDestroy error: ", e)
         }
-        updateBroadcastEnabled = false // prevent broadcast from currently running update task
-        updateTimer.cancel() // cancel task
         mutex.release() // release BOINC mutex
 
         // release locks, if held.
@@ -233,12 +310,10 @@ class Monitor : LifecycleService() {
 
         // try to acquire BOINC mutex
         // run here in order to recover, if mutex holding app gets closed.
-        if (!updateBroadcastEnabled && mutex.acquire()) {
-            updateBroadcastEnabled = true
-            // register and start update task
-            // using .scheduleAtFixedRate() can cause a series of bunched-up runs
-            // when previous executions are delayed (e.g. during clientSetup() )
-            updateTimer.schedule(statusUpdateTask, 0, clientStatusInterval.toLong())
+        if (pollingJob == null && mutex.acquire()) {
+            // start polling, with a fixed delay between updates rather than a fixed rate,
+            // which can cause a series of bunched-up runs when previous updates are delayed (e.g. during clientSetup() )
+            pollingJob = monitorScope.launch { pollStatus() }
         }
         if (!mutex.isAcquired && Logging.ERROR) Log.e(Logging.TAG, "Monitor.onStartCommand: mutex acquisition failed, do not start BOINC.")
 
@@ -247,8 +322,8 @@ class Monitor : LifecycleService() {
             val actionCode = intent.getIntExtra("action", -1)
             if (Logging.DEBUG) Log.d(Logging.TAG, "Monitor.onStartCommand() with action code: $actionCode")
             when (actionCode) {
-                1 -> lifecycleScope.launch { setClientRunMode(RUN_MODE_NEVER) }
-                2 -> lifecycleScope.launch { setClientRunMode(RUN_MODE_AUTO) }
+                1 -> monitorScope.launch { setClientRunMode(RUN_MODE_NEVER) }
+                2 -> monitorScope.launch { setClientRunMode(RUN_MODE_AUTO) }
             }
         }
 
@@ -263,59 +338,81 @@ class Monitor : LifecycleService() {
     // --end-- attributes and methods related to Android Service life-cycle
     // public methods for Activities
     /**
-     * Force refresh of client status data model, will fire Broadcast upon success.
+     * Force refresh of client status data model, notifies listeners upon change.
+     * The polling loop updates right away, instead of after its interval.
      */
     fun forceRefresh() {
         if (!mutex.isAcquired) return  // do not try to update if client is not running
         if (Logging.DEBUG) Log.d(Logging.TAG, "forceRefresh()")
-        try {
-            updateTimer.schedule(StatusUpdateTimerTask(), 0)
-        } catch (e: Exception) {
-            if (Logging.WARNING) Log.w(Logging.TAG, "Monitor.forceRefresh error: ", e)
-        } // throws IllegalStateException if called after timer got cancelled, i.e. after manual shutdown
+        refreshRequests.offer(Unit)
     }
 
     // --end-- public methods for Activities
     // multi-threaded frequent information polling
     /**
-     * Task to frequently and asynchronously poll the client's status. Executed in different thread.
+     * Polls the client's status until Monitor gets destroyed. Runs on the Monitor dispatcher,
+     * waiting [clientStatusInterval] between updates, unless a refresh is requested.
      */
-    private inner class StatusUpdateTimerTask : TimerTask() {
-        override fun run() {
+    private suspend fun pollStatus() {
+        while (true) {
             updateStatus()
+            withTimeoutOrNull(clientStatusInterval.toLong()) { refreshRequests.receive() }
         }
     }
 
     /**
      * Reports current device status to client and reads current client status.
-     * Updates ClientStatus and fires Broadcast.
+     * Updates ClientStatus, which notifies listeners of changes.
      * Called frequently to poll current status.
      */
-    private fun updateStatus() {
-        // check whether RPC client connection is alive
-        if (!clientInterface.connectionAlive() && clientSetup()) { // start setup routine
+    private suspend fun updateStatus() {
+        // check whether RPC client connection is alive,
+        // skip this update if the client does not answer in time, e.g. while a previous RPC is still in flight
+        val alive = inTime("connectionAlive") { connectionAlive() } ?: return
+        if (!alive && Tracing.trace("Monitor.clientSetup") { clientSetup() }) { // start setup routine
             // interact with client only if connection established successfully
-            reportDeviceStatus()
-            readClientStatus(true) // read initial data
+            inTime("reportDeviceStatus") { reportDeviceStatus() }
+            Tracing.trace("Monitor.readClientStatus(initial)") {
+                inTime("readClientStatus") { readClientStatus(true) } // read initial data
+            }
         }
         if (!screenOn && screenOffStatusOmitCounter < deviceStatusIntervalScreenOff)
             screenOffStatusOmitCounter++ // omit status reporting according to configuration
         else {
             // screen is on, or omit counter reached limit
-            if (clientInterface.connectionAlive()) {
-                reportDeviceStatus()
-                readClientStatus(false) // readClientStatus is also required when screen is off, otherwise no wakeLock acquisition.
+            if (inTime("connectionAlive") { connectionAlive() } == true) {
+                inTime("reportDeviceStatus") { reportDeviceStatus() }
+                // readClientStatus is also required when screen is off, otherwise no wakeLock acquisition.
+                inTime("readClientStatus") { readClientStatus(false) }
             }
         }
     }
 
+    /**
+     * Runs a part of the status update, giving up after [statusPollTimeout], e.g. if the client
+     * stopped answering. RPCs in flight complete on their worker, the next update starts as usual.
+     *
+     * @return result of the block, null if timed out
+     */
+    private suspend fun <T : Any> inTime(name: String, block: suspend () -> T): T? {
+        val result = withTimeoutOrNull(statusPollTimeout) { block() }
+        if (result == null && Logging.WARNING) Log.w(Logging.TAG, "Monitor.$name timed out after $statusPollTimeout ms")
+        return result
+    }
+
+    /**
+     * Checks the connection with a get_cc_status round trip, on the status lane of [rpcExecutor]
+     * instead of the Monitor thread.
+     */
+    private suspend fun connectionAlive() = poll("connectionAlive") { clientInterface.connectionAlive() }
+
     /**
      * Reads client status via RPCs
      * Optimized to retrieve only subset of information (required to determine wakelock state) if screen is turned off
      *
      * @param forceCompleteUpdate forces update of entire status information, regardless of screen status
      */
-    private fun readClientStatus(forceCompleteUpdate: Boolean) {
+    private suspend fun readClientStatus(forceCompleteUpdate: Boolean) {
         try {
             val status: CcStatus? // read independently of screen status
 
@@ -326,15 +423,16 @@ class Monitor : LifecycleService() {
             if (screenOn || forceCompleteUpdate) {
                 // complete status read, with broadcast
                 if (Logging.VERBOSE) Log.d(Logging.TAG, "readClientStatus(): screen on, get complete status")
-                status = clientInterface.ccStatus
-                val state = clientInterface.state
-                val transfers = clientInterface.fileTransfers
-                val acctMgrInfo = clientInterface.acctMgrInfo
-                val newNotices = clientInterface.getNotices(clientStatus.mostRecentNoticeSeqNo)
+                status = poll("ccStatus") { clientInterface.ccStatus }
+                val state = poll("state") { clientInterface.state }
+                val transfers = poll("fileTransfers") { clientInterface.fileTransfers }
+                val acctMgrInfo = poll("acctMgrInfo") { clientInterface.acctMgrInfo }
+                val newNotices = poll("notices") { clientInterface.getNotices(clientStatus.mostRecentNoticeSeqNo) }
                 if (allNotNull(status, state, state?.hostInfo, acctMgrInfo)) {
                     clientStatus.setClientStatus(status, state.results, state.projects,
                             transfers, state.hostInfo, acctMgrInfo,
                             newNotices)
+                    saveSnapshot()
                 } else {
                     var nullValues = ""
                     if (state == null) {
@@ -347,50 +445,150 @@ class Monitor : LifecycleService() {
                     if (Logging.ERROR) Log.e(Logging.TAG, "readClientStatus(): connection problem, null: $nullValues")
                 }
 
-                // update notices notification
-                noticeNotification.update(clientStatus.rssNotices, appPreferences.showNotificationForNotices)
-
-                // check whether monitor is still intended to update, if not, skip broadcast and exit...
-                if (updateBroadcastEnabled) {
-                    applicationContext.sendBroadcast(Intent().apply { action = "edu.berkeley.boinc.clientstatus" })
+                // messages are only needed for the event log, ingest them less often and outside
+                // of the poll, ingestion blocks on RPCs and on event log reads of the message store
+                if (messageIngestJob?.isActive != true &&
+                        SystemClock.elapsedRealtime() - lastMessageIngest > MESSAGE_INGEST_INTERVAL_MS) {
+                    messageIngestJob = monitorScope.launch(Dispatchers.IO) {
+                        ingestMessages(RpcExecutor.Priority.BACKGROUND_POLL)
+                    }
                 }
+
+                // update notices notification
+                noticeNotification.update(appPreferences.showNotificationForNotices)
             } else {
                 // read only ccStatus to adjust wakelocks and service state independently of screen status
-                status = clientInterface.ccStatus
+                status = poll("ccStatus") { clientInterface.ccStatus }
             }
             if (BuildConfig.DEBUG && status == null) {
                 error("Assertion failed")
             }
-            val computing = (status.taskSuspendReason == SUSPEND_NOT_SUSPENDED
+            val computing = (status!!.taskSuspendReason == SUSPEND_NOT_SUSPENDED
                     || status.taskSuspendReason == SUSPEND_REASON_CPU_THROTTLE)
             if (Logging.VERBOSE) Log.d(Logging.TAG, "readClientStatus(): computation enabled: $computing")
             clientStatus.setWifiLock(computing)
             clientStatus.setWakeLock(computing)
             clientNotification.update(clientStatus, this, computing)
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             if (Logging.ERROR)
                 Log.e(Logging.TAG, "Monitor.readClientStatus exception: " + e.message, e)
         }
     }
 
+    /**
+     * Persists the current status, if it changed visibly since the last snapshot.
+     * The file is written in the background, not delaying the status notification.
+     */
+    private fun saveSnapshot() {
+        if (clientStatus.hasUnsavedNotices()) {
+            lifecycleScope.launch(Dispatchers.IO) { clientStatus.saveNotices() }
+        }
+        val state = clientStatus.snapshotState ?: return
+        if (clientStatusSnapshot.isDue(state)) {
+            snapshotWrites.offer(state)
+        }
+    }
+
+    /**
+     * Appends new client messages to the message store.
+     * Blocks until the messages are fetched, do not call on the Monitor thread.
+     */
+    private fun ingestMessages(priority: RpcExecutor.Priority) {
+        lastMessageIngest = SystemClock.elapsedRealtime()
+        val count = messageStore.ingest { seqno ->
+            rpcExecutor.executeBlocking(priority, "messages$seqno") { clientInterface.getMessages(seqno) }
+        }
+        if (Logging.VERBOSE) Log.v(Logging.TAG, "ingestMessages(): $count new messages")
+    }
+
     /**
      * Reports current device status to the client via RPC
      * BOINC client uses this data to enforce preferences, e.g. suspend battery but requires information only/best available through Java API calls.
      */
-    private fun reportDeviceStatus() {
+    private suspend fun reportDeviceStatus() {
         if (Logging.VERBOSE) Log.d(Logging.TAG, "reportDeviceStatus()")
         try {
             // set devices status
             // make sure deviceStatus is initialized
-            val reportStatusSuccess = clientInterface.reportDeviceStatus(deviceStatus.update(screenOn)) // transmit device status via rpc
+            val reportStatusSuccess = poll("reportDeviceStatus") {
+                clientInterface.reportDeviceStatus(deviceStatus.update(screenOn)) // transmit device status via rpc
+            }
             if (reportStatusSuccess)
                 screenOffStatusOmitCounter = 0
             else if (Logging.DEBUG)
                 Log.d(Logging.TAG, "reporting device status returned false.")
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             if (Logging.ERROR) Log.e(Logging.TAG, "Monitor.reportDeviceStatus excpetion: " + e.message)
         }
     }
+
+    /**
+     * Executes a single status poll RPC with background priority.
+     * Each RPC is queued separately, so user actions can be interleaved with a running poll cycle.
+     */
+    private suspend fun <T> poll(key: String, call: () -> T): T =
+            rpcExecutor.execute(RpcExecutor.Priority.BACKGROUND_POLL, key, call)
+
+    /**
+     * Executes an RPC on behalf of the user, ahead of any queued status poll.
+     * Uses the interactive connection, if available.
+     */
+    private fun <T> userAction(call: (ClientInterfaceImplementation) -> T): T =
+            rpcExecutor.executeBlocking(RpcExecutor.Priority.USER_ACTION) {
+                rpcConnectionPool.use(RpcConnectionPool.Channel.INTERACTIVE, clientInterface, call)
+            }
+
+    /**
+     * Executes a long running account or attach flow on its own connection,
+     * so the status poll is not stalled while the client processes the request.
+     */
+    private fun <T> attachFlow(call: (ClientInterfaceImplementation) -> T): T =
+            rpcConnectionPool.use(RpcConnectionPool.Channel.ATTACH, clientInterface, call)
+
+    /**
+     * Starts an asynchronous account or attach flow on the attach connection and returns immediately.
+     * The result is passed to deliver, null if the operation failed or got cancelled.
+     *
+     * @return id of the operation, see IMonitor.cancelOperation()
+     */
+    private fun <T> startOperation(operation: suspend (ClientInterfaceImplementation) -> T?,
+                                   deliver: (T?) -> Unit): Int {
+        val id = nextOperationId.incrementAndGet()
+        val job = lifecycleScope.launch(Dispatchers.IO, start = CoroutineStart.LAZY) {
+            val result = try {
+                rpcConnectionPool.useSuspending(RpcConnectionPool.Channel.ATTACH, clientInterface, operation)
+            } catch (e: CancellationException) {
+                if (Logging.DEBUG) Log.d(Logging.TAG, "Monitor: operation $id cancelled")
+                null
+            } catch (e: Exception) {
+                if (Logging.ERROR) Log.e(Logging.TAG, "Monitor: operation $id failed: ", e)
+                null
+            }
+            operations.remove(id)
+            try {
+                deliver(result)
+            } catch (e: RemoteException) {
+                if (Logging.WARNING) Log.w(Logging.TAG, "Monitor: operation $id result not delivered: ", e)
+            }
+        }
+        operations[id] = job
+        job.start()
+        return id
+    }
+
+    private fun AcctMgrRPCReply?.toErrorCodeDescription() = if (this != null) {
+        ErrorCodeDescription(errorNum, if (messages.isEmpty()) "" else messages.toString())
+    } else ErrorCodeDescription(-1)
+
+    /**
+     * Executes an RPC that reads data for a visible screen.
+     */
+    private fun <T> uiRefresh(call: () -> T): T =
+            rpcExecutor.executeBlocking(RpcExecutor.Priority.UI_REFRESH, call = call)
     // --end-- multi-threaded frequent information polling
 
     // BOINC client installation and run-time management
@@ -398,97 +596,85 @@ class Monitor : LifecycleService() {
      * installs client binaries(if changed) and other required files
      * executes client process
      * triggers initial reads (e.g. preferences, project list etc)
+     * Blocking stages run on the IO dispatcher, each with its own timeout, so setup can be
+     * cancelled between stages and does not hold the Monitor thread, see [stage].
      *
      * @return Boolean whether connection established successfully
      */
-    private fun clientSetup(): Boolean {
+    private suspend fun clientSetup(): Boolean {
         if (Logging.ERROR) Log.d(Logging.TAG, "Monitor.clientSetup()")
-        clientStatus.setSetupStatus(ClientStatus.SETUP_STATUS_LAUNCHING, true)
+        val setupStart = SystemClock.elapsedRealtime()
+        if (!clientStatus.isStale) {
+            // keep showing the restored status while launching
+            clientStatus.setSetupStatus(ClientStatus.SETUP_STATUS_LAUNCHING, true)
+        }
         val clientProcessName = boincWorkingDir + fileNameClient
-        val md5AssetClient = computeMd5(fileNameClient, true)
-        val md5InstalledClient = computeMd5(clientProcessName, false)
 
         // If client hashes do not match, we need to install the one that is a part
         // of the package. Shutdown the currently running client if needed.
         //
-        if (forceReinstall || md5InstalledClient != md5AssetClient) {
+        val installed = if (forceReinstall) false else {
+            // not knowing whether the client is current, keep it running and retry with the next update
+            stage("clientSetup.verifyClient", setupInstallTimeout) { isClientInstalled(File(clientProcessName)) }
+                    ?: return false
+        }
+        if (!installed) {
             if (Logging.DEBUG) Log.d(Logging.TAG, "Hashes of installed client does not match binary in assets - re-install.")
 
-            // try graceful shutdown using RPC (faster)
-            if (getPidForProcessName(clientProcessName) != null && connectClient()) {
-                clientInterface.quit()
-                val attempts = applicationContext.resources.getInteger(R.integer.shutdown_graceful_rpc_check_attempts)
-                val sleepPeriod = applicationContext.resources.getInteger(R.integer.shutdown_graceful_rpc_check_rate_ms)
-                var x = 0
-                while (x < attempts) {
-                    Thread.sleep(sleepPeriod.toLong())
-                    if (getPidForProcessName(clientProcessName) == null) { //client is now closed
-                        if (Logging.DEBUG) {
-                            Log.d(Logging.TAG,
-                                    "quitClient: gracefull RPC shutdown successful after " + x +
-                                            " seconds")
-                        }
-                        x = attempts
-                    }
-                    x++
-                }
-            }
-
-            // quit with OS signals
-            if (getPidForProcessName(clientProcessName) != null) {
-                quitProcessOsLevel(clientProcessName)
-            }
+            quitClient()
 
             // at this point client is definitely not running. install new binary...
-            if (!installClient()) {
+            if (stage("clientSetup.installClient", setupInstallTimeout) { installClient() } != true) {
                 if (Logging.ERROR) Log.w(Logging.TAG, "BOINC client installation failed!")
                 return false
             }
         }
 
         // Start the BOINC client if we need to.
-        val clientPid = getPidForProcessName(clientProcessName)
-        if (clientPid == null) {
+        if (!clientProcess.isRunning()) {
             if (Logging.ERROR) Log.d(Logging.TAG, "Starting the BOINC client")
-            if (!runClient()) {
+            if (!Tracing.trace("clientSetup.runClient") { runClient() }) {
                 if (Logging.ERROR) Log.d(Logging.TAG, "BOINC client failed to start")
                 return false
             }
         }
 
-        // Try to connect to executed Client in loop
+        // Try to connect to executed Client, retrying quickly at first and
+        // right away once the client created its lock or authentication file
         //
-        val retryRate = resources.getInteger(R.integer.monitor_setup_connection_retry_rate_ms)
-        val retryAttempts = resources.getInteger(R.integer.monitor_setup_connection_retry_attempts)
-        var connected = false
-        var counter = 0
-        while (!connected && counter < retryAttempts) {
-            if (Logging.DEBUG) Log.d(Logging.TAG, "Attempting BOINC client connection...")
-            connected = connectClient()
-            counter++
-            Thread.sleep(retryRate.toLong())
+        val detector = ReadinessDetector(
+                resources.getInteger(R.integer.monitor_setup_connection_initial_retry_ms).toLong(),
+                resources.getInteger(R.integer.monitor_setup_connection_retry_rate_ms).toLong())
+        val observer = WorkingDirObserver(File(boincWorkingDir),
+                setOf(CLIENT_LOCK_FILE, fileNameGuiAuthentication)) { detector.signal() }
+        observer.startWatching()
+        val timeToConnect = try {
+            Tracing.trace("clientSetup.connect") {
+                withContext(Dispatchers.IO) {
+                    detector.await(resources.getInteger(R.integer.monitor_setup_connection_timeout_ms).toLong()) {
+                        if (Logging.DEBUG) Log.d(Logging.TAG, "Attempting BOINC client connection...")
+                        connectClient()
+                    }
+                }
+            }
+        } finally {
+            observer.stopWatching()
+        }
+        val connected = timeToConnect != null
+        if (Logging.ERROR) {
+            Log.d(Logging.TAG, "Monitor.clientSetup() - client connection: $connected, time to connect: " +
+                    "$timeToConnect ms, setup: ${SystemClock.elapsedRealtime() - setupStart} ms")
         }
         var init = false
         if (connected) { // connection established
-            try {
-                // read preferences for GUI to be able to display data
-                val clientPrefs = clientInterface.globalPrefsWorkingStruct!!
-                clientStatus.prefs = clientPrefs
-
-                // set Android model as hostinfo
-                // should output something like "Samsung Galaxy SII - SDK:15 ABI:armeabi-v7a"
-                val model = "${Build.MANUFACTURER} ${Build.MODEL} - SDK: ${Build.VERSION.SDK_INT} ABI: $abi"
-                val version = Build.VERSION.RELEASE
-                if (Logging.ERROR) {
-                    Log.d(Logging.TAG, "reporting hostinfo model name: $model")
-                    Log.d(Logging.TAG, "reporting hostinfo os name: Android")
-                    Log.d(Logging.TAG, "reporting hostinfo os version: $version")
+            rpcConnectionPool.configure(clientSocketAddress, authFilePath)
+            // e.g. on a cold boot, init may complete after its timeout and the setup error
+            init = stage("clientSetup.init", setupInitTimeout, lateResult = { initialized: Boolean ->
+                if (initialized) {
+                    if (Logging.DEBUG) Log.d(Logging.TAG, "Monitor.clientSetup() - init completed late")
+                    clientStatus.setSetupStatus(ClientStatus.SETUP_STATUS_AVAILABLE, false)
                 }
-                clientInterface.setHostInfo(model, version)
-                init = true
-            } catch (e: Exception) {
-                if (Logging.ERROR) Log.e(Logging.TAG, "Monitor.clientSetup() init failed: " + e.message)
-            }
+            }) { initClient() } == true
         }
         if (init) {
             if (Logging.ERROR) Log.d(Logging.TAG, "Monitor.clientSetup() - setup completed successfully")
@@ -501,25 +687,113 @@ class Monitor : LifecycleService() {
     }
 
     /**
-     * Executes BOINC client.
-     * Using Java Runtime exec method
+     * Reads the client's preferences and reports the device model as host info.
      *
      * @return Boolean success
      */
-    private fun runClient(): Boolean {
-        var success = false
+    private fun initClient(): Boolean {
         try {
-            val cmd = arrayOf(boincWorkingDir + fileNameClient, "--daemon", "--gui_rpc_unix_domain")
-            if (Logging.ERROR) Log.w(Logging.TAG, "Launching '${cmd[0]}' from '$boincWorkingDir'")
-            Runtime.getRuntime().exec(cmd, null, File(boincWorkingDir))
-            success = true
-        } catch (e: IOException) {
+            // read preferences for GUI to be able to display data
+            val clientPrefs = Tracing.trace("clientSetup.readPrefs") { clientInterface.globalPrefsWorkingStruct!! }
+            clientStatus.prefs = clientPrefs
+
+            // set Android model as hostinfo
+            // should output something like "Samsung Galaxy SII - SDK:15 ABI:armeabi-v7a"
+            val model = "${Build.MANUFACTURER} ${Build.MODEL} - SDK: ${Build.VERSION.SDK_INT} ABI: $abi"
+            val version = Build.VERSION.RELEASE
             if (Logging.ERROR) {
-                Log.d(Logging.TAG, "Starting BOINC client failed with exception: " + e.message)
-                Log.e(Logging.TAG, "IOException", e)
+                Log.d(Logging.TAG, "reporting hostinfo model name: $model")
+                Log.d(Logging.TAG, "reporting hostinfo os name: Android")
+                Log.d(Logging.TAG, "reporting hostinfo os version: $version")
             }
+            Tracing.trace("clientSetup.setHostInfo") { clientInterface.setHostInfo(model, version) }
+            return true
+        } catch (e: Exception) {
+            if (Logging.ERROR) Log.e(Logging.TAG, "Monitor.clientSetup() init failed: " + e.message)
+            return false
         }
-        return success
+    }
+
+    /**
+     * Runs a stage of client setup on the IO dispatcher, waiting for it at most the given timeout.
+     *
+     * Blocking work, e.g. hashing or copying files, can not be interrupted: a stage that timed out
+     * keeps running in the background. Until it completes, running the stage again waits for that
+     * run instead of starting a second one, e.g. the client is not installed twice concurrently.
+     * A run that completes after its timeout without being waited for again reports its result
+     * to [lateResult]; results are dropped if not handled.
+     *
+     * @param name       name of the stage, traced and logged
+     * @param timeoutMs  maximum time to wait for the stage
+     * @param lateResult called on the Monitor thread with the result of a run completed after its timeout
+     * @return result of the stage, null if timed out
+     */
+    private suspend fun <T : Any> stage(name: String, timeoutMs: Long, lateResult: ((T) -> Unit)? = null,
+                                        block: suspend () -> T): T? {
+        @Suppress("UNCHECKED_CAST")
+        val run = runningStages.getOrPut(name) {
+            monitorScope.async(Dispatchers.IO) { Tracing.trace(name) { block() } }
+        } as Deferred<T>
+        val result = try {
+            withTimeoutOrNull(timeoutMs) { run.await() }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            runningStages.remove(name)
+            throw e
+        }
+        if (result != null) {
+            runningStages.remove(name)
+            return result
+        }
+        if (Logging.WARNING) Log.w(Logging.TAG, "Monitor: $name timed out after $timeoutMs ms, continues in background")
+        monitorScope.launch {
+            val late = try {
+                run.await()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                if (Logging.WARNING) Log.w(Logging.TAG, "Monitor: $name failed after timeout", e)
+                null
+            }
+            if (runningStages[name] === run) { // not waited for by a later setup
+                runningStages.remove(name)
+                if (late != null) lateResult?.invoke(late)
+            }
+        }
+        return null
+    }
+
+    /**
+     * Quits a running client, with an RPC first (faster) and with OS signals,
+     * if it does not exit in time.
+     */
+    private suspend fun quitClient() {
+        // try graceful shutdown using RPC (faster)
+        if (clientProcess.isRunning() && withContext(Dispatchers.IO) { connectClient() }) {
+            withContext(Dispatchers.IO) { clientInterface.quit() }
+            val attempts = applicationContext.resources.getInteger(R.integer.shutdown_graceful_rpc_check_attempts)
+            val sleepPeriod = applicationContext.resources.getInteger(R.integer.shutdown_graceful_rpc_check_rate_ms)
+            if (clientProcess.awaitExit(attempts * sleepPeriod.toLong()) && Logging.DEBUG) { //client is now closed
+                Log.d(Logging.TAG, "quitClient: graceful RPC shutdown successful")
+            }
+        }
+
+        // quit with OS signals
+        if (clientProcess.isRunning()) {
+            quitProcessOsLevel()
+        }
+    }
+
+    /**
+     * Executes BOINC client.
+     * Using Java Runtime exec method
+     *
+     * @return Boolean success
+     */
+    private fun runClient(): Boolean {
+        if (Logging.ERROR) Log.w(Logging.TAG, "Launching '${boincWorkingDir + fileNameClient}' from '$boincWorkingDir'")
+        return clientProcess.start(arrayOf("--daemon", "--gui_rpc_unix_domain"), File(boincWorkingDir))
     }
 
     /**
@@ -548,27 +822,46 @@ class Monitor : LifecycleService() {
      *
      * @return Boolean success
      */
-    private fun installClient(): Boolean {
-        if (!installFile(fileNameClient, true, "")) {
-            if (Logging.ERROR) Log.d(Logging.TAG, INSTALL_FAILED + fileNameClient)
-            return false
-        }
-        if (!installFile(fileNameCABundle, false, "")) {
-            if (Logging.ERROR) Log.d(Logging.TAG, INSTALL_FAILED + fileNameCABundle)
-            return false
-        }
-        if (!installFile(fileNameClientConfig, false, "")) {
-            if (Logging.ERROR) Log.d(Logging.TAG, INSTALL_FAILED + fileNameClientConfig)
-            return false
+    private suspend fun installClient(): Boolean {
+        // files are independent of each other, copy them concurrently
+        val installs = listOf(
+                Triple(fileNameClient, true, ""),
+                Triple(fileNameCABundle, false, ""),
+                Triple(fileNameClientConfig, false, ""),
+                Triple(fileNameAllProjectsList, false, ""),
+                Triple(fileNameNoMedia, false, ".$fileNameNoMedia"))
+        val success = coroutineScope {
+            installs.map { (file, executable, targetFile) ->
+                async(Dispatchers.IO) {
+                    installFile(file, executable, targetFile).also {
+                        if (!it && Logging.ERROR) Log.d(Logging.TAG, INSTALL_FAILED + file)
+                    }
+                }
+            }.awaitAll().all { it }
         }
-        if (!installFile(fileNameAllProjectsList, false, "")) {
-            if (Logging.ERROR) Log.d(Logging.TAG, INSTALL_FAILED + fileNameAllProjectsList)
-            return false
+        installManifest.save()
+        return success
+    }
+
+    /**
+     * Checks whether the installed client binary matches the one in the APK's assets.
+     * Hashes are only computed if the binary was not installed (or verified) by this app version
+     * or changed since, the result is recorded in the install manifest.
+     *
+     * @param installed client binary in the working directory
+     * @return true if installed client is up to date
+     */
+    private fun isClientInstalled(installed: File): Boolean {
+        if (installManifest.isCurrent(installed)) {
+            if (Logging.DEBUG) Log.d(Logging.TAG, "Installed client unchanged according to install manifest.")
+            return true
         }
-        if (!installFile(fileNameNoMedia, false, ".$fileNameNoMedia")) {
-            if (Logging.ERROR) Log.d(Logging.TAG, INSTALL_FAILED + fileNameNoMedia)
+        val md5InstalledClient = computeMd5(installed.absolutePath, false)
+        if (md5InstalledClient.isEmpty() || md5InstalledClient != computeMd5(fileNameClient, true)) {
             return false
         }
+        installManifest.record(installed, md5InstalledClient)
+        installManifest.save()
         return true
     }
 
@@ -591,15 +884,23 @@ class Monitor : LifecycleService() {
         } else {
             File(boincWorkingDir + file)
         }
+        if (!forceReinstall && installManifest.isCurrent(target)) {
+            if (Logging.DEBUG) Log.d(Logging.TAG, "Skipping installation of unchanged $source")
+            return true
+        }
         try {
-            // Copy file from the asset manager to clientPath
-            applicationContext.assets.open(source).copyToFile(target)
+            // Copy file from the asset manager to clientPath, hashing it on the way
+            installManifest.remove(target)
+            val md5 = applicationContext.assets.open(source).copyToFileMd5(target)
             success = true //copy succeeded without exception
 
             // Set executable, if requested
             if (executable) {
                 success = target.setExecutable(true) // return false, if not executable
             }
+            if (success) {
+                installManifest.record(target, md5)
+            }
             if (Logging.ERROR) Log.d(Logging.TAG, "Installation of " + source + " successful. Executable: " +
                     executable + "/" + success)
         } catch (ioe: IOException) {
@@ -631,7 +932,7 @@ class Monitor : LifecycleService() {
         }
 
     /**
-     * Computes MD5 hash of requested file
+     * Computes MD5 hash of requested file, reading it in chunks
      *
      * @param fileName absolute path or name of file in assets directory, see inAssets parameter
      * @param inAssets if true, fileName is file name in assets directory, if not, absolute path
@@ -643,10 +944,10 @@ class Monitor : LifecycleService() {
                 applicationContext.assets.open(assetsDirForCpuArchitecture + fileName).source()
             } else {
                 File(fileName).source()
-            }.buffer()
-            val md5 = source.readByteString().md5().hex()
-            source.close()
-            return md5
+            }
+            val hashingSink = HashingSink.md5(blackholeSink())
+            source.buffer().use { it.readAll(hashingSink) }
+            return hashingSink.hash.hex()
         } catch (e: IOException) {
             if (Logging.ERROR) Log.e(Logging.TAG, IOEXCEPTION_LOG + e.message)
         }
@@ -654,80 +955,10 @@ class Monitor : LifecycleService() {
     }
 
     /**
-     * Determines ProcessID corresponding to given process name
-     *
-     * @param processName name of process, according to output of "ps"
-     * @return process id, according to output of "ps"
+     * Exits the client process by sending it Linux SIGQUIT and SIGKILL signals
      */
-    private fun getPidForProcessName(processName: String): Int? {
-        val processLines: List<String>
-
-        //run ps and read output
-        try {
-            val p = Runtime.getRuntime().exec("ps")
-            p.waitFor()
-            val isr = InputStreamReader(p.inputStream)
-            processLines = isr.readLines()
-            isr.close()
-        } catch (e: Exception) {
-            if (Logging.ERROR) Log.e(Logging.TAG, "Exception: " + e.message)
-            return null
-        }
-        if (processLines.size < 2) {
-            if (Logging.ERROR)
-                Log.e(Logging.TAG, "getPidForProcessName(): ps output has less than 2 lines, failure!")
-            return null
-        }
-
-        // figure out what index PID has
-        val headers = processLines[0].split("[\\s]+".toRegex()).toTypedArray()
-        val pidIndex = headers.indexOfFirst { it == "PID" }
-        if (pidIndex == -1) {
-            return null
-        }
-        if (Logging.DEBUG)
-            Log.d(Logging.TAG, "getPidForProcessName(): PID at index: $pidIndex for output:" +
-                    " ${processLines[0]}")
-        var pid: Int? = null
-        for (y in 1 until processLines.size) {
-            var found = false
-            val comps = processLines[y].split("[\\s]+".toRegex()).toTypedArray()
-            for (arg in comps) {
-                if (arg == processName) {
-                    if (Logging.DEBUG)
-                        Log.d(Logging.TAG, "getPidForProcessName(): $processName found in line: $y")
-                    found = true
-                    break // Break out of inner foreach (comps) loop
-                }
-            }
-            if (found) {
-                try {
-                    pid = comps[pidIndex].toInt()
-                    if (Logging.ERROR)
-                        Log.d(Logging.TAG, "getPidForProcessName(): pid: $pid")
-                } catch (e: NumberFormatException) {
-                    if (Logging.ERROR)
-                        Log.e(Logging.TAG, "getPidForProcessName(): NumberFormatException for "
-                                + "${comps[pidIndex]} at index: $pidIndex")
-                }
-                break // Break out of outer for (processLinesAr) loop
-            }
-        }
-        // if not happen in ps output, not running?!
-        if (pid == null && Logging.ERROR)
-            Log.d(Logging.TAG, "getPidForProcessName(): $processName not found in ps output!")
-
-        // Find required pid
-        return pid
-    }
-
-    /**
-     * Exits a process by sending it Linux SIGQUIT and SIGKILL signals
-     *
-     * @param processName name of process to be killed, according to output of "ps"
-     */
-    private fun quitProcessOsLevel(processName: String) {
-        var clientPid = getPidForProcessName(processName)
+    private suspend fun quitProcessOsLevel() {
+        var clientPid = clientProcess.findPid()
 
         // client PID could not be read, client already ended / not yet started?
         if (clientPid == null) {
@@ -737,7 +968,7 @@ class Monitor : LifecycleService() {
             return
         }
         if (Logging.DEBUG)
-            Log.d(Logging.TAG, "quitProcessOsLevel for $processName, pid: $clientPid")
+            Log.d(Logging.TAG, "quitProcessOsLevel for client, pid: $clientPid")
 
         // Do not just kill the client on the first attempt.  That leaves dangling
         // science applications running which causes repeated spawning of applications.
@@ -748,24 +979,18 @@ class Monitor : LifecycleService() {
         // Wait for the client to shutdown gracefully
         val attempts = applicationContext.resources.getInteger(R.integer.shutdown_graceful_os_check_attempts)
         val sleepPeriod = applicationContext.resources.getInteger(R.integer.shutdown_graceful_os_check_rate_ms)
-        var x = 0
-        while (x < attempts) {
-            Thread.sleep(sleepPeriod.toLong())
-            if (getPidForProcessName(processName) == null) { //client is now closed
-                if (Logging.DEBUG)
-                    Log.d(Logging.TAG, "quitClient: graceful SIGQUIT shutdown successful after" +
-                            " $x seconds")
-                x = attempts
-            }
-            x++
+        if (clientProcess.awaitExit(attempts * sleepPeriod.toLong())) { //client is now closed
+            if (Logging.DEBUG) Log.d(Logging.TAG, "quitClient: graceful SIGQUIT shutdown successful")
+            return
         }
-        clientPid = getPidForProcessName(processName)
+        clientPid = clientProcess.findPid()
         if (clientPid != null) {
             // Process is still alive, send SIGKILL
             if (Logging.ERROR) Log.w(Logging.TAG, "SIGQUIT failed. SIGKILL pid: $clientPid")
             Process.killProcess(clientPid)
+            clientProcess.awaitExit(sleepPeriod.toLong())
         }
-        clientPid = getPidForProcessName(processName)
+        clientPid = clientProcess.findPid()
         if (clientPid != null && Logging.ERROR) {
             Log.w(Logging.TAG, "SIGKILL failed. still living pid: $clientPid")
         }
@@ -773,7 +998,7 @@ class Monitor : LifecycleService() {
     // --end-- BOINC client installation and run-time management
 
     /**
-     * broadcast receiver to detect changes to screen on or off, used to adapt scheduling of StatusUpdateTimerTask
+     * broadcast receiver to detect changes to screen on or off, used to adapt the status polling
      * e.g. avoid polling GUI status RPCs while screen is off in order to save battery
      */
     private var screenOnOffReceiver: BroadcastReceiver = object : BroadcastReceiver() {
@@ -796,56 +1021,60 @@ class Monitor : LifecycleService() {
         }
     }
 
-    private suspend fun setClientRunMode(runMode: Int) = coroutineScope {
+    private suspend fun setClientRunMode(runMode: Int) {
         try {
-            mBinder.setRunMode(runMode)
-        } catch (e: RemoteException) {
+            rpcExecutor.execute(RpcExecutor.Priority.USER_ACTION) {
+                rpcConnectionPool.use(RpcConnectionPool.Channel.INTERACTIVE, clientInterface) { it.setRunMode(runMode) }
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
             if (Logging.ERROR)
                 Log.e(Logging.TAG, "setClientRunMode() error: ", e)
         }
-        return@coroutineScope
     }
 
     // remote service
     val mBinder: IMonitor.Stub = object : IMonitor.Stub() {
         @Throws(RemoteException::class)
         override fun transferOperation(list: List<Transfer>, op: Int): Boolean {
-            return clientInterface.transferOperation(list, op)
+            return userAction { it.transferOperation(list, op) }
         }
 
         @Throws(RemoteException::class)
         override fun synchronizeAcctMgr(url: String): Boolean {
-            return clientInterface.synchronizeAcctMgr(url)
+            return attachFlow { it.synchronizeAcctMgr(url) }
         }
 
         @Throws(RemoteException::class)
         override fun setRunMode(mode: Int): Boolean {
-            return clientInterface.setRunMode(mode)
+            return userAction { it.setRunMode(mode) }
         }
 
         @Throws(RemoteException::class)
         override fun setNetworkMode(mode: Int): Boolean {
-            return clientInterface.setNetworkMode(mode)
+            return userAction { it.setNetworkMode(mode) }
         }
 
         @Throws(RemoteException::class)
-        override fun setGlobalPreferences(pref: GlobalPreferences): Boolean {
-            return clientInterface.setGlobalPreferences(pref)
+        override fun setGlobalPreferences(pref: GlobalPreferences) {
+            // written after a short delay, together with further changes
+            globalPrefsWriter.submit(pref)
         }
 
         @Throws(RemoteException::class)
         override fun setCcConfig(config: String): Boolean {
-            return clientInterface.setCcConfig(config)
+            return userAction { it.setCcConfig(config) }
         }
 
         @Throws(RemoteException::class)
         override fun setDomainName(deviceName: String): Boolean {
-            return clientInterface.setDomainName(deviceName)
+            return userAction { it.setDomainName(deviceName) }
         }
 
         @Throws(RemoteException::class)
         override fun resultOp(op: Int, url: String, name: String): Boolean {
-            return clientInterface.resultOp(op, url, name)
+            return userAction { it.resultOp(op, url, name) }
         }
 
         @Throws(RemoteException::class)
@@ -855,7 +1084,15 @@ class Monitor : LifecycleService() {
 
         @Throws(RemoteException::class)
         override fun projectOp(status: Int, url: String): Boolean {
-            return clientInterface.projectOp(status, url)
+            return userAction { it.projectOp(status, url) }
+        }
+
+        @Throws(RemoteException::class)
+        override fun bulkOperation(operations: List<BulkOperation>): IntArray {
+            val status = userAction { it.bulkOp(operations) }
+            // one refresh for the whole batch
+            this@Monitor.forceRefresh()
+            return status
         }
 
         @Throws(RemoteException::class)
@@ -865,7 +1102,7 @@ class Monitor : LifecycleService() {
 
         @Throws(RemoteException::class)
         override fun lookupCredentials(credentials: AccountIn): AccountOut {
-            return clientInterface.lookupCredentials(credentials)
+            return attachFlow { it.lookupCredentials(credentials) }
         }
 
         @Throws(RemoteException::class)
@@ -883,24 +1120,40 @@ class Monitor : LifecycleService() {
             return clientStatus.serverNotices
         }
 
+        override fun getLatestServerNotices(): List<Notice> {
+            return clientStatus.latestServerNotices
+        }
+
         @Throws(RemoteException::class)
         override fun getProjectConfigPolling(url: String): ProjectConfig {
-            return clientInterface.getProjectConfigPolling(url)
+            return attachFlow { it.getProjectConfigPolling(url) }
         }
 
         @Throws(RemoteException::class)
         override fun getNotices(seq: Int): List<Notice> {
-            return clientInterface.getNotices(seq)
+            return uiRefresh { clientInterface.getNotices(seq) }
         }
 
         @Throws(RemoteException::class)
         override fun getMessages(seq: Int): List<Message> {
-            return clientInterface.getMessages(seq)
+            ingestMessages(RpcExecutor.Priority.UI_REFRESH)
+            return messageStore.getMessagesAfter(seq)
         }
 
         @Throws(RemoteException::class)
         override fun getEventLogMessages(seq: Int, num: Int): List<Message> {
-            return clientInterface.getEventLogMessages(seq, num)
+            if (seq <= 0) {
+                ingestMessages(RpcExecutor.Priority.UI_REFRESH)
+            }
+            return messageStore.getMessagesBefore(seq, num)
+        }
+
+        @Throws(RemoteException::class)
+        override fun queryEventLogMessages(query: MessageQuery, seq: Int, num: Int): List<Message> {
+            if (seq <= 0) {
+                ingestMessages(RpcExecutor.Priority.UI_REFRESH)
+            }
+            return messageStore.query(query, seq, num)
         }
 
         @Throws(RemoteException::class)
@@ -915,7 +1168,7 @@ class Monitor : LifecycleService() {
 
         @Throws(RemoteException::class)
         override fun getAcctMgrInfo(): AcctMgrInfo {
-            return clientInterface.acctMgrInfo
+            return uiRefresh { clientInterface.acctMgrInfo }
         }
 
         @Throws(RemoteException::class)
@@ -923,27 +1176,76 @@ class Monitor : LifecycleService() {
             this@Monitor.forceRefresh()
         }
 
+        override fun registerListener(listener: IMonitorListener, changes: Int, minIntervalMs: Long) {
+            listeners.register(listener, changes, minIntervalMs)
+        }
+
+        override fun unregisterListener(listener: IMonitorListener) {
+            listeners.unregister(listener)
+        }
+
         @Throws(RemoteException::class)
         override fun createAccountPolling(information: AccountIn): AccountOut {
-            return clientInterface.createAccountPolling(information)
+            return attachFlow { it.createAccountPolling(information) }
         }
 
         @Throws(RemoteException::class)
         override fun checkProjectAttached(url: String): Boolean {
-            return clientInterface.checkProjectAttached(url)
+            return attachFlow { it.checkProjectAttached(url) }
         }
 
         @Throws(RemoteException::class)
         override fun attachProject(url: String, projectName: String, authenticator: String): Boolean {
-            return clientInterface.attachProject(url, projectName, authenticator)
+            return attachFlow { it.attachProject(url, projectName, authenticator) }
         }
 
         override fun addAcctMgrErrorNum(url: String, userName: String, pwd: String): ErrorCodeDescription {
-            val acctMgr = clientInterface.addAcctMgr(url, userName, pwd)
-            return if (acctMgr != null) {
-                ErrorCodeDescription(acctMgr.errorNum,
-                        if (acctMgr.messages.isEmpty()) "" else acctMgr.messages.toString())
-            } else ErrorCodeDescription(-1)
+            return attachFlow { it.addAcctMgr(url, userName, pwd) }.toErrorCodeDescription()
+        }
+
+        @Throws(RemoteException::class)
+        override fun getProjectConfigAsync(url: String, callback: IOperationCallback): Int {
+            return startOperation({ it.getProjectConfigOperation(url).run() }) { callback.onProjectConfig(it) }
+        }
+
+        @Throws(RemoteException::class)
+        override fun lookupCredentialsAsync(credentials: AccountIn, callback: IOperationCallback): Int {
+            return startOperation({ it.lookupCredentialsOperation(credentials).run() }) { callback.onAccountOut(it) }
+        }
+
+        @Throws(RemoteException::class)
+        override fun createAccountAsync(information: AccountIn, callback: IOperationCallback): Int {
+            return startOperation({ it.createAccountOperation(information).run() }) { callback.onAccountOut(it) }
+        }
+
+        @Throws(RemoteException::class)
+        override fun attachProjectAsync(url: String, projectName: String, authenticator: String,
+                                        callback: IOperationCallback): Int {
+            return startOperation({ it.attachProjectOperation(url, projectName, authenticator).run() }) {
+                callback.onSuccess(it?.errorNum == ERR_OK)
+            }
+        }
+
+        @Throws(RemoteException::class)
+        override fun addAcctMgrAsync(url: String, userName: String, pwd: String, callback: IOperationCallback): Int {
+            return startOperation({ it.addAcctMgrOperation(url, userName, pwd).run() }) {
+                callback.onErrorCode(it.toErrorCodeDescription())
+            }
+        }
+
+        @Throws(RemoteException::class)
+        override fun cancelOperation(id: Int) {
+            operations[id]?.cancel()
+        }
+
+        @Throws(RemoteException::class)
+        override fun getTraceEvents(): String {
+            return Tracing.eventsJson(Process.myPid(), "BOINC Monitor")
+        }
+
+        @Throws(RemoteException::class)
+        override fun getLogEntries(max: Int, minLevel: Int): List<LogEntry> {
+            return Logging.BUFFER.entries(max, minLevel)
         }
 
         @Throws(RemoteException::class)
@@ -953,12 +1255,17 @@ class Monitor : LifecycleService() {
 
         @Throws(RemoteException::class)
         override fun getAttachableProjects(): List<ProjectInfo> {
-            return clientInterface.getAttachableProjects(getString(boincPlatform), boincAltPlatform)
+            val platform = getString(boincPlatform)
+            val altPlatform = boincAltPlatform
+            return uiRefresh {
+                val attachedUrls = clientInterface.projectStatus.mapTo(HashSet()) { it.masterURL }
+                projectCatalog.getAttachableProjects(clientInterface, platform, altPlatform, attachedUrls)
+            }
         }
 
         @Throws(RemoteException::class)
         override fun getAccountManagers(): List<AccountManager> {
-            return clientInterface.accountManagers
+            return uiRefresh { projectCatalog.getAccountManagers(clientInterface) }
         }
 
         @Throws(RemoteException::class)
@@ -971,6 +1278,11 @@ class Monitor : LifecycleService() {
             return clientStatus.setupStatus
         }
 
+        @Throws(RemoteException::class)
+        override fun isStatusStale(): Boolean {
+            return clientStatus.isStale
+        }
+
         @Throws(RemoteException::class)
         override fun getComputingStatus(): Int {
             return clientStatus.computingStatus
@@ -1066,16 +1378,44 @@ class Monitor : LifecycleService() {
             return clientStatus.tasks
         }
 
+        @Throws(RemoteException::class)
+        override fun getTaskGroups(): List<TaskGroup> {
+            return clientStatus.taskGroups.groups
+        }
+
+        @Throws(RemoteException::class)
+        override fun getTasksOfGroup(projectUrl: String, state: Int, offset: Int, limit: Int): List<Result> {
+            return clientStatus.taskGroups.getTasks(projectUrl, state, offset, limit)
+        }
+
+        @Throws(RemoteException::class)
+        override fun queryTasks(query: TaskQuery, offset: Int, limit: Int): List<Result> {
+            return clientStatus.taskIndex.query(query, offset, limit)
+        }
+
+        @Throws(RemoteException::class)
+        override fun countTasks(query: TaskQuery): Int {
+            return clientStatus.taskIndex.count(query)
+        }
+
         @Throws(RemoteException::class)
         override fun getProjectStatus(url: String): String {
             return clientStatus.getProjectStatus(url)
         }
 
+        override fun getProjectRows(): List<ProjectRow> {
+            return clientStatus.projectRows
+        }
+
         @Throws(RemoteException::class)
         override fun getRssNotices(): List<Notice> {
             return clientStatus.rssNotices
         }
 
+        override fun getRssNoticeCount(): Int {
+            return clientStatus.rssNotices.size
+        }
+
         @Throws(RemoteException::class)
         override fun getSlideshowForProject(url: String): List<ImageWrapper> {
             return clientStatus.getSlideshowForProject(url)
@@ -1148,12 +1488,12 @@ class Monitor : LifecycleService() {
 
         @Throws(RemoteException::class)
         override fun runBenchmarks(): Boolean {
-            return clientInterface.runBenchmarks()
+            return userAction { it.runBenchmarks() }
         }
 
         @Throws(RemoteException::class)
-        override fun getProjectInfo(url: String): ProjectInfo {
-            return clientInterface.getProjectInfo(url)
+        override fun getProjectInfo(url: String): ProjectInfo? {
+            return uiRefresh { projectCatalog.getProjectInfo(clientInterface, url) }
         }
 
         @Throws(RemoteException::class)
@@ -1164,6 +1504,10 @@ class Monitor : LifecycleService() {
 
     companion object {
         private const val INSTALL_FAILED = "Failed to install: "
+        private const val INSTALL_MANIFEST_FILE = "install_manifest"
+        private const val MESSAGE_INGEST_INTERVAL_MS = 10000L
+        private const val PREFS_WRITE_DELAY_MS = 500L
+        private const val CLIENT_LOCK_FILE = "lockfile"
         private const val IOEXCEPTION_LOG = "IOException: "
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.Handler
+import android.os.Looper
+import android.os.RemoteException
+import androidx.annotation.MainThread
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+
+/**
+ * Client status changes in the GUI process.
+ *
+ * A single [IMonitorListener] is registered with Monitor, for the union of the categories
+ * observed by activities and fragments, while any are observed. Observers are called on the
+ * main thread with the [ClientChange] categories changed.
+ * Activities binding the Monitor call [attach] and [detach], observers need not be bound.
+ */
+object MonitorEvents {
+    fun interface Observer {
+        fun onClientStatusChanged(changes: Int)
+    }
+
+    // fragments reload lists on change, notifications in between get merged
+    private const val MIN_INTERVAL_MS = 250L
+
+    private val handler = Handler(Looper.getMainLooper())
+    private val observers = LinkedHashMap<Observer, Int>()
+    private var monitor: IMonitor? = null
+    private var attached = 0
+    private var registered = 0
+    private var lastVersion = 0L
+
+    private val listener = object : IMonitorListener.Stub() {
+        override fun onClientStatusChanged(changes: Int, version: Long) {
+            handler.post { dispatch(changes, version) }
+        }
+    }
+
+    /**
+     * Registers with the given Monitor, called when an activity bound it.
+     */
+    @MainThread
+    fun attach(monitor: IMonitor) {
+        this.monitor = monitor
+        attached++
+        registered = 0 // register again, Monitor might have been restarted
+        lastVersion = 0
+        updateRegistration()
+    }
+
+    /**
+     * Unregisters when the last activity unbinds the Monitor.
+     */
+    @MainThread
+    fun detach() {
+        if (attached == 0 || --attached > 0) {
+            return
+        }
+        val monitor = monitor ?: return
+        if (registered != 0) {
+            try {
+                monitor.unregisterListener(listener)
+            } catch (e: RemoteException) {
+                if (Logging.WARNING) Log.w(Logging.TAG, "MonitorEvents: unregistering failed", e)
+            }
+        }
+        registered = 0
+        this.monitor = null
+    }
+
+    /**
+     * Calls the given observer with the changes of the given [ClientChange] categories,
+     * until removed. Observing again replaces the categories.
+     */
+    @MainThread
+    fun observe(changes: Int, observer: Observer) {
+        observers[observer] = changes
+        updateRegistration()
+    }
+
+    @MainThread
+    fun remove(observer: Observer) {
+        if (observers.remove(observer) != null) {
+            updateRegistration()
+        }
+    }
+
+    private fun updateRegistration() {
+        val monitor = monitor ?: return
+        val changes = observers.values.fold(0) { union, observed -> union or observed }
+        if (changes == registered) {
+            return
+        }
+        try {
+            if (changes == 0) {
+                monitor.unregisterListener(listener)
+            } else {
+                monitor.registerListener(listener, changes, MIN_INTERVAL_MS)
+            }
+            registered = changes
+        } catch (e: RemoteException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "MonitorEvents: registering failed", e)
+        }
+    }
+
+    private fun dispatch(changes: Int, version: Long) {
+        if (Logging.VERBOSE) Log.v(Logging.TAG, "MonitorEvents: changes $changes version $version")
+        // a version older than the last one is an out of date notification of a previous registration
+        if (version < lastVersion) {
+            return
+        }
+        lastVersion = version
+        for ((observer, observed) in observers.entries.toList()) {
+            if (changes and observed != 0 && observers.containsKey(observer)) {
+                observer.onClientStatusChanged(changes and observed)
+            }
+        }
+    }
+}
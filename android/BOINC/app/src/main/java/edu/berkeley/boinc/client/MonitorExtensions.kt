@@ -20,7 +20,10 @@ package edu.berkeley.boinc.client
 
 import android.os.Build
 import android.os.PowerManager
-import org.apache.commons.io.FileUtils
+import okio.HashingSink
+import okio.buffer
+import okio.sink
+import okio.source
 import java.io.File
 import java.io.InputStream
 
@@ -31,7 +34,17 @@ internal fun allNotNull(vararg values: Any?) = values.none { it == null }
 
 internal fun CharSequence.containsAny(vararg sequences: CharSequence) = sequences.any { it in this }
 
-internal fun InputStream.copyToFile(destFile: File) = FileUtils.copyInputStreamToFile(this, destFile)
+/**
+ * Copies this stream to the given file, creating parent directories, and closes it.
+ *
+ * @return MD5 hash of the copied content
+ */
+internal fun InputStream.copyToFileMd5(destFile: File): String {
+    destFile.parentFile?.mkdirs()
+    val hashingSink = HashingSink.md5(destFile.sink())
+    hashingSink.use { sink -> source().buffer().use { it.readAll(sink) } }
+    return hashingSink.hash.hex()
+}
 
 internal val PowerManager.isScreenOnCompat: Boolean
     get() {
@@ -0,0 +1,126 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.Handler
+import android.os.Looper
+import android.os.RemoteCallbackList
+import android.os.RemoteException
+import android.os.SystemClock
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+
+/**
+ * Listeners registered with [IMonitor.registerListener], notified of client status changes.
+ *
+ * Each listener is only notified of the [ClientChange] categories it registered for, and at most
+ * once per its minimum interval; changes in between are merged and delivered with a delayed flush.
+ * Listeners of died processes are removed by [RemoteCallbackList].
+ */
+class MonitorListeners {
+    private class Subscription(val changes: Int, val throttle: ListenerThrottle)
+
+    private val callbacks = RemoteCallbackList<IMonitorListener>()
+    private val handler = Handler(Looper.getMainLooper())
+    private val flush = Runnable { flush() }
+    private val flushSchedule = FlushSchedule()
+    private var version = 0L
+
+    /**
+     * Registers the given listener, or replaces its subscription if already registered.
+     * The listener is notified right away, so it can show the current status.
+     */
+    @Synchronized
+    fun register(listener: IMonitorListener, changes: Int, minIntervalMs: Long) {
+        val subscription = Subscription(changes, ListenerThrottle(minIntervalMs))
+        callbacks.unregister(listener)
+        callbacks.register(listener, subscription)
+        notifyListener(listener, subscription.throttle.offer(changes, SystemClock.elapsedRealtime()))
+    }
+
+    @Synchronized
+    fun unregister(listener: IMonitorListener) {
+        callbacks.unregister(listener)
+    }
+
+    /**
+     * Notifies the listeners registered for any of the given changes.
+     *
+     * @param changes [ClientChange] categories changed
+     * @param version version of the client status including the changes
+     */
+    @Synchronized
+    fun notify(changes: Int, version: Long) {
+        this.version = version
+        deliver(changes)
+    }
+
+    /**
+     * Removes all listeners, e.g. when Monitor gets destroyed.
+     */
+    @Synchronized
+    fun kill() {
+        handler.removeCallbacks(flush)
+        flushSchedule.clear()
+        callbacks.kill()
+    }
+
+    @Synchronized
+    private fun flush() {
+        flushSchedule.clear()
+        deliver(0)
+    }
+
+    private fun deliver(changes: Int) {
+        val now = SystemClock.elapsedRealtime()
+        var nextDelay = Long.MAX_VALUE
+        val count = callbacks.beginBroadcast()
+        try {
+            for (i in 0 until count) {
+                val subscription = callbacks.getBroadcastCookie(i) as Subscription
+                notifyListener(callbacks.getBroadcastItem(i), subscription.throttle.offer(changes and subscription.changes, now))
+                val delay = subscription.throttle.delayUntilDue(now)
+                if (delay >= 0) {
+                    nextDelay = minOf(nextDelay, delay)
+                }
+            }
+        } finally {
+            callbacks.finishBroadcast()
+        }
+        if (nextDelay != Long.MAX_VALUE && flushSchedule.request(now + nextDelay)) {
+            // replaces a flush posted for a listener with a longer interval
+            handler.removeCallbacks(flush)
+            if (!handler.postDelayed(flush, nextDelay)) {
+                flushSchedule.clear()
+            }
+        }
+    }
+
+    private fun notifyListener(listener: IMonitorListener, changes: Int) {
+        if (changes == 0) {
+            return
+        }
+        try {
+            listener.onClientStatusChanged(changes, version)
+        } catch (e: RemoteException) {
+            // process died, removed from the list by RemoteCallbackList
+            if (Logging.DEBUG) Log.d(Logging.TAG, "MonitorListeners: notifying listener failed", e)
+        }
+    }
+}
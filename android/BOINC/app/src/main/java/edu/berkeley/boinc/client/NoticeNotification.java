@@ -25,7 +25,6 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
-import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
@@ -40,6 +39,7 @@ import edu.berkeley.boinc.BOINCActivity;
 import edu.berkeley.boinc.R;
 import edu.berkeley.boinc.rpc.Notice;
 import edu.berkeley.boinc.utils.BOINCUtils;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 
 @Singleton
@@ -90,7 +90,7 @@ public class NoticeNotification {
     /**
      * Updates notification with current notices
      */
-    public void update(List<Notice> notices, boolean isPreferenceEnabled) {
+    public void update(boolean isPreferenceEnabled) {
         if(!isPreferenceEnabled) {
             if(isNotificationShown) {
                 notificationManagerCompat.cancel(summaryNotificationID);
@@ -99,25 +99,15 @@ public class NoticeNotification {
             return;
         }
 
-        // filter new notices
-        boolean newNotice = false;
-        double mostRecentSeenArrivalTime = 0;
-        double lastNotifiedArrivalTime = persistentStorage.getLastNotifiedNoticeArrivalTime();
-
-        for(Notice tmp : notices) {
-            if(tmp.getArrivalTime() > lastNotifiedArrivalTime) {
-                // multiple new notices might have same arrival time -> write back after adding all
-                currentlyNotifiedNotices.add(tmp);
-                newNotice = true;
-                if(tmp.getArrivalTime() > mostRecentSeenArrivalTime) {
-                    mostRecentSeenArrivalTime = tmp.getArrivalTime();
-                }
-            }
-        }
+        // only notices newer than the last notified one are looked at, sorted by arrival time
+        final List<Notice> newNotices =
+                clientStatus.getRssNoticesArrivedAfter(persistentStorage.getLastNotifiedNoticeArrivalTime());
 
-        if(newNotice) {
+        if(!newNotices.isEmpty()) {
             // new notices came in
-            persistentStorage.setLastNotifiedNoticeArrivalTime(mostRecentSeenArrivalTime);
+            // multiple new notices might have same arrival time -> write back after adding all
+            currentlyNotifiedNotices.addAll(newNotices);
+            persistentStorage.setLastNotifiedNoticeArrivalTime(newNotices.get(newNotices.size() - 1).getArrivalTime());
             final List<Notification> notifications = buildNoticeNotifications();
             for (int i = 0; i < notifications.size(); i++) {
                 final Notification notification = notifications.get(i);
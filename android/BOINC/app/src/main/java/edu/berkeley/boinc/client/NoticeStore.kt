@@ -0,0 +1,259 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Notice
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import java.io.*
+
+/**
+ * Notices of the client shown by the app, i.e. RSS and server notices, persisted in the app's
+ * files directory.
+ *
+ * Notices are added incrementally as read from the client. Notices already known are skipped,
+ * identified by arrival time, category, title and project rather than sequence number, since the
+ * client renumbers its notices after a restart. At most [capacity] notices not older than
+ * [maxAgeSeconds] are kept, so memory and the cost of each update do not grow with uptime.
+ *
+ * The lists returned are immutable and replaced on change, callers do not need to copy them.
+ *
+ * @param file          file the notices are persisted in, loaded on first access; null to not persist
+ * @param capacity      maximum number of notices
+ * @param maxAgeSeconds notices that arrived earlier are dropped
+ */
+class NoticeStore @JvmOverloads constructor(
+        private val file: File?,
+        private val capacity: Int = DEFAULT_CAPACITY,
+        private val maxAgeSeconds: Double = DEFAULT_MAX_AGE_SECONDS
+) {
+    private data class Key(val arrivalTime: Double, val category: String, val title: String, val project: String?)
+
+    // sorted by arrival time
+    private val notices = ArrayList<Notice>()
+    private val keys = HashSet<Key>()
+    private var loaded = false
+    private var modified = false
+
+    /**
+     * Sequence number of the most recent notice read from the client, to request newer ones.
+     */
+    @get:Synchronized
+    var mostRecentSeqno = 0
+        private set
+
+    /**
+     * RSS notices, sorted by arrival time.
+     */
+    @get:Synchronized
+    var rssNotices: List<Notice> = emptyList()
+        get() {
+            load()
+            return field
+        }
+        private set
+
+    /**
+     * Server notices, i.e. messages of scheduler replies, sorted by arrival time.
+     */
+    @get:Synchronized
+    var serverNotices: List<Notice> = emptyList()
+        get() {
+            load()
+            return field
+        }
+        private set
+
+    /**
+     * Most recent server notice of each project, by project name.
+     */
+    @get:Synchronized
+    var latestServerNotices: Map<String, Notice> = emptyMap()
+        get() {
+            load()
+            return field
+        }
+        private set
+
+    /**
+     * Whether notices changed since they were saved.
+     */
+    @get:Synchronized
+    val isModified get() = modified
+
+    /**
+     * Adds the notices read from the client, skipping known ones, and drops outdated notices.
+     *
+     * @param newNotices notices as returned by the client
+     * @param now        current time in seconds since epoch
+     * @return true if the notices changed
+     */
+    @Synchronized
+    fun add(newNotices: List<Notice>, now: Double): Boolean {
+        load()
+        var changed = false
+        var sorted = true
+        for (notice in newNotices) {
+            mostRecentSeqno = maxOf(mostRecentSeqno, notice.seqno)
+            if (notice.isClientNotice || notice.arrivalTime < now - maxAgeSeconds || !keys.add(notice.key())) {
+                continue
+            }
+            sorted = sorted && (notices.isEmpty() || notices.last().arrivalTime <= notice.arrivalTime)
+            notices.add(notice)
+            changed = true
+        }
+        if (!sorted) {
+            notices.sortBy { it.arrivalTime }
+        }
+        changed = evict(now) || changed
+        if (changed) {
+            modified = true
+            updateLists()
+        }
+        return changed
+    }
+
+    /**
+     * Returns the RSS notices that arrived after the given time, sorted by arrival time.
+     */
+    fun getRssNoticesArrivedAfter(arrivalTime: Double): List<Notice> {
+        val rss = rssNotices
+        var low = 0
+        var high = rss.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (rss[middle].arrivalTime > arrivalTime) high = middle else low = middle + 1
+        }
+        return rss.subList(low, rss.size)
+    }
+
+    /**
+     * Persists the notices, if changed since loaded or saved. Performs file I/O, do not call
+     * on the main thread.
+     */
+    @Synchronized
+    fun save() {
+        if (!modified || file == null) {
+            return
+        }
+        val tmp = File(file.path + ".tmp")
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tmp))).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(FORMAT_VERSION)
+                out.writeInt(notices.size)
+                for (notice in notices) {
+                    out.writeInt(notice.seqno)
+                    out.writeUTF(notice.title)
+                    out.writeLongString(notice.description)
+                    out.writeDouble(notice.createTime)
+                    out.writeDouble(notice.arrivalTime)
+                    out.writeUTF(notice.category)
+                    out.writeUTF(notice.link)
+                    out.writeUTF(notice.projectName ?: "")
+                    out.writeBoolean(notice.isPrivate)
+                    out.writeBoolean(notice.isServerNotice)
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                throw IOException("rename to ${file.name} failed")
+            }
+            modified = false
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "NoticeStore: saving notices failed", e)
+            tmp.delete()
+        }
+    }
+
+    private fun load() {
+        if (loaded) {
+            return
+        }
+        loaded = true
+        if (file == null || !file.exists()) {
+            return
+        }
+        try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                    throw IOException("unknown format")
+                }
+                repeat(input.readInt()) {
+                    val notice = Notice(seqno = input.readInt(), title = input.readUTF(),
+                            description = input.readLongString(), createTime = input.readDouble(),
+                            arrivalTime = input.readDouble(), category = input.readUTF(), link = input.readUTF(),
+                            projectName = input.readUTF().takeIf { it.isNotEmpty() },
+                            isPrivate = input.readBoolean(), isServerNotice = input.readBoolean())
+                    if (keys.add(notice.key())) {
+                        notices.add(notice)
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "NoticeStore: loading notices failed", e)
+            notices.clear()
+            keys.clear()
+        }
+        updateLists()
+        if (Logging.DEBUG) Log.d(Logging.TAG, "NoticeStore: loaded ${notices.size} notices")
+    }
+
+    // drops the oldest notices beyond capacity or age, notices are sorted by arrival time
+    private fun evict(now: Double): Boolean {
+        var count = (notices.size - capacity).coerceAtLeast(0)
+        while (count < notices.size && notices[count].arrivalTime < now - maxAgeSeconds) {
+            count++
+        }
+        if (count == 0) {
+            return false
+        }
+        val evicted = notices.subList(0, count)
+        evicted.forEach { keys.remove(it.key()) }
+        evicted.clear()
+        return true
+    }
+
+    private fun updateLists() {
+        rssNotices = notices.filter { !it.isServerNotice }
+        serverNotices = notices.filter { it.isServerNotice }
+        // later notices replace earlier ones of the same project
+        latestServerNotices = serverNotices.filter { it.projectName != null }.associateBy { it.projectName!! }
+    }
+
+    private fun Notice.key() = Key(arrivalTime, category, title, projectName)
+
+    // description may exceed the 64 KiB limit of writeUTF
+    private fun DataOutputStream.writeLongString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+
+    private fun DataInputStream.readLongString() =
+            ByteArray(readInt()).also { readFully(it) }.toString(Charsets.UTF_8)
+
+    companion object {
+        const val FILE_NAME = "notices"
+
+        private const val DEFAULT_CAPACITY = 200
+        private const val DEFAULT_MAX_AGE_SECONDS = 30 * 24 * 3600.0
+        private const val MAGIC = 0x424e5443 // "BNTC"
+        private const val FORMAT_VERSION = 1
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.RemoteException
+import edu.berkeley.boinc.rpc.AccountOut
+import edu.berkeley.boinc.rpc.ProjectConfig
+import edu.berkeley.boinc.utils.ErrorCodeDescription
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlin.coroutines.resume
+
+/**
+ * No-op implementation of [IOperationCallback], override the method matching the started operation.
+ */
+open class OperationCallback : IOperationCallback.Stub() {
+    override fun onProjectConfig(config: ProjectConfig?) {}
+
+    override fun onAccountOut(account: AccountOut?) {}
+
+    override fun onSuccess(success: Boolean) {}
+
+    override fun onErrorCode(error: ErrorCodeDescription?) {}
+}
+
+/**
+ * Suspending wrapper of [IMonitor.getProjectConfigAsync].
+ * Cancellation of the calling coroutine cancels the operation in Monitor.
+ */
+suspend fun IMonitor.getProjectConfigAwait(url: String): ProjectConfig? =
+        suspendCancellableCoroutine { continuation ->
+            val id = getProjectConfigAsync(url, object : OperationCallback() {
+                override fun onProjectConfig(config: ProjectConfig?) = continuation.resume(config)
+            })
+            continuation.invokeOnCancellation {
+                try {
+                    cancelOperation(id)
+                } catch (e: RemoteException) {
+                    if (Logging.WARNING) Log.w(Logging.TAG, "getProjectConfigAwait: cancellation failed: ", e)
+                }
+            }
+        }
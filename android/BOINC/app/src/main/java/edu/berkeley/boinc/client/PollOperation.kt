@@ -0,0 +1,90 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.utils.ERR_IN_PROGRESS
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.withTimeoutOrNull
+
+/**
+ * Asynchronous client operation, e.g. get_project_config or project_attach:
+ * [start] issues the request, [poll] is repeated until the client reports a final result,
+ * i.e. the reply's error number is not ERR_IN_PROGRESS.
+ *
+ * Polling starts with a short interval, which is doubled after every poll up to
+ * [maxIntervalMs]. Quick replies are picked up within a fraction of a second, while
+ * long running operations do not flood the client with polls.
+ *
+ * @param name     name of the operation, used in log messages
+ * @param start    starts the operation, returns success
+ * @param poll     polls the operation's reply, returns null on connection problems
+ * @param errorNum maps the reply to its error number
+ */
+class PollOperation<T : Any>(
+        private val name: String,
+        private val start: () -> Boolean,
+        private val poll: () -> T?,
+        private val errorNum: (T) -> Int
+) {
+    var initialIntervalMs = INITIAL_INTERVAL_MS
+    var maxIntervalMs = MAX_INTERVAL_MS
+    var timeoutMs = TIMEOUT_MS
+
+    /**
+     * Runs the operation. Cancellation of the calling coroutine stops polling.
+     *
+     * @return final reply, or null if the operation could not be started, polling failed
+     * or timed out
+     */
+    suspend fun run(): T? {
+        if (!start()) {
+            if (Logging.DEBUG) Log.d(Logging.TAG, "PollOperation $name: start failed.")
+            return null
+        }
+        val reply = withTimeoutOrNull(timeoutMs) {
+            var interval = initialIntervalMs
+            var reply: T?
+            do {
+                delay(interval)
+                interval = (interval * 2).coerceAtMost(maxIntervalMs)
+                reply = poll()
+            } while (reply != null && errorNum(reply) == ERR_IN_PROGRESS)
+            reply
+        }
+        if (reply == null) {
+            if (Logging.WARNING) Log.w(Logging.TAG, "PollOperation $name: polling failed or timed out.")
+        } else if (Logging.DEBUG) {
+            Log.d(Logging.TAG, "PollOperation $name: final result with error_num: ${errorNum(reply)}")
+        }
+        return reply
+    }
+
+    /**
+     * Runs the operation, blocking the calling thread until the final result is available.
+     */
+    fun runBlocking(): T? = kotlinx.coroutines.runBlocking { run() }
+
+    companion object {
+        const val INITIAL_INTERVAL_MS = 100L
+        const val MAX_INTERVAL_MS = 1000L
+        const val TIMEOUT_MS = 120000L
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.withTimeoutOrNull
+import java.io.File
+import java.io.IOException
+
+/**
+ * Tracks the process of an executable, e.g. the BOINC client, without forking "ps".
+ *
+ * The process is found by reading /proc/PID/cmdline; the PID found is cached and re-validated
+ * with a single read, so repeated checks do not scan /proc again. No process handle is kept:
+ * the client is started with --daemon, i.e. the started process forks and exits right away, and
+ * clients started by a previous instance of the app are no children of this process anyway.
+ * For the same reason exits can not be waited for, [awaitExit] checks in short intervals.
+ *
+ * @param executable absolute path of the executable, as in the first argument of its command line
+ * @param procDir    proc file system, replaceable for testing
+ */
+class ProcessTracker(private val executable: String, private val procDir: File = File("/proc")) {
+    private var cachedPid: Int? = null
+
+    /**
+     * Starts the executable.
+     *
+     * @param args       arguments passed to the executable
+     * @param workingDir working directory of the process
+     * @return true if the process was started
+     */
+    @Synchronized
+    fun start(args: Array<String>, workingDir: File): Boolean {
+        return try {
+            Runtime.getRuntime().exec(arrayOf(executable, *args), null, workingDir)
+            cachedPid = null
+            true
+        } catch (e: IOException) {
+            if (Logging.ERROR) Log.e(Logging.TAG, "ProcessTracker: starting $executable failed", e)
+            false
+        }
+    }
+
+    /**
+     * Returns whether the executable is running.
+     */
+    @Synchronized
+    fun isRunning() = findPid() != null
+
+    /**
+     * Returns the PID of the running executable.
+     *
+     * @return PID, null if not running
+     */
+    @Synchronized
+    fun findPid(): Int? {
+        cachedPid?.let {
+            if (matches(it)) {
+                return it
+            }
+        }
+        cachedPid = procDir.listFiles()
+                ?.mapNotNull { it.name.toIntOrNull() }
+                ?.firstOrNull { matches(it) }
+        if (Logging.DEBUG) Log.d(Logging.TAG, "ProcessTracker: $executable pid: $cachedPid")
+        return cachedPid
+    }
+
+    /**
+     * Suspends until the executable exited, checking in short intervals.
+     *
+     * @param timeoutMs maximum time to wait
+     * @return true if the executable is not running anymore
+     */
+    suspend fun awaitExit(timeoutMs: Long): Boolean {
+        val exited = withTimeoutOrNull(timeoutMs) {
+            var interval = INITIAL_INTERVAL_MS
+            while (isRunning()) {
+                delay(interval)
+                interval = (interval * 2).coerceAtMost(MAX_INTERVAL_MS)
+            }
+            true
+        }
+        return exited ?: false
+    }
+
+    private fun matches(pid: Int): Boolean {
+        val cmdline = try {
+            File(procDir, "$pid/cmdline").readBytes()
+        } catch (e: IOException) {
+            return false // not existing (anymore) or not accessible
+        }
+        // arguments are separated by NUL
+        val end = cmdline.indexOf(0).let { if (it < 0) cmdline.size else it }
+        return String(cmdline, 0, end) == executable
+    }
+
+    companion object {
+        private const val INITIAL_INTERVAL_MS = 25L
+        private const val MAX_INTERVAL_MS = 250L
+    }
+}
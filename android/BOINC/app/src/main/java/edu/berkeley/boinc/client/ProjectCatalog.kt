@@ -0,0 +1,134 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.AccountManager
+import edu.berkeley.boinc.rpc.AllProjectsList
+import edu.berkeley.boinc.rpc.ProjectInfo
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import java.io.File
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Cached copy of the client's all_projects_list.xml, indexed by master URL.
+ * The list is read and parsed only if the file changed (modification time or size) since the
+ * last read, queries are answered from the cache. Projects supporting a platform are looked up
+ * once per platform and list version.
+ */
+@Singleton
+class ProjectCatalog @Inject constructor() {
+    /**
+     * all_projects_list.xml in the client's working directory, used to detect changes.
+     * If not set or not existing, the list is read on every query.
+     */
+    var source: File? = null
+
+    private var version: Pair<Long, Long>? = null
+    private var projects: List<ProjectInfo> = emptyList()
+    private var accountManagers: List<AccountManager> = emptyList()
+    private val projectsByUrl = HashMap<String, ProjectInfo>()
+    // projects supporting the platform and alternative platform, by (platform, altPlatform)
+    private val projectsByPlatform = HashMap<Pair<String, String>, List<ProjectInfo>>()
+
+    /**
+     * Returns projects that support the given platform(s) and are not attached yet,
+     * in the order of the catalog.
+     *
+     * @param rpc              connection used if the catalog needs to be (re-)read
+     * @param platform         BOINC platform name of the device
+     * @param altPlatform      alternative BOINC platform name of the device, may be empty
+     * @param attachedUrls     master URLs of the currently attached projects
+     * @return list of attachable projects
+     */
+    @Synchronized
+    fun getAttachableProjects(rpc: ClientInterfaceImplementation, platform: String, altPlatform: String,
+                              attachedUrls: Set<String>): List<ProjectInfo> {
+        refresh(rpc)
+        return attachableProjects(platform, altPlatform, attachedUrls)
+    }
+
+    /**
+     * Returns the catalog entry for the given master URL.
+     *
+     * @return project information, null if not in catalog
+     */
+    @Synchronized
+    fun getProjectInfo(rpc: ClientInterfaceImplementation, url: String): ProjectInfo? {
+        refresh(rpc)
+        return projectsByUrl[url]
+    }
+
+    /**
+     * Returns the account managers of the catalog.
+     */
+    @Synchronized
+    fun getAccountManagers(rpc: ClientInterfaceImplementation): List<AccountManager> {
+        refresh(rpc)
+        return accountManagers
+    }
+
+    /**
+     * Drops the cached catalog, it is read again on the next query.
+     */
+    @Synchronized
+    fun invalidate() {
+        version = null
+    }
+
+    private fun refresh(rpc: ClientInterfaceImplementation) {
+        val file = source
+        val current = if (file != null && file.exists()) file.lastModified() to file.length() else null
+        if (current != null && current == version) {
+            return
+        }
+        if (Logging.DEBUG) Log.d(Logging.TAG, "ProjectCatalog: reading all_projects_list, version: $current")
+        val allProjectsList = rpc.readAllProjectsList()
+        if (allProjectsList.projects.isEmpty()) {
+            return // connection problem, keep what we have and retry next time
+        }
+        load(allProjectsList, current)
+    }
+
+    internal fun load(allProjectsList: AllProjectsList, version: Pair<Long, Long>?) {
+        projects = allProjectsList.projects
+        accountManagers = allProjectsList.accountManagers
+        projectsByUrl.clear()
+        projectsByPlatform.clear()
+        for (project in projects) {
+            projectsByUrl[project.url] = project
+        }
+        this.version = version
+    }
+
+    internal fun attachableProjects(platform: String, altPlatform: String,
+                                    attachedUrls: Set<String>): List<ProjectInfo> {
+        val supporting = projectsByPlatform.getOrPut(platform to altPlatform) {
+            // a listed platform supports the device if it contains its platform name,
+            // e.g. with a plan class as in aarch64-android-linux-gnu[opencl]
+            projects.filter { project ->
+                project.platforms.any {
+                    it.contains(platform) || (altPlatform.isNotEmpty() && it.contains(altPlatform))
+                }
+            }
+        }
+        return supporting.filter { it.url !in attachedUrls }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.Parcel
+import android.os.Parcelable
+import edu.berkeley.boinc.rpc.Notice
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Transfer
+
+/**
+ * Row of the project list, built in the Monitor once per status update, see [ProjectRows].
+ *
+ * @param project      the attached project, identified by its master URL
+ * @param transfers    ongoing transfers of the project
+ * @param serverNotice latest server notice of the project, null if there is none
+ * @param statusText   status of the project, e.g. suspended, empty if there is nothing to report;
+ *                     without the back-off countdown, which is derived from the project's min_rpc_time when shown
+ */
+data class ProjectRow(
+        var project: Project = Project(),
+        var transfers: List<Transfer> = emptyList(),
+        var serverNotice: Notice? = null,
+        var statusText: String = ""
+) : Parcelable {
+    private constructor(parcel: Parcel) : this(
+            parcel.readParcelable<Project>(Project::class.java.classLoader) ?: Project(),
+            parcel.createTypedArrayList(Transfer.CREATOR) ?: emptyList<Transfer>(),
+            parcel.readParcelable<Notice>(Notice::class.java.classLoader),
+            parcel.readString() ?: "")
+
+    override fun describeContents() = 0
+
+    override fun writeToParcel(dest: Parcel, flags: Int) {
+        dest.writeParcelable(project, flags)
+        dest.writeTypedList(transfers)
+        dest.writeParcelable(serverNotice, flags)
+        dest.writeString(statusText)
+    }
+
+    companion object {
+        @JvmField
+        val CREATOR: Parcelable.Creator<ProjectRow> = object : Parcelable.Creator<ProjectRow> {
+            override fun createFromParcel(parcel: Parcel) = ProjectRow(parcel)
+
+            override fun newArray(size: Int) = arrayOfNulls<ProjectRow>(size)
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Notice
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Transfer
+
+/**
+ * Builds the rows of the project list, the GUI receives them ready to show.
+ * Transfers are grouped by master URL in a single pass and server notices are looked up by
+ * project name, instead of filtering all transfers and notices for each project.
+ */
+object ProjectRows {
+    /**
+     * @param projects            attached projects, in the order of the client
+     * @param transfers           ongoing transfers of all projects
+     * @param latestServerNotices latest server notice of each project, by project name
+     * @param statusOf            status text of a project
+     * @return one row per project, in the order of the projects
+     */
+    @JvmStatic
+    fun build(projects: List<Project>, transfers: List<Transfer>, latestServerNotices: Map<String, Notice>,
+              statusOf: (Project) -> String): List<ProjectRow> {
+        val transfersByProject = transfers.groupBy { it.projectUrl }
+        return projects.map { project ->
+            ProjectRow(project, transfersByProject[project.masterURL] ?: emptyList(),
+                    latestServerNotices[project.projectName], statusOf(project))
+        }
+    }
+}
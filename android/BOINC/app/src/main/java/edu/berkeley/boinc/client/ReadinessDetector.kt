@@ -0,0 +1,93 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.FileObserver
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.withTimeoutOrNull
+import java.io.File
+
+/**
+ * Detects when the freshly started client accepts connections.
+ *
+ * The check (e.g. connect and authorize) is repeated with an exponential backoff, starting at
+ * [initialIntervalMs]. Waiting for the next attempt ends early when [signal] is called, e.g. by a
+ * [WorkingDirObserver] once the client created its lock or authentication file. There is no delay
+ * after a successful check.
+ */
+class ReadinessDetector(
+        private val initialIntervalMs: Long,
+        private val maxIntervalMs: Long
+) {
+    private val events = Channel<Unit>(Channel.CONFLATED)
+
+    /**
+     * Wakes up a waiting [await], triggering the next check right away.
+     */
+    fun signal() {
+        events.offer(Unit)
+    }
+
+    /**
+     * Repeats the given check until it succeeds or the timeout expires.
+     *
+     * @param timeoutMs maximum time to wait
+     * @param check     returns true once the client is ready
+     * @return milliseconds until the check succeeded, null if timed out
+     */
+    suspend fun await(timeoutMs: Long, check: () -> Boolean): Long? {
+        val start = System.nanoTime()
+        while (events.poll() != null) {
+            // drop events from before this call
+        }
+        var attempts = 0
+        val ready = withTimeoutOrNull(timeoutMs) {
+            var interval = initialIntervalMs
+            while (true) {
+                attempts++
+                if (check()) {
+                    break
+                }
+                withTimeoutOrNull(interval) { events.receive() }
+                interval = (interval * 2).coerceAtMost(maxIntervalMs)
+            }
+            true
+        }
+        val elapsed = (System.nanoTime() - start) / 1000000
+        if (Logging.DEBUG) Log.d(Logging.TAG, "ReadinessDetector: ready: ${ready != null} after $elapsed ms, " +
+                "$attempts attempts")
+        return if (ready != null) elapsed else null
+    }
+}
+
+/**
+ * Watches the client's working directory for the given files being created or written.
+ */
+@Suppress("DEPRECATION") // File constructor requires API level 29
+class WorkingDirObserver(dir: File, private val names: Set<String>, private val onEvent: () -> Unit) :
+        FileObserver(dir.absolutePath, CREATE or CLOSE_WRITE or MOVED_TO) {
+    override fun onEvent(event: Int, path: String?) {
+        if (path in names) {
+            if (Logging.VERBOSE) Log.v(Logging.TAG, "WorkingDirObserver: event $event for $path")
+            onEvent()
+        }
+    }
+}
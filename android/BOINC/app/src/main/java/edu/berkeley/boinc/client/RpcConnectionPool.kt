@@ -0,0 +1,148 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.SystemClock
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.util.*
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Holds additional authorized GUI RPC connections to the client, next to the primary connection
+ * owned by Monitor (used for client setup and the status poll).
+ * - INTERACTIVE: operations triggered by the user, e.g. suspending a task
+ * - ATTACH: long running account and attach flows, which poll the client for seconds
+ *
+ * Connections are opened and authorized lazily on first use and re-checked after being idle,
+ * callers fall back to the primary connection if a channel can not be established.
+ */
+@Singleton
+class RpcConnectionPool @Inject constructor(private val clientStatus: ClientStatus) {
+    enum class Channel {
+        INTERACTIVE,
+        ATTACH
+    }
+
+    private inner class Slot(val channel: Channel) {
+        val rpc = ClientInterfaceImplementation(clientStatus)
+        // held for the duration of a flow, see use()
+        val mutex = Mutex()
+        var lastVerified = 0L
+
+        @Synchronized
+        fun acquire(socketAddress: String, authFilePath: String): ClientInterfaceImplementation? {
+            val now = SystemClock.elapsedRealtime()
+            if (rpc.isConnected && (now - lastVerified < HEALTH_CHECK_INTERVAL_MS || rpc.connectionAlive())) {
+                lastVerified = now
+                return rpc
+            }
+
+            // (re-)connect and authorize, e.g. after the client got restarted
+            if (rpc.open(socketAddress) && rpc.authorizeGuiFromFile(authFilePath)) {
+                if (Logging.DEBUG) Log.d(Logging.TAG, "RpcConnectionPool: $channel connection established")
+                lastVerified = now
+                return rpc
+            }
+            if (Logging.WARNING) Log.w(Logging.TAG, "RpcConnectionPool: $channel connection failed")
+            rpc.close()
+            return null
+        }
+
+        @Synchronized
+        fun invalidate() {
+            lastVerified = 0L
+        }
+    }
+
+    private val slots = EnumMap<Channel, Slot>(Channel::class.java).apply {
+        Channel.values().forEach { put(it, Slot(it)) }
+    }
+
+    @Volatile
+    private var socketAddress: String? = null
+    @Volatile
+    private var authFilePath: String? = null
+
+    /**
+     * Enables the pool, called once the primary connection is established.
+     * Forces a health check of all open connections on their next use.
+     *
+     * @param socketAddress address of the client's GUI RPC socket
+     * @param authFilePath  absolute path to file containing gui authentication key
+     */
+    fun configure(socketAddress: String, authFilePath: String) {
+        this.socketAddress = socketAddress
+        this.authFilePath = authFilePath
+        slots.values.forEach { it.invalidate() }
+    }
+
+    /**
+     * Returns the authorized connection of the given channel.
+     *
+     * @return connection, or null if the pool is not configured or the client can not be reached
+     */
+    fun connection(channel: Channel): ClientInterfaceImplementation? {
+        val address = socketAddress ?: return null
+        val authFile = authFilePath ?: return null
+        return slots.getValue(channel).acquire(address, authFile)
+    }
+
+    /**
+     * Runs the given call with exclusive use of the connection of the given channel,
+     * e.g. to keep a started client operation and its polls together.
+     *
+     * @param fallback connection to be used if the channel's connection is not available
+     */
+    suspend fun <T> useSuspending(channel: Channel, fallback: ClientInterfaceImplementation,
+                                  call: suspend (ClientInterfaceImplementation) -> T): T {
+        val slot = slots.getValue(channel)
+        return slot.mutex.withLock {
+            call(connection(channel) ?: fallback)
+        }
+    }
+
+    /**
+     * Blocking variant of [useSuspending] for callers on Binder or worker threads.
+     */
+    fun <T> use(channel: Channel, fallback: ClientInterfaceImplementation,
+                call: (ClientInterfaceImplementation) -> T): T =
+            runBlocking { useSuspending(channel, fallback) { call(it) } }
+
+    /**
+     * Closes all connections of the pool. The pool is disabled until configured again.
+     */
+    fun close() {
+        socketAddress = null
+        authFilePath = null
+        slots.values.forEach {
+            it.invalidate()
+            it.rpc.close()
+        }
+    }
+
+    companion object {
+        // connections idle for longer than this are checked with a round trip before use
+        private const val HEALTH_CHECK_INTERVAL_MS = 30000L
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.Logging
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.runBlocking
+import java.util.concurrent.PriorityBlockingQueue
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.concurrent.thread
+
+/**
+ * Executes RPCs with the client on dedicated worker threads, ordered by [Priority].
+ *
+ * RpcClient serializes all calls on a single socket, so a user action submitted while the status
+ * poll is running used to wait for the complete poll cycle. User actions are executed by their own
+ * worker (on the interactive connection of [RpcConnectionPool], if available), status reads are
+ * ordered by priority on a second worker. Thus a user action waits for at most the reply that is
+ * currently in flight.
+ *
+ * Requests submitted with a key are coalesced with a queued request of the same key: the callers
+ * share the single reply, e.g. a forced refresh and a scheduled poll result in one get_state RPC.
+ */
+@Singleton
+class RpcExecutor @Inject constructor() {
+    enum class Priority(val lane: Int) {
+        USER_ACTION(LANE_INTERACTIVE),
+        UI_REFRESH(LANE_STATUS),
+        BACKGROUND_POLL(LANE_STATUS)
+    }
+
+    private class Request<T>(var priority: Priority, val sequence: Long, val key: String?,
+                             private val call: () -> T) : Comparable<Request<*>> {
+        val result = CompletableDeferred<T>()
+        var waiters = 1 // guarded by Lane.pending
+
+        fun run() {
+            try {
+                result.complete(call())
+            } catch (e: Throwable) {
+                // fail the callers, not the worker: a dead lane would leave later requests waiting forever
+                if (e !is Exception && Logging.ERROR) Log.e(Logging.TAG, "RpcExecutor: request failed", e)
+                result.completeExceptionally(e)
+            }
+        }
+
+        override fun compareTo(other: Request<*>) =
+                compareValuesBy(this, other, { it.priority }, { it.sequence })
+    }
+
+    private class Lane(name: String) {
+        val queue = PriorityBlockingQueue<Request<*>>()
+        // queued, not yet started requests by key; also guards sequence and waiters
+        val pending = HashMap<String, Request<*>>()
+        var sequence = 0L
+
+        val worker: Thread by lazy {
+            thread(isDaemon = true, name = name) {
+                while (true) {
+                    val request = try {
+                        queue.take()
+                    } catch (e: InterruptedException) {
+                        break
+                    }
+                    synchronized(pending) {
+                        if (request.key != null && pending[request.key] === request) {
+                            pending.remove(request.key)
+                        }
+                    }
+                    if (!request.result.isCompleted) { // completed here means cancelled by all callers
+                        request.run()
+                    }
+                }
+            }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        fun <T> enqueue(priority: Priority, key: String?, call: () -> T): Request<T> {
+            worker // make sure worker is running
+            synchronized(pending) {
+                val queued = key?.let { pending[it] as Request<T>? }
+                if (queued != null) {
+                    queued.waiters++
+                    if (priority < queued.priority && queue.remove(queued)) {
+                        // promote, e.g. a UI refresh joining a queued background poll
+                        queued.priority = priority
+                        queue.put(queued)
+                    }
+                    if (Logging.VERBOSE) Log.v(Logging.TAG, "RpcExecutor: coalesced request $key")
+                    return queued
+                }
+                val request = Request(priority, sequence++, key, call)
+                if (key != null) {
+                    pending[key] = request
+                }
+                queue.put(request)
+                return request
+            }
+        }
+
+        fun cancel(request: Request<*>) {
+            synchronized(pending) {
+                if (--request.waiters == 0 && queue.remove(request)) {
+                    if (request.key != null && pending[request.key] === request) {
+                        pending.remove(request.key)
+                    }
+                    request.result.cancel()
+                }
+            }
+        }
+    }
+
+    private val lanes = arrayOf(Lane("BOINC RPC interactive"), Lane("BOINC RPC status"))
+
+    /**
+     * Enqueues the given RPC call and suspends until its reply is available.
+     * Cancellation of the caller removes the request from the queue, unless other callers
+     * coalesced with it.
+     *
+     * @param priority scheduling class of the request
+     * @param key      requests with equal, non-null keys are coalesced while queued
+     * @param call     RPC(s) to execute, runs on a worker thread
+     * @return result of call
+     */
+    suspend fun <T> execute(priority: Priority, key: String? = null, call: () -> T): T {
+        val lane = lanes[priority.lane]
+        if (Thread.currentThread() === lane.worker) {
+            return call() // nested call from within a request of the same lane
+        }
+        val request = lane.enqueue(priority, key, call)
+        try {
+            return request.result.await()
+        } catch (e: CancellationException) {
+            lane.cancel(request)
+            throw e
+        }
+    }
+
+    /**
+     * Blocking variant of [execute] for callers on Binder or timer threads.
+     * Must not be called on the main thread.
+     */
+    fun <T> executeBlocking(priority: Priority, key: String? = null, call: () -> T): T =
+            runBlocking { execute(priority, key, call) }
+
+    companion object {
+        private const val LANE_INTERACTIVE = 0
+        private const val LANE_STATUS = 1
+    }
+}
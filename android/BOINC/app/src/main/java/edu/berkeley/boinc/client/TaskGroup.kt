@@ -0,0 +1,79 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.Parcel
+import android.os.Parcelable
+
+/**
+ * Summary of the tasks of one project in one state, shown as header of the paged task list.
+ * The tasks of a group are loaded in windows with IMonitor.getTasksOfGroup().
+ *
+ * @param projectUrl  master URL of the project
+ * @param projectName name of the project, the master URL if not known yet
+ * @param state       one of the STATE_* constants
+ * @param count       number of tasks in the group
+ * @param progress    average fraction done of the tasks in the group
+ */
+data class TaskGroup(
+        var projectUrl: String = "",
+        var projectName: String = "",
+        var state: Int = 0,
+        var count: Int = 0,
+        var progress: Float = 0f
+) : Parcelable {
+    /**
+     * Identifies a group across status updates.
+     */
+    data class Key(val projectUrl: String, val state: Int)
+
+    val key: Key
+        get() = Key(projectUrl, state)
+
+    private constructor(parcel: Parcel) : this(parcel.readString() ?: "", parcel.readString() ?: "",
+            parcel.readInt(), parcel.readInt(), parcel.readFloat())
+
+    override fun describeContents() = 0
+
+    override fun writeToParcel(dest: Parcel, flags: Int) {
+        dest.writeString(projectUrl)
+        dest.writeString(projectName)
+        dest.writeInt(state)
+        dest.writeInt(count)
+        dest.writeFloat(progress)
+    }
+
+    companion object {
+        /** Tasks being computed. */
+        const val STATE_RUNNING = 0
+        /** Tasks waiting to run, including suspended ones. */
+        const val STATE_WAITING = 1
+        /** Tasks whose files are being downloaded or uploaded. */
+        const val STATE_TRANSFERRING = 2
+        /** Tasks done, either ready to report or failed. */
+        const val STATE_FINISHED = 3
+
+        @JvmField
+        val CREATOR: Parcelable.Creator<TaskGroup> = object : Parcelable.Creator<TaskGroup> {
+            override fun createFromParcel(parcel: Parcel) = TaskGroup(parcel)
+
+            override fun newArray(size: Int) = arrayOfNulls<TaskGroup>(size)
+        }
+    }
+}
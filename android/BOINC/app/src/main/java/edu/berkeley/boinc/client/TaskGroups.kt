@@ -0,0 +1,84 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Result
+import edu.berkeley.boinc.utils.*
+import java.util.Locale
+
+/**
+ * Tasks of the client grouped by project and state, the data source of the paged task list.
+ * Built once per status update in the Monitor, so the GUI transfers the summaries of all groups
+ * and the windows of tasks it shows, instead of a copy of every task with every update.
+ *
+ * Groups are ordered by project name and state, tasks within a group in the order of the client.
+ */
+class TaskGroups(results: List<Result>) {
+    private val tasks = LinkedHashMap<TaskGroup.Key, MutableList<Result>>()
+
+    /**
+     * Summaries of all groups.
+     */
+    val groups: List<TaskGroup>
+
+    init {
+        for (result in results) {
+            tasks.getOrPut(TaskGroup.Key(result.projectURL, stateOf(result))) { ArrayList() }.add(result)
+        }
+        groups = tasks.map { (key, groupTasks) ->
+            TaskGroup(projectUrl = key.projectUrl,
+                    projectName = groupTasks[0].project?.name ?: key.projectUrl,
+                    state = key.state,
+                    count = groupTasks.size,
+                    progress = groupTasks.sumByDouble { it.fractionDone.toDouble() }.toFloat() / groupTasks.size)
+        }.sortedWith(compareBy({ it.projectName.toLowerCase(Locale.ROOT) }, { it.projectUrl }, { it.state }))
+    }
+
+    /**
+     * Returns a window of the tasks of a group.
+     *
+     * @param projectUrl master URL of the group's project
+     * @param state      state of the group, one of TaskGroup.STATE_*
+     * @param offset     index of the first task returned
+     * @param limit      maximum number of tasks returned
+     * @return tasks of the window, empty if the group does not exist (anymore)
+     */
+    fun getTasks(projectUrl: String, state: Int, offset: Int, limit: Int): List<Result> {
+        val groupTasks = tasks[TaskGroup.Key(projectUrl, state)] ?: return emptyList()
+        val from = offset.coerceAtLeast(0)
+        val to = (from.toLong() + limit.coerceAtLeast(0)).coerceAtMost(groupTasks.size.toLong()).toInt()
+        return if (from < to) ArrayList(groupTasks.subList(from, to)) else emptyList()
+    }
+
+    companion object {
+        /**
+         * Returns the group state of the given task, one of TaskGroup.STATE_*.
+         */
+        @JvmStatic
+        fun stateOf(result: Result) = when {
+            result.isReadyToReport || result.state == RESULT_COMPUTE_ERROR || result.state == RESULT_ABORTED ||
+                    result.state == RESULT_FILES_UPLOADED -> TaskGroup.STATE_FINISHED
+            result.state == RESULT_FILES_DOWNLOADING || result.state == RESULT_FILES_UPLOADING ||
+                    result.state == RESULT_UPLOAD_FAILED -> TaskGroup.STATE_TRANSFERRING
+            result.isActiveTask && result.activeTaskState == PROCESS_EXECUTING && !result.isSuspendedViaGUI &&
+                    !result.isProjectSuspendedViaGUI -> TaskGroup.STATE_RUNNING
+            else -> TaskGroup.STATE_WAITING
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Result
+import java.util.Locale
+import java.util.TreeSet
+
+/**
+ * Index of the client's tasks answering sorted and filtered [TaskQuery]s, e.g. the running tasks
+ * of a project by deadline.
+ *
+ * Tasks are indexed by project URL and name, application and state, and kept in sorted sets by
+ * report deadline, estimated remaining time and progress. The index is updated incrementally
+ * with each status update: only tasks that were added, removed or changed are re-indexed.
+ * A query walks the smallest set of its filters, or a sorted set if its filters are not selective,
+ * so its cost depends on the tasks it matches rather than on the length of the queue.
+ */
+class TaskIndex {
+    private class Entry(val result: Result, val state: Int, val appKeys: List<String>, val words: List<String>)
+
+    private val entries = HashMap<String, Entry>()
+    // task names by filter key, application keys are in lower case
+    private val byProject = HashMap<String, MutableSet<String>>()
+    private val byApp = HashMap<String, MutableSet<String>>()
+    private val byState = HashMap<Int, MutableSet<String>>()
+    // master URLs by project name in lower case
+    private val projectUrls = HashMap<String, MutableSet<String>>()
+    private val byDeadline = TreeSet(compareBy<Result> { it.reportDeadline }.thenBy { it.name })
+    private val byRemaining = TreeSet(compareBy<Result> { it.estimatedCPUTimeRemaining }.thenBy { it.name })
+    private val byProgress = TreeSet(compareBy<Result> { it.fractionDone }.thenBy { it.name })
+    // order of the client
+    private var order: List<Result> = emptyList()
+
+    /**
+     * Number of indexed tasks.
+     */
+    @get:Synchronized
+    val size: Int
+        get() = entries.size
+
+    /**
+     * Replaces the indexed tasks with the given ones, re-indexing only changed tasks.
+     */
+    @Synchronized
+    fun update(results: List<Result>) {
+        val names = HashSet<String>(results.size)
+        for (result in results) {
+            names.add(result.name)
+            val entry = entries[result.name]
+            if (entry != null) {
+                if (entry.result == result) {
+                    continue
+                }
+                remove(entry)
+            }
+            add(result)
+        }
+        if (entries.size > names.size) {
+            entries.values.filter { it.result.name !in names }.forEach { remove(it) }
+        }
+        order = results
+    }
+
+    /**
+     * Returns a window of the tasks matching the given query, in the order of the query.
+     *
+     * @param offset index of the first task returned
+     * @param limit  maximum number of tasks returned
+     */
+    @Synchronized
+    fun query(query: TaskQuery, offset: Int, limit: Int): List<Result> =
+            select(query).drop(offset.coerceAtLeast(0)).take(limit.coerceAtLeast(0)).toList()
+
+    /**
+     * Returns the number of tasks matching the given query.
+     */
+    @Synchronized
+    fun count(query: TaskQuery) = select(query).count()
+
+    private fun select(query: TaskQuery): Sequence<Result> {
+        val candidates = candidates(query)
+        val words = query.words
+        val filter = { result: Result -> matches(entries[result.name]!!, query, words) }
+        val sorted = when (query.sortBy) {
+            TaskQuery.SORT_DEADLINE -> byDeadline
+            TaskQuery.SORT_REMAINING -> byRemaining
+            TaskQuery.SORT_PROGRESS -> byProgress
+            else -> null
+        }
+        return when {
+            candidates != null && candidates.isEmpty() -> emptySequence()
+            sorted == null -> order.asSequence().filter(filter)
+            // selective filters, sort the few matches instead of walking the whole sorted set
+            candidates != null && candidates.size * SELECTIVITY < entries.size -> {
+                val comparator = if (query.descending) sorted.comparator().reversed() else sorted.comparator()
+                candidates.map { entries[it]!!.result }.filter(filter).sortedWith(comparator).asSequence()
+            }
+            else -> (if (query.descending) sorted.descendingSet() else sorted).asSequence().filter(filter)
+        }
+    }
+
+    // smallest set of task names of the query's indexed filters, null if the query has none
+    private fun candidates(query: TaskQuery): Set<String>? {
+        val sets = mutableListOf<Set<String>>()
+        if (query.project != null) {
+            val urls = projectUrls[query.project.toLowerCase(Locale.ROOT)].orEmpty() + query.project
+            sets.add(urls.flatMapTo(HashSet()) { byProject[it].orEmpty() })
+        }
+        if (query.app != null) {
+            sets.add(byApp[query.app.toLowerCase(Locale.ROOT)].orEmpty())
+        }
+        if (query.state != TaskQuery.STATE_ANY) {
+            sets.add(byState[query.state].orEmpty())
+        }
+        return sets.minByOrNull { it.size }
+    }
+
+    private fun matches(entry: Entry, query: TaskQuery, words: List<String>): Boolean {
+        if (query.project != null && !TaskQuery.isOfProject(entry.result, query.project) ||
+            query.app != null && query.app.toLowerCase(Locale.ROOT) !in entry.appKeys ||
+            query.state != TaskQuery.STATE_ANY && entry.state != query.state) {
+            return false
+        }
+        return words.all { word -> entry.words.any { it.startsWith(word) } }
+    }
+
+    private fun add(result: Result) {
+        val entry = Entry(result, TaskGroups.stateOf(result),
+                TaskQuery.appNames(result).map { it.toLowerCase(Locale.ROOT) }.distinct(),
+                TaskQuery.searchWords(result))
+        entries[result.name] = entry
+        byProject.getOrPut(result.projectURL) { HashSet() }.add(result.name)
+        result.project?.projectName?.takeIf { it.isNotEmpty() }?.let {
+            projectUrls.getOrPut(it.toLowerCase(Locale.ROOT)) { HashSet() }.add(result.projectURL)
+        }
+        for (key in entry.appKeys) {
+            byApp.getOrPut(key) { HashSet() }.add(result.name)
+        }
+        byState.getOrPut(entry.state) { HashSet() }.add(result.name)
+        byDeadline.add(result)
+        byRemaining.add(result)
+        byProgress.add(result)
+    }
+
+    private fun remove(entry: Entry) {
+        val result = entry.result
+        entries.remove(result.name)
+        byProject.removeFrom(result.projectURL, result.name)
+        if (byProject[result.projectURL] == null) {
+            // last task of the project
+            result.project?.projectName?.let { projectUrls.removeFrom(it.toLowerCase(Locale.ROOT), result.projectURL) }
+        }
+        for (key in entry.appKeys) {
+            byApp.removeFrom(key, result.name)
+        }
+        byState.removeFrom(entry.state, result.name)
+        byDeadline.remove(result)
+        byRemaining.remove(result)
+        byProgress.remove(result)
+    }
+
+    private fun <K> HashMap<K, MutableSet<String>>.removeFrom(key: K, value: String) {
+        val set = get(key) ?: return
+        set.remove(value)
+        if (set.isEmpty()) {
+            remove(key)
+        }
+    }
+
+    companion object {
+        // filters matching less than 1/SELECTIVITY of the tasks are sorted instead of walking a sorted set
+        private const val SELECTIVITY = 8
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.os.Parcel
+import android.os.Parcelable
+import androidx.core.os.ParcelCompat.readBoolean
+import androidx.core.os.ParcelCompat.writeBoolean
+import edu.berkeley.boinc.rpc.Result
+
+/**
+ * Filter and order of the task list, evaluated by [TaskIndex].
+ *
+ * @param project    master URL or name of the project, null for all tasks
+ * @param app        name of the application, internal or user friendly, null for all tasks
+ * @param state      one of TaskGroup.STATE_*, [STATE_ANY] for all tasks
+ * @param text       words, each has to start a word of the task, application or project name
+ * @param sortBy     one of the SORT_* constants
+ * @param descending whether to return the tasks in descending order
+ */
+data class TaskQuery(
+        val project: String? = null,
+        val app: String? = null,
+        val state: Int = STATE_ANY,
+        val text: String = "",
+        val sortBy: Int = SORT_CLIENT,
+        val descending: Boolean = false
+) : Parcelable {
+    private constructor(parcel: Parcel) : this(parcel.readString(), parcel.readString(), parcel.readInt(),
+            parcel.readString() ?: "", parcel.readInt(), readBoolean(parcel))
+
+    /**
+     * Words of [text], normalized like the words of indexed tasks.
+     */
+    val words: List<String> by lazy { MessageQuery.tokenize(text) }
+
+    /**
+     * Returns whether the given task matches, evaluated without index.
+     */
+    fun matches(result: Result): Boolean {
+        if (project != null && !isOfProject(result, project) ||
+            app != null && appNames(result).none { it.equals(app, ignoreCase = true) } ||
+            state != STATE_ANY && TaskGroups.stateOf(result) != state) {
+            return false
+        }
+        val taskWords = searchWords(result)
+        return words.all { word -> taskWords.any { it.startsWith(word) } }
+    }
+
+    override fun describeContents() = 0
+
+    override fun writeToParcel(dest: Parcel, flags: Int) {
+        dest.writeString(project)
+        dest.writeString(app)
+        dest.writeInt(state)
+        dest.writeString(text)
+        dest.writeInt(sortBy)
+        writeBoolean(dest, descending)
+    }
+
+    companion object {
+        const val STATE_ANY = -1
+
+        /** Order of the client. */
+        const val SORT_CLIENT = 0
+        /** Report deadline, earliest first. */
+        const val SORT_DEADLINE = 1
+        /** Estimated remaining time, shortest first. */
+        const val SORT_REMAINING = 2
+        /** Fraction done, least first. */
+        const val SORT_PROGRESS = 3
+
+        private val STATE_NAMES = mapOf("running" to TaskGroup.STATE_RUNNING, "waiting" to TaskGroup.STATE_WAITING,
+                "transferring" to TaskGroup.STATE_TRANSFERRING, "finished" to TaskGroup.STATE_FINISHED)
+        private val TERM = Regex("""(\w+):"([^"]*)"|(\w+):(\S+)|(\S+)""")
+
+        /**
+         * Parses a search entered in the task list, e.g. `project:"Einstein@Home" state:running
+         * gamma`. Terms other than project, app and state are searched as text.
+         */
+        @JvmStatic
+        fun parse(search: String, sortBy: Int = SORT_CLIENT, descending: Boolean = false): TaskQuery {
+            var project: String? = null
+            var app: String? = null
+            var state = STATE_ANY
+            val text = mutableListOf<String>()
+            for (term in TERM.findAll(search)) {
+                val key = (term.groups[1] ?: term.groups[3])?.value?.toLowerCase()
+                val value = (term.groups[2] ?: term.groups[4])?.value ?: ""
+                when (key) {
+                    "project" -> project = value
+                    "app" -> app = value
+                    "state" -> STATE_NAMES[value.toLowerCase()]?.let { state = it } ?: text.add(term.value)
+                    else -> text.add(term.value)
+                }
+            }
+            return TaskQuery(project, app, state, text.joinToString(" "), sortBy, descending)
+        }
+
+        internal fun isOfProject(result: Result, project: String) =
+                result.projectURL == project || result.project?.projectName?.equals(project, ignoreCase = true) == true
+
+        /**
+         * Returns the names of the task's application, internal and user friendly.
+         */
+        internal fun appNames(result: Result) =
+                listOfNotNull(result.app?.name, result.app?.userFriendlyName, result.workUnit?.appName)
+                        .filter { it.isNotEmpty() }.distinct()
+
+        /**
+         * Returns the words a search text is matched against.
+         */
+        internal fun searchWords(result: Result) = MessageQuery.tokenize(result.name) +
+                MessageQuery.tokenize(result.app?.displayName ?: "") +
+                MessageQuery.tokenize(result.project?.projectName ?: "")
+
+        @JvmField
+        val CREATOR: Parcelable.Creator<TaskQuery> = object : Parcelable.Creator<TaskQuery> {
+            override fun createFromParcel(parcel: Parcel) = TaskQuery(parcel)
+
+            override fun newArray(size: Int) = arrayOfNulls<TaskQuery>(size)
+        }
+    }
+}
@@ -20,7 +20,7 @@ package edu.berkeley.boinc.mutex
 
 import android.net.LocalSocket
 import android.net.LocalSocketAddress
-import android.util.Log
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import java.io.IOException
 import javax.inject.Inject
@@ -21,9 +21,9 @@ package edu.berkeley.boinc.receiver
 import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
-import android.util.Log
 import edu.berkeley.boinc.client.AppPreferences
 import edu.berkeley.boinc.client.Monitor
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 
 class BootReceiver : BroadcastReceiver() {
@@ -0,0 +1,77 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.rpc
+
+import android.util.Xml
+import edu.berkeley.boinc.utils.Log
+import org.xml.sax.Attributes
+import org.xml.sax.SAXException
+import org.xml.sax.helpers.DefaultHandler
+
+/**
+ * Projects and account managers of the client's all_projects_list.xml.
+ */
+data class AllProjectsList(
+        val projects: List<ProjectInfo> = emptyList(),
+        val accountManagers: List<AccountManager> = emptyList()
+)
+
+/**
+ * Parses projects and account managers of a get_all_projects_list reply in a single pass,
+ * by passing the events of one SAX parse to a [ProjectInfoParser] and an [AccountManagerParser].
+ */
+class AllProjectsListParser : DefaultHandler() {
+    private val projectInfoParser = ProjectInfoParser()
+    private val accountManagerParser = AccountManagerParser()
+
+    val allProjectsList: AllProjectsList
+        get() = AllProjectsList(projectInfoParser.projectInfos, accountManagerParser.accountManagerInfos)
+
+    @Throws(SAXException::class)
+    override fun startElement(uri: String?, localName: String, qName: String?, attributes: Attributes?) {
+        projectInfoParser.startElement(uri, localName, qName, attributes)
+        accountManagerParser.startElement(uri, localName, qName, attributes)
+    }
+
+    @Throws(SAXException::class)
+    override fun endElement(uri: String?, localName: String, qName: String?) {
+        projectInfoParser.endElement(uri, localName, qName)
+        accountManagerParser.endElement(uri, localName, qName)
+    }
+
+    @Throws(SAXException::class)
+    override fun characters(ch: CharArray, start: Int, length: Int) {
+        projectInfoParser.characters(ch, start, length)
+        accountManagerParser.characters(ch, start, length)
+    }
+
+    companion object {
+        @JvmStatic
+        fun parse(rpcResult: String): AllProjectsList {
+            return try {
+                val parser = AllProjectsListParser()
+                Xml.parse(rpcResult, parser)
+                parser.allProjectsList
+            } catch (e: SAXException) {
+                Log.d("AllProjectsListParser", "SAXException: ${e.message}")
+                AllProjectsList()
+            }
+        }
+    }
+}
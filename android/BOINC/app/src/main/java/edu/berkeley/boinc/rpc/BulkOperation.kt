@@ -0,0 +1,64 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.rpc
+
+import android.os.Parcel
+import android.os.Parcelable
+
+/**
+ * Operation on a task, transfer or project, performed in a batch by [RpcClient.bulkOp].
+ *
+ * @param operation  one of RpcClient.RESULT_*, TRANSFER_* or PROJECT_*
+ * @param projectUrl master URL of the project
+ * @param name       name of the task or file, empty for project operations
+ */
+data class BulkOperation(
+        var operation: Int = 0,
+        var projectUrl: String = "",
+        var name: String = ""
+) : Parcelable {
+    private constructor(parcel: Parcel) :
+            this(parcel.readInt(), parcel.readString() ?: "", parcel.readString() ?: "")
+
+    override fun describeContents() = 0
+
+    override fun writeToParcel(dest: Parcel, flags: Int) {
+        dest.writeInt(operation)
+        dest.writeString(projectUrl)
+        dest.writeString(name)
+    }
+
+    companion object {
+        /** Operation was performed. */
+        const val STATUS_OK = 0
+        /** Client refused the operation, e.g. the task does not exist anymore. */
+        const val STATUS_FAILED = 1
+        /** Operation is not supported, nothing was sent. */
+        const val STATUS_UNSUPPORTED = 2
+        /** Connection failed before the operation could be sent. */
+        const val STATUS_NOT_SENT = 3
+
+        @JvmField
+        val CREATOR: Parcelable.Creator<BulkOperation> = object : Parcelable.Creator<BulkOperation> {
+            override fun createFromParcel(parcel: Parcel) = BulkOperation(parcel)
+
+            override fun newArray(size: Int) = arrayOfNulls<BulkOperation>(size)
+        }
+    }
+}
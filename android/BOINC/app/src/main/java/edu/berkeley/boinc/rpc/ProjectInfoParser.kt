@@ -18,8 +18,8 @@
  */
 package edu.berkeley.boinc.rpc
 
-import android.util.Log
 import android.util.Xml
+import edu.berkeley.boinc.utils.Log
 import org.xml.sax.Attributes
 import org.xml.sax.SAXException
 
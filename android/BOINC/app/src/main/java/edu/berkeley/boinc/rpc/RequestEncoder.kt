@@ -0,0 +1,109 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.rpc
+
+import okio.BufferedSink
+import okio.ByteString
+import okio.ByteString.Companion.encodeUtf8
+
+/**
+ * Encodes GUI RPC requests of the status poll directly into a sink, e.g. the request buffer of
+ * [RpcClient], which hands its segments over to the socket.
+ *
+ * Constant parts are encoded once, including the `<boinc_gui_rpc_request>` envelope, and numbers
+ * are written as decimal digits. Apart from the segments, which Okio pools, encoding a request
+ * allocates nothing, so requests sent with every poll do not produce garbage.
+ */
+object RequestEncoder {
+    private const val ENVELOPE_START = "<boinc_gui_rpc_request>\n"
+    private const val ENVELOPE_END = "</boinc_gui_rpc_request>\n\u0003"
+
+    @JvmField
+    val GET_CC_STATUS = framed("<get_cc_status/>\n")
+    @JvmField
+    val GET_FILE_TRANSFERS = framed("<get_file_transfers/>\n")
+    @JvmField
+    val GET_MESSAGE_COUNT = framed("<get_message_count/>\n")
+    @JvmField
+    val GET_PROJECT_STATUS = framed("<get_project_status/>\n")
+    @JvmField
+    val GET_RESULTS = framed("<get_results/>\n")
+    @JvmField
+    val GET_STATE = framed("<get_state/>\n")
+    @JvmField
+    val GET_MESSAGES = framed("<get_messages/>\n")
+    @JvmField
+    val GET_MESSAGES_SEQNO = SeqnoRequest("get_messages")
+    @JvmField
+    val GET_NOTICES = framed("<get_notices/>\n")
+    @JvmField
+    val GET_NOTICES_SEQNO = SeqnoRequest("get_notices")
+
+    private val DEVICE_STATUS_START = "$ENVELOPE_START<report_device_status>\n <device_status>\n  <on_ac_power>".encodeUtf8()
+    private val ON_USB_POWER = "</on_ac_power>\n  <on_usb_power>".encodeUtf8()
+    private val BATTERY_CHARGE_PCT = "</on_usb_power>\n  <battery_charge_pct>".encodeUtf8()
+    private val BATTERY_STATE = "</battery_charge_pct>\n  <battery_state>".encodeUtf8()
+    private val BATTERY_TEMPERATURE = "</battery_state>\n  <battery_temperature_celsius>".encodeUtf8()
+    private val WIFI_ONLINE = "</battery_temperature_celsius>\n  <wifi_online>".encodeUtf8()
+    private val USER_ACTIVE = "</wifi_online>\n  <user_active>".encodeUtf8()
+    private val DEVICE_STATUS_END =
+            "</user_active>\n </device_status>\n</report_device_status>\n$ENVELOPE_END".encodeUtf8()
+
+    /**
+     * Request with a sequence number, e.g. of the most recent notice known.
+     */
+    class SeqnoRequest internal constructor(tag: String) {
+        internal val start = "$ENVELOPE_START<$tag>\n <seqno>".encodeUtf8()
+        internal val end = "</seqno>\n</$tag>\n$ENVELOPE_END".encodeUtf8()
+    }
+
+    /**
+     * Returns the given request body in the envelope, terminated, ready to be sent.
+     */
+    @JvmStatic
+    fun framed(body: String): ByteString = "$ENVELOPE_START$body$ENVELOPE_END".encodeUtf8()
+
+    @JvmStatic
+    fun writeSeqno(sink: BufferedSink, request: SeqnoRequest, seqno: Int) {
+        sink.write(request.start)
+        sink.writeDecimalLong(seqno.toLong())
+        sink.write(request.end)
+    }
+
+    @JvmStatic
+    fun writeDeviceStatus(sink: BufferedSink, status: DeviceStatusData) {
+        sink.write(DEVICE_STATUS_START)
+        sink.writeFlag(status.isOnACPower)
+        sink.write(ON_USB_POWER)
+        sink.writeFlag(status.isOnUSBPower)
+        sink.write(BATTERY_CHARGE_PCT)
+        sink.writeDecimalLong(status.batteryChargePct.toLong())
+        sink.write(BATTERY_STATE)
+        sink.writeDecimalLong(status.batteryState.toLong())
+        sink.write(BATTERY_TEMPERATURE)
+        sink.writeDecimalLong(status.batteryTemperatureCelsius.toLong())
+        sink.write(WIFI_ONLINE)
+        sink.writeFlag(status.isWiFiOnline)
+        sink.write(USER_ACTIVE)
+        sink.writeFlag(status.isUserActive)
+        sink.write(DEVICE_STATUS_END)
+    }
+
+    private fun BufferedSink.writeFlag(value: Boolean) = writeByte(if (value) '1'.toInt() else '0'.toInt())
+}
@@ -21,7 +21,6 @@ package edu.berkeley.boinc.rpc;
 
 import android.net.LocalSocket;
 import android.net.LocalSocketAddress;
-import android.util.Log;
 import android.util.Xml;
 
 import org.apache.commons.io.input.CharSequenceReader;
@@ -34,14 +33,17 @@ import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
 import edu.berkeley.boinc.utils.BOINCDefs;
 import edu.berkeley.boinc.utils.BOINCUtils;
+import edu.berkeley.boinc.utils.Log;
 import edu.berkeley.boinc.utils.Logging;
 import kotlin.text.Charsets;
+import okio.Buffer;
 import okio.BufferedSink;
 import okio.BufferedSource;
 import okio.ByteString;
@@ -88,6 +90,8 @@ public class RpcClient {
     private BufferedSource socketSource;
     private BufferedSink socketSink;
     private final byte[] mReadBuffer = new byte[READ_BUF_SIZE];
+    // requests encoded by RequestEncoder, its segments are moved to the socket's sink when sent
+    private final Buffer requestBuffer = new Buffer();
     protected StringBuilder mResult = new StringBuilder(RESULT_BUILDER_INIT_SIZE);
     protected StringBuilder mRequest = new StringBuilder(REQUEST_BUILDER_INIT_SIZE);
 
@@ -292,7 +296,7 @@ public class RpcClient {
         if (!isConnected()) return false;
         try {
             // We just get the status via socket and do not parse reply
-            sendRequest("<get_cc_status/>\n");
+            sendRequest(RequestEncoder.GET_CC_STATUS);
             String result = receiveReply();
             // If end of stream reached and no data were received in reply
             // we assume that socket is closed on the other side, most probably client shut down
@@ -324,6 +328,48 @@ public class RpcClient {
         socketSink.flush();
     }
 
+    /**
+     * Send a constant RPC request, already framed, see RequestEncoder
+     *
+     * @param request the framed request
+     * @throws IOException if error occurs when sending the request
+     */
+    protected void sendRequest(ByteString request) throws IOException {
+        requestBuffer.clear();
+        requestBuffer.write(request);
+        sendEncodedRequest();
+    }
+
+    /**
+     * Send an RPC request with a sequence number, see RequestEncoder
+     *
+     * @param request the request
+     * @param seqno   the sequence number
+     * @throws IOException if error occurs when sending the request
+     */
+    protected void sendRequest(RequestEncoder.SeqnoRequest request, int seqno) throws IOException {
+        requestBuffer.clear();
+        RequestEncoder.writeSeqno(requestBuffer, request, seqno);
+        sendEncodedRequest();
+    }
+
+    /**
+     * Send the request encoded in requestBuffer. The buffer's segments are handed over to the
+     * socket's sink, no intermediate strings or byte arrays are created.
+     *
+     * @throws IOException if error occurs when sending the request
+     */
+    private void sendEncodedRequest() throws IOException {
+        if (Logging.RPC_DATA && Logging.DEBUG)
+            Log.d(Logging.TAG, "Sending request: \n" + requestBuffer.snapshot().utf8());
+        if (socketSink == null) {
+            requestBuffer.clear();
+            return;
+        }
+        socketSink.write(requestBuffer, requestBuffer.size());
+        socketSink.flush();
+    }
+
     /**
      * Read the reply from BOINC core client
      *
@@ -396,7 +442,7 @@ public class RpcClient {
     public synchronized CcStatus getCcStatus() {
         mLastErrorMessage = null;
         try {
-            sendRequest("<get_cc_status/>\n");
+            sendRequest(RequestEncoder.GET_CC_STATUS);
             return CcStatusParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING) Log.w(Logging.TAG, "error in getCcStatus()", e);
@@ -413,7 +459,7 @@ public class RpcClient {
     public synchronized List<Transfer> getFileTransfers() {
         mLastErrorMessage = null;
         try {
-            sendRequest("<get_file_transfers/>\n");
+            sendRequest(RequestEncoder.GET_FILE_TRANSFERS);
             return TransfersParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING)
@@ -431,7 +477,7 @@ public class RpcClient {
     public synchronized int getMessageCount() {
         mLastErrorMessage = null;
         try {
-            sendRequest("<get_message_count/>\n");
+            sendRequest(RequestEncoder.GET_MESSAGE_COUNT);
             int seqNo = MessageCountParser.getSeqnoOfReply(receiveReply());
             if (Logging.DEBUG) Log.d(Logging.TAG, "RpcClient.getMessageCount returning: " + seqNo);
             return seqNo;
@@ -450,17 +496,12 @@ public class RpcClient {
     public synchronized List<Message> getMessages(int seqNo) {
         mLastErrorMessage = null;
         try {
-            String request;
             if (seqNo == 0) {
                 // get all messages
-                request = "<get_messages/>\n";
+                sendRequest(RequestEncoder.GET_MESSAGES);
             } else {
-                request =
-                        "<get_messages>\n" +
-                                " <seqno>" + seqNo + "</seqno>\n" +
-                                "</get_messages>\n";
+                sendRequest(RequestEncoder.GET_MESSAGES_SEQNO, seqNo);
             }
-            sendRequest(request);
             return MessagesParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING)
@@ -478,17 +519,12 @@ public class RpcClient {
     public synchronized List<Notice> getNotices(int seqNo) {
         mLastErrorMessage = null;
         try {
-            String request;
             if (seqNo == 0) {
                 // get all notices
-                request = "<get_notices/>\n";
+                sendRequest(RequestEncoder.GET_NOTICES);
             } else {
-                request =
-                        "<get_notices>\n" +
-                                " <seqno>" + seqNo + "</seqno>\n" +
-                                "</get_notices>\n";
+                sendRequest(RequestEncoder.GET_NOTICES_SEQNO, seqNo);
             }
-            sendRequest(request);
             return NoticesParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING)
@@ -505,7 +541,7 @@ public class RpcClient {
     public synchronized List<Project> getProjectStatus() {
         mLastErrorMessage = null;
         try {
-            sendRequest("<get_project_status/>\n");
+            sendRequest(RequestEncoder.GET_PROJECT_STATUS);
             return ProjectsParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING) Log.w(Logging.TAG, "error in getProjectStatus()", e);
@@ -521,7 +557,7 @@ public class RpcClient {
     public synchronized List<Result> getResults() {
         mLastErrorMessage = null;
         try {
-            sendRequest("<get_results/>\n");
+            sendRequest(RequestEncoder.GET_RESULTS);
             return ResultsParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING) Log.w(Logging.TAG, "error in getResults()", e);
@@ -537,7 +573,7 @@ public class RpcClient {
     public synchronized CcState getState() {
         mLastErrorMessage = null;
         try {
-            sendRequest("<get_state/>\n");
+            sendRequest(RequestEncoder.GET_STATE);
             return CcStateParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING) Log.w(Logging.TAG, "error in getState()", e);
@@ -553,24 +589,10 @@ public class RpcClient {
      */
     public synchronized boolean reportDeviceStatus(DeviceStatusData deviceStatus) {
         mLastErrorMessage = null;
-        mRequest.setLength(0);
-        mRequest.append("<report_device_status>\n <device_status>\n  <on_ac_power>");
-        mRequest.append(toInteger(deviceStatus.isOnACPower()));
-        mRequest.append("</on_ac_power>\n  <on_usb_power>");
-        mRequest.append(toInteger(deviceStatus.isOnUSBPower()));
-        mRequest.append("</on_usb_power>\n  <battery_charge_pct>");
-        mRequest.append(deviceStatus.getBatteryChargePct());
-        mRequest.append("</battery_charge_pct>\n  <battery_state>");
-        mRequest.append(deviceStatus.getBatteryState());
-        mRequest.append("</battery_state>\n  <battery_temperature_celsius>");
-        mRequest.append(deviceStatus.getBatteryTemperatureCelsius());
-        mRequest.append("</battery_temperature_celsius>\n  <wifi_online>");
-        mRequest.append(toInteger(deviceStatus.isWiFiOnline()));
-        mRequest.append("</wifi_online>\n  <user_active>");
-        mRequest.append(toInteger(deviceStatus.isUserActive()));
-        mRequest.append("</user_active>\n </device_status>\n</report_device_status>\n");
         try {
-            sendRequest(mRequest.toString());
+            requestBuffer.clear();
+            RequestEncoder.writeDeviceStatus(requestBuffer, deviceStatus);
+            sendEncodedRequest();
             SimpleReplyParser parser = SimpleReplyParser.parse(receiveReply());
             if (parser == null)
                 return false;
@@ -648,50 +670,7 @@ public class RpcClient {
      * @return true for success, false for failure
      */
     public synchronized boolean projectOp(int operation, String projectUrl) {
-        try {
-            String opTag;
-            switch (operation) {
-                case PROJECT_UPDATE:
-                    opTag = "project_update";
-                    break;
-                case PROJECT_SUSPEND:
-                    opTag = "project_suspend";
-                    break;
-                case PROJECT_RESUME:
-                    opTag = "project_resume";
-                    break;
-                case PROJECT_NNW:
-                    opTag = "project_nomorework";
-                    break;
-                case PROJECT_ANW:
-                    opTag = "project_allowmorework";
-                    break;
-                case PROJECT_DETACH:
-                    opTag = "project_detach";
-                    break;
-                case PROJECT_RESET:
-                    opTag = "project_reset";
-                    break;
-                default:
-                    if (Logging.LOGLEVEL <= 4)
-                        Log.e(Logging.TAG, "projectOp() - unsupported operation: " + operation);
-                    return false;
-            }
-            String request =
-                    "<" + opTag + ">\n" +
-                            "<project_url>" + projectUrl + "</project_url>\n" +
-                            "</" + opTag + ">\n";
-
-            sendRequest(request);
-            SimpleReplyParser parser = SimpleReplyParser.parse(receiveReply());
-            if (parser == null)
-                return false;
-            mLastErrorMessage = parser.getErrorMessage();
-            return parser.getResult();
-        } catch (IOException e) {
-            if (Logging.WARNING) Log.w(Logging.TAG, "error in projectOp()", e);
-            return false;
-        }
+        return performOperation(operation, projectUrl, "");
     }
 
     /**
@@ -968,31 +947,21 @@ public class RpcClient {
         }
     }
 
-    protected synchronized List<ProjectInfo> getAllProjectsList() {
+    /**
+     * Reads all_projects_list.xml of the client, projects and account managers are parsed
+     * from the same reply.
+     */
+    protected synchronized AllProjectsList getAllProjectsList() {
         try {
             mRequest.setLength(0);
             mRequest.append("<get_all_projects_list/>");
 
             sendRequest(mRequest.toString());
-            return ProjectInfoParser.parse(receiveReply());
+            return AllProjectsListParser.parse(receiveReply());
         } catch (IOException e) {
             if (Logging.WARNING)
                 Log.w(Logging.TAG, "error in getAllProjectsList()", e);
-            return Collections.emptyList();
-        }
-    }
-
-    protected synchronized List<AccountManager> getAccountManagersList() {
-        try {
-            mRequest.setLength(0);
-            mRequest.append("<get_all_projects_list/>");
-
-            sendRequest(mRequest.toString());
-            return AccountManagerParser.parse(receiveReply());
-        } catch (IOException e) {
-            if (Logging.WARNING)
-                Log.w(Logging.TAG, "error in getAccountManagersList()", e);
-            return Collections.emptyList();
+            return new AllProjectsList();
         }
     }
 
@@ -1202,41 +1171,7 @@ public class RpcClient {
      * @return true for success, false for failure
      */
     public synchronized boolean transferOp(int operation, String projectUrl, String fileName) {
-        try {
-            String opTag;
-            switch (operation) {
-                case TRANSFER_RETRY:
-                    opTag = "retry_file_transfer";
-                    break;
-                case TRANSFER_ABORT:
-                    opTag = "abort_file_transfer";
-                    break;
-                default:
-                    if (Logging.LOGLEVEL <= 4)
-                        Log.e(Logging.TAG, "transferOp() - unsupported operation: " + operation);
-                    return false;
-            }
-            mRequest.setLength(0);
-            mRequest.append("<");
-            mRequest.append(opTag);
-            mRequest.append(">\n   <project_url>");
-            mRequest.append(projectUrl);
-            mRequest.append("</project_url>\n   <filename>");
-            mRequest.append(fileName);
-            mRequest.append("</filename>\n</");
-            mRequest.append(opTag);
-            mRequest.append(">\n");
-            sendRequest(mRequest.toString());
-
-            SimpleReplyParser parser = SimpleReplyParser.parse(receiveReply());
-            if (parser == null)
-                return false;
-            mLastErrorMessage = parser.getErrorMessage();
-            return parser.getResult();
-        } catch (IOException e) {
-            if (Logging.WARNING) Log.w(Logging.TAG, "error in transferOp()", e);
-            return false;
-        }
+        return performOperation(operation, projectUrl, fileName);
     }
 
     /**
@@ -1246,47 +1181,127 @@ public class RpcClient {
      * @param projectUrl master URL of project
      * @return true for success, false for failure
      */
-    public boolean resultOp(int operation, String projectUrl, String resultName) {
-        try {
-            String opTag;
-            switch (operation) {
-                case RESULT_SUSPEND:
-                    opTag = "suspend_result";
-                    break;
-                case RESULT_RESUME:
-                    opTag = "resume_result";
-                    break;
-                case RESULT_ABORT:
-                    opTag = "abort_result";
-                    break;
-                default:
-                    if (edu.berkeley.boinc.utils.Logging.LOGLEVEL <= 4)
-                        Log.e(Logging.TAG, "resultOp() - unsupported operation: " + operation);
-                    return false;
+    public synchronized boolean resultOp(int operation, String projectUrl, String resultName) {
+        return performOperation(operation, projectUrl, resultName);
+    }
+
+    /**
+     * Triggers operations on tasks, transfers and projects in one batch, holding the connection
+     * until all are done. The client handles the requests of a connection one at a time, so each
+     * request is sent as soon as the reply of the previous one arrived. Operations failing do not
+     * stop the batch, a broken connection does.
+     *
+     * @param operations operations to be triggered, in order
+     * @return status of each operation, see BulkOperation.STATUS_*
+     */
+    public synchronized int[] bulkOp(List<BulkOperation> operations) {
+        final int[] status = new int[operations.size()];
+        Arrays.fill(status, BulkOperation.STATUS_NOT_SENT);
+        for (int i = 0; i < operations.size(); i++) {
+            final BulkOperation operation = operations.get(i);
+            final String request =
+                    operationRequest(operation.getOperation(), operation.getProjectUrl(), operation.getName());
+            if (request == null) {
+                status[i] = BulkOperation.STATUS_UNSUPPORTED;
+                continue;
             }
-            mRequest.setLength(0);
-            mRequest.append("<");
-            mRequest.append(opTag);
-            mRequest.append(">\n   <project_url>");
-            mRequest.append(projectUrl);
-            mRequest.append("</project_url>\n   <name>");
-            mRequest.append(resultName);
-            mRequest.append("</name>\n</");
-            mRequest.append(opTag);
-            mRequest.append(">\n");
-            sendRequest(mRequest.toString());
+            try {
+                sendRequest(request);
+                SimpleReplyParser parser = SimpleReplyParser.parse(receiveReply());
+                if (parser != null)
+                    mLastErrorMessage = parser.getErrorMessage();
+                status[i] = parser != null && parser.getResult() ?
+                            BulkOperation.STATUS_OK : BulkOperation.STATUS_FAILED;
+            } catch (IOException e) {
+                if (Logging.WARNING) Log.w(Logging.TAG, "error in bulkOp(), " + i + " of " +
+                                                        operations.size() + " operations sent", e);
+                break;
+            }
+        }
+        return status;
+    }
 
+    private boolean performOperation(int operation, String projectUrl, String name) {
+        final String request = operationRequest(operation, projectUrl, name);
+        if (request == null) {
+            if (Logging.ERROR) Log.e(Logging.TAG, "unsupported operation: " + operation);
+            return false;
+        }
+        try {
+            sendRequest(request);
             SimpleReplyParser parser = SimpleReplyParser.parse(receiveReply());
             if (parser == null)
                 return false;
             mLastErrorMessage = parser.getErrorMessage();
             return parser.getResult();
         } catch (IOException e) {
-            if (Logging.WARNING) Log.w(Logging.TAG, "error in transferOp()", e);
+            if (Logging.WARNING) Log.w(Logging.TAG, "error in operation " + operation, e);
             return false;
         }
     }
 
+    /**
+     * Builds the request of a task, transfer or project operation.
+     *
+     * @param name name of the task or file, ignored for project operations
+     * @return request, null if the operation is not supported
+     */
+    static String operationRequest(int operation, String projectUrl, String name) {
+        String opTag;
+        String nameTag = null;
+        switch (operation) {
+            case PROJECT_UPDATE:
+                opTag = "project_update";
+                break;
+            case PROJECT_SUSPEND:
+                opTag = "project_suspend";
+                break;
+            case PROJECT_RESUME:
+                opTag = "project_resume";
+                break;
+            case PROJECT_NNW:
+                opTag = "project_nomorework";
+                break;
+            case PROJECT_ANW:
+                opTag = "project_allowmorework";
+                break;
+            case PROJECT_DETACH:
+                opTag = "project_detach";
+                break;
+            case PROJECT_RESET:
+                opTag = "project_reset";
+                break;
+            case RESULT_SUSPEND:
+                opTag = "suspend_result";
+                nameTag = "name";
+                break;
+            case RESULT_RESUME:
+                opTag = "resume_result";
+                nameTag = "name";
+                break;
+            case RESULT_ABORT:
+                opTag = "abort_result";
+                nameTag = "name";
+                break;
+            case TRANSFER_RETRY:
+                opTag = "retry_file_transfer";
+                nameTag = "filename";
+                break;
+            case TRANSFER_ABORT:
+                opTag = "abort_file_transfer";
+                nameTag = "filename";
+                break;
+            default:
+                return null;
+        }
+        final StringBuilder request = new StringBuilder(REQUEST_BUILDER_INIT_SIZE);
+        request.append("<").append(opTag).append(">\n   <project_url>").append(projectUrl).append("</project_url>\n");
+        if (nameTag != null) {
+            request.append("   <").append(nameTag).append(">").append(name).append("</").append(nameTag).append(">\n");
+        }
+        return request.append("</").append(opTag).append(">\n").toString();
+    }
+
     public synchronized boolean setCcConfig(String ccConfig) {
         final String request =
                 "<set_cc_config>\n" +
@@ -21,21 +21,35 @@ package edu.berkeley.boinc.ui.eventlog
 import android.content.*
 import android.os.Bundle
 import android.os.IBinder
-import android.util.Log
+import android.os.Process
+import android.os.RemoteException
 import android.view.Menu
 import android.view.MenuItem
 import android.widget.Toast
 import androidx.appcompat.app.AppCompatActivity
+import androidx.appcompat.widget.SearchView
+import androidx.core.content.FileProvider
 import androidx.core.content.getSystemService
+import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.tabs.TabLayoutMediator
 import edu.berkeley.boinc.R
 import edu.berkeley.boinc.adapter.ClientLogRecyclerViewAdapter
 import edu.berkeley.boinc.client.IMonitor
+import edu.berkeley.boinc.client.MessageQuery
+import edu.berkeley.boinc.client.MessageStore
 import edu.berkeley.boinc.client.Monitor
 import edu.berkeley.boinc.databinding.ActivityEventLogBinding
 import edu.berkeley.boinc.rpc.Message
+import edu.berkeley.boinc.utils.Log
+import edu.berkeley.boinc.utils.LogBuffer
 import edu.berkeley.boinc.utils.Logging
+import edu.berkeley.boinc.utils.Tracing
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.IOException
 import java.util.*
 
 class EventLogActivity : AppCompatActivity() {
@@ -68,6 +82,12 @@ class EventLogActivity : AppCompatActivity() {
         }
     }
 
+    /**
+     * Reference to the Monitor, null if not bound (yet).
+     */
+    val monitorServiceOrNull: IMonitor?
+        get() = if (mIsBound) monitor else null
+
     val monitorService: IMonitor
         get() {
             if (!mIsBound && Logging.WARNING) {
@@ -101,9 +121,38 @@ class EventLogActivity : AppCompatActivity() {
 
     override fun onCreateOptionsMenu(menu: Menu?): Boolean {
         menuInflater.inflate(R.menu.eventlog_menu, menu)
+        menu?.findItem(R.id.search)?.let { setupSearch(it) }
         return true
     }
 
+    // searches the client messages, the query is evaluated by the Monitor's message store
+    private fun setupSearch(item: MenuItem) {
+        val searchView = item.actionView as SearchView
+        searchView.queryHint = getString(R.string.eventlog_search_hint)
+        searchView.setOnQueryTextListener(object : SearchView.OnQueryTextListener {
+            override fun onQueryTextSubmit(query: String): Boolean {
+                binding.viewPager.currentItem = 0
+                val messageQuery = MessageQuery.parse(query, System.currentTimeMillis() / 1000)
+                clientFragment?.setQuery(messageQuery.takeIf { it != MessageQuery() })
+                searchView.clearFocus()
+                return true
+            }
+
+            override fun onQueryTextChange(newText: String) = false
+        })
+        item.setOnActionExpandListener(object : MenuItem.OnActionExpandListener {
+            override fun onMenuItemActionExpand(item: MenuItem) = true
+
+            override fun onMenuItemActionCollapse(item: MenuItem): Boolean {
+                clientFragment?.setQuery(null)
+                return true
+            }
+        })
+    }
+
+    private val clientFragment: EventLogClientFragment?
+        get() = supportFragmentManager.findFragmentByTag("f0") as? EventLogClientFragment
+
     override fun onOptionsItemSelected(item: MenuItem): Boolean {
         when (item.itemId) {
             R.id.refresh -> {
@@ -111,13 +160,21 @@ class EventLogActivity : AppCompatActivity() {
                 return true
             }
             R.id.email_to -> {
-                onEmailTo()
+                onExportLog(false)
+                return true
+            }
+            R.id.export_log_compressed -> {
+                onExportLog(true)
                 return true
             }
             R.id.copy -> {
                 onCopy()
                 return true
             }
+            R.id.export_trace -> {
+                onExportTrace()
+                return true
+            }
         }
         return super.onOptionsItemSelected(item)
     }
@@ -157,35 +214,83 @@ class EventLogActivity : AppCompatActivity() {
         }
     }
 
-    private fun onEmailTo() {
-        try {
-            val emailText = getLogDataAsString()
-            val emailIntent = Intent(Intent.ACTION_SEND)
+    // shares the complete client and GUI log as file, filtered like the client messages shown
+    private fun onExportLog(compress: Boolean) {
+        val query = clientFragment?.currentQuery
+        val monitor = monitorServiceOrNull
+        lifecycleScope.launch {
+            val file = withContext(Dispatchers.IO) {
+                try {
+                    val capacity = Logging.BUFFER.capacity
+                    val monitorEntries = try {
+                        monitor?.getLogEntries(capacity, 0)
+                    } catch (e: RemoteException) {
+                        null
+                    }
+                    val guiEntries = LogBuffer.merge(Logging.BUFFER.entries(capacity),
+                            monitorEntries ?: emptyList(), 2 * capacity)
+                    val dir = File(cacheDir, "exports").apply { mkdirs() }
+                    val file = File(dir, if (compress) "boinc_eventlog.txt.gz" else "boinc_eventlog.txt")
+                    val count = EventLogExport(getString(R.string.eventlog_client_header),
+                            getString(R.string.eventlog_gui_header))
+                            .write(file, compress, File(filesDir, MessageStore.FILE_NAME), query, guiEntries)
+                    if (Logging.DEBUG) {
+                        Log.d(Logging.TAG, "onExportLog: $count client messages written")
+                    }
+                    file
+                } catch (e: IOException) {
+                    if (Logging.WARNING) {
+                        Log.w(Logging.TAG, "onExportLog failed", e)
+                    }
+                    null
+                }
+            }
+            if (file == null) {
+                Toast.makeText(applicationContext, R.string.eventlog_export_failed_toast, Toast.LENGTH_SHORT).show()
+                return@launch
+            }
+            val uri = FileProvider.getUriForFile(this@EventLogActivity, "$packageName.fileprovider", file)
+            val shareIntent = Intent(Intent.ACTION_SEND)
+            shareIntent.type = if (compress) "application/gzip" else "text/plain"
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.eventlog_email_subject))
+            shareIntent.putExtra(Intent.EXTRA_STREAM, uri)
+            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+            startActivity(Intent.createChooser(shareIntent, getString(if (compress)
+                R.string.menu_export_log_compressed else R.string.menu_emailto)))
+        }
+    }
 
-            // Put together the email intent
-            emailIntent.type = "plain/text"
-            emailIntent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.eventlog_email_subject))
-            emailIntent.putExtra(Intent.EXTRA_TEXT, emailText)
+    // shares the spans recorded in this and the Monitor process as Chrome trace JSON file
+    private fun onExportTrace() {
+        try {
+            val monitorEvents = if (mIsBound) monitor?.traceEvents ?: "" else ""
+            val trace = Tracing.chromeTrace(Tracing.eventsJson(Process.myPid(), "BOINC Manager"), monitorEvents)
+            val dir = File(cacheDir, "exports").apply { mkdirs() }
+            val file = File(dir, "boinc_trace.json").apply { writeText(trace) }
+            val uri = FileProvider.getUriForFile(this, "$packageName.fileprovider", file)
 
-            // Send it off to the Activity-Chooser
-            startActivity(Intent.createChooser(emailIntent, "Send mail..."))
+            val shareIntent = Intent(Intent.ACTION_SEND)
+            shareIntent.type = "application/json"
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.eventlog_trace_subject))
+            shareIntent.putExtra(Intent.EXTRA_STREAM, uri)
+            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+            startActivity(Intent.createChooser(shareIntent, getString(R.string.menu_export_trace)))
         } catch (e: Exception) {
             if (Logging.WARNING) {
-                Log.w(Logging.TAG, "onEmailTo failed")
+                Log.w(Logging.TAG, "onExportTrace failed", e)
             }
+            Toast.makeText(applicationContext, R.string.eventlog_export_failed_toast, Toast.LENGTH_SHORT).show()
         }
     }
 
-    // returns the content of the log as string
-    // clientLog = true: client log
-    // clientlog = false: gui log
+    // returns the messages loaded in the current tab as string, see onExportLog for the complete log
     private fun getLogDataAsString(): String {
         val text = StringBuilder()
         val type = binding.viewPager.currentItem
         when {
             type == 0 -> {
                 text.append(getString(R.string.eventlog_client_header)).append("\n\n")
-                for (index in 0 until clientLogList.childCount) {
+                for (index in clientLogData.indices) {
                     text.append(clientLogRecyclerViewAdapter.getDateTimeString(index))
                     text.append("|")
                     text.append(clientLogRecyclerViewAdapter.getProject(index))
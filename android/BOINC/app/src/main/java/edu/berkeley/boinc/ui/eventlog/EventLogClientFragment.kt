@@ -20,16 +20,19 @@ package edu.berkeley.boinc.ui.eventlog
 
 import android.os.Bundle
 import android.os.RemoteException
-import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.fragment.app.Fragment
 import androidx.lifecycle.lifecycleScope
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import edu.berkeley.boinc.R
 import edu.berkeley.boinc.adapter.ClientLogRecyclerViewAdapter
+import edu.berkeley.boinc.client.MessageQuery
 import edu.berkeley.boinc.databinding.EventLogClientLayoutBinding
 import edu.berkeley.boinc.rpc.Message
+import edu.berkeley.boinc.utils.Log
 import edu.berkeley.boinc.utils.Logging
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.coroutineScope
@@ -44,6 +47,14 @@ class EventLogClientFragment : Fragment() {
 
     private var mostRecentSeqNo = 0
     private var pastSeqNo = -1 // oldest (lowest) seqNo currently loaded to GUI
+    private var allPastLoaded = false
+    private var loadingPast = false
+
+    // search entered in the activity, null to show all messages
+    private var query: MessageQuery? = null
+    val currentQuery get() = query
+    // incremented when the list is reset, pages requested before are discarded
+    private var generation = 0
 
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
         activity = getActivity() as EventLogActivity
@@ -53,6 +64,14 @@ class EventLogClientFragment : Fragment() {
         activity.clientLogList.layoutManager = LinearLayoutManager(context)
         activity.clientLogList.adapter = activity.clientLogRecyclerViewAdapter
         binding.root.setOnRefreshListener { update() }
+        // load the next page of older messages when the end of the list is reached
+        activity.clientLogList.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                if (dy > 0 && !recyclerView.canScrollVertically(1)) {
+                    init()
+                }
+            }
+        })
         return binding.root
     }
 
@@ -68,11 +87,32 @@ class EventLogClientFragment : Fragment() {
     }
 
     fun update() {
+        if (query != null) {
+            // matches are paged from the most recent one, reload instead of merging
+            setQuery(query)
+            binding.root.isRefreshing = false
+            return
+        }
         lifecycleScope.launch {
             retrieveRecentClientMessages() // refresh messages
         }
     }
 
+    /**
+     * Shows only the messages matching the given query, all messages for null.
+     */
+    fun setQuery(query: MessageQuery?) {
+        this.query = query
+        generation++
+        activity.clientLogData.clear()
+        activity.clientLogRecyclerViewAdapter.notifyDataSetChanged()
+        mostRecentSeqNo = 0
+        pastSeqNo = -1
+        allPastLoaded = false
+        loadingPast = false
+        init()
+    }
+
     private suspend fun retrieveRecentClientMessages() {
         if (activity.clientLogData.isNotEmpty()) {
             mostRecentSeqNo = activity.clientLogData[0].seqno
@@ -103,45 +143,56 @@ class EventLogClientFragment : Fragment() {
     }
 
     private suspend fun retrievePastClientMessages() {
+        if (allPastLoaded || loadingPast) {
+            return
+        }
         if (activity.clientLogData.isNotEmpty()) {
             pastSeqNo = activity.clientLogData.last().seqno
-            if (pastSeqNo == 0) {
-                if (Logging.DEBUG) {
-                    Log.d("RetrievePastMsgs", "cancel, oldest messages already loaded")
-                }
-                return // cancel if all past messages are present
-            }
         }
 
-        // message retrieval
+        // message retrieval, pages of the Monitor's message store
         // amount messages loaded when end of list is reached
-        val pastMsgsLoadingRange = 50
+        val pastMsgsLoadingRange = resources.getInteger(R.integer.eventlog_client_messages_page)
         if (Logging.DEBUG) {
             Log.d("RetrievePastMsgs", "calling monitor with: " + pastSeqNo + " / " +
                     pastMsgsLoadingRange)
         }
 
+        loadingPast = true
+        val requestGeneration = generation
+        val requestQuery = query
+        val requestSeqNo = pastSeqNo
         coroutineScope {
             val messages = withContext(Dispatchers.Default) {
                 return@withContext try {
-                    (getActivity() as EventLogActivity).monitorService.getEventLogMessages(pastSeqNo,
-                            pastMsgsLoadingRange)
+                    val monitor = (getActivity() as EventLogActivity).monitorService
+                    if (requestQuery != null) {
+                        monitor.queryEventLogMessages(requestQuery, requestSeqNo, pastMsgsLoadingRange)
+                    } else {
+                        monitor.getEventLogMessages(requestSeqNo, pastMsgsLoadingRange)
+                    }
                 } catch (e: RemoteException) {
                     e.printStackTrace()
-                    emptyList<Message>()
+                    null
                 }
             }
 
             // back in UI thread
+            if (requestGeneration != generation) {
+                return@coroutineScope // list was reset meanwhile
+            }
             // Append old messages to the event log
-            try {
-                activity.clientLogData.addAll(messages.reversed())
-            } catch (e: Exception) {
-                if (Logging.ERROR) {
-                    Log.e(Logging.TAG, "EventLogClientFragment.loadPastMsgs error: ", e)
+            if (messages != null) {
+                if (messages.size < pastMsgsLoadingRange) {
+                    if (Logging.DEBUG) {
+                        Log.d("RetrievePastMsgs", "oldest messages loaded")
+                    }
+                    allPastLoaded = true
                 }
-            } //IndexOutOfBoundException
-            activity.clientLogRecyclerViewAdapter.notifyDataSetChanged()
+                activity.clientLogData.addAll(messages.reversed())
+                activity.clientLogRecyclerViewAdapter.notifyDataSetChanged()
+            }
+            loadingPast = false
         }
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.ui.eventlog
+
+import edu.berkeley.boinc.client.MessageQuery
+import edu.berkeley.boinc.client.MessageStore
+import edu.berkeley.boinc.utils.LogEntry
+import edu.berkeley.boinc.utils.secondsToLocalDateTime
+import okio.GzipSink
+import okio.buffer
+import okio.sink
+import java.io.File
+import java.time.format.DateTimeFormatter
+
+/**
+ * Writes the event log to a text file, to be shared as attachment.
+ *
+ * Client messages are streamed from the Monitor's message store file, one at a time, so memory
+ * use does not depend on the length of the log. GUI messages are bounded by the capacity of the
+ * log buffers.
+ *
+ * @param clientHeader title of the client messages section
+ * @param guiHeader    title of the GUI messages section
+ */
+class EventLogExport(private val clientHeader: String, private val guiHeader: String) {
+    private val dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+
+    /**
+     * Writes the event log to the given file, replacing its content.
+     *
+     * @param target       file written
+     * @param compress     whether to gzip the file
+     * @param messagesFile file of the client message store
+     * @param query        filter of the client messages, null for all messages
+     * @param guiEntries   GUI messages, newest first
+     * @return number of client messages written
+     */
+    fun write(target: File, compress: Boolean, messagesFile: File, query: MessageQuery?,
+              guiEntries: List<LogEntry>): Int {
+        var count = 0
+        target.sink().let { if (compress) GzipSink(it) else it }.buffer().use { out ->
+            out.writeUtf8(clientHeader).writeUtf8("\n\n")
+            if (messagesFile.exists()) {
+                MessageStore.read(messagesFile) { message, _ ->
+                    if (query == null || query.matches(message)) {
+                        out.writeUtf8(dateTimeFormatter.format(message.timestamp.secondsToLocalDateTime()))
+                                .writeUtf8("|").writeUtf8(message.project)
+                                .writeUtf8("|").writeUtf8(message.body ?: "").writeUtf8("\n")
+                        count++
+                    }
+                }
+            }
+            out.writeUtf8("\n").writeUtf8(guiHeader).writeUtf8("\n\n")
+            for (entry in guiEntries.asReversed()) {
+                out.writeUtf8(entry.format()).writeUtf8("\n")
+            }
+        }
+        return count
+    }
+}
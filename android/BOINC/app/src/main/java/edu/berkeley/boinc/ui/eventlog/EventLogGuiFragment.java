@@ -19,7 +19,7 @@
 package edu.berkeley.boinc.ui.eventlog;
 
 import android.os.Bundle;
-import android.util.Log;
+import android.os.RemoteException;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -28,14 +28,16 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
 
 import edu.berkeley.boinc.R;
 import edu.berkeley.boinc.adapter.GuiLogRecyclerViewAdapter;
+import edu.berkeley.boinc.client.IMonitor;
 import edu.berkeley.boinc.databinding.EventLogGuiLayoutBinding;
-import edu.berkeley.boinc.utils.BOINCUtils;
+import edu.berkeley.boinc.utils.Log;
+import edu.berkeley.boinc.utils.LogBuffer;
+import edu.berkeley.boinc.utils.LogEntry;
 import edu.berkeley.boinc.utils.Logging;
 
 public class EventLogGuiFragment extends Fragment {
@@ -52,10 +54,10 @@ public class EventLogGuiFragment extends Fragment {
         adapter = new GuiLogRecyclerViewAdapter(a.getGuiLogData());
         binding.guiLogList.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.guiLogList.setAdapter(adapter);
-        binding.getRoot().setOnRefreshListener(this::readLogcat);
+        binding.getRoot().setOnRefreshListener(this::readLog);
 
         // read messages
-        readLogcat();
+        readLog();
 
         return binding.getRoot();
     }
@@ -67,57 +69,38 @@ public class EventLogGuiFragment extends Fragment {
     }
 
     public void update() {
-        readLogcat();
+        readLog();
     }
 
-    private void readLogcat() {
+    // reads the messages recorded by this and the Monitor process, most current on top
+    private void readLog() {
         int number = getResources().getInteger(R.integer.eventlog_gui_messages);
-        a.getGuiLogData().clear();
-        try {
-            String logLevelFilter = Logging.TAG;
-            switch(Logging.LOGLEVEL) {
-                case 0:
-                    return;
-                case 1:
-                    logLevelFilter += ":E";
-                    break;
-                case 2:
-                    logLevelFilter += ":W";
-                    break;
-                case 3:
-                    logLevelFilter += ":I";
-                    break;
-                case 4:
-                    logLevelFilter += ":D";
-                    break;
-                case 5:
-                    logLevelFilter += ":V";
-                    break;
-            }
-            Process process =
-                    Runtime.getRuntime().exec("logcat -d -t " + number + " -v time " + logLevelFilter + " *:S");
-            // filtering logcat output by application package is not possible on command line
-            // devices with SDK > 13 will automatically "session filter"
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            int x = 0;
-            while((line = BOINCUtils.readLineLimit(bufferedReader, 4096)) != null) {
-                if(x > 1) {
-                    a.getGuiLogData().add(0, line); // cut off first two lines, prepend to array (most current on top)
+        List<String> data = a.getGuiLogData();
+        data.clear();
+        if(Logging.LOGLEVEL > 0) {
+            // LOGLEVEL 1 shows errors only, 5 everything down to verbose
+            int minLevel = Log.ERROR + 1 - Logging.LOGLEVEL;
+            List<LogEntry> guiEntries = Logging.BUFFER.entries(number, minLevel);
+            List<LogEntry> monitorEntries = Collections.emptyList();
+            IMonitor monitor = a.getMonitorServiceOrNull();
+            if(monitor != null) {
+                try {
+                    monitorEntries = monitor.getLogEntries(number, minLevel);
+                }
+                catch(RemoteException e) {
+                    if(Logging.WARNING) {
+                        Log.w(Logging.TAG, "readLog: reading messages of Monitor failed", e);
+                    }
                 }
-                x++;
             }
-            if(Logging.VERBOSE) {
-                Log.v(Logging.TAG, "readLogcat read " + a.getGuiLogData().size() + " lines.");
+            for(LogEntry entry : LogBuffer.merge(guiEntries, monitorEntries, number)) {
+                data.add(entry.format());
             }
-            adapter.notifyDataSetChanged();
-            binding.getRoot().setRefreshing(false);
-        }
-        catch(IOException e) {
-            if(Logging.WARNING) {
-                Log.w(Logging.TAG, "readLogcat failed", e);
+            if(Logging.VERBOSE) {
+                Log.v(Logging.TAG, "readLog read " + data.size() + " messages.");
             }
         }
+        adapter.notifyDataSetChanged();
+        binding.getRoot().setRefreshing(false);
     }
 }
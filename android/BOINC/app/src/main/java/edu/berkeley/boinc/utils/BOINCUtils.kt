@@ -25,6 +25,7 @@ import android.graphics.Bitmap
 import android.net.ConnectivityManager
 import android.os.Build
 import android.os.RemoteException
+import android.view.View
 import androidx.annotation.ColorRes
 import androidx.annotation.DrawableRes
 import androidx.appcompat.app.AppCompatDelegate
@@ -117,4 +118,17 @@ inline fun Long.secondsToLocalDateTime(
 ): LocalDateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(this), zoneId)
 
 @Suppress("NOTHING_TO_INLINE")
+/**
+ * Shows the view while the client status is restored from the last snapshot, i.e. until the
+ * first status is read from the client, hides it otherwise.
+ */
+fun View.showWhileStatusStale() {
+    val stale = try {
+        BOINCActivity.monitor?.isStatusStale == true
+    } catch (e: RemoteException) {
+        false
+    }
+    visibility = if (stale) View.VISIBLE else View.GONE
+}
+
 inline fun Context.getColorCompat(@ColorRes colorId: Int) = ContextCompat.getColor(this, colorId)
@@ -0,0 +1,83 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.utils
+
+/**
+ * Drop-in replacement of android.util.Log, which additionally records every message in
+ * [Logging.BUFFER], so the event log can show the messages without reading logcat.
+ */
+object Log {
+    const val VERBOSE = android.util.Log.VERBOSE
+    const val DEBUG = android.util.Log.DEBUG
+    const val INFO = android.util.Log.INFO
+    const val WARN = android.util.Log.WARN
+    const val ERROR = android.util.Log.ERROR
+
+    @JvmStatic
+    @JvmOverloads
+    fun v(tag: String, msg: String, tr: Throwable? = null): Int {
+        record(VERBOSE, tag, msg, tr)
+        return android.util.Log.v(tag, msg, tr)
+    }
+
+    @JvmStatic
+    @JvmOverloads
+    fun d(tag: String, msg: String, tr: Throwable? = null): Int {
+        record(DEBUG, tag, msg, tr)
+        return android.util.Log.d(tag, msg, tr)
+    }
+
+    @JvmStatic
+    @JvmOverloads
+    fun i(tag: String, msg: String, tr: Throwable? = null): Int {
+        record(INFO, tag, msg, tr)
+        return android.util.Log.i(tag, msg, tr)
+    }
+
+    @JvmStatic
+    @JvmOverloads
+    fun w(tag: String, msg: String, tr: Throwable? = null): Int {
+        record(WARN, tag, msg, tr)
+        return android.util.Log.w(tag, msg, tr)
+    }
+
+    @JvmStatic
+    fun w(tag: String, tr: Throwable): Int {
+        record(WARN, tag, "", tr)
+        return android.util.Log.w(tag, tr)
+    }
+
+    @JvmStatic
+    @JvmOverloads
+    fun e(tag: String, msg: String, tr: Throwable? = null): Int {
+        record(ERROR, tag, msg, tr)
+        return android.util.Log.e(tag, msg, tr)
+    }
+
+    @JvmStatic
+    fun isLoggable(tag: String, level: Int) = android.util.Log.isLoggable(tag, level)
+
+    private fun record(level: Int, tag: String, msg: String, tr: Throwable?) {
+        Logging.BUFFER.add(level, tag, when {
+            tr == null -> msg
+            msg.isEmpty() -> tr.toString()
+            else -> "$msg: $tr"
+        })
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.utils
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Fixed capacity in-memory ring buffer of log entries, the oldest entries are overwritten.
+ *
+ * Writers claim a sequence number and store their entry in the corresponding slot with
+ * compare-and-set, without locking. Readers skip slots that were overwritten or not yet written
+ * while reading.
+ */
+class LogBuffer(val capacity: Int) {
+    private val slots = AtomicReferenceArray<LogEntry?>(capacity)
+    private val nextSeqno = AtomicLong()
+
+    /**
+     * Records a log message.
+     *
+     * @param level priority as in android.util.Log, e.g. Log.DEBUG
+     */
+    fun add(level: Int, tag: String, message: String) {
+        val seqno = nextSeqno.getAndIncrement()
+        val entry = LogEntry(seqno, System.currentTimeMillis(), level, tag, message)
+        val index = (seqno % capacity).toInt()
+        while (true) {
+            val current = slots.get(index)
+            // a writer that claimed its seqno later but was faster already wins the slot
+            if (current != null && current.seqno > seqno || slots.compareAndSet(index, current, entry)) {
+                return
+            }
+        }
+    }
+
+    /**
+     * Returns the most recent entries, newest first.
+     *
+     * @param max      maximum number of entries
+     * @param minLevel entries with lower priority are skipped
+     */
+    fun entries(max: Int, minLevel: Int = 0): List<LogEntry> {
+        val end = nextSeqno.get()
+        val entries = ArrayList<LogEntry>(minOf(max, capacity))
+        var seqno = end - 1
+        while (seqno >= 0 && seqno >= end - capacity && entries.size < max) {
+            val entry = slots.get((seqno % capacity).toInt())
+            // null or other seqno: not yet written, or already overwritten by a newer entry
+            if (entry != null && entry.seqno == seqno && entry.level >= minLevel) {
+                entries.add(entry)
+            }
+            seqno--
+        }
+        return entries
+    }
+
+    companion object {
+        /**
+         * Merges entries of two processes, both newest first as returned by [entries].
+         *
+         * @param max maximum number of entries
+         * @return newest entries of both lists, newest first
+         */
+        @JvmStatic
+        fun merge(first: List<LogEntry>, second: List<LogEntry>, max: Int): List<LogEntry> {
+            val merged = ArrayList<LogEntry>(minOf(max, first.size + second.size))
+            var i = 0
+            var j = 0
+            while (merged.size < max && (i < first.size || j < second.size)) {
+                merged.add(if (j >= second.size || i < first.size && first[i].timestamp >= second[j].timestamp) {
+                    first[i++]
+                } else {
+                    second[j++]
+                })
+            }
+            return merged
+        }
+    }
+}
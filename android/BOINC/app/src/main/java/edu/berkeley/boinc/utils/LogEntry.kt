@@ -0,0 +1,73 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.utils
+
+import android.os.Parcel
+import android.os.Parcelable
+import java.text.SimpleDateFormat
+import java.util.*
+
+/**
+ * Log message of the GUI, recorded in [LogBuffer].
+ *
+ * @param seqno     sequence number within the recording process
+ * @param timestamp milliseconds since epoch
+ * @param level     priority as in android.util.Log, e.g. Log.DEBUG
+ */
+data class LogEntry(
+        val seqno: Long,
+        val timestamp: Long,
+        val level: Int,
+        val tag: String,
+        val message: String
+) : Parcelable {
+    private constructor(parcel: Parcel) : this(parcel.readLong(), parcel.readLong(), parcel.readInt(),
+            parcel.readString() ?: "", parcel.readString() ?: "")
+
+    /**
+     * Formats the entry like logcat's "time" format, e.g. "10-19 13:37:00.042 D/BOINC_GUI: message".
+     */
+    fun format(): String {
+        val time = SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US).format(Date(timestamp))
+        val levelChar = LEVEL_CHARS.getOrElse(level) { '?' }
+        return "$time $levelChar/$tag: $message"
+    }
+
+    override fun describeContents() = 0
+
+    override fun writeToParcel(dest: Parcel, flags: Int) {
+        dest.writeLong(seqno)
+        dest.writeLong(timestamp)
+        dest.writeInt(level)
+        dest.writeString(tag)
+        dest.writeString(message)
+    }
+
+    companion object {
+        // indexed by android.util.Log priority constants, VERBOSE = 2 to ASSERT = 7
+        private const val LEVEL_CHARS = "??VDIWEA"
+
+        @JvmField
+        val CREATOR: Parcelable.Creator<LogEntry> = object : Parcelable.Creator<LogEntry> {
+            override fun createFromParcel(parcel: Parcel) = LogEntry(parcel)
+
+            override fun newArray(size: Int) = arrayOfNulls<LogEntry>(size)
+        }
+    }
+}
@@ -33,6 +33,11 @@ public class Logging {
     public static boolean RPC_PERFORMANCE = false;
     public static boolean RPC_DATA = false;
 
+    /**
+     * Recent log messages of this process, written by {@link Log}.
+     */
+    public static final LogBuffer BUFFER = new LogBuffer(2000);
+
     public static void setLogLevel(int logLevel) {
         LOGLEVEL = logLevel;
         ERROR = LOGLEVEL > 0;
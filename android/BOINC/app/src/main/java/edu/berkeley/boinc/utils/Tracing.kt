@@ -0,0 +1,157 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.utils
+
+import androidx.collection.LongSparseArray
+
+/**
+ * Lightweight tracing of named spans, e.g. the steps of the cold start.
+ *
+ * Spans are recorded into a fixed size ring buffer of the process, the oldest spans are
+ * overwritten. Recording a span does not allocate (apart from remembering the name of a new thread),
+ * so tracing stays enabled in release builds.
+ * Timestamps are taken from System.nanoTime(), i.e. CLOCK_MONOTONIC, which is shared by
+ * the GUI and the Monitor process, so spans of both can be shown on one timeline.
+ *
+ * Recorded spans are exported in the Chrome trace event format, readable by
+ * chrome://tracing and ui.perfetto.dev.
+ */
+object Tracing {
+    const val CAPACITY = 512
+
+    private const val INSTANT = -1L
+
+    // guards the buffer
+    private val lock = Any()
+    private val names = arrayOfNulls<String>(CAPACITY)
+    private val starts = LongArray(CAPACITY)
+    private val durations = LongArray(CAPACITY)
+    private val threadIds = LongArray(CAPACITY)
+    private val threadNames = LongSparseArray<String>()
+    private var next = 0
+    private var count = 0
+
+    /**
+     * Returns the current timestamp, to be passed to [end].
+     */
+    @JvmStatic
+    fun begin() = System.nanoTime()
+
+    /**
+     * Records a span from the given start until now.
+     *
+     * @param name  name of the span, should be a constant
+     * @param start timestamp returned by [begin]
+     */
+    @JvmStatic
+    fun end(name: String, start: Long) = record(name, start, System.nanoTime() - start)
+
+    /**
+     * Records an event without duration, e.g. the arrival of the first status change.
+     */
+    @JvmStatic
+    fun instant(name: String) = record(name, System.nanoTime(), INSTANT)
+
+    /**
+     * Records the execution of the given block as a span.
+     */
+    inline fun <T> trace(name: String, block: () -> T): T {
+        val start = begin()
+        try {
+            return block()
+        } finally {
+            end(name, start)
+        }
+    }
+
+    private fun record(name: String, start: Long, duration: Long) {
+        val thread = Thread.currentThread()
+        synchronized(lock) {
+            names[next] = name
+            starts[next] = start
+            durations[next] = duration
+            threadIds[next] = thread.id
+            if (threadNames.indexOfKey(thread.id) < 0) {
+                threadNames.put(thread.id, thread.name)
+            }
+            next = (next + 1) % CAPACITY
+            count = (count + 1).coerceAtMost(CAPACITY)
+        }
+    }
+
+    /**
+     * Returns the recorded spans as JSON array of trace events, oldest first.
+     *
+     * @param pid         id of the current process
+     * @param processName name of the process shown in the trace viewer
+     */
+    @JvmStatic
+    fun eventsJson(pid: Int, processName: String): String = synchronized(lock) {
+        val json = StringBuilder("[")
+        json.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                .append(",\"args\":{\"name\":").appendJsonString(processName).append("}}")
+        for (i in 0 until threadNames.size()) {
+            json.append(",{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(threadNames.keyAt(i))
+                    .append(",\"args\":{\"name\":").appendJsonString(threadNames.valueAt(i)).append("}}")
+        }
+        for (i in 0 until count) {
+            val index = (next - count + i + CAPACITY) % CAPACITY
+            json.append(",{\"name\":").appendJsonString(names[index] ?: "")
+            if (durations[index] == INSTANT) {
+                json.append(",\"ph\":\"i\",\"s\":\"p\"")
+            } else {
+                json.append(",\"ph\":\"X\",\"dur\":").append(durations[index] / 1000)
+            }
+            json.append(",\"ts\":").append(starts[index] / 1000)
+                    .append(",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(threadIds[index]).append('}')
+        }
+        json.append(']').toString()
+    }
+
+    /**
+     * Combines JSON arrays returned by [eventsJson], e.g. of both processes, to a trace file.
+     */
+    @JvmStatic
+    fun chromeTrace(vararg eventArrays: String): String {
+        val events = eventArrays.map { it.trim().removePrefix("[").removeSuffix("]") }.filter { it.isNotBlank() }
+        return events.joinToString(",", "{\"traceEvents\":[", "],\"displayTimeUnit\":\"ms\"}")
+    }
+
+    internal fun clear() = synchronized(lock) {
+        names.fill(null)
+        threadNames.clear()
+        next = 0
+        count = 0
+    }
+
+    private fun StringBuilder.appendJsonString(value: String): StringBuilder {
+        append('"')
+        for (c in value) {
+            when {
+                c == '"' -> append("\\\"")
+                c == '\\' -> append("\\\\")
+                c < ' ' -> append(String.format("\\u%04x", c.toInt()))
+                else -> append(c)
+            }
+        }
+        return append('"')
+    }
+}
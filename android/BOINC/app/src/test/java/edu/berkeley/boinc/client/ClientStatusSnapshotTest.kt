@@ -0,0 +1,126 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import edu.berkeley.boinc.rpc.CcStatus
+import edu.berkeley.boinc.rpc.GlobalPreferences
+import edu.berkeley.boinc.rpc.HostInfo
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Result
+import edu.berkeley.boinc.rpc.Transfer
+import org.junit.Assert
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.File
+
+private const val HEADER_SIZE = 20 // magic, format version, version code, timestamp
+
+@RunWith(RobolectricTestRunner::class)
+class ClientStatusSnapshotTest {
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private val file = File(context.filesDir, "client_status.snapshot")
+    private val state = ClientStatusSnapshot.State(
+            status = CcStatus(taskMode = 2, networkSuspendReason = 4),
+            results = listOf(Result(name = "task_1", projectURL = "https://project.example/", state = 2)),
+            projects = listOf(Project(masterURL = "https://project.example/", projectName = "Example")),
+            transfers = listOf(Transfer(name = "file_1", isUpload = true)),
+            hostInfo = HostInfo(domainName = "device", noOfCPUs = 8),
+            acctMgrInfo = null,
+            prefs = GlobalPreferences(runOnBatteryPower = false, batteryChargeMinPct = 80.0),
+            timestamp = 1600000000000)
+
+    @Before
+    fun setUp() {
+        file.delete()
+    }
+
+    @Test
+    fun `Expect written state to be read back`() {
+        ClientStatusSnapshot(context).write(state)
+
+        assertEqualState(state, ClientStatusSnapshot(context).read())
+    }
+
+    @Test
+    fun `Expect no state without snapshot`() {
+        Assert.assertNull(ClientStatusSnapshot(context).read())
+    }
+
+    @Test
+    fun `Expect unknown and retired tags to be skipped`() {
+        ClientStatusSnapshot(context).write(state)
+        val bytes = file.readBytes()
+        val records = ByteArrayOutputStream()
+        DataOutputStream(records).use {
+            it.writeInt(8) // held notices, retired
+            it.writeInt(3)
+            it.write(byteArrayOf(1, 2, 3))
+            it.writeInt(4711)
+            it.writeInt(0)
+        }
+        file.writeBytes(bytes.copyOf(HEADER_SIZE) + records.toByteArray() +
+                bytes.copyOfRange(HEADER_SIZE, bytes.size))
+
+        assertEqualState(state, ClientStatusSnapshot(context).read())
+    }
+
+    @Test
+    fun `Expect no state from truncated snapshot`() {
+        ClientStatusSnapshot(context).write(state)
+        val bytes = file.readBytes()
+        file.writeBytes(bytes.copyOf(bytes.size / 2))
+
+        Assert.assertNull(ClientStatusSnapshot(context).read())
+    }
+
+    @Test
+    fun `Expect no state from snapshot without end tag`() {
+        ClientStatusSnapshot(context).write(state)
+        val bytes = file.readBytes()
+        file.writeBytes(bytes.copyOf(bytes.size - 4))
+
+        Assert.assertNull(ClientStatusSnapshot(context).read())
+    }
+
+    @Test
+    fun `Expect no state from corrupt snapshot`() {
+        file.writeBytes(ByteArray(256) { it.toByte() })
+
+        Assert.assertNull(ClientStatusSnapshot(context).read())
+    }
+
+    private fun assertEqualState(expected: ClientStatusSnapshot.State, actual: ClientStatusSnapshot.State?) {
+        Assert.assertNotNull(actual)
+        Assert.assertEquals(expected.status, actual!!.status)
+        Assert.assertEquals(expected.results, actual.results)
+        Assert.assertEquals(expected.projects, actual.projects)
+        Assert.assertEquals(expected.transfers, actual.transfers)
+        Assert.assertEquals(expected.hostInfo, actual.hostInfo)
+        Assert.assertEquals(expected.acctMgrInfo, actual.acctMgrInfo)
+        Assert.assertEquals(expected.prefs, actual.prefs)
+        Assert.assertEquals(expected.timestamp, actual.timestamp)
+        Assert.assertEquals(expected.signature, actual.signature)
+    }
+}
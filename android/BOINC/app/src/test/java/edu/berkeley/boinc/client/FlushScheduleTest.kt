@@ -0,0 +1,62 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class FlushScheduleTest {
+    private val schedule = FlushSchedule()
+
+    @Test
+    fun `Expect first request to be posted`() {
+        Assertions.assertTrue(schedule.request(1000))
+    }
+
+    @Test
+    fun `Expect later request to use the posted flush`() {
+        schedule.request(1000)
+
+        Assertions.assertFalse(schedule.request(1000))
+        Assertions.assertFalse(schedule.request(2000))
+    }
+
+    @Test
+    fun `Expect earlier flush of listener with shorter interval to be posted again`() {
+        val slow = ListenerThrottle(1000)
+        val fast = ListenerThrottle(100)
+        slow.offer(ClientChange.TASKS, 0)
+        fast.offer(ClientChange.TASKS, 0)
+
+        slow.offer(ClientChange.TASKS, 10)
+        Assertions.assertTrue(schedule.request(10 + slow.delayUntilDue(10)))
+        fast.offer(ClientChange.TASKS, 20)
+        Assertions.assertTrue(schedule.request(20 + fast.delayUntilDue(20)))
+
+        Assertions.assertFalse(schedule.request(30 + slow.delayUntilDue(30)))
+    }
+
+    @Test
+    fun `Expect request after flush ran to be posted`() {
+        schedule.request(100)
+        schedule.clear()
+
+        Assertions.assertTrue(schedule.request(1000))
+    }
+}
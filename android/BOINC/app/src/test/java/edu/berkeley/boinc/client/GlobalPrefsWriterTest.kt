@@ -0,0 +1,78 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.GlobalPreferences
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CopyOnWriteArrayList
+
+class GlobalPrefsWriterTest {
+    @Volatile
+    private var current: GlobalPreferences? = null
+    private val written = CopyOnWriteArrayList<GlobalPreferences>()
+
+    private fun writer(scope: CoroutineScope) =
+            GlobalPrefsWriter(scope, DELAY_MS, { current }, {
+                written.add(it)
+                current = it
+                true
+            }, Dispatchers.Default)
+
+    @Test
+    fun `Expect changes within the window to be written once, with the last values`() = runBlocking {
+        val writer = writer(this)
+        writer.submit(GlobalPreferences(cpuUsageLimit = 10.0))
+        writer.submit(GlobalPreferences(cpuUsageLimit = 20.0))
+        writer.submit(GlobalPreferences(cpuUsageLimit = 30.0))
+        Assertions.assertTrue(written.isEmpty())
+
+        delay(DELAY_MS * 4)
+        Assertions.assertEquals(listOf(GlobalPreferences(cpuUsageLimit = 30.0)), written)
+    }
+
+    @Test
+    fun `Expect changes after the window to be written again`() = runBlocking {
+        val writer = writer(this)
+        writer.submit(GlobalPreferences(cpuUsageLimit = 10.0))
+        delay(DELAY_MS * 4)
+        writer.submit(GlobalPreferences(cpuUsageLimit = 20.0))
+        delay(DELAY_MS * 4)
+
+        Assertions.assertEquals(listOf(10.0, 20.0), written.map { it.cpuUsageLimit })
+    }
+
+    @Test
+    fun `Expect preferences equal to current ones not to be written`() = runBlocking {
+        current = GlobalPreferences(cpuUsageLimit = 10.0, overrideFilePresent = true)
+        val writer = writer(this)
+        writer.submit(GlobalPreferences(cpuUsageLimit = 10.0))
+        delay(DELAY_MS * 4)
+
+        Assertions.assertTrue(written.isEmpty())
+    }
+
+    companion object {
+        private const val DELAY_MS = 20L
+    }
+}
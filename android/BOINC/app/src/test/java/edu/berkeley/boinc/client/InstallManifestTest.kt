@@ -0,0 +1,83 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class InstallManifestTest {
+    @TempDir
+    lateinit var dir: File
+
+    private lateinit var manifestFile: File
+    private lateinit var installed: File
+
+    @BeforeEach
+    fun setUp() {
+        manifestFile = File(dir, "install_manifest")
+        installed = File(dir, "boinc")
+        installed.writeText("client")
+    }
+
+    @Test
+    fun `Expect file not to be current if not recorded`() {
+        Assertions.assertFalse(InstallManifest(manifestFile, 1).isCurrent(installed))
+    }
+
+    @Test
+    fun `Expect recorded file to be current after reloading with same version`() {
+        InstallManifest(manifestFile, 1).apply {
+            record(installed, "md5")
+            save()
+        }
+
+        Assertions.assertTrue(InstallManifest(manifestFile, 1).isCurrent(installed))
+    }
+
+    @Test
+    fun `Expect recorded file not to be current after reloading with other version`() {
+        InstallManifest(manifestFile, 1).apply {
+            record(installed, "md5")
+            save()
+        }
+
+        Assertions.assertFalse(InstallManifest(manifestFile, 2).isCurrent(installed))
+    }
+
+    @Test
+    fun `Expect recorded file not to be current after it changed`() {
+        val manifest = InstallManifest(manifestFile, 1)
+        manifest.record(installed, "md5")
+        installed.writeText("modified client")
+
+        Assertions.assertFalse(manifest.isCurrent(installed))
+    }
+
+    @Test
+    fun `Expect removed file not to be current`() {
+        val manifest = InstallManifest(manifestFile, 1)
+        manifest.record(installed, "md5")
+        manifest.remove(installed)
+
+        Assertions.assertFalse(manifest.isCurrent(installed))
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class ListenerThrottleTest {
+    private val throttle = ListenerThrottle(250)
+
+    @Test
+    fun `Expect first changes to be due right away`() {
+        Assertions.assertEquals(ClientChange.TASKS, throttle.offer(ClientChange.TASKS, 1000))
+        Assertions.assertEquals(-1, throttle.delayUntilDue(1000))
+    }
+
+    @Test
+    fun `Expect no notification without changes`() {
+        Assertions.assertEquals(0, throttle.offer(0, 1000))
+    }
+
+    @Test
+    fun `Expect changes within interval to be merged and delayed`() {
+        throttle.offer(ClientChange.TASKS, 1000)
+
+        Assertions.assertEquals(0, throttle.offer(ClientChange.STATUS, 1100))
+        Assertions.assertEquals(0, throttle.offer(ClientChange.TASKS, 1200))
+        Assertions.assertEquals(50, throttle.delayUntilDue(1200))
+        Assertions.assertEquals(ClientChange.STATUS or ClientChange.TASKS, throttle.offer(0, 1250))
+        Assertions.assertEquals(-1, throttle.delayUntilDue(1250))
+    }
+
+    @Test
+    fun `Expect changes after interval to be due right away`() {
+        throttle.offer(ClientChange.TASKS, 1000)
+
+        Assertions.assertEquals(ClientChange.NOTICES, throttle.offer(ClientChange.NOTICES, 1300))
+    }
+
+    @Test
+    fun `Expect every change to be due without interval`() {
+        val unthrottled = ListenerThrottle(0)
+
+        Assertions.assertEquals(ClientChange.TASKS, unthrottled.offer(ClientChange.TASKS, 1000))
+        Assertions.assertEquals(ClientChange.TASKS, unthrottled.offer(ClientChange.TASKS, 1000))
+    }
+}
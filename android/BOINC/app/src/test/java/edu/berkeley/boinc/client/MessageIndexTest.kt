@@ -0,0 +1,80 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class MessageIndexTest {
+    private fun MessageIndex.Postings.toList() = (0 until size).map { this[it] }
+
+    @Test
+    fun `Expect postings to grow beyond initial capacity`() {
+        val postings = MessageIndex.Postings(4)
+
+        for (seqno in 1..20) {
+            postings.add(seqno)
+        }
+
+        Assertions.assertEquals((1..20).toList(), postings.toList())
+        Assertions.assertTrue(20 in postings)
+    }
+
+    @Test
+    fun `Expect postings of capacity one to grow`() {
+        val postings = MessageIndex.Postings(1)
+
+        postings.add(1)
+        postings.add(2)
+
+        Assertions.assertEquals(listOf(1, 2), postings.toList())
+    }
+
+    @Test
+    fun `Expect removed prefix to be compacted when adding to full postings`() {
+        val postings = MessageIndex.Postings(4)
+        (1..4).forEach { postings.add(it) }
+        postings.removeBefore(4)
+
+        (5..10).forEach { postings.add(it) }
+
+        Assertions.assertEquals((4..10).toList(), postings.toList())
+        Assertions.assertFalse(3 in postings)
+    }
+
+    @Test
+    fun `Expect index before to skip removed prefix`() {
+        val postings = MessageIndex.Postings(4)
+        (1..6).forEach { postings.add(it * 10) }
+        postings.removeBefore(30)
+
+        Assertions.assertEquals(-1, postings.indexBefore(30))
+        Assertions.assertEquals(1, postings.indexBefore(45))
+    }
+
+    @Test
+    fun `Expect union of postings to be sorted without duplicates`() {
+        val first = MessageIndex.Postings()
+        val second = MessageIndex.Postings()
+        (1..9 step 2).forEach { first.add(it) }
+        (1..9 step 3).forEach { second.add(it) }
+
+        Assertions.assertEquals(listOf(1, 3, 4, 5, 7, 9), MessageIndex.Postings.union(listOf(first, second)).toList())
+    }
+}
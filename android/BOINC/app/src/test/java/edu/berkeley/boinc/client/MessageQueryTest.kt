@@ -0,0 +1,63 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Message
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class MessageQueryTest {
+    @Test
+    fun `Expect plain words to be searched as text`() {
+        Assertions.assertEquals(MessageQuery(text = "download error"), MessageQuery.parse("download error", 0))
+    }
+
+    @Test
+    fun `Expect project, priority and since terms to be parsed`() {
+        val query = MessageQuery.parse("project:\"Einstein@Home\" priority:error priority:2 since:2h upload", 10000)
+
+        Assertions.assertEquals(MessageQuery("Einstein@Home", listOf(MessageQuery.PRIORITY_INTERNAL_ERROR,
+                MessageQuery.PRIORITY_USER_ALERT), 10000 - 7200, Long.MAX_VALUE, "upload"), query)
+    }
+
+    @Test
+    fun `Expect invalid terms to be searched as text`() {
+        Assertions.assertEquals(MessageQuery(text = "priority:high since:soon"),
+                MessageQuery.parse("priority:high since:soon", 0))
+    }
+
+    @Test
+    fun `Expect words to be split at non-alphanumeric characters and lower cased`() {
+        Assertions.assertEquals(listOf("scheduler", "request", "completed", "got", "0", "new", "tasks"),
+                MessageQuery.tokenize("Scheduler request completed: got 0 new tasks"))
+    }
+
+    @Test
+    fun `Expect matches to evaluate all criteria`() {
+        val message = Message("Einstein@Home", MessageQuery.PRIORITY_USER_ALERT, 1, 100, "Download error for file")
+
+        Assertions.assertTrue(MessageQuery(text = "down ERR").matches(message))
+        Assertions.assertTrue(MessageQuery(project = "Einstein@Home", priorities = listOf(2), fromTime = 100,
+                toTime = 100, text = "einstein").matches(message))
+        Assertions.assertFalse(MessageQuery(text = "upload").matches(message))
+        Assertions.assertFalse(MessageQuery(project = "Rosetta@home").matches(message))
+        Assertions.assertFalse(MessageQuery(priorities = listOf(1)).matches(message))
+        Assertions.assertFalse(MessageQuery(fromTime = 101).matches(message))
+    }
+}
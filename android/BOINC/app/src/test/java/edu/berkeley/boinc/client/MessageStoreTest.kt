@@ -0,0 +1,200 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Message
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class MessageStoreTest {
+    @TempDir
+    lateinit var dir: File
+
+    private lateinit var storeFile: File
+
+    // messages of the simulated client, by seqno
+    private val clientMessages = mutableListOf<Message>()
+    private val requestedSeqnos = mutableListOf<Int>()
+
+    @BeforeEach
+    fun setUp() {
+        storeFile = File(dir, "client_messages")
+    }
+
+    private fun addClientMessages(from: Int, to: Int, timestamp: Long = 1000L) {
+        for (seqno in from..to) {
+            clientMessages.add(Message("project", 1, seqno, timestamp + seqno, "message $seqno"))
+        }
+    }
+
+    private fun fetch(seqno: Int): List<Message> {
+        requestedSeqnos.add(seqno)
+        return clientMessages.filter { it.seqno > seqno }
+    }
+
+    private fun List<Message>.seqnos() = map { it.seqno }
+
+    @Test
+    fun `Expect all messages to be ingested into empty store`() {
+        addClientMessages(1, 5)
+        val store = MessageStore(storeFile, 100)
+
+        Assertions.assertEquals(5, store.ingest(::fetch))
+        Assertions.assertEquals(listOf(1, 2, 3, 4, 5), store.getMessagesAfter(0).seqnos())
+        Assertions.assertEquals(listOf(0), requestedSeqnos)
+    }
+
+    @Test
+    fun `Expect only new messages to be requested and ingested`() {
+        addClientMessages(1, 5)
+        val store = MessageStore(storeFile, 100)
+        store.ingest(::fetch)
+        addClientMessages(6, 7)
+        requestedSeqnos.clear()
+
+        Assertions.assertEquals(2, store.ingest(::fetch))
+        Assertions.assertEquals(listOf(6, 7), store.getMessagesAfter(5).seqnos())
+        Assertions.assertEquals(listOf(4), requestedSeqnos)
+    }
+
+    @Test
+    fun `Expect pages of older messages`() {
+        addClientMessages(1, 10)
+        val store = MessageStore(storeFile, 100)
+        store.ingest(::fetch)
+
+        Assertions.assertEquals(listOf(8, 9, 10), store.getMessagesBefore(0, 3).seqnos())
+        Assertions.assertEquals(listOf(5, 6, 7), store.getMessagesBefore(8, 3).seqnos())
+        Assertions.assertEquals(listOf(1, 2), store.getMessagesBefore(3, 3).seqnos())
+        Assertions.assertTrue(store.getMessagesBefore(1, 3).isEmpty())
+    }
+
+    @Test
+    fun `Expect messages to be restored from file`() {
+        addClientMessages(1, 5)
+        MessageStore(storeFile, 100).apply {
+            ingest(::fetch)
+            close()
+        }
+        requestedSeqnos.clear()
+
+        val store = MessageStore(storeFile, 100)
+        Assertions.assertEquals(0, store.ingest(::fetch))
+        Assertions.assertEquals(listOf(1, 2, 3, 4, 5), store.getMessagesAfter(0).seqnos())
+        Assertions.assertEquals("message 3", store.getMessagesAfter(2).first().body)
+        Assertions.assertEquals(listOf(4), requestedSeqnos)
+    }
+
+    @Test
+    fun `Expect messages of restarted client to be numbered after stored ones`() {
+        addClientMessages(1, 5)
+        val store = MessageStore(storeFile, 100)
+        store.ingest(::fetch)
+        clientMessages.clear()
+        addClientMessages(1, 3, timestamp = 5000L)
+
+        Assertions.assertEquals(3, store.ingest(::fetch))
+        Assertions.assertEquals(listOf(1, 2, 3, 4, 5, 6, 7, 8), store.getMessagesAfter(0).seqnos())
+        Assertions.assertEquals("message 1", store.getMessagesAfter(5).first().body)
+
+        addClientMessages(4, 4, timestamp = 5000L)
+        Assertions.assertEquals(1, store.ingest(::fetch))
+        Assertions.assertEquals(listOf(9), store.getMessagesAfter(8).seqnos())
+    }
+
+    @Test
+    fun `Expect nothing to be ingested if client is not reachable`() {
+        addClientMessages(1, 5)
+        val store = MessageStore(storeFile, 100)
+        store.ingest(::fetch)
+        clientMessages.clear()
+
+        Assertions.assertEquals(0, store.ingest(::fetch))
+        Assertions.assertEquals(5, store.getMessagesAfter(0).size)
+    }
+
+    @Test
+    fun `Expect oldest messages to be dropped beyond capacity`() {
+        addClientMessages(1, 30)
+        MessageStore(storeFile, 20).apply {
+            ingest(::fetch)
+            Assertions.assertEquals((11..30).toList(), getMessagesAfter(0).seqnos())
+            close()
+        }
+
+        Assertions.assertEquals((11..30).toList(), MessageStore(storeFile, 20).getMessagesAfter(0).seqnos())
+    }
+
+    @Test
+    fun `Expect query to match project, priority and words`() {
+        clientMessages.add(Message("Einstein@Home", 1, 1, 100, "Sending scheduler request"))
+        clientMessages.add(Message("Einstein@Home", 2, 2, 200, "Download error for file"))
+        clientMessages.add(Message("Rosetta@home", 2, 3, 300, "Download error for file"))
+        clientMessages.add(Message("Einstein@Home", 1, 4, 400, "Scheduler request completed"))
+        val store = MessageStore(storeFile, 100)
+        store.ingest(::fetch)
+
+        Assertions.assertEquals(listOf(1, 4), store.query(MessageQuery(text = "SCHED request"), 0, 10).seqnos())
+        Assertions.assertEquals(listOf(2), store.query(MessageQuery(project = "Einstein@Home",
+                priorities = listOf(2)), 0, 10).seqnos())
+        Assertions.assertEquals(listOf(3), store.query(MessageQuery(text = "rosetta download"), 0, 10).seqnos())
+        Assertions.assertEquals(listOf(2, 3), store.query(MessageQuery(fromTime = 150, toTime = 350), 0, 10).seqnos())
+        Assertions.assertTrue(store.query(MessageQuery(text = "upload"), 0, 10).isEmpty())
+    }
+
+    @Test
+    fun `Expect query results to be paged`() {
+        for (seqno in 1..10) {
+            clientMessages.add(Message("project", 1, seqno, seqno.toLong(), if (seqno % 2 == 0) "even" else "odd"))
+        }
+        val store = MessageStore(storeFile, 100)
+        store.ingest(::fetch)
+
+        Assertions.assertEquals(listOf(8, 10), store.query(MessageQuery(text = "even"), 0, 2).seqnos())
+        Assertions.assertEquals(listOf(4, 6), store.query(MessageQuery(text = "even"), 8, 2).seqnos())
+        Assertions.assertEquals(listOf(2), store.query(MessageQuery(text = "even"), 4, 2).seqnos())
+    }
+
+    @Test
+    fun `Expect dropped messages not to be found`() {
+        for (seqno in 1..30) {
+            clientMessages.add(Message("project", 1, seqno, seqno.toLong(), "message"))
+        }
+        val store = MessageStore(storeFile, 20)
+        store.ingest(::fetch)
+
+        Assertions.assertEquals((11..30).toList(), store.query(MessageQuery(text = "message"), 0, 100).seqnos())
+    }
+
+    @Test
+    fun `Expect complete messages to be kept if file is truncated`() {
+        addClientMessages(1, 3)
+        MessageStore(storeFile, 100).apply {
+            ingest(::fetch)
+            close()
+        }
+        val bytes = storeFile.readBytes()
+        storeFile.writeBytes(bytes.copyOf(bytes.size - 2))
+
+        Assertions.assertEquals(listOf(1, 2), MessageStore(storeFile, 100).getMessagesAfter(0).seqnos())
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Notice
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class NoticeStoreTest {
+    @TempDir
+    lateinit var dir: File
+
+    private lateinit var file: File
+
+    @BeforeEach
+    fun setUp() {
+        file = File(dir, NoticeStore.FILE_NAME)
+    }
+
+    private fun rss(seqno: Int, arrivalTime: Double) =
+            Notice(seqno = seqno, title = "rss $arrivalTime", arrivalTime = arrivalTime, category = "news")
+
+    private fun server(seqno: Int, arrivalTime: Double, project: String) =
+            Notice(seqno = seqno, title = "server $arrivalTime", arrivalTime = arrivalTime, category = "server",
+                    projectName = project, isServerNotice = true)
+
+    @Test
+    fun `Expect notices to be split into RSS and server notices, client notices to be dropped`() {
+        val store = NoticeStore(null)
+        store.add(listOf(rss(1, 10.0), server(2, 20.0, "p"), Notice(seqno = 3, arrivalTime = 30.0, isClientNotice = true)), NOW)
+
+        Assertions.assertEquals(listOf(rss(1, 10.0)), store.rssNotices)
+        Assertions.assertEquals(listOf(server(2, 20.0, "p")), store.serverNotices)
+        Assertions.assertEquals(3, store.mostRecentSeqno)
+    }
+
+    @Test
+    fun `Expect known notices to be skipped, also if renumbered`() {
+        val store = NoticeStore(null)
+        store.add(listOf(rss(1, 10.0), rss(2, 20.0)), NOW)
+
+        Assertions.assertFalse(store.add(listOf(rss(7, 10.0), rss(8, 20.0)), NOW))
+        Assertions.assertEquals(2, store.rssNotices.size)
+    }
+
+    @Test
+    fun `Expect notices to be sorted by arrival time`() {
+        val store = NoticeStore(null)
+        store.add(listOf(rss(1, 30.0)), NOW)
+        store.add(listOf(rss(2, 10.0), rss(3, 20.0)), NOW)
+
+        Assertions.assertEquals(listOf(10.0, 20.0, 30.0), store.rssNotices.map { it.arrivalTime })
+    }
+
+    @Test
+    fun `Expect oldest notices to be evicted beyond capacity`() {
+        val store = NoticeStore(null, 3)
+        store.add((1..5).map { rss(it, it.toDouble()) }, NOW)
+
+        Assertions.assertEquals(listOf(3.0, 4.0, 5.0), store.rssNotices.map { it.arrivalTime })
+    }
+
+    @Test
+    fun `Expect outdated notices to be evicted`() {
+        val store = NoticeStore(null, 10, 100.0)
+        store.add(listOf(rss(1, NOW - 50)), NOW)
+        store.add(listOf(rss(2, NOW - 200)), NOW)
+        Assertions.assertEquals(1, store.rssNotices.size)
+
+        store.add(emptyList(), NOW + 60)
+        Assertions.assertTrue(store.rssNotices.isEmpty())
+    }
+
+    @Test
+    fun `Expect latest server notice of each project`() {
+        val store = NoticeStore(null)
+        store.add(listOf(server(1, 10.0, "a"), server(2, 20.0, "b"), server(3, 30.0, "a")), NOW)
+
+        Assertions.assertEquals(mapOf("a" to server(3, 30.0, "a"), "b" to server(2, 20.0, "b")),
+                store.latestServerNotices)
+    }
+
+    @Test
+    fun `Expect only RSS notices arrived after given time`() {
+        val store = NoticeStore(null)
+        store.add(listOf(rss(1, 10.0), rss(2, 20.0), rss(3, 20.0), rss(4, 30.0)), NOW)
+
+        Assertions.assertEquals(listOf(2, 3, 4), store.getRssNoticesArrivedAfter(10.0).map { it.seqno })
+        Assertions.assertEquals(listOf(4), store.getRssNoticesArrivedAfter(20.0).map { it.seqno })
+        Assertions.assertTrue(store.getRssNoticesArrivedAfter(30.0).isEmpty())
+    }
+
+    @Test
+    fun `Expect notices to be restored after saving`() {
+        val notices = listOf(rss(1, 10.0).copy(description = "x".repeat(70000), link = "https://example.com"),
+                server(2, 20.0, "p"))
+        NoticeStore(file).apply {
+            add(notices, NOW)
+            Assertions.assertTrue(isModified)
+            save()
+            Assertions.assertFalse(isModified)
+        }
+
+        val restored = NoticeStore(file)
+        Assertions.assertEquals(listOf(notices[0]), restored.rssNotices)
+        Assertions.assertEquals(listOf(notices[1]), restored.serverNotices)
+        Assertions.assertFalse(restored.add(notices, NOW))
+    }
+
+    @Test
+    fun `Expect empty store if file is not readable`() {
+        file.writeText("garbage")
+
+        Assertions.assertTrue(NoticeStore(file).rssNotices.isEmpty())
+    }
+
+    companion object {
+        private const val NOW = 1_000_000.0
+    }
+}
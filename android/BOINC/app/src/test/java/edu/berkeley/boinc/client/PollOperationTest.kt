@@ -0,0 +1,69 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.ProjectConfig
+import edu.berkeley.boinc.utils.ERR_IN_PROGRESS
+import edu.berkeley.boinc.utils.ERR_OK
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class PollOperationTest {
+    private var polls = 0
+
+    private fun operation(started: Boolean, replies: List<ProjectConfig?>) =
+            PollOperation("test", { started }, { replies[polls++] }, ProjectConfig::errorNum).apply {
+                initialIntervalMs = 1
+                maxIntervalMs = 4
+            }
+
+    @Test
+    fun `Expect null and no polls when operation could not be started`() {
+        Assertions.assertNull(operation(false, emptyList()).runBlocking())
+        Assertions.assertEquals(0, polls)
+    }
+
+    @Test
+    fun `Expect final reply after replies in progress`() {
+        val final = ProjectConfig(errorNum = ERR_OK, name = "project")
+        val replies = listOf(ProjectConfig(errorNum = ERR_IN_PROGRESS), ProjectConfig(errorNum = ERR_IN_PROGRESS), final)
+
+        Assertions.assertEquals(final, operation(true, replies).runBlocking())
+        Assertions.assertEquals(3, polls)
+    }
+
+    @Test
+    fun `Expect null when poll fails`() {
+        Assertions.assertNull(operation(true, listOf(ProjectConfig(errorNum = ERR_IN_PROGRESS), null)).runBlocking())
+        Assertions.assertEquals(2, polls)
+    }
+
+    @Test
+    fun `Expect null when operation times out`() {
+        val operation = PollOperation("test", { true }, { ProjectConfig(errorNum = ERR_IN_PROGRESS) },
+                ProjectConfig::errorNum).apply {
+            initialIntervalMs = 1
+            maxIntervalMs = 1
+            timeoutMs = 50
+        }
+
+        Assertions.assertNull(runBlocking { operation.run() })
+    }
+}
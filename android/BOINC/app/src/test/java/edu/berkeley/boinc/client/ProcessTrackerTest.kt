@@ -0,0 +1,76 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+private const val CLIENT = "/data/data/edu.berkeley.boinc/client/boinc"
+
+class ProcessTrackerTest {
+    @TempDir
+    lateinit var procDir: File
+
+    private fun addProcess(pid: Int, vararg args: String) {
+        File(procDir, "$pid").mkdirs()
+        File(procDir, "$pid/cmdline").writeText(args.joinToString("\u0000", postfix = "\u0000"))
+    }
+
+    @Test
+    fun `Expect null pid when executable is not running`() {
+        addProcess(1, "/init")
+        addProcess(42, "$CLIENT.old", "--daemon")
+
+        Assertions.assertNull(ProcessTracker(CLIENT, procDir).findPid())
+    }
+
+    @Test
+    fun `Expect pid of process with executable as first argument`() {
+        addProcess(1, "/init")
+        addProcess(42, "/system/bin/sh", CLIENT)
+        addProcess(4711, CLIENT, "--daemon", "--gui_rpc_unix_domain")
+
+        val tracker = ProcessTracker(CLIENT, procDir)
+
+        Assertions.assertEquals(4711, tracker.findPid())
+        Assertions.assertTrue(tracker.isRunning())
+    }
+
+    @Test
+    fun `Expect awaitExit() to return true after process exited`() = runBlocking {
+        addProcess(4711, CLIENT)
+        val tracker = ProcessTracker(CLIENT, procDir)
+        Assertions.assertEquals(4711, tracker.findPid())
+
+        File(procDir, "4711").deleteRecursively()
+
+        Assertions.assertTrue(tracker.awaitExit(1000))
+        Assertions.assertFalse(tracker.isRunning())
+    }
+
+    @Test
+    fun `Expect awaitExit() to return false if process is still running after timeout`() = runBlocking {
+        addProcess(4711, CLIENT)
+
+        Assertions.assertFalse(ProcessTracker(CLIENT, procDir).awaitExit(100))
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.AllProjectsList
+import edu.berkeley.boinc.rpc.ProjectInfo
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+private const val ARM = "arm-android-linux-gnu"
+private const val ARM64 = "aarch64-android-linux-gnu"
+
+class ProjectCatalogTest {
+    private val armProject = ProjectInfo(name = "A", url = "https://a.org/", platforms = listOf(ARM))
+    private val arm64Project = ProjectInfo(name = "B", url = "https://b.org/", platforms = listOf("$ARM64[opencl]"))
+    private val bothProject = ProjectInfo(name = "C", url = "https://c.org/", platforms = listOf(ARM64, ARM))
+    private val linuxProject = ProjectInfo(name = "D", url = "https://d.org/", platforms = listOf("x86_64-pc-linux-gnu"))
+
+    private val catalog = ProjectCatalog()
+
+    @BeforeEach
+    fun setUp() {
+        catalog.load(AllProjectsList(listOf(armProject, arm64Project, bothProject, linuxProject)), null)
+    }
+
+    @Test
+    fun `Expect projects supporting the platform when no project is attached`() {
+        Assertions.assertEquals(listOf(armProject, bothProject), catalog.attachableProjects(ARM, "", emptySet()))
+    }
+
+    @Test
+    fun `Expect projects of both platforms in catalog order without duplicates`() {
+        Assertions.assertEquals(listOf(armProject, arm64Project, bothProject),
+                catalog.attachableProjects(ARM64, ARM, emptySet()))
+    }
+
+    @Test
+    fun `Expect attached projects to be excluded`() {
+        Assertions.assertEquals(listOf(arm64Project),
+                catalog.attachableProjects(ARM64, ARM, setOf(armProject.url, bothProject.url)))
+    }
+
+    @Test
+    fun `Expect empty list for unknown platform`() {
+        Assertions.assertTrue(catalog.attachableProjects("mips-android-linux-gnu", "", emptySet()).isEmpty())
+    }
+
+    @Test
+    fun `Expect platforms containing the platform name to match`() {
+        val eabiProject = ProjectInfo(name = "E", url = "https://e.org/", platforms = listOf("${ARM}eabi"))
+        catalog.load(AllProjectsList(listOf(linuxProject, eabiProject)), null)
+
+        Assertions.assertEquals(listOf(eabiProject), catalog.attachableProjects(ARM, "", emptySet()))
+    }
+
+    @Test
+    fun `Expect matches to be looked up again after the list changed`() {
+        Assertions.assertEquals(listOf(armProject, bothProject), catalog.attachableProjects(ARM, "", emptySet()))
+
+        catalog.load(AllProjectsList(listOf(linuxProject, armProject)), null)
+
+        Assertions.assertEquals(listOf(armProject), catalog.attachableProjects(ARM, "", emptySet()))
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Notice
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Transfer
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class ProjectRowsTest {
+    private val einstein = Project(masterURL = "https://einsteinathome.org/", projectName = "Einstein@Home")
+    private val rosetta = Project(masterURL = "https://boinc.bakerlab.org/rosetta/", projectName = "Rosetta@home")
+
+    @Test
+    fun `Expect one row per project in order of projects`() {
+        val rows = ProjectRows.build(listOf(rosetta, einstein), emptyList(), emptyMap()) { "" }
+
+        Assertions.assertEquals(listOf(rosetta, einstein), rows.map { it.project })
+    }
+
+    @Test
+    fun `Expect no rows without projects`() {
+        val transfer = Transfer(name = "t1", projectUrl = einstein.masterURL)
+
+        Assertions.assertTrue(ProjectRows.build(emptyList(), listOf(transfer), emptyMap()) { "" }.isEmpty())
+    }
+
+    @Test
+    fun `Expect transfers to be grouped by master URL`() {
+        val transfer1 = Transfer(name = "t1", projectUrl = einstein.masterURL)
+        val transfer2 = Transfer(name = "t2", projectUrl = rosetta.masterURL)
+        val transfer3 = Transfer(name = "t3", projectUrl = einstein.masterURL)
+        val orphan = Transfer(name = "t4", projectUrl = "https://example.com/")
+
+        val rows = ProjectRows.build(listOf(einstein, rosetta), listOf(transfer1, transfer2, transfer3, orphan),
+                emptyMap()) { "" }
+
+        Assertions.assertEquals(listOf(transfer1, transfer3), rows[0].transfers)
+        Assertions.assertEquals(listOf(transfer2), rows[1].transfers)
+    }
+
+    @Test
+    fun `Expect latest server notice to be matched by project name`() {
+        val notice = Notice(seqno = 3, projectName = einstein.projectName)
+
+        val rows = ProjectRows.build(listOf(einstein, rosetta), emptyList(),
+                mapOf(einstein.projectName to notice)) { "" }
+
+        Assertions.assertEquals(notice, rows[0].serverNotice)
+        Assertions.assertNull(rows[1].serverNotice)
+    }
+
+    @Test
+    fun `Expect status text of each project`() {
+        val rows = ProjectRows.build(listOf(einstein, rosetta), emptyList(), emptyMap()) { it.projectName }
+
+        Assertions.assertEquals(einstein.projectName, rows[0].statusText)
+        Assertions.assertEquals(rosetta.projectName, rows[1].statusText)
+    }
+
+    @Test
+    fun `Expect rows built from equal status to be equal`() {
+        val transfer = Transfer(name = "t1", projectUrl = einstein.masterURL)
+        val build = { ProjectRows.build(listOf(einstein.copy()), listOf(transfer.copy()), emptyMap()) { "" } }
+
+        Assertions.assertEquals(build(), build())
+    }
+}
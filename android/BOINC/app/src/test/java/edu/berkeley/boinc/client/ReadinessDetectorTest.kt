@@ -0,0 +1,70 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class ReadinessDetectorTest {
+    @Test
+    fun `Expect immediate return when first check succeeds`() = runBlocking {
+        var checks = 0
+        val elapsed = ReadinessDetector(10000, 10000).await(60000) {
+            checks++
+            true
+        }
+
+        Assertions.assertEquals(1, checks)
+        Assertions.assertNotNull(elapsed)
+        Assertions.assertTrue(elapsed!! < 5000)
+    }
+
+    @Test
+    fun `Expect checks to be repeated until success`() = runBlocking {
+        var checks = 0
+        val elapsed = ReadinessDetector(1, 4).await(60000) { ++checks == 5 }
+
+        Assertions.assertEquals(5, checks)
+        Assertions.assertNotNull(elapsed)
+    }
+
+    @Test
+    fun `Expect null when check does not succeed before timeout`() = runBlocking {
+        Assertions.assertNull(ReadinessDetector(10, 20).await(100) { false })
+    }
+
+    @Test
+    fun `Expect signal to trigger next check before interval elapsed`() = runBlocking {
+        val detector = ReadinessDetector(60000, 60000)
+        var ready = false
+        launch {
+            delay(50)
+            ready = true
+            detector.signal()
+        }
+
+        val elapsed = detector.await(30000) { ready }
+
+        Assertions.assertNotNull(elapsed)
+        Assertions.assertTrue(elapsed!! < 30000)
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class RpcExecutorTest {
+    @Test
+    fun `Expect lane to keep executing requests after a request threw an Error`() {
+        val executor = RpcExecutor()
+
+        assertThrows<StackOverflowError> {
+            executor.executeBlocking(RpcExecutor.Priority.BACKGROUND_POLL) { throw StackOverflowError() }
+        }
+
+        Assertions.assertEquals(42, executor.executeBlocking(RpcExecutor.Priority.BACKGROUND_POLL) { 42 })
+    }
+
+    @Test
+    fun `Expect exception of request to be rethrown to the caller`() {
+        val executor = RpcExecutor()
+
+        assertThrows<IllegalStateException> {
+            executor.executeBlocking(RpcExecutor.Priority.USER_ACTION) { throw IllegalStateException() }
+        }
+    }
+}
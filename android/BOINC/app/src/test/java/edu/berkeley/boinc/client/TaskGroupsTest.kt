@@ -0,0 +1,96 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Result
+import edu.berkeley.boinc.utils.PROCESS_EXECUTING
+import edu.berkeley.boinc.utils.RESULT_FILES_DOWNLOADED
+import edu.berkeley.boinc.utils.RESULT_FILES_DOWNLOADING
+import edu.berkeley.boinc.utils.RESULT_FILES_UPLOADED
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class TaskGroupsTest {
+    private val alpha = Project(masterURL = "https://alpha.example/", projectName = "Alpha")
+    private val beta = Project(masterURL = "https://beta.example/", projectName = "beta")
+
+    private fun running(name: String, project: Project, fractionDone: Float) =
+            Result(name = name, projectURL = project.masterURL, project = project, state = RESULT_FILES_DOWNLOADED,
+                    isActiveTask = true, activeTaskState = PROCESS_EXECUTING, fractionDone = fractionDone)
+
+    private fun waiting(name: String, project: Project) =
+            Result(name = name, projectURL = project.masterURL, project = project, state = RESULT_FILES_DOWNLOADED)
+
+    @Test
+    fun `Expect groups by project and state, ordered by project name and state`() {
+        val groups = TaskGroups(listOf(
+                waiting("b1", beta),
+                running("a1", alpha, 0.25f),
+                waiting("a2", alpha),
+                running("a3", alpha, 0.75f),
+                Result(name = "b2", projectURL = beta.masterURL, project = beta, state = RESULT_FILES_UPLOADED,
+                        isReadyToReport = true),
+                Result(name = "b3", projectURL = beta.masterURL, project = beta, state = RESULT_FILES_DOWNLOADING)
+        )).groups
+
+        Assertions.assertEquals(listOf(
+                TaskGroup(alpha.masterURL, "Alpha", TaskGroup.STATE_RUNNING, 2, 0.5f),
+                TaskGroup(alpha.masterURL, "Alpha", TaskGroup.STATE_WAITING, 1, 0f),
+                TaskGroup(beta.masterURL, "beta", TaskGroup.STATE_WAITING, 1, 0f),
+                TaskGroup(beta.masterURL, "beta", TaskGroup.STATE_TRANSFERRING, 1, 0f),
+                TaskGroup(beta.masterURL, "beta", TaskGroup.STATE_FINISHED, 1, 0f)
+        ), groups)
+    }
+
+    @Test
+    fun `Expect suspended active task to be waiting`() {
+        val suspended = running("a1", alpha, 0.5f).copy(isSuspendedViaGUI = true)
+
+        Assertions.assertEquals(TaskGroup.STATE_WAITING, TaskGroups.stateOf(suspended))
+    }
+
+    @Test
+    fun `Expect master URL as name of unknown project`() {
+        val groups = TaskGroups(listOf(Result(name = "x1", projectURL = "https://unknown.example/"))).groups
+
+        Assertions.assertEquals("https://unknown.example/", groups.single().projectName)
+    }
+
+    @Test
+    fun `Expect windows of a group in the order of the client`() {
+        val results = (0 until 120).map { waiting("a$it", alpha) }
+        val groups = TaskGroups(results)
+
+        Assertions.assertEquals(results.subList(0, 50),
+                groups.getTasks(alpha.masterURL, TaskGroup.STATE_WAITING, 0, 50))
+        Assertions.assertEquals(results.subList(100, 120),
+                groups.getTasks(alpha.masterURL, TaskGroup.STATE_WAITING, 100, 50))
+        Assertions.assertEquals(results, groups.getTasks(alpha.masterURL, TaskGroup.STATE_WAITING, 0, Int.MAX_VALUE))
+    }
+
+    @Test
+    fun `Expect empty window beyond the group or of unknown group`() {
+        val groups = TaskGroups(listOf(waiting("a1", alpha)))
+
+        Assertions.assertTrue(groups.getTasks(alpha.masterURL, TaskGroup.STATE_WAITING, 1, 50).isEmpty())
+        Assertions.assertTrue(groups.getTasks(alpha.masterURL, TaskGroup.STATE_RUNNING, 0, 50).isEmpty())
+        Assertions.assertTrue(groups.getTasks(beta.masterURL, TaskGroup.STATE_WAITING, 0, 50).isEmpty())
+    }
+}
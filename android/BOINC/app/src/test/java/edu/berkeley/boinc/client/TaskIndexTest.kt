@@ -0,0 +1,130 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.App
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Result
+import edu.berkeley.boinc.utils.PROCESS_EXECUTING
+import edu.berkeley.boinc.utils.RESULT_FILES_DOWNLOADED
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+class TaskIndexTest {
+    private val projects = listOf(
+            Project(masterURL = "https://alpha.example/", projectName = "Alpha"),
+            Project(masterURL = "https://beta.example/", projectName = "Beta"),
+            Project(masterURL = "https://gamma.example/", projectName = "Gamma"))
+    private val apps = listOf(App("sieve", "Prime Sieve"), App("fold", "Protein Folding"))
+
+    private lateinit var index: TaskIndex
+
+    @BeforeEach
+    fun setUp() {
+        index = TaskIndex()
+    }
+
+    private fun task(i: Int, random: Random): Result {
+        val project = projects[i % projects.size]
+        val running = random.nextInt(4) == 0
+        return Result(name = "task_${i}_${apps[i % apps.size].name}", projectURL = project.masterURL,
+                project = project, app = apps[i % apps.size], state = RESULT_FILES_DOWNLOADED,
+                isActiveTask = running, activeTaskState = if (running) PROCESS_EXECUTING else 0,
+                reportDeadline = random.nextLong(1000), estimatedCPUTimeRemaining = random.nextInt(100).toDouble(),
+                fractionDone = random.nextInt(10) / 10f)
+    }
+
+    private fun tasks(count: Int, seed: Int): List<Result> {
+        val random = Random(seed)
+        return (0 until count).map { task(it, random) }
+    }
+
+    // evaluates the query without index
+    private fun expected(results: List<Result>, query: TaskQuery): List<Result> {
+        val matches = results.filter { query.matches(it) }
+        val comparator = when (query.sortBy) {
+            TaskQuery.SORT_DEADLINE -> compareBy<Result> { it.reportDeadline }.thenBy { it.name }
+            TaskQuery.SORT_REMAINING -> compareBy<Result> { it.estimatedCPUTimeRemaining }.thenBy { it.name }
+            TaskQuery.SORT_PROGRESS -> compareBy<Result> { it.fractionDone }.thenBy { it.name }
+            else -> return matches
+        }
+        return matches.sortedWith(if (query.descending) comparator.reversed() else comparator)
+    }
+
+    private val queries = listOf(
+            TaskQuery(),
+            TaskQuery(sortBy = TaskQuery.SORT_DEADLINE),
+            TaskQuery(sortBy = TaskQuery.SORT_PROGRESS, descending = true),
+            TaskQuery(project = "beta", sortBy = TaskQuery.SORT_REMAINING),
+            TaskQuery(project = "https://gamma.example/", state = TaskGroup.STATE_RUNNING,
+                    sortBy = TaskQuery.SORT_DEADLINE, descending = true),
+            TaskQuery(app = "Protein Folding", sortBy = TaskQuery.SORT_PROGRESS),
+            TaskQuery(state = TaskGroup.STATE_RUNNING),
+            TaskQuery(text = "task 1", sortBy = TaskQuery.SORT_DEADLINE),
+            TaskQuery(project = "Delta"))
+
+    @Test
+    fun `Expect queries to match evaluation without index`() {
+        val results = tasks(500, 1)
+        index.update(results)
+
+        for (query in queries) {
+            Assertions.assertEquals(expected(results, query), index.query(query, 0, Int.MAX_VALUE), query.toString())
+            Assertions.assertEquals(expected(results, query).size, index.count(query), query.toString())
+        }
+    }
+
+    @Test
+    fun `Expect windows of the query order`() {
+        val results = tasks(200, 2)
+        index.update(results)
+        val query = TaskQuery(sortBy = TaskQuery.SORT_DEADLINE)
+
+        Assertions.assertEquals(expected(results, query).subList(50, 100), index.query(query, 50, 50))
+        Assertions.assertTrue(index.query(query, 200, 50).isEmpty())
+    }
+
+    @Test
+    fun `Expect incremental updates to match a new index`() {
+        index.update(tasks(300, 3))
+        // progress of some tasks, some removed and some added
+        val random = Random(4)
+        val updated = tasks(300, 3).drop(20).map {
+            if (random.nextBoolean()) it.copy(fractionDone = 0.95f, estimatedCPUTimeRemaining = 1.0) else it
+        } + (300 until 330).map { task(it, random) }
+        index.update(updated)
+
+        Assertions.assertEquals(updated.size, index.size)
+        for (query in queries) {
+            Assertions.assertEquals(expected(updated, query), index.query(query, 0, Int.MAX_VALUE), query.toString())
+        }
+    }
+
+    @Test
+    fun `Expect project to be found by name after its first tasks were removed`() {
+        val results = tasks(30, 5)
+        index.update(results)
+        index.update(results.drop(3))
+
+        Assertions.assertEquals(expected(results.drop(3), TaskQuery(project = "alpha")),
+                index.query(TaskQuery(project = "alpha"), 0, Int.MAX_VALUE))
+    }
+}
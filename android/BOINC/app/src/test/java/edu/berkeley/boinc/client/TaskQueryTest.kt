@@ -0,0 +1,66 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.client
+
+import edu.berkeley.boinc.rpc.App
+import edu.berkeley.boinc.rpc.Project
+import edu.berkeley.boinc.rpc.Result
+import edu.berkeley.boinc.utils.PROCESS_EXECUTING
+import edu.berkeley.boinc.utils.RESULT_FILES_DOWNLOADED
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+class TaskQueryTest {
+    @Test
+    fun `Expect plain words to be searched as text`() {
+        Assertions.assertEquals(TaskQuery(text = "gamma ray"), TaskQuery.parse("gamma ray"))
+    }
+
+    @Test
+    fun `Expect project, app and state terms to be parsed`() {
+        val query = TaskQuery.parse("project:\"Einstein@Home\" app:hsgamma state:Running pulsar",
+                TaskQuery.SORT_DEADLINE, true)
+
+        Assertions.assertEquals(TaskQuery("Einstein@Home", "hsgamma", TaskGroup.STATE_RUNNING, "pulsar",
+                TaskQuery.SORT_DEADLINE, true), query)
+    }
+
+    @Test
+    fun `Expect invalid state to be searched as text`() {
+        Assertions.assertEquals(TaskQuery(text = "state:sleeping"), TaskQuery.parse("state:sleeping"))
+    }
+
+    @Test
+    fun `Expect matches to evaluate all criteria`() {
+        val project = Project(masterURL = "https://einstein.example/", projectName = "Einstein@Home")
+        val result = Result(name = "h1_0123_gamma_1", projectURL = project.masterURL, project = project,
+                app = App("hsgamma_FGRP5", "Gamma-ray pulsar binary search"), state = RESULT_FILES_DOWNLOADED,
+                isActiveTask = true, activeTaskState = PROCESS_EXECUTING)
+
+        Assertions.assertTrue(TaskQuery(text = "PULSAR einst").matches(result))
+        Assertions.assertTrue(TaskQuery(project = "einstein@home", app = "HSGAMMA_FGRP5",
+                state = TaskGroup.STATE_RUNNING).matches(result))
+        Assertions.assertTrue(TaskQuery(project = project.masterURL).matches(result))
+        Assertions.assertTrue(TaskQuery(app = "Gamma-ray pulsar binary search").matches(result))
+        Assertions.assertFalse(TaskQuery(project = "Rosetta@home").matches(result))
+        Assertions.assertFalse(TaskQuery(app = "hsgamma").matches(result))
+        Assertions.assertFalse(TaskQuery(state = TaskGroup.STATE_WAITING).matches(result))
+        Assertions.assertFalse(TaskQuery(text = "milkyway").matches(result))
+    }
+}
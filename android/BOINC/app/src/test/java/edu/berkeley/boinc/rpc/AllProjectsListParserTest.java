@@ -0,0 +1,103 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.rpc;
+
+import android.util.Log;
+import android.util.Xml;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.doThrow;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({Log.class, Xml.class})
+public class AllProjectsListParserTest {
+    private static final String PROJECT_NAME = "Project";
+    private static final String PLATFORM_NAME = "arm-android-linux-gnu";
+    private static final String ACCOUNT_MANAGER_NAME = "Account Manager";
+
+    private AllProjectsListParser allProjectsListParser;
+
+    @Before
+    public void setUp() {
+        allProjectsListParser = new AllProjectsListParser();
+    }
+
+    @Test
+    public void testParse_whenSAXExceptionIsThrown_thenExpectEmptyLists() throws Exception {
+        mockStatic(Log.class);
+        mockStatic(Xml.class);
+
+        doThrow(new SAXException()).when(Xml.class, "parse", anyString(), any(ContentHandler.class));
+
+        AllProjectsList allProjectsList = AllProjectsListParser.parse("");
+        assertTrue(allProjectsList.getProjects().isEmpty());
+        assertTrue(allProjectsList.getAccountManagers().isEmpty());
+    }
+
+    @Test
+    public void testParser_whenNoElements_thenExpectEmptyLists() {
+        AllProjectsList allProjectsList = allProjectsListParser.getAllProjectsList();
+
+        assertTrue(allProjectsList.getProjects().isEmpty());
+        assertTrue(allProjectsList.getAccountManagers().isEmpty());
+    }
+
+    @Test
+    public void testParser_whenProjectAndAccountManager_thenExpectBothFromSamePass() throws SAXException {
+        allProjectsListParser.startElement(null, RPCCommonTags.PROJECT, null, null);
+        addElement(RPCCommonTags.NAME, PROJECT_NAME);
+        allProjectsListParser.startElement(null, ProjectInfo.Fields.PLATFORMS, null, null);
+        addElement(RPCCommonTags.NAME, PLATFORM_NAME);
+        allProjectsListParser.endElement(null, ProjectInfo.Fields.PLATFORMS, null);
+        allProjectsListParser.endElement(null, RPCCommonTags.PROJECT, null);
+        allProjectsListParser.startElement(null, RPCCommonTags.ACCOUNT_MANAGER, null, null);
+        addElement(RPCCommonTags.NAME, ACCOUNT_MANAGER_NAME);
+        allProjectsListParser.endElement(null, RPCCommonTags.ACCOUNT_MANAGER, null);
+
+        ProjectInfo expectedProject = new ProjectInfo();
+        expectedProject.setName(PROJECT_NAME);
+        expectedProject.setPlatforms(Collections.singletonList(PLATFORM_NAME));
+        AccountManager expectedAccountManager = new AccountManager();
+        expectedAccountManager.setName(ACCOUNT_MANAGER_NAME);
+
+        AllProjectsList allProjectsList = allProjectsListParser.getAllProjectsList();
+        assertEquals(Collections.singletonList(expectedProject), allProjectsList.getProjects());
+        assertEquals(Collections.singletonList(expectedAccountManager), allProjectsList.getAccountManagers());
+    }
+
+    private void addElement(String localName, String value) throws SAXException {
+        allProjectsListParser.startElement(null, localName, null, null);
+        allProjectsListParser.characters(value.toCharArray(), 0, value.length());
+        allProjectsListParser.endElement(null, localName, null);
+    }
+}
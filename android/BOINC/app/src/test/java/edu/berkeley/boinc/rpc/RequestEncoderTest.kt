@@ -0,0 +1,124 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.rpc
+
+import okio.Buffer
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Assumptions
+import org.junit.jupiter.api.Test
+
+class RequestEncoderTest {
+    private val deviceStatus = DeviceStatusData().apply {
+        isOnACPower = true
+        batteryChargePct = 87
+        batteryTemperatureCelsius = 31
+        isWiFiOnline = true
+        isUserActive = false
+    }
+
+    @Test
+    fun `Expect constant request in envelope`() {
+        Assertions.assertEquals("<boinc_gui_rpc_request>\n<get_cc_status/>\n</boinc_gui_rpc_request>\n\u0003",
+                RequestEncoder.GET_CC_STATUS.utf8())
+    }
+
+    @Test
+    fun `Expect request with sequence number`() {
+        val buffer = Buffer()
+        RequestEncoder.writeSeqno(buffer, RequestEncoder.GET_NOTICES_SEQNO, 42)
+
+        Assertions.assertEquals(frame("<get_notices>\n <seqno>42</seqno>\n</get_notices>\n"), buffer.readUtf8())
+    }
+
+    @Test
+    fun `Expect device status request as built with strings`() {
+        val buffer = Buffer()
+        RequestEncoder.writeDeviceStatus(buffer, deviceStatus)
+
+        Assertions.assertEquals(frame(deviceStatusRequest(deviceStatus)), buffer.readUtf8())
+    }
+
+    @Test
+    fun `Expect encoding device status to allocate far less than building it with strings`() {
+        val allocatedBytes = allocatedBytesCounter()
+        Assumptions.assumeTrue(allocatedBytes != null, "allocation counter not supported by JVM")
+        val buffer = Buffer()
+
+        val encoded = measure(allocatedBytes!!) {
+            deviceStatus.batteryChargePct = it % 100
+            RequestEncoder.writeDeviceStatus(buffer, deviceStatus)
+            buffer.clear()
+        }
+        val built = measure(allocatedBytes) {
+            deviceStatus.batteryChargePct = it % 100
+            buffer.writeString(frame(deviceStatusRequest(deviceStatus)), Charsets.ISO_8859_1)
+            buffer.clear()
+        }
+        val allocations = "bytes allocated per request: encoded $encoded, built with strings $built"
+        // generous bound, the exact numbers depend on the JVM and its JIT (e.g. escape analysis)
+        Assertions.assertTrue(encoded * 4 < built, allocations)
+    }
+
+    // as previously built by RpcClient.sendRequest()
+    private fun frame(request: String) = "<boinc_gui_rpc_request>\n$request</boinc_gui_rpc_request>\n\u0003"
+
+    // as previously built by RpcClient.reportDeviceStatus()
+    private fun deviceStatusRequest(status: DeviceStatusData) = StringBuilder(80)
+            .append("<report_device_status>\n <device_status>\n  <on_ac_power>")
+            .append(if (status.isOnACPower) 1 else 0)
+            .append("</on_ac_power>\n  <on_usb_power>")
+            .append(if (status.isOnUSBPower) 1 else 0)
+            .append("</on_usb_power>\n  <battery_charge_pct>")
+            .append(status.batteryChargePct)
+            .append("</battery_charge_pct>\n  <battery_state>")
+            .append(status.batteryState)
+            .append("</battery_state>\n  <battery_temperature_celsius>")
+            .append(status.batteryTemperatureCelsius)
+            .append("</battery_temperature_celsius>\n  <wifi_online>")
+            .append(if (status.isWiFiOnline) 1 else 0)
+            .append("</wifi_online>\n  <user_active>")
+            .append(if (status.isUserActive) 1 else 0)
+            .append("</user_active>\n </device_status>\n</report_device_status>\n")
+            .toString()
+
+    // average bytes allocated by the current thread per run of block, after warm-up
+    private inline fun measure(allocatedBytes: () -> Long, block: (Int) -> Unit): Double {
+        repeat(ITERATIONS) { block(it) }
+        val before = allocatedBytes()
+        repeat(ITERATIONS) { block(it) }
+        return (allocatedBytes() - before) / ITERATIONS.toDouble()
+    }
+
+    // com.sun.management.ThreadMXBean of HotSpot, looked up by reflection as the management API
+    // is not part of the Android SDK the tests are compiled against
+    private fun allocatedBytesCounter(): (() -> Long)? = try {
+        val bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null)
+        val method = Class.forName("com.sun.management.ThreadMXBean")
+                .getMethod("getThreadAllocatedBytes", Long::class.javaPrimitiveType)
+        val threadId = Thread.currentThread().id
+        // -1 if allocation counting is disabled
+        ({ method.invoke(bean, threadId) as Long }).takeIf { it() >= 0 }
+    } catch (e: ReflectiveOperationException) {
+        null
+    }
+
+    companion object {
+        private const val ITERATIONS = 100_000
+    }
+}
@@ -31,7 +31,10 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -464,4 +467,54 @@ public class RpcClientTest {
 
         assertFalse(rpcClient.runBenchmarks());
     }
+
+    @Test
+    public void testOperationRequest_whenTaskOperation_thenExpectMatchingXmlString() {
+        assertEquals("<abort_result>\n   <project_url>URL</project_url>\n   <name>task</name>\n</abort_result>\n",
+                     RpcClient.operationRequest(RpcClient.RESULT_ABORT, "URL", "task"));
+    }
+
+    @Test
+    public void testOperationRequest_whenProjectOperation_thenExpectNameToBeOmitted() {
+        assertEquals("<project_update>\n   <project_url>URL</project_url>\n</project_update>\n",
+                     RpcClient.operationRequest(RpcClient.PROJECT_UPDATE, "URL", "ignored"));
+    }
+
+    @Test
+    public void testOperationRequest_whenOperationIsUnsupported_thenExpectNull() {
+        assertNull(RpcClient.operationRequest(RpcClient.MGR_SYNC, "URL", ""));
+    }
+
+    @Test
+    public void testBulkOp_whenOperationsSucceedOrFail_thenExpectStatusOfEach() {
+        mockStatic(SimpleReplyParser.class);
+
+        PowerMockito.when(SimpleReplyParser.parse(anyString())).thenReturn(simpleReplyParser);
+        Mockito.when(simpleReplyParser.getResult()).thenReturn(true, false, true);
+
+        final int[] status = rpcClient.bulkOp(Arrays.asList(
+                new BulkOperation(RpcClient.RESULT_SUSPEND, "URL", "task 1"),
+                new BulkOperation(RpcClient.RESULT_SUSPEND, "URL", "task 2"),
+                new BulkOperation(RpcClient.MGR_SYNC, "URL", ""),
+                new BulkOperation(RpcClient.PROJECT_SUSPEND, "URL", "")));
+
+        assertArrayEquals(new int[]{BulkOperation.STATUS_OK, BulkOperation.STATUS_FAILED,
+                                    BulkOperation.STATUS_UNSUPPORTED, BulkOperation.STATUS_OK}, status);
+    }
+
+    @Test
+    public void testBulkOp_whenIOExceptionIsThrown_thenExpectOperationsNotToBeSent() throws IOException {
+        Mockito.doThrow(new IOException()).when(rpcClient).sendRequest(anyString());
+
+        final int[] status = rpcClient.bulkOp(Arrays.asList(
+                new BulkOperation(RpcClient.TRANSFER_RETRY, "URL", "file 1"),
+                new BulkOperation(RpcClient.TRANSFER_RETRY, "URL", "file 2")));
+
+        assertArrayEquals(new int[]{BulkOperation.STATUS_NOT_SENT, BulkOperation.STATUS_NOT_SENT}, status);
+    }
+
+    @Test
+    public void testBulkOp_whenNoOperations_thenExpectEmptyStatus() {
+        assertEquals(0, rpcClient.bulkOp(Collections.emptyList()).length);
+    }
 }
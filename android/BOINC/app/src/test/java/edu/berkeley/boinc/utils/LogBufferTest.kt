@@ -0,0 +1,98 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.utils
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import kotlin.concurrent.thread
+
+class LogBufferTest {
+    private val buffer = LogBuffer(4)
+
+    @Test
+    fun `Expect empty list when nothing was recorded`() {
+        Assertions.assertTrue(buffer.entries(10).isEmpty())
+    }
+
+    @Test
+    fun `Expect entries newest first`() {
+        buffer.add(Log.INFO, "tag", "first")
+        buffer.add(Log.WARN, "tag", "second")
+
+        Assertions.assertEquals(listOf("second", "first"), buffer.entries(10).map { it.message })
+    }
+
+    @Test
+    fun `Expect oldest entries to be overwritten when buffer is full`() {
+        for (i in 0 until 6) {
+            buffer.add(Log.INFO, "tag", "message$i")
+        }
+
+        Assertions.assertEquals(listOf("message5", "message4", "message3", "message2"),
+                buffer.entries(10).map { it.message })
+    }
+
+    @Test
+    fun `Expect number of entries to be limited to max`() {
+        for (i in 0 until 3) {
+            buffer.add(Log.INFO, "tag", "message$i")
+        }
+
+        Assertions.assertEquals(listOf("message2", "message1"), buffer.entries(2).map { it.message })
+    }
+
+    @Test
+    fun `Expect entries below min level to be skipped`() {
+        buffer.add(Log.VERBOSE, "tag", "verbose")
+        buffer.add(Log.ERROR, "tag", "error")
+        buffer.add(Log.DEBUG, "tag", "debug")
+
+        Assertions.assertEquals(listOf("error"), buffer.entries(10, Log.WARN).map { it.message })
+    }
+
+    @Test
+    fun `Expect consistent entries when written concurrently`() {
+        val buffer = LogBuffer(64)
+        val threads = (0 until 4).map { t ->
+            thread { repeat(1000) { buffer.add(Log.DEBUG, "tag", "$t") } }
+        }
+        threads.forEach { it.join() }
+
+        val entries = buffer.entries(100)
+        Assertions.assertEquals(64, entries.size)
+        Assertions.assertEquals((3999L downTo 3936L).toList(), entries.map { it.seqno })
+    }
+
+    @Test
+    fun `Expect format similar to logcat time format`() {
+        val entry = LogEntry(0, 0, Log.WARN, "BOINC_GUI", "message")
+
+        Assertions.assertTrue(entry.format().endsWith(" W/BOINC_GUI: message"))
+    }
+
+    @Test
+    fun `Expect merged entries newest first and limited to max`() {
+        val first = listOf(LogEntry(1, 300, Log.INFO, "tag", "a3"), LogEntry(0, 100, Log.INFO, "tag", "a1"))
+        val second = listOf(LogEntry(1, 400, Log.INFO, "tag", "b4"), LogEntry(0, 200, Log.INFO, "tag", "b2"))
+
+        Assertions.assertEquals(listOf("b4", "a3", "b2", "a1"), LogBuffer.merge(first, second, 10).map { it.message })
+        Assertions.assertEquals(listOf("b4", "a3"), LogBuffer.merge(first, second, 2).map { it.message })
+        Assertions.assertEquals(listOf("a3", "a1"), LogBuffer.merge(first, emptyList(), 10).map { it.message })
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of BOINC.
+ * http://boinc.berkeley.edu
+ * Copyright (C) 2020 University of California
+ *
+ * BOINC is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * BOINC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with BOINC.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package edu.berkeley.boinc.utils
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class TracingTest {
+    @BeforeEach
+    fun setUp() {
+        Tracing.clear()
+    }
+
+    private fun spanNames(json: String) =
+            Regex("\\{\"name\":\"([^\"]*)\",\"ph\":\"[Xi]\"").findAll(json).map { it.groupValues[1] }.toList()
+
+    @Test
+    fun `Expect recorded spans in order of recording`() {
+        Tracing.trace("first") {}
+        Tracing.instant("second")
+        Tracing.end("third", Tracing.begin())
+
+        Assertions.assertEquals(listOf("first", "second", "third"), spanNames(Tracing.eventsJson(1, "test")))
+    }
+
+    @Test
+    fun `Expect oldest spans to be overwritten when buffer is full`() {
+        for (i in 0 until Tracing.CAPACITY + 2) {
+            Tracing.instant("span$i")
+        }
+
+        val names = spanNames(Tracing.eventsJson(1, "test"))
+
+        Assertions.assertEquals(Tracing.CAPACITY, names.size)
+        Assertions.assertEquals("span2", names.first())
+        Assertions.assertEquals("span${Tracing.CAPACITY + 1}", names.last())
+    }
+
+    @Test
+    fun `Expect result of traced block to be returned`() {
+        Assertions.assertEquals(42, Tracing.trace("block") { 42 })
+    }
+
+    @Test
+    fun `Expect names to be escaped`() {
+        Tracing.instant("a \"quoted\" name")
+
+        Assertions.assertTrue(Tracing.eventsJson(1, "test").contains("\"a \\\"quoted\\\" name\""))
+    }
+
+    @Test
+    fun `Expect events of all processes in one trace`() {
+        val trace = Tracing.chromeTrace("[{\"a\":1}]", "[]", "[{\"b\":2}]")
+
+        Assertions.assertEquals("{\"traceEvents\":[{\"a\":1},{\"b\":2}],\"displayTimeUnit\":\"ms\"}", trace)
+    }
+}